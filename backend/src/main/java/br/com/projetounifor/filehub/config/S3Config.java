@@ -1,21 +1,77 @@
 package br.com.projetounifor.filehub.config;
 
+import java.net.URI;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 @Configuration
 public class S3Config {
 
+  // Endpoint opcional para usar um serviço compatível com S3 (ex.: MinIO, LocalStack)
+  @Value("${aws.s3.endpoint:}")
+  private String endpoint;
+
+  // Conexões simultâneas com o S3; com threads virtuais este pool passa a ser o limite de downloads paralelos
+  @Value("${aws.s3.max-conexoes:50}")
+  private int maxConexoes = 50;
+
+  // Conexões do cliente não bloqueante; cada download em andamento ocupa uma conexão, mas nenhuma thread
+  @Value("${aws.s3.async.max-conexoes:500}")
+  private int maxConexoesAssincronas = 500;
+
   @Bean
   public S3Client s3Client() {
     DefaultCredentialsProvider credentialsProvider = DefaultCredentialsProvider.builder().build();
 
-    return S3Client.builder()
+    S3ClientBuilder builder = S3Client.builder()
         .region(Region.US_EAST_1) // use your region
         .credentialsProvider(credentialsProvider)
-        .build();
+        .httpClientBuilder(ApacheHttpClient.builder().maxConnections(maxConexoes));
+
+    if (!endpoint.isBlank()) {
+      builder.endpointOverride(URI.create(endpoint)).forcePathStyle(true);
+    }
+
+    return builder.build();
+  }
+
+  @Bean(destroyMethod = "close")
+  public S3AsyncClient s3AsyncClient() {
+    S3AsyncClientBuilder builder = S3AsyncClient.builder()
+        .region(Region.US_EAST_1)
+        .credentialsProvider(DefaultCredentialsProvider.builder().build())
+        .httpClientBuilder(NettyNioAsyncHttpClient.builder().maxConcurrency(maxConexoesAssincronas));
+
+    if (!endpoint.isBlank()) {
+      builder.endpointOverride(URI.create(endpoint)).forcePathStyle(true);
+    }
+
+    return builder.build();
+  }
+
+  @Bean
+  public S3Presigner s3Presigner() {
+    S3Presigner.Builder builder = S3Presigner.builder()
+        .region(Region.US_EAST_1)
+        .credentialsProvider(DefaultCredentialsProvider.builder().build());
+
+    if (!endpoint.isBlank()) {
+      builder.endpointOverride(URI.create(endpoint))
+          .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build());
+    }
+
+    return builder.build();
   }
-}
\ No newline at end of file
+}
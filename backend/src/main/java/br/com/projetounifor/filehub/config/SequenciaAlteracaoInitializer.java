@@ -0,0 +1,25 @@
+package br.com.projetounifor.filehub.config;
+
+import org.springframework.stereotype.Component;
+
+import br.com.projetounifor.filehub.domain.repository.DocumentoRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Cria a sequência usada em {@code Documento.sequenciaAlteracao}; o
+ * {@code ddl-auto=update} cria a coluna e o índice, mas não sequências que
+ * não geram ids.
+ */
+@Component
+@RequiredArgsConstructor
+public class SequenciaAlteracaoInitializer {
+
+    private final DocumentoRepository documentoRepository;
+
+    @PostConstruct
+    public void init() {
+        documentoRepository.criarSequenciaAlteracao();
+        documentoRepository.numerarAlteracoesPendentes();
+    }
+}
@@ -1,35 +1,56 @@
 package br.com.projetounifor.filehub.controller;
 
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import br.com.projetounifor.filehub.config.JWTUtil;
 import br.com.projetounifor.filehub.domain.model.Documento;
-import br.com.projetounifor.filehub.domain.model.Projeto;
+import br.com.projetounifor.filehub.domain.model.enums.StatusDocumento;
+import br.com.projetounifor.filehub.dto.AlteracoesDTO;
 import br.com.projetounifor.filehub.dto.DocumentoDTO;
+import br.com.projetounifor.filehub.dto.ManifestoDTO;
+import br.com.projetounifor.filehub.dto.ResultadoUploadDTO;
+import br.com.projetounifor.filehub.dto.UploadDiretoDTO;
 import br.com.projetounifor.filehub.service.DocumentoService;
-import br.com.projetounifor.filehub.service.S3Service;
+import br.com.projetounifor.filehub.service.DownloadService;
+import br.com.projetounifor.filehub.service.LeituraNaoBloqueante;
+import br.com.projetounifor.filehub.service.ReplicacaoService;
+import br.com.projetounifor.filehub.service.SincronizacaoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.jsonwebtoken.Claims;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
-import software.amazon.awssdk.core.ResponseInputStream;
-import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/documentos")
@@ -39,7 +60,16 @@ public class DocumentoController {
 
         private final DocumentoService documentoService;
         private final JWTUtil jwtUtil;
-        private final S3Service s3Service;
+        private final ReplicacaoService replicacaoService;
+        private final DownloadService downloadService;
+        private final SincronizacaoService sincronizacaoService;
+        private final ObjectMapper objectMapper;
+
+        @Value("${filehub.download.redirect:false}")
+        private boolean downloadRedirect;
+
+        @Value("${filehub.upload.nao-bloqueante-timeout:30m}")
+        private Duration timeoutUploadNaoBloqueante = Duration.ofMinutes(30);
 
         @PostMapping(value = "/submeter", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
         @Operation(summary = "Submete um novo documento", description = "Realiza o upload de um novo documento associando a um projeto e a um usuário.")
@@ -57,6 +87,21 @@ public class DocumentoController {
                 return ResponseEntity.ok(doc);
         }
 
+        @PostMapping(value = "/submeter-lote", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+        @Operation(summary = "Submete vários documentos de uma vez", description = "Realiza o upload de vários arquivos para um projeto em uma única requisição, retornando o resultado de cada arquivo.")
+        @ApiResponses({
+                        @ApiResponse(responseCode = "200", description = "Lote processado; falhas individuais constam no resultado de cada arquivo"),
+                        @ApiResponse(responseCode = "400", description = "Requisição inválida"),
+                        @ApiResponse(responseCode = "401", description = "Não autorizado")
+        })
+        public ResponseEntity<List<ResultadoUploadDTO>> submeterLote(
+                        @Parameter(description = "ID do projeto ao qual os documentos pertencem", example = "1") @RequestParam Long projetoId,
+                        @Parameter(description = "ID do usuário que está submetendo os documentos", example = "42") @RequestParam Long usuarioId,
+                        @Parameter(description = "Arquivos a serem submetidos", required = true) @RequestParam List<MultipartFile> files) {
+
+                return ResponseEntity.ok(documentoService.submeterLote(projetoId, usuarioId, files));
+        }
+
         @PostMapping("/aprovar")
         @Operation(summary = "Aprova um documento", description = "Realiza a aprovação de um documento por um usuário aprovador")
         @ApiResponses({
@@ -77,7 +122,17 @@ public class DocumentoController {
                         @ApiResponse(responseCode = "404", description = "Projeto não encontrado")
         })
         public ResponseEntity<List<DocumentoDTO>> listarPorProjeto(
-                        @Parameter(description = "ID do projeto", example = "1") @PathVariable Long projetoId) {
+                        @Parameter(description = "ID do projeto", example = "1") @PathVariable Long projetoId,
+                        @Parameter(description = "Inclui URLs assinadas de download de cada documento") @RequestParam(defaultValue = "false") boolean incluirUrl,
+                        HttpServletRequest request) {
+
+                if (incluirUrl) {
+                        Long userId = usuarioAutenticado(request);
+                        if (userId == null) {
+                                return ResponseEntity.status(403).build();
+                        }
+                        return ResponseEntity.ok(documentoService.consultarPorProjetoComUrl(projetoId, userId));
+                }
 
                 List<DocumentoDTO> documentos = documentoService.consultarPorProjeto(projetoId);
 
@@ -86,6 +141,25 @@ public class DocumentoController {
                 return ResponseEntity.ok(documentos);
         }
 
+        @PostMapping("/projeto/{projetoId}/sincronizar")
+        @Operation(summary = "Retorna o que mudou no projeto desde a última sincronização", description = "Recebe o cursor da consulta anterior ou, na primeira vez, o manifesto dos documentos locais (id, versão e hash do conteúdo). Responde com os documentos alterados, os ids removidos e o cursor para a próxima consulta.")
+        @ApiResponses({
+                        @ApiResponse(responseCode = "200", description = "Alterações retornadas com sucesso"),
+                        @ApiResponse(responseCode = "403", description = "Usuário não pertence ao projeto"),
+                        @ApiResponse(responseCode = "404", description = "Projeto não encontrado")
+        })
+        public ResponseEntity<AlteracoesDTO> sincronizarProjeto(
+                        @Parameter(description = "ID do projeto", example = "1") @PathVariable Long projetoId,
+                        @RequestBody ManifestoDTO manifesto,
+                        HttpServletRequest request) {
+                Long userId = usuarioAutenticado(request);
+                if (userId == null) {
+                        return ResponseEntity.status(403).build();
+                }
+
+                return ResponseEntity.ok(documentoService.sincronizarProjeto(projetoId, userId, manifesto));
+        }
+
         @PostMapping(value = "/nova-versao", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
         @Operation(summary = "Submete nova versão de documento", description = "Cria uma nova versão de um documento já existente")
         @ApiResponses({
@@ -104,46 +178,277 @@ public class DocumentoController {
         @Operation(summary = "Retorna o arquivo do documento")
         @ApiResponses({
                         @ApiResponse(responseCode = "200", description = "Arquivo retornado com sucesso"),
+                        @ApiResponse(responseCode = "206", description = "Faixa(s) do arquivo retornada(s) conforme o cabeçalho Range"),
+                        @ApiResponse(responseCode = "302", description = "Redireciona para uma URL assinada do S3 (modo redirect)"),
+                        @ApiResponse(responseCode = "304", description = "Arquivo não modificado desde a cópia do cliente"),
                         @ApiResponse(responseCode = "404", description = "Documento não encontrado")
         })
         public ResponseEntity<Object> getDocumento(
                         @Parameter(description = "ID do documento", example = "1") @PathVariable Long documentoId,
-                        HttpServletRequest request) {
+                        HttpServletRequest request, HttpServletResponse response) throws IOException {
 
-                String authHeader = request.getHeader("Authorization");
+                Long userId = usuarioAutenticado(request);
+                if (userId == null) {
+                        return ResponseEntity.status(403).build();
+                }
+
+                Documento doc = documentoService.getDocumento(documentoId);
 
-                if (!authHeader.startsWith("Bearer ")) {
+                if (!documentoService.usuarioTemAcesso(doc.getProjeto(), userId)) {
                         return ResponseEntity.status(403).build();
                 }
 
-                String jwt = authHeader.substring(7);
+                // Enquanto a replicação não termina, o arquivo é servido a partir do spool local
+                if (doc.getStatus() == StatusDocumento.ENVIANDO) {
+                        Optional<Path> spool = replicacaoService.arquivoEmSpool(doc);
+                        if (spool.isPresent()) {
+                                return ResponseEntity.ok()
+                                                .header(HttpHeaders.CONTENT_DISPOSITION,
+                                                                "attachment; filename=\"" + doc.getNomeArquivo() + "\"")
+                                                .contentType(MediaTypeFactory.getMediaType(doc.getNomeArquivo())
+                                                                .orElse(MediaType.APPLICATION_OCTET_STREAM))
+                                                .contentLength(Files.size(spool.get()))
+                                                .body(new FileSystemResource(spool.get()));
+                        }
+                }
 
-                Claims claims = jwtUtil.parseToken(jwt);
+                // No modo redirect o download vai direto do S3 para o cliente, sem ocupar a aplicação
+                if (downloadRedirect) {
+                        Optional<URL> url = documentoService.urlDownload(doc);
+                        if (url.isPresent()) {
+                                return ResponseEntity.status(HttpStatus.FOUND)
+                                                .location(URI.create(url.get().toString()))
+                                                .build();
+                        }
+                }
 
-                Long userId = claims.get("id", Long.class);
+                // Range, If-None-Match e If-Modified-Since são tratados ao repassar o objeto armazenado
+                downloadService.enviarArquivo(doc, request, response);
+                return null;
+        }
+
+        @RequestMapping(value = "/{documentoId}", method = RequestMethod.HEAD)
+        @Operation(summary = "Retorna os metadados do arquivo do documento", description = "Tamanho, tipo e ETag gravados no envio, sem baixar o arquivo nem consultar o armazenamento.")
+        @ApiResponses({
+                        @ApiResponse(responseCode = "200", description = "Metadados retornados nos cabeçalhos"),
+                        @ApiResponse(responseCode = "304", description = "Arquivo não modificado desde a cópia do cliente"),
+                        @ApiResponse(responseCode = "404", description = "Documento não encontrado")
+        })
+        public ResponseEntity<Object> headDocumento(
+                        @Parameter(description = "ID do documento", example = "1") @PathVariable Long documentoId,
+                        HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+                Long userId = usuarioAutenticado(request);
+                if (userId == null) {
+                        return ResponseEntity.status(403).build();
+                }
 
                 Documento doc = documentoService.getDocumento(documentoId);
-                Projeto p = doc.getProjeto();
 
-                boolean userInProject = p.getUsuarios().stream().filter(u -> u.getId() == userId).findFirst()
-                                .isPresent();
+                if (!documentoService.usuarioTemAcesso(doc.getProjeto(), userId)) {
+                        return ResponseEntity.status(403).build();
+                }
+
+                downloadService.enviarMetadados(doc, request, response);
+                return null;
+        }
+
+        @PostMapping(value = "/{documentoId}/sincronizar", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+        @Operation(summary = "Sincroniza a cópia local do cliente com o documento", description = "O corpo traz as assinaturas dos blocos do arquivo que o cliente já tem (FHS1); a resposta é um delta (FHD1) com instruções de cópia sobre esse arquivo e apenas os trechos que faltam.")
+        @ApiResponses({
+                        @ApiResponse(responseCode = "200", description = "Delta retornado com sucesso"),
+                        @ApiResponse(responseCode = "304", description = "A cópia do cliente já é esta versão (If-None-Match)"),
+                        @ApiResponse(responseCode = "400", description = "Assinaturas inválidas"),
+                        @ApiResponse(responseCode = "403", description = "Usuário não pertence ao projeto"),
+                        @ApiResponse(responseCode = "409", description = "O arquivo do documento ainda está sendo enviado")
+        })
+        public ResponseEntity<Object> sincronizar(
+                        @Parameter(description = "ID do documento", example = "1") @PathVariable Long documentoId,
+                        HttpServletRequest request, HttpServletResponse response) throws IOException {
+                Long userId = usuarioAutenticado(request);
+                if (userId == null) {
+                        return ResponseEntity.status(403).build();
+                }
+
+                Documento doc = documentoService.getDocumento(documentoId);
+
+                if (!documentoService.usuarioTemAcesso(doc.getProjeto(), userId)) {
+                        return ResponseEntity.status(403).build();
+                }
+                if (doc.getStatus() == StatusDocumento.ENVIANDO) {
+                        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+                }
+
+                sincronizacaoService.enviarDelta(doc, request, response);
+                return null;
+        }
+
+        @PostMapping("/{documentoId}/copiar")
+        @Operation(summary = "Copia um documento para outro projeto", description = "Duplica os metadados do documento; o conteúdo é compartilhado ou copiado dentro do próprio armazenamento, sem passar pela aplicação.")
+        @ApiResponses({
+                        @ApiResponse(responseCode = "200", description = "Documento copiado com sucesso"),
+                        @ApiResponse(responseCode = "403", description = "Usuário não pertence a um dos projetos"),
+                        @ApiResponse(responseCode = "404", description = "Documento ou projeto não encontrado")
+        })
+        public ResponseEntity<DocumentoDTO> copiar(
+                        @Parameter(description = "ID do documento", example = "1") @PathVariable Long documentoId,
+                        @Parameter(description = "ID do projeto de destino", example = "2") @RequestParam Long projetoDestinoId,
+                        HttpServletRequest request) {
+                Long userId = usuarioAutenticado(request);
+                if (userId == null) {
+                        return ResponseEntity.status(403).build();
+                }
+
+                return ResponseEntity.ok(documentoService.copiar(documentoId, projetoDestinoId, userId));
+        }
+
+        @PostMapping("/{documentoId}/mover")
+        @Operation(summary = "Move um documento para outro projeto", description = "Altera apenas o projeto do documento; nenhum arquivo é copiado.")
+        @ApiResponses({
+                        @ApiResponse(responseCode = "200", description = "Documento movido com sucesso"),
+                        @ApiResponse(responseCode = "403", description = "Usuário não pertence a um dos projetos"),
+                        @ApiResponse(responseCode = "404", description = "Documento ou projeto não encontrado")
+        })
+        public ResponseEntity<DocumentoDTO> mover(
+                        @Parameter(description = "ID do documento", example = "1") @PathVariable Long documentoId,
+                        @Parameter(description = "ID do projeto de destino", example = "2") @RequestParam Long projetoDestinoId,
+                        HttpServletRequest request) {
+                Long userId = usuarioAutenticado(request);
+                if (userId == null) {
+                        return ResponseEntity.status(403).build();
+                }
+
+                return ResponseEntity.ok(documentoService.mover(documentoId, projetoDestinoId, userId));
+        }
+
+        @PostMapping("/projeto/{projetoId}/copiar")
+        @Operation(summary = "Copia todos os documentos de um projeto para outro", description = "Retorna o resultado de cada documento; uma falha em um documento não impede os demais.")
+        @ApiResponses({
+                        @ApiResponse(responseCode = "200", description = "Cópia concluída (ver o resultado de cada documento)"),
+                        @ApiResponse(responseCode = "403", description = "Usuário não pertence a um dos projetos"),
+                        @ApiResponse(responseCode = "404", description = "Projeto não encontrado")
+        })
+        public ResponseEntity<List<ResultadoUploadDTO>> copiarProjeto(
+                        @Parameter(description = "ID do projeto de origem", example = "1") @PathVariable Long projetoId,
+                        @Parameter(description = "ID do projeto de destino", example = "2") @RequestParam Long projetoDestinoId,
+                        HttpServletRequest request) {
+                Long userId = usuarioAutenticado(request);
+                if (userId == null) {
+                        return ResponseEntity.status(403).build();
+                }
 
-                boolean userIsOwner = p.getCriador().getId().equals(userId);
+                return ResponseEntity.ok(documentoService.copiarProjeto(projetoId, projetoDestinoId, userId));
+        }
 
-                if (!userIsOwner && !userInProject) {
-                        System.out.println("returning 403");
+        @PostMapping("/upload-direto")
+        @Operation(summary = "Inicia um upload direto para o S3", description = "Cria o documento como ENVIANDO e retorna uma URL assinada para o PUT do arquivo diretamente no S3, sem passar pela aplicação.")
+        @ApiResponses({
+                        @ApiResponse(responseCode = "200", description = "URL de upload gerada com sucesso"),
+                        @ApiResponse(responseCode = "401", description = "Não autorizado"),
+                        @ApiResponse(responseCode = "403", description = "Usuário não pertence ao projeto"),
+                        @ApiResponse(responseCode = "501", description = "O armazenamento configurado não aceita upload direto")
+        })
+        public ResponseEntity<UploadDiretoDTO> iniciarUploadDireto(
+                        @Parameter(description = "ID do projeto ao qual o documento pertence", example = "1") @RequestParam Long projetoId,
+                        @Parameter(description = "Nome do arquivo", example = "contrato.pdf") @RequestParam String nomeArquivo,
+                        @Parameter(description = "Tipo do conteúdo que será enviado no PUT", example = "application/pdf") @RequestParam(required = false) String contentType,
+                        HttpServletRequest request) {
+                Long userId = usuarioAutenticado(request);
+                if (userId == null) {
                         return ResponseEntity.status(403).build();
                 }
+                if (!documentoService.suportaUploadDireto()) {
+                        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).build();
+                }
+
+                return ResponseEntity.ok(documentoService.iniciarUploadDireto(projetoId, userId, nomeArquivo, contentType));
+        }
+
+        @PutMapping("/upload-nao-bloqueante")
+        @Operation(summary = "Envia um documento em streaming não bloqueante", description = "O corpo da requisição é o próprio arquivo (não multipart) e é repassado ao S3 conforme o S3 aceita os bytes, sem ocupar uma thread durante o envio. Exige Content-Length; o Content-Type é gravado no objeto.")
+        @ApiResponses({
+                        @ApiResponse(responseCode = "200", description = "Documento submetido com sucesso"),
+                        @ApiResponse(responseCode = "403", description = "Usuário não pertence ao projeto"),
+                        @ApiResponse(responseCode = "411", description = "Content-Length ausente"),
+                        @ApiResponse(responseCode = "501", description = "O armazenamento configurado não aceita envio não bloqueante"),
+                        @ApiResponse(responseCode = "502", description = "Falha ao gravar o arquivo no armazenamento")
+        })
+        public ResponseEntity<DocumentoDTO> submeterNaoBloqueante(
+                        @Parameter(description = "ID do projeto ao qual o documento pertence", example = "1") @RequestParam Long projetoId,
+                        @Parameter(description = "Nome do arquivo", example = "contrato.pdf") @RequestParam String nomeArquivo,
+                        HttpServletRequest request) throws IOException {
+                Long userId = usuarioAutenticado(request);
+                if (userId == null) {
+                        return ResponseEntity.status(403).build();
+                }
+                if (!documentoService.suportaUploadNaoBloqueante()) {
+                        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).build();
+                }
+                long tamanho = request.getContentLengthLong();
+                if (tamanho < 0) {
+                        return ResponseEntity.status(HttpStatus.LENGTH_REQUIRED).build();
+                }
+
+                Documento doc = documentoService.novoDocumento(projetoId, userId, nomeArquivo);
+
+                // A partir daqui a thread da requisição é liberada; a resposta é escrita quando o S3 confirmar
+                AsyncContext contexto = request.startAsync();
+                contexto.setTimeout(timeoutUploadNaoBloqueante.toMillis());
+                LeituraNaoBloqueante conteudo = new LeituraNaoBloqueante(request.getInputStream());
+                documentoService.submeterNaoBloqueante(doc, request.getContentType(), tamanho, conteudo)
+                                .whenComplete((dto, erro) -> responderUploadNaoBloqueante(contexto, dto, erro));
+                return null;
+        }
+
+        @PostMapping("/{documentoId}/concluir-upload")
+        @Operation(summary = "Conclui um upload direto", description = "Confirma que o arquivo foi enviado ao S3 e marca o documento como submetido.")
+        @ApiResponses({
+                        @ApiResponse(responseCode = "200", description = "Documento submetido com sucesso"),
+                        @ApiResponse(responseCode = "401", description = "Não autorizado"),
+                        @ApiResponse(responseCode = "403", description = "Documento pertence a outro usuário")
+        })
+        public ResponseEntity<DocumentoDTO> concluirUploadDireto(
+                        @Parameter(description = "ID do documento", example = "1") @PathVariable Long documentoId,
+                        HttpServletRequest request) {
+                Long userId = usuarioAutenticado(request);
+                if (userId == null) {
+                        return ResponseEntity.status(403).build();
+                }
+
+                return ResponseEntity.ok(documentoService.concluirUploadDireto(documentoId, userId));
+        }
+
+        private void responderUploadNaoBloqueante(AsyncContext contexto, DocumentoDTO dto, Throwable erro) {
+                HttpServletResponse response = (HttpServletResponse) contexto.getResponse();
+                try {
+                        if (erro == null) {
+                                response.setStatus(HttpStatus.OK.value());
+                                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                                objectMapper.writeValue(response.getOutputStream(), dto);
+                        } else {
+                                response.setStatus(HttpStatus.BAD_GATEWAY.value());
+                        }
+                } catch (IOException e) {
+                        // O cliente desconectou; o documento já foi gravado e aparece na listagem do projeto
+                } finally {
+                        try {
+                                contexto.complete();
+                        } catch (IllegalStateException e) {
+                                // O tempo da requisição esgotou e o container já encerrou a resposta
+                        }
+                }
+        }
+
+        // Extrai o id do usuário do token JWT; retorna null se o cabeçalho não for válido
+        private Long usuarioAutenticado(HttpServletRequest request) {
+                String authHeader = request.getHeader("Authorization");
+
+                if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+                        return null;
+                }
 
-                ResponseInputStream<GetObjectResponse> s3Object = s3Service.downloadFile("filehub-document-bucket",
-                                doc.getCaminhoArquivo());
-                GetObjectResponse objectMetadata = s3Object.response();
+                Claims claims = jwtUtil.parseToken(authHeader.substring(7));
 
-                return ResponseEntity.ok()
-                                .header(HttpHeaders.CONTENT_DISPOSITION,
-                                                "attachment; filename=\"" + doc.getNomeArquivo() + "\"")
-                                .contentType(MediaType.parseMediaType(objectMetadata.contentType()))
-                                .contentLength(objectMetadata.contentLength())
-                                .body(new InputStreamResource(s3Object));
+                return claims != null ? claims.get("id", Long.class) : null;
         }
 }
@@ -1,8 +1,10 @@
 package br.com.projetounifor.filehub.controller;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.List;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,14 +16,20 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import br.com.projetounifor.filehub.config.JWTUtil;
+import br.com.projetounifor.filehub.domain.model.Documento;
 import br.com.projetounifor.filehub.dto.ProjetoRequestDTO;
 import br.com.projetounifor.filehub.dto.ProjetoResponseDTO;
+import br.com.projetounifor.filehub.service.ExportacaoService;
 import br.com.projetounifor.filehub.service.ProjetoService;
+import io.jsonwebtoken.Claims;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -32,6 +40,8 @@ import lombok.RequiredArgsConstructor;
 public class ProjetoController {
 
     private final ProjetoService projetoService;
+    private final ExportacaoService exportacaoService;
+    private final JWTUtil jwtUtil;
 
     @PostMapping
     @Operation(
@@ -78,6 +88,35 @@ public class ProjetoController {
         return ResponseEntity.ok(projetoService.buscarPorIdDTO(id));
     }
 
+    @GetMapping("/{id}/export.zip")
+    @Operation(
+            summary = "Exporta os documentos do projeto",
+            description = "Gera e envia, durante o download, um ZIP com todos os documentos do projeto."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "ZIP enviado com sucesso"),
+            @ApiResponse(responseCode = "403", description = "Usuário não pertence ao projeto"),
+            @ApiResponse(responseCode = "404", description = "Projeto não encontrado")
+    })
+    public ResponseEntity<Void> exportar(
+            @Parameter(description = "ID do projeto", example = "1")
+            @PathVariable Long id,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        Long userId = usuarioAutenticado(request);
+        if (userId == null) {
+            return ResponseEntity.status(403).build();
+        }
+
+        List<Documento> documentos = exportacaoService.listarDocumentos(id, userId);
+
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"projeto-" + id + ".zip\"");
+        exportacaoService.exportar(documentos, response.getOutputStream());
+        return null;
+    }
+
     @PutMapping("/{id}")
     @Operation(
             summary = "Atualiza um projeto",
@@ -169,4 +208,17 @@ public class ProjetoController {
         ProjetoResponseDTO projetoAtualizado = projetoService.removerAprovador(id, usuarioId);
         return ResponseEntity.ok(projetoAtualizado);
     }
+
+    // Extrai o id do usuário do token JWT; retorna null se o cabeçalho não for válido
+    private Long usuarioAutenticado(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+
+        Claims claims = jwtUtil.parseToken(authHeader.substring(7));
+
+        return claims != null ? claims.get("id", Long.class) : null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+package br.com.projetounifor.filehub.controller;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.projetounifor.filehub.config.JWTUtil;
+import br.com.projetounifor.filehub.dto.DocumentoDTO;
+import br.com.projetounifor.filehub.dto.SessaoUploadDTO;
+import br.com.projetounifor.filehub.service.SessaoUploadService;
+import io.jsonwebtoken.Claims;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/documentos/sessoes")
+@RequiredArgsConstructor
+@Tag(name = "Sessões de upload", description = "Upload retomável de documentos grandes em partes numeradas")
+public class SessaoUploadController {
+
+        private final SessaoUploadService sessaoUploadService;
+        private final JWTUtil jwtUtil;
+
+        @PostMapping
+        @Operation(summary = "Cria uma sessão de upload", description = "Inicia um upload retomável para um novo documento do projeto.")
+        @ApiResponses({
+                        @ApiResponse(responseCode = "200", description = "Sessão criada com sucesso"),
+                        @ApiResponse(responseCode = "400", description = "Requisição inválida"),
+                        @ApiResponse(responseCode = "401", description = "Não autorizado"),
+                        @ApiResponse(responseCode = "403", description = "Usuário não pertence ao projeto")
+        })
+        public ResponseEntity<SessaoUploadDTO> criar(
+                        @Parameter(description = "ID do projeto ao qual o documento pertence", example = "1") @RequestParam Long projetoId,
+                        @Parameter(description = "Nome do arquivo", example = "planta.dwg") @RequestParam String nomeArquivo,
+                        @Parameter(description = "Tipo do conteúdo", example = "application/pdf") @RequestParam(required = false) String contentType,
+                        HttpServletRequest request) {
+                Long userId = usuarioAutenticado(request);
+                if (userId == null) {
+                        return ResponseEntity.status(403).build();
+                }
+
+                return ResponseEntity.ok(sessaoUploadService.criarSessao(projetoId, userId, nomeArquivo, contentType));
+        }
+
+        @PutMapping("/{sessaoId}/partes/{numero}")
+        @Operation(summary = "Envia uma parte do arquivo", description = "Recebe o conteúdo bruto de uma parte numerada (1 a 10000). As partes podem chegar em qualquer ordem; todas, exceto a última, devem ter ao menos 5 MB.")
+        @ApiResponses({
+                        @ApiResponse(responseCode = "200", description = "Parte armazenada com sucesso"),
+                        @ApiResponse(responseCode = "400", description = "Parte inválida"),
+                        @ApiResponse(responseCode = "401", description = "Não autorizado"),
+                        @ApiResponse(responseCode = "403", description = "Usuário não pertence ao projeto"),
+                        @ApiResponse(responseCode = "411", description = "Content-Length ausente")
+        })
+        public ResponseEntity<SessaoUploadDTO> enviarParte(
+                        @Parameter(description = "ID da sessão de upload", example = "3") @PathVariable Long sessaoId,
+                        @Parameter(description = "Número da parte", example = "1") @PathVariable int numero,
+                        HttpServletRequest request) throws IOException {
+                Long userId = usuarioAutenticado(request);
+                if (userId == null) {
+                        return ResponseEntity.status(403).build();
+                }
+
+                // O armazenamento precisa do tamanho da parte antes do primeiro byte; corpo chunked não serve
+                long tamanho = request.getContentLengthLong();
+                if (tamanho < 0) {
+                        return ResponseEntity.status(HttpStatus.LENGTH_REQUIRED).build();
+                }
+                if (tamanho == 0) {
+                        return ResponseEntity.badRequest().build();
+                }
+
+                return ResponseEntity.ok(sessaoUploadService.enviarParte(sessaoId, userId, numero,
+                                request.getInputStream(), tamanho));
+        }
+
+        @GetMapping("/{sessaoId}")
+        @Operation(summary = "Consulta uma sessão de upload", description = "Retorna quais partes já foram recebidas, para que o cliente retome o envio.")
+        @ApiResponses({
+                        @ApiResponse(responseCode = "200", description = "Sessão retornada com sucesso"),
+                        @ApiResponse(responseCode = "404", description = "Sessão não encontrada")
+        })
+        public ResponseEntity<SessaoUploadDTO> consultar(
+                        @Parameter(description = "ID da sessão de upload", example = "3") @PathVariable Long sessaoId,
+                        HttpServletRequest request) {
+                Long userId = usuarioAutenticado(request);
+                if (userId == null) {
+                        return ResponseEntity.status(403).build();
+                }
+
+                return ResponseEntity.ok(sessaoUploadService.consultarSessao(sessaoId, userId));
+        }
+
+        @PostMapping("/{sessaoId}/finalizar")
+        @Operation(summary = "Finaliza uma sessão de upload", description = "Conclui o upload e cria o documento a partir das partes recebidas.")
+        @ApiResponses({
+                        @ApiResponse(responseCode = "200", description = "Documento criado com sucesso"),
+                        @ApiResponse(responseCode = "400", description = "Há partes faltando"),
+                        @ApiResponse(responseCode = "401", description = "Não autorizado"),
+                        @ApiResponse(responseCode = "403", description = "Usuário não pertence ao projeto")
+        })
+        public ResponseEntity<DocumentoDTO> finalizar(
+                        @Parameter(description = "ID da sessão de upload", example = "3") @PathVariable Long sessaoId,
+                        HttpServletRequest request) {
+                Long userId = usuarioAutenticado(request);
+                if (userId == null) {
+                        return ResponseEntity.status(403).build();
+                }
+
+                return ResponseEntity.ok(sessaoUploadService.finalizarSessao(sessaoId, userId));
+        }
+
+        @DeleteMapping("/{sessaoId}")
+        @Operation(summary = "Cancela uma sessão de upload", description = "Descarta as partes já enviadas.")
+        @ApiResponses({
+                        @ApiResponse(responseCode = "204", description = "Sessão cancelada com sucesso"),
+                        @ApiResponse(responseCode = "404", description = "Sessão não encontrada")
+        })
+        public ResponseEntity<Void> cancelar(
+                        @Parameter(description = "ID da sessão de upload", example = "3") @PathVariable Long sessaoId,
+                        HttpServletRequest request) {
+                Long userId = usuarioAutenticado(request);
+                if (userId == null) {
+                        return ResponseEntity.status(403).build();
+                }
+
+                sessaoUploadService.cancelarSessao(sessaoId, userId);
+                return ResponseEntity.noContent().build();
+        }
+
+        // Extrai o id do usuário do token JWT; retorna null se o cabeçalho não for válido
+        private Long usuarioAutenticado(HttpServletRequest request) {
+                String authHeader = request.getHeader("Authorization");
+
+                if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+                        return null;
+                }
+
+                Claims claims = jwtUtil.parseToken(authHeader.substring(7));
+
+                return claims != null ? claims.get("id", Long.class) : null;
+        }
+}
@@ -0,0 +1,30 @@
+package br.com.projetounifor.filehub.domain.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Conteúdo armazenado, endereçado pelo SHA-256 dos bytes. Documentos com o
+ * mesmo conteúdo apontam para o mesmo objeto, e {@code referencias} conta
+ * quantos documentos o usam.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConteudoArquivo {
+    // SHA-256 em hexadecimal
+    @Id
+    @Column(length = 64)
+    private String hash;
+    // Tamanho original, antes de uma eventual compressão
+    private Long tamanho;
+    private String caminhoArquivo;
+    // Content-Encoding do objeto armazenado (gzip), nulo quando guardado sem compressão
+    private String codificacao;
+    private Integer referencias;
+    private LocalDateTime criadoEm;
+}
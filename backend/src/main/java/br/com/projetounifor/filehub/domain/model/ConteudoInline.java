@@ -0,0 +1,29 @@
+package br.com.projetounifor.filehub.domain.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bytes de um conteúdo pequeno guardados no próprio banco, na chave
+ * {@code inline/<hash>}. Um arquivo de poucos KB é servido com uma consulta,
+ * sem as requisições ao armazenamento de objetos. Com {@code empacotar}, o
+ * registro só espera o próximo pacote (ver PacoteService).
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_conteudo_inline_empacotar", columnList = "empacotar, criado_em"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConteudoInline {
+    @Id
+    private String chave;
+    @Column(columnDefinition = "bytea")
+    private byte[] conteudo;
+    private String contentType;
+    private Long tamanho;
+    private LocalDateTime criadoEm;
+    private Boolean empacotar;
+}
@@ -3,10 +3,13 @@ package br.com.projetounifor.filehub.domain.model;
 import br.com.projetounifor.filehub.domain.model.enums.StatusDocumento;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
 
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = @Index(name = "idx_documento_projeto_alteracao", columnList = "project_id, sequencia_alteracao"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -17,7 +20,20 @@ public class Documento {
     private Long id;
     private String nomeArquivo;
     private String caminhoArquivo;
+    // SHA-256 do conteúdo; documentos com os mesmos bytes compartilham o objeto armazenado
+    private String hashConteudo;
+    // Content-Encoding do objeto armazenado (gzip), nulo quando guardado sem compressão
+    private String codificacao;
+    // Tamanho (sem compressão) e tipo do arquivo, gravados no envio: HEAD e listagens não consultam o armazenamento
+    private Long tamanho;
+    private String contentType;
+    // CRC32C do conteúdo (sem compressão, base64), conferido no envio ao armazenamento e na leitura do download
+    private String crc32c;
     private Integer versao;
+    // Versão gravada como delta binário: id da versão sobre a qual o delta se aplica e
+    // quantos deltas a separam da última cópia completa (nulos quando a versão é completa)
+    private Long versaoBaseId;
+    private Integer profundidadeDelta;
 
     @Enumerated(EnumType.STRING)
     private StatusDocumento status;
@@ -34,4 +50,10 @@ public class Documento {
 
     private LocalDateTime criadoEm;
     private LocalDateTime aprovadoEm;
+
+    // Posição no feed de alterações: todo INSERT/UPDATE grava um valor novo da sequência, então
+    // "o que mudou no projeto desde o cursor N" é uma varredura de faixa no índice acima
+    @Generated(event = { EventType.INSERT, EventType.UPDATE }, sql = "nextval('documento_alteracao_seq')")
+    @Column(name = "sequencia_alteracao")
+    private Long sequenciaAlteracao;
 }
@@ -0,0 +1,37 @@
+package br.com.projetounifor.filehub.domain.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
+
+/**
+ * Saída de um documento de um projeto (hoje, por movimentação para outro
+ * projeto). O documento continua existindo, mas some das consultas do projeto
+ * de origem; o registro leva a saída ao feed de alterações desse projeto, na
+ * mesma sequência dos documentos, para que a sincronização por cursor a
+ * devolva em {@code removidos}.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_documento_removido_projeto_alteracao",
+        columnList = "projeto_id, sequencia_alteracao"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentoRemovido {
+    @Id
+    @GeneratedValue
+    private Long id;
+    private Long documentoId;
+    private Long projetoId;
+
+    @Generated(event = EventType.INSERT, sql = "nextval('documento_alteracao_seq')")
+    @Column(name = "sequencia_alteracao")
+    private Long sequenciaAlteracao;
+
+    public DocumentoRemovido(Long documentoId, Long projetoId) {
+        this.documentoId = documentoId;
+        this.projetoId = projetoId;
+    }
+}
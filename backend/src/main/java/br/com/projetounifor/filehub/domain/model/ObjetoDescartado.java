@@ -0,0 +1,23 @@
+package br.com.projetounifor.filehub.domain.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Objeto que ganhou uma chave nova na migração de layout e ainda existe na
+ * chave antiga. Ele só é apagado depois de {@code descartarEm}, para não
+ * quebrar downloads e envios que leram a chave antiga pouco antes da troca.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ObjetoDescartado {
+    @Id
+    private String chave;
+    private String novaChave;
+    private LocalDateTime descartarEm;
+}
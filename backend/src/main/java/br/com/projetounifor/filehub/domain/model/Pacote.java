@@ -0,0 +1,32 @@
+package br.com.projetounifor.filehub.domain.model;
+
+import br.com.projetounifor.filehub.domain.model.enums.StatusPacote;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Objeto do armazenamento que agrupa vários conteúdos pequenos, gravados um
+ * após o outro. Cada documento guarda na própria chave o offset e o tamanho
+ * do seu conteúdo dentro do pacote.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class Pacote {
+    // UUID; o objeto fica na chave pacotes/<id>
+    @Id
+    @Column(length = 36)
+    private String id;
+    private Long tamanho;
+
+    @Enumerated(EnumType.STRING)
+    private StatusPacote status;
+
+    private LocalDateTime criadoEm;
+    // Quando as entradas ainda referenciadas foram copiadas para um pacote novo
+    private LocalDateTime compactadoEm;
+}
@@ -0,0 +1,24 @@
+package br.com.projetounifor.filehub.domain.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = { "sessao_id", "numero" }))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParteUpload {
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "sessao_id")
+    private SessaoUpload sessao;
+
+    private Integer numero;
+    private String etag;
+    private Long tamanho;
+}
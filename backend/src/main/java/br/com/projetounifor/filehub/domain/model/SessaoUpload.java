@@ -0,0 +1,39 @@
+package br.com.projetounifor.filehub.domain.model;
+
+import br.com.projetounifor.filehub.domain.model.enums.StatusSessaoUpload;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessaoUpload {
+    @Id
+    @GeneratedValue
+    private Long id;
+    private String nomeArquivo;
+    private String contentType;
+
+    // Chave do objeto no S3 e id do multipart upload que recebe as partes
+    private String caminhoArquivo;
+    private String uploadId;
+
+    @Enumerated(EnumType.STRING)
+    private StatusSessaoUpload status;
+
+    @ManyToOne
+    @JoinColumn(name = "project_id")
+    private Projeto projeto;
+
+    @ManyToOne
+    private Usuario criadoPor;
+
+    @ManyToOne
+    private Documento documento;
+
+    private LocalDateTime criadoEm;
+}
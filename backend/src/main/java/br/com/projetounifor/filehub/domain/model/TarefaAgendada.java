@@ -0,0 +1,24 @@
+package br.com.projetounifor.filehub.domain.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reserva de uma tarefa agendada entre os nós do cluster: só o nó que reservou
+ * a linha executa a tarefa, até {@code reservadaAte}. A reserva de um nó que
+ * caiu expira sozinha. {@code ultimoId} guarda o progresso das tarefas que
+ * percorrem uma tabela em lotes, para que um reinício continue de onde parou.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TarefaAgendada {
+    @Id
+    private String nome;
+    private Long ultimoId;
+    private LocalDateTime reservadaAte;
+}
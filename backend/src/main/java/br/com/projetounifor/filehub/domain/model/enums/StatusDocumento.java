@@ -1,6 +1,8 @@
 package br.com.projetounifor.filehub.domain.model.enums;
 
 public enum StatusDocumento {
+    // Arquivo ainda a caminho do S3 (replicação do spool local ou upload direto pendente)
+    ENVIANDO,
     PENDENTE,
     APROVADO,
     REPROVADO
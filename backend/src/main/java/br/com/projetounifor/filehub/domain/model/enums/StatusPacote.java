@@ -0,0 +1,7 @@
+package br.com.projetounifor.filehub.domain.model.enums;
+
+public enum StatusPacote {
+    // Objeto do pacote sendo gravado; nenhuma entrada aponta para ele ainda
+    ENVIANDO,
+    ATIVO
+}
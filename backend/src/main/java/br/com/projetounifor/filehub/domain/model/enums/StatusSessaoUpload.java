@@ -0,0 +1,7 @@
+package br.com.projetounifor.filehub.domain.model.enums;
+
+public enum StatusSessaoUpload {
+    ABERTA,
+    CONCLUIDA,
+    CANCELADA
+}
@@ -0,0 +1,31 @@
+package br.com.projetounifor.filehub.domain.repository;
+
+import br.com.projetounifor.filehub.domain.model.ConteudoArquivo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ConteudoArquivoRepository extends JpaRepository<ConteudoArquivo, String> {
+
+    @Modifying
+    @Transactional
+    @Query("update ConteudoArquivo c set c.referencias = c.referencias + 1 where c.hash = :hash")
+    int adicionarReferencia(@Param("hash") String hash);
+
+    @Modifying
+    @Transactional
+    @Query("update ConteudoArquivo c set c.referencias = c.referencias - 1 where c.hash = :hash and c.referencias > 0")
+    int removerReferencia(@Param("hash") String hash);
+
+    // Dois envios simultâneos do mesmo conteúdo novo gravam o mesmo objeto; o segundo só soma a referência
+    @Modifying
+    @Transactional
+    @Query(value = "insert into conteudo_arquivo (hash, tamanho, caminho_arquivo, codificacao, referencias, criado_em) "
+            + "values (:hash, :tamanho, :caminho, :codificacao, 1, now()) "
+            + "on conflict (hash) do update set referencias = conteudo_arquivo.referencias + 1",
+            nativeQuery = true)
+    int registrar(@Param("hash") String hash, @Param("tamanho") long tamanho, @Param("caminho") String caminho,
+            @Param("codificacao") String codificacao);
+}
@@ -0,0 +1,54 @@
+package br.com.projetounifor.filehub.domain.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import br.com.projetounifor.filehub.domain.model.ConteudoInline;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ConteudoInlineRepository extends JpaRepository<ConteudoInline, String> {
+
+    // Só chave e tamanho: os bytes são lidos um registro por vez ao montar o pacote
+    interface Pendente {
+        String getChave();
+
+        Long getTamanho();
+
+        LocalDateTime getCriadoEm();
+    }
+
+    @Query("select c.chave as chave, c.tamanho as tamanho, c.criadoEm as criadoEm from ConteudoInline c "
+            + "where c.empacotar = true order by c.criadoEm")
+    List<Pendente> findPendentes(Pageable pageable);
+
+    // Tira as pendentes da fila para um pacote e devolve as chaves obtidas; as que outro nó já tirou ou está
+    // tirando ficam de fora. Sem empacotar, o conteúdo segue servido do banco se o pacote nunca for gravado
+    @Transactional
+    @Query(value = "update conteudo_inline set empacotar = null where chave in (select chave from conteudo_inline "
+            + "where chave in (:chaves) and empacotar = true for update skip locked) returning chave",
+            nativeQuery = true)
+    List<String> reservar(@Param("chaves") Collection<String> chaves);
+
+    // Devolve à fila as reservadas que não chegaram a ser movidas para o pacote
+    @Modifying
+    @Transactional
+    @Query(value = "update conteudo_inline set empacotar = true where chave in (:chaves) and empacotar is null",
+            nativeQuery = true)
+    int devolver(@Param("chaves") Collection<String> chaves);
+
+    // Conteúdos já empacotados (ou abandonados) que nenhum documento ou registro de conteúdo usa mais
+    @Modifying
+    @Transactional
+    @Query(value = "delete from conteudo_inline i where (i.empacotar is null or i.empacotar = false) "
+            + "and i.criado_em < :limite "
+            + "and not exists (select 1 from documento d where d.caminho_arquivo = i.chave) "
+            + "and not exists (select 1 from conteudo_arquivo c where c.caminho_arquivo = i.chave)",
+            nativeQuery = true)
+    int removerSemReferencias(@Param("limite") LocalDateTime limite);
+}
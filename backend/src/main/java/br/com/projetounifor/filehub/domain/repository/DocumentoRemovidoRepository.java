@@ -0,0 +1,15 @@
+package br.com.projetounifor.filehub.domain.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import br.com.projetounifor.filehub.domain.model.DocumentoRemovido;
+
+public interface DocumentoRemovidoRepository extends JpaRepository<DocumentoRemovido, Long> {
+
+    // Saídas do projeto depois do cursor, na mesma ordem do feed de documentos
+    List<DocumentoRemovido> findByProjetoIdAndSequenciaAlteracaoGreaterThanOrderBySequenciaAlteracao(Long projetoId,
+            Long cursor, Limit limite);
+}
@@ -3,9 +3,43 @@ package br.com.projetounifor.filehub.domain.repository;
 import java.util.List;
 
 import br.com.projetounifor.filehub.domain.model.Documento;
+import br.com.projetounifor.filehub.domain.model.enums.StatusDocumento;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 
 public interface DocumentoRepository extends JpaRepository<Documento, Long> {
     List<Documento> findByProjetoId(Long projetoId);
+
+    List<Documento> findByStatus(StatusDocumento status);
+
+    // Alterações do projeto depois do cursor, na ordem em que aconteceram (índice projeto + sequência)
+    List<Documento> findByProjetoIdAndSequenciaAlteracaoGreaterThanOrderBySequenciaAlteracao(Long projetoId,
+            Long cursor, Limit limite);
+
+    List<Documento> findByIdGreaterThanOrderById(Long id, Limit limite);
+
+    // Troca a chave de um objeto nos documentos e no registro de conteúdo que a usam, num único comando
+    @Modifying
+    @Transactional
+    @Query(value = "with documentos as (update documento set caminho_arquivo = :nova where caminho_arquivo = :antiga) "
+            + "update conteudo_arquivo set caminho_arquivo = :nova where caminho_arquivo = :antiga",
+            nativeQuery = true)
+    int trocarCaminhoArquivo(@Param("antiga") String antiga, @Param("nova") String nova);
+
+    @Modifying
+    @Transactional
+    @Query(value = "create sequence if not exists documento_alteracao_seq", nativeQuery = true)
+    void criarSequenciaAlteracao();
+
+    // Documentos gravados antes da sequência existir entram no feed uma vez
+    @Modifying
+    @Transactional
+    @Query(value = "update documento set sequencia_alteracao = nextval('documento_alteracao_seq') "
+            + "where sequencia_alteracao is null", nativeQuery = true)
+    int numerarAlteracoesPendentes();
 }
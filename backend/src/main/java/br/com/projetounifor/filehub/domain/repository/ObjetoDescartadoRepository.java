@@ -0,0 +1,18 @@
+package br.com.projetounifor.filehub.domain.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import br.com.projetounifor.filehub.domain.model.ObjetoDescartado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ObjetoDescartadoRepository extends JpaRepository<ObjetoDescartado, String> {
+
+    List<ObjetoDescartado> findByDescartarEmBefore(LocalDateTime limite);
+
+    @Query(value = "select exists (select 1 from documento where caminho_arquivo = :chave) "
+            + "or exists (select 1 from conteudo_arquivo where caminho_arquivo = :chave)", nativeQuery = true)
+    boolean referenciado(@Param("chave") String chave);
+}
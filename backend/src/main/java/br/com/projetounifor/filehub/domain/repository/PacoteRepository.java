@@ -0,0 +1,52 @@
+package br.com.projetounifor.filehub.domain.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import br.com.projetounifor.filehub.domain.model.Pacote;
+import br.com.projetounifor.filehub.domain.model.enums.StatusPacote;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface PacoteRepository extends JpaRepository<Pacote, String> {
+
+    interface BytesVivos {
+        String getPacote();
+
+        Long getVivos();
+    }
+
+    List<Pacote> findByStatusAndCriadoEmBefore(StatusPacote status, LocalDateTime limite);
+
+    // Troca a chave de um conteúdo em todos os lugares que a guardam, num único comando
+    @Modifying
+    @Transactional
+    @Query(value = "with documentos as (update documento set caminho_arquivo = :nova where caminho_arquivo = :antiga), "
+            + "conteudos as (update conteudo_arquivo set caminho_arquivo = :nova where caminho_arquivo = :antiga) "
+            + "update conteudo_inline set empacotar = false where chave = :antiga",
+            nativeQuery = true)
+    int moverEntrada(@Param("antiga") String antiga, @Param("nova") String nova);
+
+    // Soma, por pacote, o tamanho das entradas que algum documento ou registro de conteúdo ainda usa
+    @Query(value = "select split_part(e.caminho, '/', 2) as pacote, "
+            + "sum(split_part(e.caminho, '/', 4)::bigint) as vivos from (select caminho_arquivo as caminho from documento where caminho_arquivo like 'pacote/%' "
+            + "union select caminho_arquivo from conteudo_arquivo where caminho_arquivo like 'pacote/%') e "
+            + "group by 1", nativeQuery = true)
+    List<BytesVivos> bytesVivos();
+
+    @Query(value = "select caminho_arquivo from documento where caminho_arquivo like :prefixo "
+            + "union select caminho_arquivo from conteudo_arquivo where caminho_arquivo like :prefixo",
+            nativeQuery = true)
+    List<String> entradasReferenciadas(@Param("prefixo") String prefixo);
+
+    // Conteúdos sem referência (envio que falhou) deixam de ser reaproveitáveis antes de o espaço ser recuperado
+    @Modifying
+    @Transactional
+    @Query(value = "delete from conteudo_arquivo c where c.caminho_arquivo like 'pacote/%' and c.referencias = 0 "
+            + "and not exists (select 1 from documento d where d.caminho_arquivo = c.caminho_arquivo)",
+            nativeQuery = true)
+    int descartarConteudosSemReferencia();
+}
@@ -0,0 +1,13 @@
+package br.com.projetounifor.filehub.domain.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import br.com.projetounifor.filehub.domain.model.ParteUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ParteUploadRepository extends JpaRepository<ParteUpload, Long> {
+    List<ParteUpload> findBySessaoIdOrderByNumero(Long sessaoId);
+
+    Optional<ParteUpload> findBySessaoIdAndNumero(Long sessaoId, Integer numero);
+}
@@ -0,0 +1,23 @@
+package br.com.projetounifor.filehub.domain.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import br.com.projetounifor.filehub.domain.model.SessaoUpload;
+import br.com.projetounifor.filehub.domain.model.enums.StatusSessaoUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface SessaoUploadRepository extends JpaRepository<SessaoUpload, Long> {
+    List<SessaoUpload> findByStatusAndCriadoEmBefore(StatusSessaoUpload status, LocalDateTime limite);
+
+    // Troca o status só se a sessão ainda estiver no esperado; 0 quando outro nó ou requisição chegou antes
+    @Modifying
+    @Transactional
+    @Query("update SessaoUpload s set s.status = :novo where s.id = :id and s.status = :atual")
+    int trocarStatus(@Param("id") Long id, @Param("atual") StatusSessaoUpload atual,
+            @Param("novo") StatusSessaoUpload novo);
+}
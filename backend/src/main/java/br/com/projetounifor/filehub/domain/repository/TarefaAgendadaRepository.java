@@ -0,0 +1,27 @@
+package br.com.projetounifor.filehub.domain.repository;
+
+import java.time.LocalDateTime;
+
+import br.com.projetounifor.filehub.domain.model.TarefaAgendada;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface TarefaAgendadaRepository extends JpaRepository<TarefaAgendada, String> {
+
+    // Cria a linha na primeira execução; retorna 1 só para o nó que ficou com a reserva
+    @Modifying
+    @Transactional
+    @Query(value = "insert into tarefa_agendada (nome, ultimo_id, reservada_ate) values (:nome, 0, :ate) "
+            + "on conflict (nome) do update set reservada_ate = :ate "
+            + "where tarefa_agendada.reservada_ate is null or tarefa_agendada.reservada_ate < :agora",
+            nativeQuery = true)
+    int reservar(@Param("nome") String nome, @Param("agora") LocalDateTime agora, @Param("ate") LocalDateTime ate);
+
+    @Modifying
+    @Transactional
+    @Query("update TarefaAgendada t set t.ultimoId = :ultimoId, t.reservadaAte = null where t.nome = :nome")
+    int liberar(@Param("nome") String nome, @Param("ultimoId") Long ultimoId);
+}
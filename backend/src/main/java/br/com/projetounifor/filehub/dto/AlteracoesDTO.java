@@ -0,0 +1,20 @@
+package br.com.projetounifor.filehub.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AlteracoesDTO {
+    // Enviado na próxima consulta para receber só o que mudar depois desta
+    private Long cursor;
+    private List<DocumentoDTO> alterados;
+    // Ids do manifesto que não existem mais no projeto
+    private List<Long> removidos;
+    // Há mais alterações além do limite de uma resposta; consultar de novo com o cursor devolvido
+    private boolean temMais;
+}
@@ -11,6 +11,10 @@ public class DocumentoDTO {
     private String nomeArquivo;
     private String caminhoArquivo;
     private Integer versao;
+    private String hashConteudo;
+    private Long tamanho;
+    private String contentType;
+    private String crc32c;
     private StatusDocumento status;
 
     private Long projetoId;
@@ -19,4 +23,7 @@ public class DocumentoDTO {
 
     private LocalDateTime criadoEm;
     private LocalDateTime aprovadoEm;
+
+    // Preenchida apenas quando a listagem solicita URLs assinadas de download
+    private String urlDownload;
 }
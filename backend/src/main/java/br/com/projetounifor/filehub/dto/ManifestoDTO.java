@@ -0,0 +1,29 @@
+package br.com.projetounifor.filehub.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * O que um cliente de sincronização já tem de um projeto: o cursor devolvido
+ * na última consulta ou, na primeira vez, a lista dos documentos locais.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ManifestoDTO {
+    // Quando presente, o manifesto é ignorado e só as alterações depois dele são devolvidas
+    private Long cursor;
+    private List<Item> documentos;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Item {
+        private Long id;
+        private Integer versao;
+        private String hashConteudo;
+    }
+}
@@ -0,0 +1,16 @@
+package br.com.projetounifor.filehub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResultadoUploadDTO {
+    private String nomeArquivo;
+    // Preenchido quando o arquivo foi armazenado e o documento criado
+    private DocumentoDTO documento;
+    // Motivo da falha; nulo quando o envio deu certo
+    private String erro;
+}
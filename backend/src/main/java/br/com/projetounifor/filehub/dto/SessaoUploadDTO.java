@@ -0,0 +1,24 @@
+package br.com.projetounifor.filehub.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import br.com.projetounifor.filehub.domain.model.enums.StatusSessaoUpload;
+import lombok.Data;
+
+@Data
+public class SessaoUploadDTO {
+    private Long id;
+    private String nomeArquivo;
+    private StatusSessaoUpload status;
+
+    private Long projetoId;
+    private Long criadoPorId;
+    private Long documentoId;
+
+    // Números das partes já armazenadas; o cliente só precisa reenviar as que faltam
+    private List<Integer> partesRecebidas;
+    private Long bytesRecebidos;
+
+    private LocalDateTime criadoEm;
+}
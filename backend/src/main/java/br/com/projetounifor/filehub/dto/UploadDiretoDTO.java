@@ -0,0 +1,17 @@
+package br.com.projetounifor.filehub.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UploadDiretoDTO {
+    private Long documentoId;
+    // URL assinada para o PUT do arquivo diretamente no S3
+    private String url;
+    private LocalDateTime expiraEm;
+}
@@ -0,0 +1,398 @@
+package br.com.projetounifor.filehub.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import br.com.projetounifor.filehub.storage.StoredObject;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Cache em disco local, de leitura direta (read-through), para o conteúdo dos
+ * documentos mais acessados. As entradas são indexadas pelo
+ * {@code caminhoArquivo}, que é imutável, então nunca precisam ser
+ * invalidadas; a remoção é LRU dentro de um orçamento de bytes.
+ */
+@Service
+public class CacheArquivoService {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheArquivoService.class);
+
+    /**
+     * Arquivo servido pelo cache. Quem o recebe de {@link #buscar} ou de
+     * {@link #adotar} o mantém fixado até fechá-lo: uma entrada removida nesse
+     * meio tempo sai do índice, mas o arquivo só é apagado quando o último
+     * leitor a solta. Instâncias criadas diretamente não pertencem ao cache, e
+     * fechá-las não faz nada.
+     */
+    public static final class ArquivoEmCache implements AutoCloseable {
+
+        private final Path arquivo;
+        private final long tamanho;
+        private final String etag;
+        private final long ultimaModificacao;
+        private final String contentType;
+        private final Runnable liberacao;
+        private final AtomicBoolean fechado = new AtomicBoolean();
+
+        public ArquivoEmCache(Path arquivo, long tamanho, String etag, long ultimaModificacao, String contentType) {
+            this(arquivo, tamanho, etag, ultimaModificacao, contentType, null);
+        }
+
+        private ArquivoEmCache(Path arquivo, long tamanho, String etag, long ultimaModificacao, String contentType,
+                Runnable liberacao) {
+            this.arquivo = arquivo;
+            this.tamanho = tamanho;
+            this.etag = etag;
+            this.ultimaModificacao = ultimaModificacao;
+            this.contentType = contentType;
+            this.liberacao = liberacao;
+        }
+
+        public Path arquivo() {
+            return arquivo;
+        }
+
+        public long tamanho() {
+            return tamanho;
+        }
+
+        public String etag() {
+            return etag;
+        }
+
+        public long ultimaModificacao() {
+            return ultimaModificacao;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        @Override
+        public void close() {
+            if (liberacao != null && fechado.compareAndSet(false, true)) {
+                liberacao.run();
+            }
+        }
+    }
+
+    // Entrada do índice; o arquivo de uma entrada removida ainda em leitura fica para o último leitor apagar
+    private static final class Entrada {
+
+        private final ArquivoEmCache dados;
+        private int leitores;
+        private boolean removida;
+
+        private Entrada(ArquivoEmCache dados) {
+            this.dados = dados;
+        }
+    }
+
+    private final Counter acertos;
+    private final Counter falhas;
+    private final Counter remocoes;
+
+    @Value("${filehub.cache.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${filehub.cache.dir:${java.io.tmpdir}/filehub-cache}")
+    private String diretorio;
+
+    @Value("${filehub.cache.tamanho-maximo:2GB}")
+    private DataSize tamanhoMaximo = DataSize.ofGigabytes(2);
+
+    // Objetos maiores que isso não entram no cache para não expulsar muitas entradas de uma vez
+    @Value("${filehub.cache.tamanho-maximo-objeto:256MB}")
+    private DataSize tamanhoMaximoObjeto = DataSize.ofMegabytes(256);
+
+    // Ordem de acesso: o primeiro elemento é o menos usado recentemente
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytesEmCache;
+
+    // ReentrantLock em vez de synchronized: não prende a thread de plataforma quando rodando em threads virtuais
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public CacheArquivoService(MeterRegistry meterRegistry) {
+        this.acertos = Counter.builder("filehub.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.falhas = Counter.builder("filehub.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.remocoes = Counter.builder("filehub.cache.evictions").register(meterRegistry);
+        Gauge.builder("filehub.cache.size", this, CacheArquivoService::getBytesEmCache)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!habilitado) {
+            return;
+        }
+
+        // O índice fica só em memória; entradas de uma execução anterior são descartadas
+        Path dir = Paths.get(diretorio);
+        Files.createDirectories(dir);
+        try (Stream<Path> arquivos = Files.list(dir)) {
+            for (Path arquivo : arquivos.toList()) {
+                Files.deleteIfExists(arquivo);
+            }
+        }
+    }
+
+    public Optional<ArquivoEmCache> buscar(String chave) {
+        if (!habilitado) {
+            return Optional.empty();
+        }
+
+        // A entrada é fixada sob o lock: a remoção não apaga o arquivo entre a busca e a leitura
+        ArquivoEmCache fixada = null;
+        lock.lock();
+        try {
+            Entrada entrada = entradas.get(chave);
+            if (entrada != null) {
+                fixada = fixar(entrada);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (fixada == null) {
+            falhas.increment();
+            return Optional.empty();
+        }
+
+        acertos.increment();
+        return Optional.of(fixada);
+    }
+
+    /**
+     * Abre uma cópia do objeto para o cache, a ser preenchida pelo próprio
+     * download enquanto os bytes seguem para o cliente (veja
+     * {@link LeituraCopiada}). Retorna vazio quando o cache está desabilitado
+     * ou o objeto é grande demais; nesses casos o arquivo é servido apenas do
+     * armazenamento.
+     */
+    public Optional<GravacaoCache> iniciarGravacao(String chave, StoredObject metadata) {
+        long tamanho = metadata.size();
+        if (!habilitado || tamanho > tamanhoMaximoObjeto.toBytes() || tamanho > tamanhoMaximo.toBytes()) {
+            return Optional.empty();
+        }
+
+        Path temporario = novoArquivo();
+        try {
+            return Optional.of(new GravacaoCache(chave, metadata, temporario, Files.newOutputStream(temporario)));
+        } catch (IOException e) {
+            log.warn("Não foi possível armazenar {} no cache", chave, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Passa a servir do cache um arquivo já montado localmente (por exemplo,
+     * uma versão reconstruída a partir de deltas), movendo-o para o diretório
+     * do cache. A entrada retornada já vem fixada, como a de {@link #buscar}.
+     * Retorna vazio, sem tocar no arquivo, quando o cache está desabilitado ou
+     * o arquivo é grande demais.
+     */
+    public Optional<ArquivoEmCache> adotar(String chave, Path arquivo, String etag, long ultimaModificacao,
+            String contentType) {
+        try {
+            long tamanho = Files.size(arquivo);
+            if (!habilitado || tamanho > tamanhoMaximoObjeto.toBytes() || tamanho > tamanhoMaximo.toBytes()) {
+                return Optional.empty();
+            }
+
+            Path destino = novoArquivo();
+            Files.move(arquivo, destino);
+
+            Entrada entrada = new Entrada(new ArquivoEmCache(destino, tamanho, etag, ultimaModificacao, contentType));
+            return Optional.of(registrar(chave, entrada, true));
+        } catch (IOException e) {
+            log.warn("Não foi possível armazenar {} no cache", chave, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Cópia de um objeto em andamento. Ao fechar, ela passa a ser servida pelo
+     * cache se recebeu exatamente o tamanho do objeto; uma leitura interrompida
+     * é descartada. Uma falha na gravação local só abandona a cópia, sem
+     * interromper o download que a alimenta.
+     */
+    public final class GravacaoCache extends OutputStream {
+
+        private final String chave;
+        private final StoredObject metadata;
+        private final Path temporario;
+        private boolean registrada;
+        private final OutputStream arquivo;
+        private long gravados;
+        private boolean falhou;
+        private boolean fechada;
+
+        private GravacaoCache(String chave, StoredObject metadata, Path temporario, OutputStream arquivo) {
+            this.chave = chave;
+            this.metadata = metadata;
+            this.temporario = temporario;
+            this.arquivo = arquivo;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (falhou) {
+                return;
+            }
+            try {
+                arquivo.write(b, off, len);
+                gravados += len;
+            } catch (IOException e) {
+                falhou = true;
+                log.warn("Não foi possível armazenar {} no cache", chave, e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (fechada) {
+                return;
+            }
+            fechada = true;
+
+            try {
+                arquivo.close();
+                if (!falhou && gravados == metadata.size()) {
+                    // Cada entrada tem um arquivo próprio: a cópia completa passa a ser servida no lugar
+                    registrar(chave, new Entrada(new ArquivoEmCache(temporario, gravados, metadata.etag(),
+                            metadata.lastModified(), metadata.contentType())), false);
+                    registrada = true;
+                }
+            } catch (IOException e) {
+                log.warn("Não foi possível armazenar {} no cache", chave, e);
+            } finally {
+                if (!registrada) {
+                    apagar(chave, temporario);
+                }
+            }
+        }
+    }
+
+    public long getBytesEmCache() {
+        lock.lock();
+        try {
+            return bytesEmCache;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Um nome novo por entrada: o arquivo de uma entrada substituída ou removida nunca é o de outra
+    private Path novoArquivo() {
+        return Paths.get(diretorio).resolve(UUID.randomUUID().toString());
+    }
+
+    // Chamado com o lock
+    private ArquivoEmCache fixar(Entrada entrada) {
+        entrada.leitores++;
+        ArquivoEmCache dados = entrada.dados;
+        return new ArquivoEmCache(dados.arquivo(), dados.tamanho(), dados.etag(), dados.ultimaModificacao(),
+                dados.contentType(), () -> soltar(entrada));
+    }
+
+    private void soltar(Entrada entrada) {
+        boolean apagar;
+        lock.lock();
+        try {
+            entrada.leitores--;
+            apagar = entrada.removida && entrada.leitores == 0;
+        } finally {
+            lock.unlock();
+        }
+
+        if (apagar) {
+            apagar(null, entrada.dados.arquivo());
+        }
+    }
+
+    // Chamado com o lock; retorna verdadeiro quando o arquivo já pode ser apagado
+    private static boolean remover(Entrada entrada) {
+        entrada.removida = true;
+        return entrada.leitores == 0;
+    }
+
+    private ArquivoEmCache registrar(String chave, Entrada entrada, boolean fixada) {
+        List<Map.Entry<String, Entrada>> removidas = new ArrayList<>();
+        ArquivoEmCache resultado = null;
+
+        lock.lock();
+        try {
+            if (fixada) {
+                resultado = fixar(entrada);
+            }
+
+            Entrada anterior = entradas.put(chave, entrada);
+            if (anterior != null) {
+                bytesEmCache -= anterior.dados.tamanho();
+                if (remover(anterior)) {
+                    removidas.add(Map.entry(chave, anterior));
+                }
+            }
+            bytesEmCache += entrada.dados.tamanho();
+
+            Iterator<Map.Entry<String, Entrada>> iterator = entradas.entrySet().iterator();
+            while (bytesEmCache > tamanhoMaximo.toBytes() && iterator.hasNext()) {
+                Map.Entry<String, Entrada> maisAntiga = iterator.next();
+                if (maisAntiga.getKey().equals(chave)) {
+                    continue;
+                }
+                iterator.remove();
+                bytesEmCache -= maisAntiga.getValue().dados.tamanho();
+                remocoes.increment();
+                if (remover(maisAntiga.getValue())) {
+                    removidas.add(Map.entry(maisAntiga.getKey(), maisAntiga.getValue()));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // A remoção dos arquivos é I/O e fica fora da seção crítica
+        for (Map.Entry<String, Entrada> removida : removidas) {
+            apagar(removida.getKey(), removida.getValue().dados.arquivo());
+        }
+        return resultado;
+    }
+
+    private static void apagar(String chave, Path arquivo) {
+        try {
+            Files.deleteIfExists(arquivo);
+        } catch (IOException e) {
+            // o arquivo é descartado na próxima inicialização
+            log.warn("Não foi possível remover {} do cache", chave != null ? chave : arquivo, e);
+        }
+    }
+}
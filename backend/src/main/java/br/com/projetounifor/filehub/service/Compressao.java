@@ -0,0 +1,135 @@
+package br.com.projetounifor.filehub.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.http.HttpHeaders;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Compressão dos objetos armazenados. O codec é gzip, que qualquer cliente
+ * HTTP aceita como {@code Content-Encoding}, então o objeto comprimido pode ser
+ * repassado sem recompressão a quem envia o {@code Accept-Encoding}
+ * correspondente.
+ */
+final class Compressao {
+
+    static final String GZIP = "gzip";
+
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    // Formatos que já chegam comprimidos; comprimir de novo só gasta CPU
+    private static final List<String> TIPOS_COMPRIMIDOS = List.of(
+            "image/", "video/", "audio/",
+            "application/zip", "application/gzip", "application/x-gzip", "application/zstd",
+            "application/x-7z-compressed", "application/x-rar-compressed", "application/x-bzip2",
+            "application/vnd.openxmlformats-officedocument.", "application/vnd.oasis.opendocument.");
+
+    private Compressao() {
+    }
+
+    /**
+     * Decide pela compressão olhando o tipo declarado e quanto uma amostra do
+     * início do arquivo encolhe; documentos de texto (CSV, XML, PDFs sem
+     * compressão interna) costumam ficar bem abaixo da proporção máxima.
+     */
+    static boolean compensa(String contentType, byte[] amostra, double proporcaoMaxima) {
+        if (contentType != null) {
+            String tipo = contentType.toLowerCase(Locale.ROOT);
+            if (!tipo.startsWith("image/svg") && TIPOS_COMPRIMIDOS.stream().anyMatch(tipo::startsWith)) {
+                return false;
+            }
+        }
+        return amostra.length > 0 && tamanhoComprimido(amostra) <= amostra.length * proporcaoMaxima;
+    }
+
+    static void comprimir(byte[] inicio, InputStream restante, Path destino) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(destino), TAMANHO_BUFFER)) {
+            out.write(inicio);
+            restante.transferTo(out);
+        }
+    }
+
+    /**
+     * Devolve o conteúdo original de um objeto gravado com {@code codificacao};
+     * sem codificação o próprio stream é devolvido.
+     */
+    static InputStream descomprimir(InputStream inputStream, String codificacao) throws IOException {
+        if (codificacao == null) {
+            return inputStream;
+        }
+        if (!GZIP.equals(codificacao)) {
+            inputStream.close();
+            throw new IOException("Codificação desconhecida: " + codificacao);
+        }
+        try {
+            return new GZIPInputStream(inputStream, TAMANHO_BUFFER);
+        } catch (IOException e) {
+            inputStream.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Verifica se o {@code Accept-Encoding} da requisição aceita
+     * {@code codificacao}: citada explicitamente ou por {@code *}, com
+     * {@code q} maior que zero.
+     */
+    static boolean aceita(HttpServletRequest request, String codificacao) {
+        Boolean explicita = null;
+        boolean curinga = false;
+        for (String cabecalho : Collections.list(request.getHeaders(HttpHeaders.ACCEPT_ENCODING))) {
+            for (String item : cabecalho.split(",")) {
+                String[] partes = item.split(";");
+                String nome = partes[0].trim().toLowerCase(Locale.ROOT);
+                boolean aceito = qualidade(partes) > 0;
+                if (nome.equals(codificacao)) {
+                    explicita = aceito;
+                } else if (nome.equals("*")) {
+                    curinga = aceito;
+                }
+            }
+        }
+        return explicita != null ? explicita : curinga;
+    }
+
+    private static double qualidade(String[] partes) {
+        for (int i = 1; i < partes.length; i++) {
+            String parametro = partes[i].trim();
+            if (parametro.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parametro.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static long tamanhoComprimido(byte[] amostra) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(amostra);
+            deflater.finish();
+            byte[] buffer = new byte[TAMANHO_BUFFER];
+            long total = 0;
+            while (!deflater.finished()) {
+                total += deflater.deflate(buffer);
+            }
+            return total;
+        } finally {
+            deflater.end();
+        }
+    }
+}
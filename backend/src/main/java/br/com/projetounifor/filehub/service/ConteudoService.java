@@ -0,0 +1,228 @@
+package br.com.projetounifor.filehub.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import br.com.projetounifor.filehub.domain.model.ConteudoArquivo;
+import br.com.projetounifor.filehub.domain.repository.ConteudoArquivoRepository;
+import br.com.projetounifor.filehub.storage.LayoutChaves;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import br.com.projetounifor.filehub.storage.TieredStorageBackend;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Armazenamento endereçado por conteúdo: cada objeto é gravado uma única vez,
+ * na chave {@code <shard>/sha256/<hash>} ({@link LayoutChaves}), e os
+ * documentos com os mesmos bytes passam a apontar para ele. Um envio repetido (o mesmo arquivo em outro projeto ou
+ * reenviado sem mudanças como nova versão) não chega ao armazenamento.
+ * Conteúdos que comprimem bem são gravados em gzip, na chave
+ * {@code <shard>/sha256/<hash>.gz}, e os muito pequenos ficam no banco, na chave
+ * {@code inline/<hash>}. Com o empacotamento habilitado, os demais conteúdos
+ * pequenos seguem para um pacote ({@link PacoteService}).
+ */
+@Service
+public class ConteudoService {
+
+    private static final String SUFIXO_GZIP = ".gz";
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+    private static final int TAMANHO_AMOSTRA = 64 * 1024;
+
+    private final ConteudoArquivoRepository conteudoArquivoRepository;
+    private final StorageBackend storageBackend;
+    private final PacoteService pacoteService;
+    private final LayoutChaves layoutChaves;
+    private final Counter enviosNovos;
+    private final Counter enviosDuplicados;
+    private final Counter bytesEconomizados;
+    private final Counter bytesComprimidos;
+
+    // Até este tamanho o conteúdo fica no banco, sem PUT/GET no armazenamento de objetos; 0 desativa
+    @Value("${filehub.storage.inline.tamanho-maximo:4KB}")
+    private DataSize tamanhoMaximoInline = DataSize.ofKilobytes(4);
+
+    // Desligada por padrão: um objeto gzip não atende Range (206) nem download por URL pré-assinada
+    @Value("${filehub.compressao.habilitada:false}")
+    private boolean compressaoHabilitada;
+
+    // Abaixo disso o ganho não paga a descompressão a cada download
+    @Value("${filehub.compressao.tamanho-minimo:4KB}")
+    private DataSize tamanhoMinimoCompressao = DataSize.ofKilobytes(4);
+
+    // A amostra do início do arquivo precisa encolher pelo menos até essa fração
+    @Value("${filehub.compressao.proporcao-maxima:0.8}")
+    private double proporcaoMaximaCompressao = 0.8;
+
+    public ConteudoService(ConteudoArquivoRepository conteudoArquivoRepository, StorageBackend storageBackend,
+            PacoteService pacoteService, LayoutChaves layoutChaves, MeterRegistry meterRegistry) {
+        this.conteudoArquivoRepository = conteudoArquivoRepository;
+        this.storageBackend = storageBackend;
+        this.pacoteService = pacoteService;
+        this.layoutChaves = layoutChaves;
+        this.enviosNovos = Counter.builder("filehub.dedup.uploads").tag("result", "new").register(meterRegistry);
+        this.enviosDuplicados = Counter.builder("filehub.dedup.uploads").tag("result", "duplicate")
+                .register(meterRegistry);
+        this.bytesEconomizados = Counter.builder("filehub.dedup.bytes.saved").baseUnit("bytes")
+                .register(meterRegistry);
+        this.bytesComprimidos = Counter.builder("filehub.compressao.bytes.saved").baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hash e CRC32C de um conteúdo: o SHA-256 (hexadecimal) identifica o
+     * conteúdo para a deduplicação e o CRC32C (base64, o formato do S3) é
+     * conferido pelo armazenamento no envio e pelo download na leitura.
+     */
+    public record Assinatura(String hash, String crc32c) {
+    }
+
+    /**
+     * SHA-256 e CRC32C do arquivo recebido, lidos em blocos a partir da cópia
+     * que o container já guardou, na mesma passagem; o hash precisa existir
+     * antes do envio para que um conteúdo repetido não seja enviado.
+     */
+    public Assinatura calcularAssinatura(MultipartFile file) throws IOException {
+        try (InputStream inputStream = file.getInputStream()) {
+            return calcularAssinatura(inputStream);
+        }
+    }
+
+    public Assinatura calcularAssinatura(InputStream inputStream) throws IOException {
+        MessageDigest digest = sha256();
+        CRC32C crc = new CRC32C();
+        byte[] buffer = new byte[TAMANHO_BUFFER];
+        int lidos;
+        while ((lidos = inputStream.read(buffer)) != -1) {
+            digest.update(buffer, 0, lidos);
+            crc.update(buffer, 0, lidos);
+        }
+        return new Assinatura(HexFormat.of().formatHex(digest.digest()), Integridade.crc32c(crc));
+    }
+
+    /**
+     * Se o conteúdo já está armazenado, soma uma referência e devolve o
+     * registro do objeto existente (chave e codificação); vazio quando o
+     * conteúdo ainda não existe.
+     */
+    public Optional<ConteudoArquivo> reutilizar(String hash) {
+        Optional<ConteudoArquivo> existente = conteudoArquivoRepository.findById(hash);
+        if (existente.isEmpty() || conteudoArquivoRepository.adicionarReferencia(hash) == 0) {
+            return Optional.empty();
+        }
+
+        enviosDuplicados.increment();
+        bytesEconomizados.increment(existente.get().getTamanho());
+        return existente;
+    }
+
+    /**
+     * Grava o conteúdo na chave derivada do hash e registra a primeira
+     * referência. O registro só acontece depois do envio, então um hash
+     * cadastrado sempre tem o objeto no armazenamento. A codificação faz parte
+     * da chave: dois envios simultâneos que decidam diferente sobre a
+     * compressão gravam objetos distintos, e o registro aponta sempre para um
+     * deles com a codificação correta.
+     */
+    public ConteudoArquivo armazenar(String hash, String contentType, InputStream inputStream, long tamanho)
+            throws IOException {
+        return armazenar(new Assinatura(hash, null), contentType, inputStream, tamanho);
+    }
+
+    /**
+     * Como {@link #armazenar(String, String, InputStream, long)}, repassando o
+     * CRC32C ao armazenamento quando o objeto é gravado sem compressão, para
+     * que ele confira os bytes recebidos. O objeto em gzip tem outros bytes e
+     * segue sem o valor (o SDK do S3 ainda calcula um durante o envio).
+     */
+    public ConteudoArquivo armazenar(Assinatura assinatura, String contentType, InputStream inputStream,
+            long tamanho) throws IOException {
+        String hash = assinatura.hash();
+        byte[] amostra = inputStream.readNBytes(TAMANHO_AMOSTRA);
+        String chave;
+        String codificacao = null;
+        if (tamanhoMaximoInline.toBytes() > 0 && tamanho <= tamanhoMaximoInline.toBytes()) {
+            chave = TieredStorageBackend.PREFIXO_INLINE + hash;
+            storageBackend.put(chave, contentType,
+                    new SequenceInputStream(new ByteArrayInputStream(amostra), inputStream), tamanho);
+        } else if (compressaoHabilitada && tamanho >= tamanhoMinimoCompressao.toBytes()
+                && Compressao.compensa(contentType, amostra, proporcaoMaximaCompressao)) {
+            codificacao = Compressao.GZIP;
+            Path comprimido = Files.createTempFile("filehub-compressao", SUFIXO_GZIP);
+            try {
+                Compressao.comprimir(amostra, inputStream, comprimido);
+                long tamanhoComprimido = Files.size(comprimido);
+                try (InputStream conteudo = Files.newInputStream(comprimido)) {
+                    chave = gravar(hash + SUFIXO_GZIP, contentType, conteudo, tamanhoComprimido, null);
+                }
+                bytesComprimidos.increment(Math.max(0, tamanho - tamanhoComprimido));
+            } finally {
+                Files.deleteIfExists(comprimido);
+            }
+        } else {
+            chave = gravar(hash, contentType, new SequenceInputStream(new ByteArrayInputStream(amostra), inputStream),
+                    tamanho, assinatura.crc32c());
+        }
+
+        conteudoArquivoRepository.registrar(hash, tamanho, chave, codificacao);
+        enviosNovos.increment();
+        return new ConteudoArquivo(hash, tamanho, chave, codificacao, 1, null);
+    }
+
+    // Grava em <shard>/sha256/<nome>, ou no pacote em formação quando o conteúdo é pequeno; devolve a chave
+    private String gravar(String nome, String contentType, InputStream conteudo, long tamanho, String crc32c)
+            throws IOException {
+        if (pacoteService != null && pacoteService.aceita(tamanho)) {
+            return pacoteService.adicionar(nome, contentType, conteudo, tamanho);
+        }
+        String chave = layoutChaves.conteudo(nome);
+        storageBackend.put(chave, contentType, conteudo, tamanho, crc32c);
+        return chave;
+    }
+
+    public ConteudoArquivo armazenar(Assinatura assinatura, MultipartFile file) throws IOException {
+        try (InputStream inputStream = file.getInputStream()) {
+            return armazenar(assinatura, file.getContentType(), inputStream, file.getSize());
+        }
+    }
+
+    /**
+     * Soma uma referência ao conteúdo de um documento copiado; falso quando o
+     * hash não está registrado (documentos anteriores à deduplicação).
+     */
+    public boolean referenciar(String hash) {
+        return hash != null && conteudoArquivoRepository.adicionarReferencia(hash) > 0;
+    }
+
+    /**
+     * Devolve a referência de um documento que não chegou a ser gravado. O
+     * objeto é mantido mesmo sem referências, para ser reaproveitado por um
+     * envio futuro do mesmo conteúdo.
+     */
+    public void liberar(String hash) {
+        if (hash != null) {
+            conteudoArquivoRepository.removerReferencia(hash);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package br.com.projetounifor.filehub.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delta binário no estilo do rsync. A versão base é dividida em blocos de
+ * tamanho fixo, indexados por um checksum fraco que pode ser deslocado byte a
+ * byte e por um hash forte; a versão nova é percorrida com uma janela do
+ * tamanho do bloco, e cada janela encontrada na base vira uma instrução de
+ * cópia, enquanto o restante é gravado como dados literais.
+ *
+ * <p>Formato do delta: {@code FHD1}, uma sequência de instruções
+ * {@code COPIA} (1, offset, tamanho) e {@code DADOS} (2, tamanho, bytes), e
+ * {@code FIM} (0). A base também pode estar só do lado de quem vai aplicar o
+ * delta (sincronização): nesse caso chegam apenas as assinaturas dos blocos,
+ * no formato {@code FHS1}, tamanho do bloco, quantidade de blocos e, para cada
+ * bloco completo em ordem, o checksum fraco (int) e os 8 primeiros bytes do
+ * SHA-256 (long). Todos os números são big-endian.
+ */
+final class DeltaBinario {
+
+    private static final byte[] CABECALHO_DELTA = "FHD1".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CABECALHO_ASSINATURAS = "FHS1".getBytes(StandardCharsets.US_ASCII);
+    private static final int TAMANHO_MINIMO_BLOCO = 512;
+    private static final int TAMANHO_MAXIMO_BLOCO = 1024 * 1024;
+    private static final int FIM = 0;
+    private static final int COPIA = 1;
+    private static final int DADOS = 2;
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    private record Bloco(long offset, long hashForte) {
+    }
+
+    /** Blocos da versão base agrupados pelo checksum fraco. */
+    static final class Indice {
+
+        private final int tamanhoBloco;
+        private final Map<Integer, List<Bloco>> blocos = new HashMap<>();
+
+        private Indice(int tamanhoBloco) {
+            this.tamanhoBloco = tamanhoBloco;
+        }
+
+        private void adicionar(int fraco, long offset, long hashForte) {
+            blocos.computeIfAbsent(fraco, k -> new ArrayList<>(1)).add(new Bloco(offset, hashForte));
+        }
+    }
+
+    /** Quanto da versão nova saiu como cópia da base e quanto precisou ir como dados literais. */
+    record Resultado(long bytesCopiados, long bytesLiterais) {
+    }
+
+    private DeltaBinario() {
+    }
+
+    /**
+     * Grava em {@code saida} o delta que transforma {@code base} no conteúdo
+     * lido de {@code novo}. Só a base fica indexada na memória (um par de
+     * hashes por bloco); a versão nova é lida uma única vez.
+     */
+    static Resultado codificar(Path base, InputStream novo, OutputStream saida, int tamanhoBloco)
+            throws IOException {
+        try (InputStream in = Files.newInputStream(base)) {
+            return codificar(indexar(in, tamanhoBloco), novo, saida);
+        }
+    }
+
+    /**
+     * Grava em {@code saida} o delta que transforma a base descrita por
+     * {@code indice} (montado a partir das assinaturas de outra máquina) no
+     * conteúdo lido de {@code novo}.
+     */
+    static Resultado codificar(Indice indice, InputStream novo, OutputStream saida) throws IOException {
+        int tamanhoBloco = indice.tamanhoBloco;
+        Codificador codificador = new Codificador(new DataOutputStream(new BufferedOutputStream(saida,
+                TAMANHO_BUFFER)));
+        MessageDigest digest = sha256();
+        Leitor leitor = new Leitor(novo);
+
+        // Janela circular com os últimos bytes lidos; inicio aponta para o byte mais antigo
+        byte[] janela = new byte[tamanhoBloco];
+        int tamanho = leitor.ler(janela);
+        int inicio = 0;
+        int a = somaA(janela, 0, tamanho);
+        int b = somaB(janela, 0, tamanho);
+
+        while (tamanho > 0) {
+            if (tamanho == tamanhoBloco) {
+                List<Bloco> candidatos = indice.blocos.get(checksumFraco(a, b));
+                if (candidatos != null) {
+                    long hashForte = hashForte(digest, janela, inicio);
+                    Bloco encontrado = null;
+                    for (Bloco candidato : candidatos) {
+                        if (candidato.hashForte() == hashForte) {
+                            encontrado = candidato;
+                            break;
+                        }
+                    }
+                    if (encontrado != null) {
+                        codificador.copia(encontrado.offset(), tamanhoBloco);
+                        tamanho = leitor.ler(janela);
+                        inicio = 0;
+                        a = somaA(janela, 0, tamanho);
+                        b = somaB(janela, 0, tamanho);
+                        continue;
+                    }
+                }
+            }
+
+            // Sem correspondência: o byte mais antigo da janela vira literal e a janela anda um byte
+            int saiu = janela[inicio] & 0xff;
+            codificador.literal(janela[inicio]);
+            int entrou = leitor.ler();
+            if (entrou == -1) {
+                for (int i = 1; i < tamanho; i++) {
+                    codificador.literal(janela[(inicio + i) % tamanhoBloco]);
+                }
+                break;
+            }
+            janela[inicio] = (byte) entrou;
+            inicio = (inicio + 1) % tamanhoBloco;
+            a = (a - saiu + entrou) & 0xffff;
+            b = (b - tamanhoBloco * saiu + a) & 0xffff;
+        }
+
+        codificador.fim();
+        return new Resultado(codificador.bytesCopiados, codificador.bytesLiterais);
+    }
+
+    /**
+     * Grava as assinaturas dos blocos completos de {@code base}; é o que o
+     * cliente envia para sincronizar a cópia local que já tem.
+     */
+    static void assinar(InputStream base, OutputStream saida, int tamanhoBloco) throws IOException {
+        Indice indice = indexar(base, tamanhoBloco);
+        List<long[]> blocos = new ArrayList<>();
+        indice.blocos.forEach((fraco, lista) -> lista.forEach(
+                bloco -> blocos.add(new long[] { bloco.offset(), fraco, bloco.hashForte() })));
+        blocos.sort((x, y) -> Long.compare(x[0], y[0]));
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(saida, TAMANHO_BUFFER));
+        out.write(CABECALHO_ASSINATURAS);
+        out.writeInt(tamanhoBloco);
+        out.writeInt(blocos.size());
+        for (long[] bloco : blocos) {
+            out.writeInt((int) bloco[1]);
+            out.writeLong(bloco[2]);
+        }
+        out.flush();
+    }
+
+    /**
+     * Lê as assinaturas enviadas por um cliente. Lança
+     * {@link IllegalArgumentException} quando o formato é inválido ou há mais
+     * blocos que {@code maximoBlocos}.
+     */
+    static Indice lerAssinaturas(InputStream assinaturas, int maximoBlocos) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(assinaturas, TAMANHO_BUFFER));
+        try {
+            if (!Arrays.equals(in.readNBytes(CABECALHO_ASSINATURAS.length), CABECALHO_ASSINATURAS)) {
+                throw new IllegalArgumentException("Assinaturas em formato desconhecido");
+            }
+            int tamanhoBloco = in.readInt();
+            int quantidade = in.readInt();
+            if (tamanhoBloco < TAMANHO_MINIMO_BLOCO || tamanhoBloco > TAMANHO_MAXIMO_BLOCO) {
+                throw new IllegalArgumentException("Tamanho de bloco inválido: " + tamanhoBloco);
+            }
+            if (quantidade < 0 || quantidade > maximoBlocos) {
+                throw new IllegalArgumentException("Quantidade de blocos inválida: " + quantidade);
+            }
+
+            Indice indice = new Indice(tamanhoBloco);
+            for (int i = 0; i < quantidade; i++) {
+                indice.adicionar(in.readInt(), (long) i * tamanhoBloco, in.readLong());
+            }
+            return indice;
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("Assinaturas truncadas", e);
+        }
+    }
+
+    /**
+     * Reconstrói em {@code saida} a versão descrita por {@code delta}, lendo os
+     * trechos copiados diretamente de {@code base}.
+     */
+    static void aplicar(Path base, InputStream delta, OutputStream saida) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(delta, TAMANHO_BUFFER));
+        if (!Arrays.equals(in.readNBytes(CABECALHO_DELTA.length), CABECALHO_DELTA)) {
+            throw new IOException("Delta em formato desconhecido");
+        }
+
+        try (FileChannel canal = FileChannel.open(base, StandardOpenOption.READ)) {
+            WritableByteChannel destino = Channels.newChannel(saida);
+            byte[] buffer = new byte[TAMANHO_BUFFER];
+            while (true) {
+                int instrucao = in.readUnsignedByte();
+                if (instrucao == FIM) {
+                    saida.flush();
+                    return;
+                }
+                if (instrucao == COPIA) {
+                    long posicao = in.readLong();
+                    long fim = posicao + in.readInt();
+                    while (posicao < fim) {
+                        long transferidos = canal.transferTo(posicao, fim - posicao, destino);
+                        if (transferidos <= 0) {
+                            throw new EOFException("Delta referencia trecho fora da versão base");
+                        }
+                        posicao += transferidos;
+                    }
+                } else if (instrucao == DADOS) {
+                    int restantes = in.readInt();
+                    while (restantes > 0) {
+                        int lidos = in.read(buffer, 0, Math.min(buffer.length, restantes));
+                        if (lidos == -1) {
+                            throw new EOFException("Delta truncado");
+                        }
+                        saida.write(buffer, 0, lidos);
+                        restantes -= lidos;
+                    }
+                } else {
+                    throw new IOException("Instrução de delta inválida: " + instrucao);
+                }
+            }
+        }
+    }
+
+    private static Indice indexar(InputStream in, int tamanhoBloco) throws IOException {
+        Indice indice = new Indice(tamanhoBloco);
+        MessageDigest digest = sha256();
+        byte[] bloco = new byte[tamanhoBloco];
+        long offset = 0;
+        int lidos;
+        // Um bloco final incompleto não é indexado: a janela da versão nova sempre tem o tamanho cheio
+        while ((lidos = in.readNBytes(bloco, 0, tamanhoBloco)) == tamanhoBloco) {
+            indice.adicionar(checksumFraco(somaA(bloco, 0, lidos), somaB(bloco, 0, lidos)), offset,
+                    hashForte(digest, bloco, 0));
+            offset += lidos;
+        }
+        return indice;
+    }
+
+    // Checksum de Adler modificado do rsync: a é a soma dos bytes, b a soma ponderada pela posição
+    private static int somaA(byte[] dados, int inicio, int tamanho) {
+        int a = 0;
+        for (int i = inicio; i < inicio + tamanho; i++) {
+            a += dados[i] & 0xff;
+        }
+        return a & 0xffff;
+    }
+
+    private static int somaB(byte[] dados, int inicio, int tamanho) {
+        int b = 0;
+        for (int i = inicio; i < inicio + tamanho; i++) {
+            b += (tamanho - (i - inicio)) * (dados[i] & 0xff);
+        }
+        return b & 0xffff;
+    }
+
+    private static int checksumFraco(int a, int b) {
+        return (b << 16) | a;
+    }
+
+    // Primeiros 8 bytes do SHA-256 da janela, lida a partir de inicio (com a volta da janela circular)
+    private static long hashForte(MessageDigest digest, byte[] janela, int inicio) {
+        digest.update(janela, inicio, janela.length - inicio);
+        digest.update(janela, 0, inicio);
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    /**
+     * Acumula as instruções antes de gravá-las: cópias de blocos consecutivos
+     * da base viram uma única instrução, e literais são agrupados.
+     */
+    private static final class Codificador {
+
+        private final DataOutputStream out;
+        private final byte[] literais = new byte[TAMANHO_BUFFER];
+        private int quantidadeLiterais;
+        private long copiaOffset = -1;
+        private int copiaTamanho;
+        private long bytesCopiados;
+        private long bytesLiterais;
+
+        Codificador(DataOutputStream out) throws IOException {
+            this.out = out;
+            out.write(CABECALHO_DELTA);
+        }
+
+        void copia(long offset, int tamanho) throws IOException {
+            bytesCopiados += tamanho;
+            gravarLiterais();
+            if (copiaOffset >= 0 && copiaOffset + copiaTamanho == offset
+                    && (long) copiaTamanho + tamanho <= Integer.MAX_VALUE) {
+                copiaTamanho += tamanho;
+                return;
+            }
+            gravarCopia();
+            copiaOffset = offset;
+            copiaTamanho = tamanho;
+        }
+
+        void literal(byte valor) throws IOException {
+            bytesLiterais++;
+            gravarCopia();
+            if (quantidadeLiterais == literais.length) {
+                gravarLiterais();
+            }
+            literais[quantidadeLiterais++] = valor;
+        }
+
+        void fim() throws IOException {
+            gravarCopia();
+            gravarLiterais();
+            out.writeByte(FIM);
+            out.flush();
+        }
+
+        private void gravarCopia() throws IOException {
+            if (copiaOffset < 0) {
+                return;
+            }
+            out.writeByte(COPIA);
+            out.writeLong(copiaOffset);
+            out.writeInt(copiaTamanho);
+            copiaOffset = -1;
+        }
+
+        private void gravarLiterais() throws IOException {
+            if (quantidadeLiterais == 0) {
+                return;
+            }
+            out.writeByte(DADOS);
+            out.writeInt(quantidadeLiterais);
+            out.write(literais, 0, quantidadeLiterais);
+            quantidadeLiterais = 0;
+        }
+    }
+
+    /** Leitura byte a byte sobre um buffer próprio, sem a sincronização dos streams do JDK. */
+    private static final class Leitor {
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[TAMANHO_BUFFER];
+        private int posicao;
+        private int limite;
+
+        Leitor(InputStream in) {
+            this.in = in;
+        }
+
+        int ler() throws IOException {
+            if (posicao == limite) {
+                limite = in.read(buffer);
+                posicao = 0;
+                if (limite <= 0) {
+                    limite = 0;
+                    return -1;
+                }
+            }
+            return buffer[posicao++] & 0xff;
+        }
+
+        // Preenche o vetor inteiro, a menos que o conteúdo acabe antes
+        int ler(byte[] destino) throws IOException {
+            int lidos = 0;
+            while (lidos < destino.length) {
+                int valor = ler();
+                if (valor == -1) {
+                    break;
+                }
+                destino[lidos++] = (byte) valor;
+            }
+            return lidos;
+        }
+    }
+}
@@ -1,36 +1,103 @@
 package br.com.projetounifor.filehub.service;
 
-import java.io.File;
 import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.reactivestreams.Publisher;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import br.com.projetounifor.filehub.domain.model.ConteudoArquivo;
 import br.com.projetounifor.filehub.domain.model.Documento;
+import br.com.projetounifor.filehub.domain.model.DocumentoRemovido;
 import br.com.projetounifor.filehub.domain.model.Projeto;
 import br.com.projetounifor.filehub.domain.model.Usuario;
 import br.com.projetounifor.filehub.domain.model.enums.StatusDocumento;
+import br.com.projetounifor.filehub.domain.repository.DocumentoRemovidoRepository;
 import br.com.projetounifor.filehub.domain.repository.DocumentoRepository;
 import br.com.projetounifor.filehub.domain.repository.ProjetoRepository;
 import br.com.projetounifor.filehub.domain.repository.UsuarioRepository;
+import br.com.projetounifor.filehub.dto.AlteracoesDTO;
 import br.com.projetounifor.filehub.dto.DocumentoDTO;
+import br.com.projetounifor.filehub.dto.ManifestoDTO;
+import br.com.projetounifor.filehub.dto.ResultadoUploadDTO;
+import br.com.projetounifor.filehub.dto.UploadDiretoDTO;
+import br.com.projetounifor.filehub.service.ConteudoService.Assinatura;
+import br.com.projetounifor.filehub.storage.LayoutChaves;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import br.com.projetounifor.filehub.storage.StoredObject;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
 public class DocumentoService {
     private final DocumentoRepository documentoRepository;
+    private final DocumentoRemovidoRepository documentoRemovidoRepository;
     private final ProjetoRepository projetoRepository;
     private final UsuarioRepository usuarioRepository;
 
     @Autowired
-    private final S3Service s3Service;
+    private final StorageBackend storageBackend;
+    private final ReplicacaoService replicacaoService;
+    private final ConteudoService conteudoService;
+    private final VersaoService versaoService;
+    private final LayoutChaves layoutChaves;
+
+    @Value("${filehub.upload.async:false}")
+    private boolean uploadAssincrono;
+
+    @Value("${filehub.upload.direto.expiracao:15m}")
+    private Duration expiracaoUploadDireto = Duration.ofMinutes(15);
+
+    @Value("${filehub.download.expiracao:5m}")
+    private Duration expiracaoDownload = Duration.ofMinutes(5);
+
+    // Alterações devolvidas por consulta de sincronização; o restante vem nas consultas seguintes
+    @Value("${filehub.sincronizacao.limite:1000}")
+    private int limiteSincronizacao = 1000;
+
+    // Envios simultâneos ao armazenamento em um upload em lote
+    @Value("${filehub.upload.lote.threads:8}")
+    private int threadsLote = 8;
+
+    private ExecutorService executorLote;
+
+    @PostConstruct
+    void init() {
+        executorLote = Executors.newFixedThreadPool(threadsLote);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executorLote.shutdownNow();
+    }
 
     public DocumentoDTO submeterDocumento(Long projetoId, Long usuarioId, MultipartFile file) {
         Projeto projeto = projetoRepository.findById(projetoId)
@@ -39,35 +106,282 @@ public class DocumentoService {
         Usuario usuario = usuarioRepository.findById(usuarioId)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
 
-        // Criar diretório se não existir
-        String uploadDir = System.getProperty("user.dir") + "/uploads";
+        Documento doc = new Documento();
+        doc.setNomeArquivo(file.getOriginalFilename());
+        doc.setStatus(armazenarArquivo(doc, file, null));
+        doc.setProjeto(projeto);
+        doc.setCriadoPor(usuario);
+        doc.setCriadoEm(LocalDateTime.now());
+        doc.setVersao(1);
+
+        return toDTO(agendarReplicacao(salvar(doc)));
+    }
+
+    /**
+     * Submete vários arquivos de uma vez: projeto e usuário são buscados uma
+     * única vez, os arquivos são enviados ao armazenamento em paralelo e os
+     * documentos são inseridos juntos. Uma falha em um arquivo não impede os
+     * demais; o resultado de cada um é devolvido na mesma ordem do envio.
+     */
+    public List<ResultadoUploadDTO> submeterLote(Long projetoId, Long usuarioId, List<MultipartFile> files) {
+        Projeto projeto = projetoRepository.findById(projetoId)
+                .orElseThrow(() -> new RuntimeException("Projeto não encontrado"));
+
+        Usuario usuario = usuarioRepository.findById(usuarioId)
+                .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
+
+        List<String> nomes = new ArrayList<>();
+        List<Callable<Documento>> envios = new ArrayList<>();
+        for (MultipartFile file : files) {
+            Documento doc = new Documento();
+            doc.setNomeArquivo(file.getOriginalFilename());
+            doc.setProjeto(projeto);
+            doc.setCriadoPor(usuario);
+            doc.setCriadoEm(LocalDateTime.now());
+            doc.setVersao(1);
+            nomes.add(doc.getNomeArquivo());
+            envios.add(() -> {
+                doc.setStatus(armazenarArquivo(doc, file, null));
+                return doc;
+            });
+        }
+        return executarLote(nomes, envios, "Upload em lote interrompido");
+    }
 
-        File dir = new File(uploadDir);
-        if (!dir.exists()) {
-            dir.mkdirs(); // Cria diretório e subdiretórios
+    /**
+     * Executa as tarefas no pool do lote e insere juntos os documentos que
+     * elas produzem. O resultado de cada tarefa volta na ordem de
+     * {@code nomes}, com a mensagem de erro quando ela falhou; se a inserção
+     * falhar, as referências de conteúdo tomadas pelas tarefas são devolvidas.
+     */
+    private List<ResultadoUploadDTO> executarLote(List<String> nomes, List<Callable<Documento>> tarefas,
+            String interrompido) {
+        List<Future<Documento>> futuros = new ArrayList<>();
+        for (Callable<Documento> tarefa : tarefas) {
+            futuros.add(executorLote.submit(tarefa));
         }
 
-        String bucketName = "filehub-document-bucket";
-        String keyName = UUID.randomUUID() + file.getOriginalFilename();
+        List<ResultadoUploadDTO> resultados = new ArrayList<>();
+        List<Documento> concluidos = new ArrayList<>();
+        for (int i = 0; i < futuros.size(); i++) {
+            try {
+                concluidos.add(futuros.get(i).get());
+                resultados.add(new ResultadoUploadDTO(nomes.get(i), null, null));
+            } catch (ExecutionException e) {
+                Throwable causa = e.getCause().getCause() != null ? e.getCause().getCause() : e.getCause();
+                resultados.add(new ResultadoUploadDTO(nomes.get(i), null, causa.getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(interrompido, e);
+            }
+        }
+
+        // Uma transação para todos; com ids por sequência o Hibernate agrupa os INSERTs (hibernate.jdbc.batch_size)
+        List<Documento> salvos;
+        try {
+            salvos = documentoRepository.saveAll(concluidos);
+        } catch (RuntimeException e) {
+            concluidos.forEach(this::liberarConteudo);
+            throw e;
+        }
+        int j = 0;
+        for (ResultadoUploadDTO resultado : resultados) {
+            if (resultado.getErro() == null) {
+                resultado.setDocumento(toDTO(agendarReplicacao(salvos.get(j++))));
+            }
+        }
+        return resultados;
+    }
 
+    /**
+     * Grava o conteúdo de {@code doc}. Com {@code anterior} informado (nova
+     * versão), um conteúdo inédito pode ser gravado como delta sobre ela.
+     */
+    private StatusDocumento armazenarArquivo(Documento doc, MultipartFile file, Documento anterior) {
         try {
-            s3Service.uploadFile(bucketName, keyName, file);
+            Assinatura assinatura = conteudoService.calcularAssinatura(file);
+            String hash = assinatura.hash();
+            doc.setHashConteudo(hash);
+            doc.setCrc32c(assinatura.crc32c());
+            doc.setTamanho(file.getSize());
+            doc.setContentType(file.getContentType());
+
+            Optional<ConteudoArquivo> existente = conteudoService.reutilizar(hash);
+            if (existente.isPresent()) {
+                doc.setCaminhoArquivo(existente.get().getCaminhoArquivo());
+                doc.setCodificacao(existente.get().getCodificacao());
+                return StatusDocumento.PENDENTE;
+            }
+
+            if (uploadAssincrono) {
+                // A chave no spool é única por envio; a chave definitiva é atribuída na replicação
+                String keyName = UUID.randomUUID() + file.getOriginalFilename();
+                replicacaoService.gravarNoSpool(keyName, file);
+                doc.setCaminhoArquivo(keyName);
+                return StatusDocumento.ENVIANDO;
+            }
+
+            if (anterior != null && versaoService.armazenarComoDelta(anterior, doc, file)) {
+                return StatusDocumento.PENDENTE;
+            }
+
+            ConteudoArquivo armazenado = conteudoService.armazenar(assinatura, file);
+            doc.setCaminhoArquivo(armazenado.getCaminhoArquivo());
+            doc.setCodificacao(armazenado.getCodificacao());
+            return StatusDocumento.PENDENTE;
         } catch (IOException e) {
             throw new RuntimeException("Erro ao salvar arquivo", e);
         }
+    }
+
+    // Se o documento não for gravado, a referência ao conteúdo é devolvida
+    private Documento salvar(Documento doc) {
+        try {
+            return documentoRepository.save(doc);
+        } catch (RuntimeException e) {
+            liberarConteudo(doc);
+            throw e;
+        }
+    }
+
+    private void liberarConteudo(Documento doc) {
+        // Documentos ainda no spool só registram a referência ao serem replicados; deltas não têm referência
+        if (doc.getStatus() != StatusDocumento.ENVIANDO && !VersaoService.ehDelta(doc)) {
+            conteudoService.liberar(doc.getHashConteudo());
+        }
+    }
+
+    public boolean suportaUploadNaoBloqueante() {
+        return storageBackend.supportsAsync();
+    }
+
+    public boolean suportaUploadDireto() {
+        return storageBackend.supportsPresign();
+    }
+
+    /**
+     * Valida projeto, usuário e acesso e monta o documento de um upload não
+     * bloqueante, antes de qualquer byte do arquivo ser lido.
+     */
+    public Documento novoDocumento(Long projetoId, Long usuarioId, String nomeArquivo) {
+        Projeto projeto = projetoRepository.findById(projetoId)
+                .orElseThrow(() -> new RuntimeException("Projeto não encontrado"));
+
+        Usuario usuario = usuarioRepository.findById(usuarioId)
+                .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
+
+        if (!usuarioTemAcesso(projeto, usuarioId)) {
+            throw new AccessDeniedException("Usuário não pertence ao projeto");
+        }
 
         Documento doc = new Documento();
-        doc.setNomeArquivo(file.getOriginalFilename());
+        doc.setNomeArquivo(nomeArquivo);
+        doc.setCaminhoArquivo(layoutChaves.envio(projetoId, 1, nomeArquivo));
+        doc.setProjeto(projeto);
+        doc.setCriadoPor(usuario);
+        doc.setCriadoEm(LocalDateTime.now());
+        doc.setVersao(1);
+        return doc;
+    }
+
+    /**
+     * Repassa o conteúdo ao armazenamento no ritmo em que ele aceita os bytes,
+     * sem ocupar uma thread durante a transferência. O documento só é gravado
+     * depois que o objeto foi armazenado por completo.
+     */
+    public CompletableFuture<DocumentoDTO> submeterNaoBloqueante(Documento doc, String contentType, long tamanho,
+            Publisher<ByteBuffer> conteudo) {
+        doc.setTamanho(tamanho);
+        doc.setContentType(contentType);
+        return storageBackend.putAsync(doc.getCaminhoArquivo(), contentType, conteudo, tamanho)
+                .thenApply(v -> {
+                    doc.setStatus(StatusDocumento.PENDENTE);
+                    return toDTO(documentoRepository.save(doc));
+                });
+    }
+
+    private Documento agendarReplicacao(Documento doc) {
+        if (doc.getStatus() == StatusDocumento.ENVIANDO) {
+            replicacaoService.agendar(doc);
+        }
+        return doc;
+    }
+
+    /**
+     * Cria o documento com status ENVIANDO e devolve uma URL assinada para que o
+     * cliente envie o arquivo diretamente ao S3.
+     */
+    public UploadDiretoDTO iniciarUploadDireto(Long projetoId, Long usuarioId, String nomeArquivo,
+            String contentType) {
+        Projeto projeto = projetoRepository.findById(projetoId)
+                .orElseThrow(() -> new RuntimeException("Projeto não encontrado"));
+
+        Usuario usuario = usuarioRepository.findById(usuarioId)
+                .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
+
+        if (!usuarioTemAcesso(projeto, usuarioId)) {
+            throw new AccessDeniedException("Usuário não pertence ao projeto");
+        }
+
+        String keyName = layoutChaves.envio(projetoId, 1, nomeArquivo);
+        URL url = storageBackend.presignUpload(keyName, contentType, expiracaoUploadDireto)
+                .orElseThrow(() -> new UnsupportedOperationException(
+                        "O armazenamento configurado não aceita upload direto"));
+
+        Documento doc = new Documento();
+        doc.setNomeArquivo(nomeArquivo);
         doc.setCaminhoArquivo(keyName);
-        doc.setStatus(StatusDocumento.PENDENTE);
+        doc.setContentType(contentType);
+        doc.setStatus(StatusDocumento.ENVIANDO);
         doc.setProjeto(projeto);
         doc.setCriadoPor(usuario);
         doc.setCriadoEm(LocalDateTime.now());
         doc.setVersao(1);
+        doc = documentoRepository.save(doc);
+
+        return new UploadDiretoDTO(doc.getId(), url.toString(), LocalDateTime.now().plus(expiracaoUploadDireto));
+    }
+
+    /**
+     * Confirma, com um HEAD no S3, que o arquivo enviado pela URL assinada existe,
+     * guarda o tamanho recebido e libera o documento para aprovação.
+     */
+    public DocumentoDTO concluirUploadDireto(Long documentoId, Long usuarioId) {
+        Documento doc = documentoRepository.findById(documentoId)
+                .orElseThrow(() -> new RuntimeException("Documento não encontrado"));
+
+        if (!doc.getCriadoPor().getId().equals(usuarioId)) {
+            throw new AccessDeniedException("Documento pertence a outro usuário");
+        }
+        if (doc.getStatus() != StatusDocumento.ENVIANDO) {
+            return toDTO(doc);
+        }
+
+        StoredObject objeto;
+        try {
+            objeto = storageBackend.head(doc.getCaminhoArquivo())
+                    .orElseThrow(() -> new IllegalStateException("Arquivo ainda não foi enviado"));
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao consultar arquivo", e);
+        }
+
+        doc.setTamanho(objeto.size());
+        if (doc.getContentType() == null) {
+            doc.setContentType(objeto.contentType());
+        }
 
+        doc.setStatus(StatusDocumento.PENDENTE);
         return toDTO(documentoRepository.save(doc));
     }
 
+    public boolean usuarioTemAcesso(Projeto projeto, Long usuarioId) {
+        boolean usuarioNoProjeto = projeto.getUsuarios() != null
+                && projeto.getUsuarios().stream().anyMatch(u -> u.getId().equals(usuarioId));
+        boolean usuarioCriador = projeto.getCriador() != null && projeto.getCriador().getId().equals(usuarioId);
+
+        return usuarioNoProjeto || usuarioCriador;
+    }
+
     public Documento aprovar(Long documentoId, Long aprovadorId) {
         Documento doc = documentoRepository.findById(documentoId)
                 .orElseThrow(() -> new RuntimeException("Documento não encontrado"));
@@ -89,6 +403,105 @@ public class DocumentoService {
             .collect(Collectors.toList());
     }
 
+    /**
+     * Lista os documentos do projeto já com URLs assinadas de download, para que
+     * o cliente baixe os arquivos direto do S3.
+     */
+    public List<DocumentoDTO> consultarPorProjetoComUrl(Long projetoId, Long usuarioId) {
+        Projeto projeto = projetoRepository.findById(projetoId)
+                .orElseThrow(() -> new RuntimeException("Projeto não encontrado"));
+
+        if (!usuarioTemAcesso(projeto, usuarioId)) {
+            throw new AccessDeniedException("Usuário não pertence ao projeto");
+        }
+
+        return documentoRepository.findByProjetoId(projetoId).stream()
+                .map(doc -> {
+                    DocumentoDTO dto = toDTO(doc);
+                    if (doc.getStatus() != StatusDocumento.ENVIANDO) {
+                        urlDownload(doc).ifPresent(url -> dto.setUrlDownload(url.toString()));
+                    }
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Devolve o que mudou no projeto para um cliente de sincronização. Com
+     * cursor, é uma varredura de faixa no índice (projeto, sequência de
+     * alteração), cujo custo depende só do número de alterações; sem cursor, o
+     * manifesto do cliente é comparado uma vez com o projeto inteiro. Nos dois
+     * casos a resposta traz o cursor para a próxima consulta.
+     */
+    public AlteracoesDTO sincronizarProjeto(Long projetoId, Long usuarioId, ManifestoDTO manifesto) {
+        Projeto projeto = projetoRepository.findById(projetoId)
+                .orElseThrow(() -> new RuntimeException("Projeto não encontrado"));
+
+        if (!usuarioTemAcesso(projeto, usuarioId)) {
+            throw new AccessDeniedException("Usuário não pertence ao projeto");
+        }
+
+        if (manifesto.getCursor() != null) {
+            long cursor = manifesto.getCursor();
+            List<Documento> alterados = documentoRepository
+                    .findByProjetoIdAndSequenciaAlteracaoGreaterThanOrderBySequenciaAlteracao(projetoId, cursor,
+                            Limit.of(limiteSincronizacao + 1));
+            List<DocumentoRemovido> saidas = documentoRemovidoRepository
+                    .findByProjetoIdAndSequenciaAlteracaoGreaterThanOrderBySequenciaAlteracao(projetoId, cursor,
+                            Limit.of(limiteSincronizacao + 1));
+
+            // Documentos e saídas usam a mesma sequência: a página é o início da intercalação das duas listas
+            List<Long> sequencias = Stream.concat(alterados.stream().map(Documento::getSequenciaAlteracao),
+                    saidas.stream().map(DocumentoRemovido::getSequenciaAlteracao)).sorted().toList();
+            boolean temMais = sequencias.size() > limiteSincronizacao;
+            if (temMais) {
+                long ultima = sequencias.get(limiteSincronizacao - 1);
+                alterados = alterados.stream().filter(doc -> doc.getSequenciaAlteracao() <= ultima).toList();
+                saidas = saidas.stream().filter(saida -> saida.getSequenciaAlteracao() <= ultima).toList();
+                cursor = ultima;
+            } else if (!sequencias.isEmpty()) {
+                cursor = sequencias.get(sequencias.size() - 1);
+            }
+
+            // Um documento que saiu e voltou ao projeto na mesma página aparece só como alterado
+            Set<Long> presentes = alterados.stream().map(Documento::getId).collect(Collectors.toSet());
+            List<Long> removidos = saidas.stream().map(DocumentoRemovido::getDocumentoId)
+                    .filter(id -> !presentes.contains(id)).distinct().toList();
+            return new AlteracoesDTO(cursor, alterados.stream().map(this::toDTO).collect(Collectors.toList()),
+                    removidos, temMais);
+        }
+
+        Map<Long, ManifestoDTO.Item> locais = new HashMap<>();
+        if (manifesto.getDocumentos() != null) {
+            manifesto.getDocumentos().forEach(item -> locais.put(item.getId(), item));
+        }
+        long cursor = 0;
+        List<DocumentoDTO> alterados = new ArrayList<>();
+        for (Documento doc : documentoRepository.findByProjetoId(projetoId)) {
+            if (doc.getSequenciaAlteracao() != null) {
+                cursor = Math.max(cursor, doc.getSequenciaAlteracao());
+            }
+            ManifestoDTO.Item local = locais.remove(doc.getId());
+            if (local == null || !Objects.equals(local.getVersao(), doc.getVersao())
+                    || !Objects.equals(local.getHashConteudo(), doc.getHashConteudo())) {
+                alterados.add(toDTO(doc));
+            }
+        }
+        List<Long> removidos = new ArrayList<>(locais.keySet());
+        Collections.sort(removidos);
+        return new AlteracoesDTO(cursor, alterados, removidos, false);
+    }
+
+    // Vazio quando o armazenamento não oferece acesso direto (ex.: disco local)
+    public Optional<URL> urlDownload(Documento doc) {
+        // Um delta não é o arquivo, e um objeto comprimido depende do Accept-Encoding do cliente:
+        // nos dois casos o conteúdo é servido pela aplicação
+        if (VersaoService.ehDelta(doc) || doc.getCodificacao() != null) {
+            return Optional.empty();
+        }
+        return storageBackend.presignDownload(doc.getCaminhoArquivo(), doc.getNomeArquivo(), expiracaoDownload);
+    }
+
     public Documento novaVersao(Long documentoOriginalId, Long usuarioId, MultipartFile novaVersaoFile) {
         Documento anterior = documentoRepository.findById(documentoOriginalId)
                 .orElseThrow(() -> new RuntimeException("Documento original não encontrado"));
@@ -98,14 +511,122 @@ public class DocumentoService {
 
         Documento novaVersao = new Documento();
         novaVersao.setNomeArquivo(novaVersaoFile.getOriginalFilename());
-        novaVersao.setCaminhoArquivo("/uploads/" + novaVersaoFile.getOriginalFilename());
         novaVersao.setProjeto(anterior.getProjeto());
         novaVersao.setCriadoPor(usuario);
         novaVersao.setCriadoEm(LocalDateTime.now());
         novaVersao.setVersao(anterior.getVersao() + 1);
-        novaVersao.setStatus(StatusDocumento.PENDENTE);
+        novaVersao.setStatus(armazenarArquivo(novaVersao, novaVersaoFile, anterior));
+
+        return agendarReplicacao(salvar(novaVersao));
+    }
+
+    /**
+     * Copia o documento para outro projeto. Os metadados são duplicados e o
+     * conteúdo é compartilhado pelo endereço do hash; só objetos sem contagem
+     * de referências são duplicados, e mesmo assim dentro do armazenamento.
+     */
+    public DocumentoDTO copiar(Long documentoId, Long projetoDestinoId, Long usuarioId) {
+        Documento origem = documentoRepository.findById(documentoId)
+                .orElseThrow(() -> new RuntimeException("Documento não encontrado"));
+        Projeto destino = projetoComAcesso(projetoDestinoId, usuarioId);
+        if (!usuarioTemAcesso(origem.getProjeto(), usuarioId)) {
+            throw new AccessDeniedException("Usuário não pertence ao projeto");
+        }
+
+        Usuario usuario = usuarioRepository.findById(usuarioId)
+                .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
 
-        return documentoRepository.save(novaVersao);
+        return toDTO(salvar(copia(origem, destino, usuario)));
+    }
+
+    /**
+     * Move o documento para outro projeto sem copiar o objeto: a chave segue
+     * válida e, quando é do documento, continua sob o prefixo do projeto de
+     * origem ({@link LayoutChaves}), que só distribui a carga. A saída fica
+     * registrada no feed de alterações do projeto de origem.
+     */
+    @Transactional
+    public DocumentoDTO mover(Long documentoId, Long projetoDestinoId, Long usuarioId) {
+        Documento doc = documentoRepository.findById(documentoId)
+                .orElseThrow(() -> new RuntimeException("Documento não encontrado"));
+        Projeto destino = projetoComAcesso(projetoDestinoId, usuarioId);
+        if (!usuarioTemAcesso(doc.getProjeto(), usuarioId)) {
+            throw new AccessDeniedException("Usuário não pertence ao projeto");
+        }
+
+        Long origemId = doc.getProjeto().getId();
+        doc.setProjeto(destino);
+        Documento movido = documentoRepository.save(doc);
+        documentoRemovidoRepository.save(new DocumentoRemovido(documentoId, origemId));
+        return toDTO(movido);
+    }
+
+    /**
+     * Copia todos os documentos de um projeto para outro. As cópias que
+     * precisam do armazenamento são feitas em paralelo e os documentos são
+     * inseridos juntos; uma falha em um documento não impede os demais.
+     */
+    public List<ResultadoUploadDTO> copiarProjeto(Long projetoOrigemId, Long projetoDestinoId, Long usuarioId) {
+        projetoComAcesso(projetoOrigemId, usuarioId);
+        Projeto destino = projetoComAcesso(projetoDestinoId, usuarioId);
+
+        Usuario usuario = usuarioRepository.findById(usuarioId)
+                .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
+
+        List<String> nomes = new ArrayList<>();
+        List<Callable<Documento>> copias = new ArrayList<>();
+        for (Documento origem : documentoRepository.findByProjetoId(projetoOrigemId)) {
+            nomes.add(origem.getNomeArquivo());
+            copias.add(() -> copia(origem, destino, usuario));
+        }
+        return executarLote(nomes, copias, "Cópia do projeto interrompida");
+    }
+
+    private Projeto projetoComAcesso(Long projetoId, Long usuarioId) {
+        Projeto projeto = projetoRepository.findById(projetoId)
+                .orElseThrow(() -> new RuntimeException("Projeto não encontrado"));
+
+        if (!usuarioTemAcesso(projeto, usuarioId)) {
+            throw new AccessDeniedException("Usuário não pertence ao projeto");
+        }
+        return projeto;
+    }
+
+    private Documento copia(Documento origem, Projeto destino, Usuario usuario) {
+        if (origem.getStatus() == StatusDocumento.ENVIANDO) {
+            throw new IllegalStateException("O arquivo do documento ainda está sendo enviado");
+        }
+
+        Documento copia = new Documento();
+        copia.setNomeArquivo(origem.getNomeArquivo());
+        copia.setVersao(origem.getVersao());
+        copia.setHashConteudo(origem.getHashConteudo());
+        copia.setCodificacao(origem.getCodificacao());
+        copia.setTamanho(origem.getTamanho());
+        copia.setContentType(origem.getContentType());
+        copia.setCrc32c(origem.getCrc32c());
+        copia.setVersaoBaseId(origem.getVersaoBaseId());
+        copia.setProfundidadeDelta(origem.getProfundidadeDelta());
+        copia.setStatus(StatusDocumento.PENDENTE);
+        copia.setProjeto(destino);
+        copia.setCriadoPor(usuario);
+        copia.setCriadoEm(LocalDateTime.now());
+
+        // Deltas são lidos pela cadeia de versões e não têm referência própria
+        if (VersaoService.ehDelta(origem) || conteudoService.referenciar(origem.getHashConteudo())) {
+            copia.setCaminhoArquivo(origem.getCaminhoArquivo());
+            return copia;
+        }
+
+        // Objeto sem contagem de referências: cada documento fica com o seu, copiado pelo próprio armazenamento
+        String keyName = layoutChaves.envio(destino.getId(), origem.getVersao(), origem.getNomeArquivo());
+        try {
+            storageBackend.copy(origem.getCaminhoArquivo(), keyName);
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao copiar arquivo", e);
+        }
+        copia.setCaminhoArquivo(keyName);
+        return copia;
     }
 
     public DocumentoDTO toDTO(Documento doc) {
@@ -114,6 +635,10 @@ public class DocumentoService {
         dto.setNomeArquivo(doc.getNomeArquivo());
         dto.setCaminhoArquivo(doc.getCaminhoArquivo());
         dto.setVersao(doc.getVersao());
+        dto.setHashConteudo(doc.getHashConteudo());
+        dto.setTamanho(doc.getTamanho());
+        dto.setContentType(doc.getContentType());
+        dto.setCrc32c(doc.getCrc32c());
         dto.setStatus(doc.getStatus());
 
         if (doc.getProjeto() != null)
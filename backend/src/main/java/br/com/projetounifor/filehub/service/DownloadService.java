@@ -0,0 +1,496 @@
+package br.com.projetounifor.filehub.service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import br.com.projetounifor.filehub.domain.model.Documento;
+import br.com.projetounifor.filehub.service.CacheArquivoService.ArquivoEmCache;
+import br.com.projetounifor.filehub.service.VersaoService.VersaoReconstruida;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import br.com.projetounifor.filehub.storage.StoredObject;
+import br.com.projetounifor.filehub.storage.TieredStorageBackend;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Envia o conteúdo de um documento armazenado respeitando requisições
+ * condicionais (If-None-Match, If-Modified-Since) e parciais (Range, If-Range).
+ * Cada versão de documento é imutável, então o ETag (o hash do conteúdo, ou o
+ * do objeto armazenado quando o hash não é conhecido) identifica o conteúdo de
+ * forma estável. Objetos gravados comprimidos são
+ * negociados pelo Accept-Encoding.
+ * <p>
+ * Respostas com o arquivo inteiro levam o CRC32C do conteúdo no cabeçalho
+ * {@code X-Checksum-CRC32C}, e o conteúdo lido do armazenamento remoto é
+ * conferido durante a cópia ({@link LeituraVerificada}): um objeto corrompido
+ * interrompe a resposta antes do último byte e não entra no cache.
+ */
+@Service
+@RequiredArgsConstructor
+public class DownloadService {
+
+    // Atributos do Tomcat para enviar um arquivo local com sendfile, sem copiar pela JVM
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final StorageBackend storageBackend;
+    private final CacheArquivoService cacheArquivoService;
+    private final VersaoService versaoService;
+
+    // Envia os bytes do armazenamento ao socket sem ocupar a thread da requisição (quando o backend suporta)
+    @Value("${filehub.download.nao-bloqueante:false}")
+    private boolean naoBloqueante;
+
+    @Value("${filehub.download.nao-bloqueante-timeout:30m}")
+    private Duration timeoutNaoBloqueante = Duration.ofMinutes(30);
+
+    // Faixas grandes lidas do armazenamento remoto com vários GETs parciais simultâneos
+    @Value("${filehub.download.paralelo.habilitado:false}")
+    private boolean paralelo;
+
+    @Value("${filehub.download.paralelo.tamanho-minimo:64MB}")
+    private DataSize tamanhoMinimoParalelo = DataSize.ofMegabytes(64);
+
+    @Value("${filehub.download.paralelo.tamanho-parte:8MB}")
+    private DataSize tamanhoParteParalelo = DataSize.ofMegabytes(8);
+
+    // Conexões por download; também é o número de partes que cabem no buffer de reordenação
+    @Value("${filehub.download.paralelo.conexoes:8}")
+    private int conexoesParalelo = 8;
+
+    // Limite de GETs parciais em andamento somando todos os downloads
+    @Value("${filehub.download.paralelo.threads:32}")
+    private int threadsParalelo = 32;
+
+    private ExecutorService executorParalelo;
+
+    @PostConstruct
+    void init() {
+        if (paralelo) {
+            executorParalelo = Executors.newFixedThreadPool(threadsParalelo);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executorParalelo != null) {
+            executorParalelo.shutdownNow();
+        }
+    }
+
+    public void enviarArquivo(Documento doc, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (!VersaoService.ehDelta(doc)) {
+            enviar(doc, null, request, response);
+            return;
+        }
+
+        // Uma versão gravada como delta só existe inteira depois de reconstruída (e então fica no cache)
+        try (VersaoReconstruida versao = versaoService.reconstruir(doc)) {
+            enviar(doc, versao, request, response);
+        }
+    }
+
+    /**
+     * Responde a um HEAD só com os metadados gravados no documento, sem
+     * requisição ao armazenamento. Documentos anteriores a esses campos, e
+     * objetos comprimidos repassados em gzip (cujo tamanho codificado só o
+     * armazenamento conhece), seguem pelo caminho do GET.
+     */
+    public void enviarMetadados(Documento doc, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String codificacao = doc.getCodificacao();
+        if (doc.getTamanho() == null || codificacao != null && Compressao.aceita(request, codificacao)) {
+            enviarArquivo(doc, request, response);
+            return;
+        }
+
+        if (codificacao != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, codificacao == null ? "bytes" : "none");
+        if (new ServletWebRequest(request, response).checkNotModified(etagDoConteudo(doc))) {
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + doc.getNomeArquivo() + "\"");
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(doc.getContentType() != null
+                ? doc.getContentType()
+                : MediaTypeFactory.getMediaType(doc.getNomeArquivo()).orElse(MediaType.APPLICATION_OCTET_STREAM)
+                        .toString());
+        response.setContentLengthLong(doc.getTamanho());
+        if (doc.getCrc32c() != null) {
+            response.setHeader(Integridade.CABECALHO_CRC32C, doc.getCrc32c());
+        }
+    }
+
+    // O ETag de um conteúdo com hash conhecido é o próprio hash, o mesmo no GET, no HEAD e na sincronização
+    private static String etagDoConteudo(Documento doc) {
+        return doc.getHashConteudo() != null ? "\"" + doc.getHashConteudo() + "\"" : null;
+    }
+
+    private void enviar(Documento doc, VersaoReconstruida versao, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (versao != null) {
+            // A versão reconstruída já está em disco local, e quem a montou a libera
+            responder(doc, Optional.of(versao.arquivo()), true, Optional.empty(), false, request, response);
+            return;
+        }
+
+        // Um backend em disco local já serve o arquivo por sendfile; o cache só vale para armazenamento remoto
+        Optional<Path> arquivoNoDisco = storageBackend.localPath(doc.getCaminhoArquivo());
+
+        // Conteúdo guardado no banco já chega com uma consulta; copiá-lo para o cache em disco não compensa
+        boolean usarCache = arquivoNoDisco.isEmpty() && !TieredStorageBackend.ehInline(doc.getCaminhoArquivo());
+
+        // Em um acerto do cache os metadados também vêm do cache, sem nenhuma chamada ao armazenamento. A
+        // entrada fica fixada até o fim da resposta: removê-la do cache não apaga o arquivo durante a leitura
+        Optional<ArquivoEmCache> cache = usarCache && !"HEAD".equalsIgnoreCase(request.getMethod())
+                ? cacheArquivoService.buscar(doc.getCaminhoArquivo())
+                : Optional.empty();
+        try {
+            responder(doc, cache, false, arquivoNoDisco, usarCache, request, response);
+        } finally {
+            cache.ifPresent(ArquivoEmCache::close);
+        }
+    }
+
+    private void responder(Documento doc, Optional<ArquivoEmCache> cache, boolean reconstruida,
+            Optional<Path> arquivoNoDisco, boolean usarCache, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        boolean enviarCorpo = !"HEAD".equalsIgnoreCase(request.getMethod());
+
+        // O sendfile lê o arquivo depois que o método retorna, quando a entrada do cache já foi solta (e pode
+        // ter sido apagada); só o backend em disco local, cujos arquivos não somem, vai por ele
+        boolean permitirSendfile = cache.isEmpty();
+
+        String etag;
+        long ultimaModificacao;
+        long tamanho;
+        String contentType;
+        StoredObject metadata = null;
+        if (cache.isPresent()) {
+            etag = cache.get().etag();
+            ultimaModificacao = cache.get().ultimaModificacao();
+            tamanho = cache.get().tamanho();
+            contentType = cache.get().contentType();
+        } else {
+            Optional<StoredObject> objeto = storageBackend.head(doc.getCaminhoArquivo());
+            if (objeto.isEmpty()) {
+                response.setStatus(HttpStatus.NOT_FOUND.value());
+                return;
+            }
+            metadata = objeto.get();
+            etag = metadata.etag();
+            ultimaModificacao = metadata.lastModified();
+            tamanho = metadata.size();
+            contentType = metadata.contentType();
+        }
+        if (doc.getHashConteudo() != null) {
+            etag = etagDoConteudo(doc);
+        }
+        // Entradas de pacote não guardam o tipo: vale o que o nome do arquivo indica
+        if (contentType == null) {
+            contentType = MediaTypeFactory.getMediaType(doc.getNomeArquivo())
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+        }
+
+        // Objeto comprimido: o gzip é repassado a quem o aceita e descomprimido durante o envio para os
+        // demais. As duas representações têm ETags distintos, e faixas não são atendidas
+        String codificacao = reconstruida ? null : doc.getCodificacao();
+        boolean repassarCodificado = codificacao != null && Compressao.aceita(request, codificacao);
+        if (codificacao != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (repassarCodificado) {
+            etag = variante(etag, codificacao);
+        }
+        // O CRC32C é do conteúdo sem compressão; o gzip repassado ao cliente tem outros bytes
+        String crc32c = repassarCodificado ? null : doc.getCrc32c();
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, codificacao == null ? "bytes" : "none");
+
+        // Define ETag/Last-Modified e responde 304 (ou 412) quando a cópia do cliente ainda é válida
+        if (new ServletWebRequest(request, response).checkNotModified(etag, ultimaModificacao)) {
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + doc.getNomeArquivo() + "\"");
+
+        List<HttpRange> faixas;
+        try {
+            faixas = codificacao == null
+                    ? faixasSolicitadas(request, etag, ultimaModificacao, tamanho)
+                    : List.of();
+        } catch (IllegalArgumentException e) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamanho);
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            return;
+        }
+
+        // Leitura direta: um download completo que não estava no cache o preenche enquanto segue para o
+        // cliente. O modo não bloqueante não passa por um InputStream e fica fora do cache
+        boolean preencherCache = cache.isEmpty() && usarCache && enviarCorpo && faixas.isEmpty()
+                && !usarNaoBloqueante(request);
+        Path arquivoLocal = cache.map(ArquivoEmCache::arquivo).or(() -> arquivoNoDisco).orElse(null);
+
+        if (faixas.isEmpty()) {
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(contentType);
+            if (crc32c != null) {
+                response.setHeader(Integridade.CABECALHO_CRC32C, crc32c);
+            }
+            if (codificacao != null && !repassarCodificado) {
+                // O tamanho descomprimido é o gravado no envio; sem ele, só é conhecido ao fim
+                if (doc.getTamanho() != null) {
+                    response.setContentLengthLong(doc.getTamanho());
+                }
+                if (enviarCorpo) {
+                    descomprimir(doc, arquivoLocal, preencherCache, metadata, codificacao, crc32c,
+                            response.getOutputStream());
+                }
+                return;
+            }
+            if (repassarCodificado) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, codificacao);
+            }
+            response.setContentLengthLong(tamanho);
+            if (preencherCache) {
+                // O CRC32C é conferido antes da cópia: um objeto corrompido não chega inteiro ao cache
+                try (InputStream inputStream = preenchendoCache(doc, metadata,
+                        verificar(abrirFaixa(doc, 0, tamanho - 1, tamanho), crc32c))) {
+                    inputStream.transferTo(response.getOutputStream());
+                }
+            } else if (enviarCorpo) {
+                enviarFaixa(doc, arquivoLocal, permitirSendfile, 0, tamanho - 1, tamanho, crc32c, request,
+                        response);
+            }
+            return;
+        }
+
+        response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+
+        if (faixas.size() == 1) {
+            long inicio = faixas.get(0).getRangeStart(tamanho);
+            long fim = faixas.get(0).getRangeEnd(tamanho);
+            response.setContentType(contentType);
+            response.setContentLengthLong(fim - inicio + 1);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fim + "/" + tamanho);
+            if (enviarCorpo) {
+                enviarFaixa(doc, arquivoLocal, permitirSendfile, inicio, fim, tamanho, null, request, response);
+            }
+            return;
+        }
+
+        // Várias faixas: resposta multipart/byteranges, uma leitura parcial no armazenamento por faixa
+        String boundary = UUID.randomUUID().toString();
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        if (!enviarCorpo) {
+            return;
+        }
+
+        OutputStream out = response.getOutputStream();
+        for (HttpRange faixa : faixas) {
+            long inicio = faixa.getRangeStart(tamanho);
+            long fim = faixa.getRangeEnd(tamanho);
+            String cabecalho = "\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": bytes " + inicio + "-" + fim + "/" + tamanho + "\r\n\r\n";
+            out.write(cabecalho.getBytes(StandardCharsets.US_ASCII));
+            copiarFaixa(doc, arquivoLocal, inicio, fim, tamanho, null, out);
+        }
+        out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // ETag da representação codificada: o mesmo valor com a codificação como sufixo
+    private static String variante(String etag, String codificacao) {
+        if (etag == null) {
+            return null;
+        }
+        if (etag.endsWith("\"")) {
+            return etag.substring(0, etag.length() - 1) + "-" + codificacao + "\"";
+        }
+        return etag + "-" + codificacao;
+    }
+
+    private void descomprimir(Documento doc, Path arquivoLocal, boolean preencherCache, StoredObject metadata,
+            String codificacao, String crc32c, OutputStream out) throws IOException {
+        InputStream armazenado;
+        if (arquivoLocal != null) {
+            armazenado = Files.newInputStream(arquivoLocal);
+        } else if (preencherCache) {
+            // O cache guarda o objeto como está no armazenamento, ainda comprimido
+            long tamanho = metadata.size();
+            armazenado = preenchendoCache(doc, metadata, abrirFaixa(doc, 0, tamanho - 1, tamanho));
+        } else {
+            armazenado = storageBackend.get(doc.getCaminhoArquivo());
+        }
+        try (InputStream inputStream = verificar(Compressao.descomprimir(armazenado, codificacao), crc32c)) {
+            inputStream.transferTo(out);
+        }
+    }
+
+    // Leitura do objeto inteiro que, quando ele cabe no cache, também o grava lá
+    private InputStream preenchendoCache(Documento doc, StoredObject metadata, InputStream inputStream) {
+        return cacheArquivoService.iniciarGravacao(doc.getCaminhoArquivo(), metadata)
+                .<InputStream>map(gravacao -> new LeituraCopiada(inputStream, gravacao))
+                .orElse(inputStream);
+    }
+
+    /**
+     * Interpreta o cabeçalho Range. Retorna lista vazia quando não há Range ou
+     * quando o If-Range não corresponde mais ao objeto (o cliente recebe o
+     * arquivo completo); lança IllegalArgumentException para faixas inválidas.
+     */
+    private List<HttpRange> faixasSolicitadas(HttpServletRequest request, String etag, long ultimaModificacao,
+            long tamanho) {
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range == null) {
+            return List.of();
+        }
+
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+                return List.of();
+            }
+            try {
+                if (request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 != ultimaModificacao / 1000) {
+                    return List.of();
+                }
+            } catch (IllegalArgumentException e) {
+                return List.of();
+            }
+        }
+
+        List<HttpRange> faixas = HttpRange.parseRanges(range);
+        for (HttpRange faixa : faixas) {
+            // getRangeStart não recusa um início após o fim do objeto (só corta o fim); a faixa é insatisfazível
+            if (faixa.getRangeStart(tamanho) >= tamanho) {
+                throw new IllegalArgumentException("Faixa fora do objeto: " + faixa);
+            }
+        }
+        return faixas;
+    }
+
+    /**
+     * Envia o corpo de uma resposta de faixa única. Arquivos do backend em disco
+     * vão por sendfile quando o conector do Tomcat suporta; os demais arquivos
+     * locais (em cache) são copiados com {@link FileChannel#transferTo}. Objetos
+     * remotos no modo não bloqueante seguem pela resposta assíncrona. Com
+     * {@code crc32c} informado (o arquivo inteiro), a leitura remota é conferida.
+     */
+    private void enviarFaixa(Documento doc, Path arquivoLocal, boolean permitirSendfile, long inicio, long fim,
+            long tamanho, String crc32c, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (arquivoLocal != null && permitirSendfile
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, arquivoLocal.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, inicio);
+            request.setAttribute(SENDFILE_END, fim + 1);
+            return;
+        }
+
+        if (arquivoLocal == null && fim >= inicio && usarNaoBloqueante(request)) {
+            enviarNaoBloqueante(doc, inicio, fim, request, response);
+            return;
+        }
+
+        copiarFaixa(doc, arquivoLocal, inicio, fim, tamanho, crc32c, response.getOutputStream());
+    }
+
+    private boolean usarNaoBloqueante(HttpServletRequest request) {
+        return naoBloqueante && request.isAsyncSupported() && storageBackend.supportsAsync();
+    }
+
+    /**
+     * Coloca a requisição em modo assíncrono e liga a leitura não bloqueante do
+     * armazenamento à resposta; a thread da requisição é liberada ao retornar.
+     */
+    private void enviarNaoBloqueante(Documento doc, long inicio, long fim, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        AsyncContext contexto = request.startAsync(request, response);
+        contexto.setTimeout(timeoutNaoBloqueante.toMillis());
+        EscritaNaoBloqueante escrita = new EscritaNaoBloqueante(contexto);
+
+        storageBackend.getRangeAsync(doc.getCaminhoArquivo(), inicio, fim).whenComplete((publisher, erro) -> {
+            if (erro != null) {
+                escrita.falhar(erro);
+            } else {
+                publisher.subscribe(escrita);
+            }
+        });
+    }
+
+    private void copiarFaixa(Documento doc, Path arquivoLocal, long inicio, long fim, long tamanho, String crc32c,
+            OutputStream out) throws IOException {
+        if (fim < inicio) {
+            return;
+        }
+
+        if (arquivoLocal != null) {
+            try (FileChannel channel = FileChannel.open(arquivoLocal, StandardOpenOption.READ)) {
+                WritableByteChannel destino = Channels.newChannel(out);
+                long posicao = inicio;
+                while (posicao <= fim) {
+                    long transferidos = channel.transferTo(posicao, fim - posicao + 1, destino);
+                    if (transferidos <= 0) {
+                        throw new EOFException("Arquivo local menor que o esperado: " + arquivoLocal);
+                    }
+                    posicao += transferidos;
+                }
+            }
+            return;
+        }
+
+        try (InputStream inputStream = verificar(abrirFaixa(doc, inicio, fim, tamanho), crc32c)) {
+            inputStream.transferTo(out);
+        }
+    }
+
+    private static InputStream verificar(InputStream inputStream, String crc32c) {
+        return crc32c != null ? new LeituraVerificada(inputStream, crc32c) : inputStream;
+    }
+
+    private InputStream abrirFaixa(Documento doc, long inicio, long fim, long tamanho) throws IOException {
+        if (executorParalelo != null && fim - inicio + 1 >= tamanhoMinimoParalelo.toBytes()) {
+            return new LeituraParalela(storageBackend, doc.getCaminhoArquivo(), inicio, fim,
+                    (int) tamanhoParteParalelo.toBytes(), conexoesParalelo, executorParalelo);
+        }
+        return inicio == 0 && fim == tamanho - 1
+                ? storageBackend.get(doc.getCaminhoArquivo())
+                : storageBackend.getRange(doc.getCaminhoArquivo(), inicio, fim);
+    }
+}
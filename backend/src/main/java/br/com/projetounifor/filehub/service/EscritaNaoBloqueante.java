@@ -0,0 +1,204 @@
+package br.com.projetounifor.filehub.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Liga um {@link org.reactivestreams.Publisher} de bytes à resposta HTTP em
+ * modo não bloqueante (Servlet 3.1). Um novo bloco só é pedido ao publisher
+ * quando o socket aceita mais dados ({@link ServletOutputStream#isReady()}),
+ * então um cliente lento desacelera a leitura no armazenamento em vez de
+ * acumular bytes na memória, e nenhuma thread fica presa esperando.
+ */
+public class EscritaNaoBloqueante implements Subscriber<ByteBuffer>, WriteListener {
+
+    private static final Logger log = LoggerFactory.getLogger(EscritaNaoBloqueante.class);
+
+    private final AsyncContext contexto;
+    private final ServletOutputStream out;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Subscription assinatura;
+    private ByteBuffer pendente;
+    private boolean aguardandoDados;
+    private boolean fimDosDados;
+    private boolean encerrado;
+
+    /**
+     * Deve ser criado na thread da requisição, logo após
+     * {@link jakarta.servlet.ServletRequest#startAsync()}.
+     */
+    public EscritaNaoBloqueante(AsyncContext contexto) throws IOException {
+        this.contexto = contexto;
+        this.out = contexto.getResponse().getOutputStream();
+        contexto.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                falhar(new TimeoutException("Tempo esgotado enviando o arquivo"));
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                falhar(event.getThrowable());
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        // O container chama onWritePossible assim que a resposta puder receber dados
+        out.setWriteListener(this);
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        lock.lock();
+        try {
+            if (encerrado) {
+                s.cancel();
+                return;
+            }
+            assinatura = s;
+        } finally {
+            lock.unlock();
+        }
+        escrever();
+    }
+
+    @Override
+    public void onNext(ByteBuffer buffer) {
+        lock.lock();
+        try {
+            pendente = buffer;
+            aguardandoDados = false;
+        } finally {
+            lock.unlock();
+        }
+        escrever();
+    }
+
+    @Override
+    public void onComplete() {
+        lock.lock();
+        try {
+            fimDosDados = true;
+        } finally {
+            lock.unlock();
+        }
+        escrever();
+    }
+
+    // Atende tanto o Subscriber (falha no armazenamento) quanto o WriteListener (cliente desconectou)
+    @Override
+    public void onError(Throwable t) {
+        falhar(t);
+    }
+
+    @Override
+    public void onWritePossible() {
+        escrever();
+    }
+
+    /**
+     * Encerra a resposta com erro: cancela a leitura no armazenamento e, se
+     * nenhum byte foi enviado ainda, responde 502 ao cliente.
+     */
+    public void falhar(Throwable t) {
+        Subscription cancelar;
+        lock.lock();
+        try {
+            if (encerrado) {
+                return;
+            }
+            encerrado = true;
+            pendente = null;
+            cancelar = assinatura;
+        } finally {
+            lock.unlock();
+        }
+
+        if (cancelar != null) {
+            cancelar.cancel();
+        }
+
+        log.warn("Download não bloqueante interrompido", t);
+        HttpServletResponse response = (HttpServletResponse) contexto.getResponse();
+        if (!response.isCommitted()) {
+            response.reset();
+            response.setStatus(HttpStatus.BAD_GATEWAY.value());
+        }
+        contexto.complete();
+    }
+
+    /**
+     * Escreve enquanto o socket aceitar dados; quando não há bloco pendente,
+     * pede o próximo ao publisher. O pedido é feito fora da seção crítica
+     * porque o publisher pode entregar o bloco na mesma thread.
+     */
+    private void escrever() {
+        boolean pedirProximo = false;
+        boolean concluir = false;
+        Exception erro = null;
+
+        lock.lock();
+        try {
+            while (!encerrado && out.isReady()) {
+                if (pendente != null) {
+                    gravar(pendente);
+                    pendente = null;
+                } else if (fimDosDados) {
+                    encerrado = true;
+                    concluir = true;
+                    break;
+                } else {
+                    if (assinatura != null && !aguardandoDados) {
+                        aguardandoDados = true;
+                        pedirProximo = true;
+                    }
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            erro = e;
+        } finally {
+            lock.unlock();
+        }
+
+        if (erro != null) {
+            falhar(erro);
+        } else if (concluir) {
+            contexto.complete();
+        } else if (pedirProximo) {
+            assinatura.request(1);
+        }
+    }
+
+    private void gravar(ByteBuffer buffer) throws IOException {
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            out.write(bytes);
+        }
+    }
+}
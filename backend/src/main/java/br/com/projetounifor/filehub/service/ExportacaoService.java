@@ -0,0 +1,258 @@
+package br.com.projetounifor.filehub.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import br.com.projetounifor.filehub.domain.model.Documento;
+import br.com.projetounifor.filehub.domain.model.Projeto;
+import br.com.projetounifor.filehub.domain.model.enums.StatusDocumento;
+import br.com.projetounifor.filehub.domain.repository.DocumentoRepository;
+import br.com.projetounifor.filehub.domain.repository.ProjetoRepository;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Exporta todos os documentos de um projeto em um ZIP gerado durante o envio.
+ * Os próximos objetos são lidos do armazenamento em paralelo, dentro de uma
+ * janela limitada, enquanto o atual é escrito; cada leitura mantém em memória
+ * no máximo {@code tamanho-maximo-prefetch} bytes, então o consumo de memória
+ * não depende do tamanho do projeto.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportacaoService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportacaoService.class);
+
+    // Formatos que já são comprimidos; comprimir de novo só gastaria CPU
+    private static final Set<String> EXTENSOES_COMPRIMIDAS = Set.of("zip", "gz", "tgz", "bz2", "xz", "7z", "rar",
+            "jpg", "jpeg", "png", "gif", "webp", "heic", "mp3", "mp4", "mov", "mkv", "avi", "docx", "xlsx", "pptx",
+            "odt", "ods", "odp");
+
+    private final ProjetoRepository projetoRepository;
+    private final DocumentoRepository documentoRepository;
+    private final DocumentoService documentoService;
+    private final StorageBackend storageBackend;
+    private final VersaoService versaoService;
+
+    @Value("${filehub.exportacao.threads:8}")
+    private int threads = 8;
+
+    // Quantidade de documentos lidos antecipadamente, incluindo o que está sendo escrito
+    @Value("${filehub.exportacao.janela:4}")
+    private int janela = 4;
+
+    // Objetos até este tamanho são lidos inteiros e entram no ZIP com tamanho e CRC já conhecidos
+    @Value("${filehub.exportacao.tamanho-maximo-prefetch:8MB}")
+    private DataSize tamanhoMaximoPrefetch = DataSize.ofMegabytes(8);
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Documentos que entram na exportação. Deve ser chamado antes de iniciar a
+     * resposta, para que a falta de acesso ainda possa virar um 403.
+     */
+    public List<Documento> listarDocumentos(Long projetoId, Long usuarioId) {
+        Projeto projeto = projetoRepository.findById(projetoId)
+                .orElseThrow(() -> new RuntimeException("Projeto não encontrado"));
+
+        if (!documentoService.usuarioTemAcesso(projeto, usuarioId)) {
+            throw new AccessDeniedException("Usuário não pertence ao projeto");
+        }
+
+        // Documentos ainda em envio não estão no armazenamento
+        return documentoRepository.findByProjetoId(projetoId).stream()
+                .filter(doc -> doc.getStatus() != StatusDocumento.ENVIANDO)
+                .toList();
+    }
+
+    public void exportar(List<Documento> documentos, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        Deque<Future<Conteudo>> pendentes = new ArrayDeque<>();
+        Set<String> nomes = new HashSet<>();
+        List<String> erros = new ArrayList<>();
+        int proximo = 0;
+
+        try {
+            for (Documento doc : documentos) {
+                while (proximo < documentos.size() && pendentes.size() < janela) {
+                    Documento seguinte = documentos.get(proximo++);
+                    pendentes.addLast(executor.submit(() -> ler(seguinte)));
+                }
+
+                Conteudo conteudo = aguardar(pendentes.removeFirst());
+                if (conteudo.erro() != null) {
+                    log.warn("Documento {} não incluído na exportação", doc.getId(), conteudo.erro());
+                    erros.add(doc.getId() + " - " + doc.getNomeArquivo() + ": " + conteudo.erro().getMessage());
+                    continue;
+                }
+                escreverEntrada(zip, doc, conteudo, nomes);
+            }
+
+            // O ZIP já está em andamento; documentos que falharam são listados em vez de abortar tudo
+            if (!erros.isEmpty()) {
+                zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+                zip.putNextEntry(new ZipEntry("ERROS.txt"));
+                zip.write(String.join("\n", erros).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+            zip.finish();
+        } finally {
+            descartar(pendentes);
+        }
+    }
+
+    private Conteudo ler(Documento doc) {
+        InputStream inputStream = null;
+        try {
+            inputStream = VersaoService.ehDelta(doc)
+                    ? versaoService.abrir(doc)
+                    : Compressao.descomprimir(storageBackend.get(doc.getCaminhoArquivo()), doc.getCodificacao());
+            int limite = (int) tamanhoMaximoPrefetch.toBytes();
+            byte[] inicio = inputStream.readNBytes(limite + 1);
+            if (inicio.length <= limite) {
+                inputStream.close();
+                return new Conteudo(inicio, null, null);
+            }
+            // Objeto grande: o restante é lido só quando a entrada for escrita
+            return new Conteudo(inicio, inputStream, null);
+        } catch (IOException | RuntimeException e) {
+            fechar(inputStream);
+            return new Conteudo(null, null, e);
+        }
+    }
+
+    private void escreverEntrada(ZipOutputStream zip, Documento doc, Conteudo conteudo, Set<String> nomes)
+            throws IOException {
+        ZipEntry entry = new ZipEntry(nomeEntrada(doc, nomes));
+        if (doc.getCriadoEm() != null) {
+            entry.setTimeLocal(doc.getCriadoEm());
+        }
+        boolean comprimido = jaComprimido(doc.getNomeArquivo());
+
+        if (conteudo.restante() == null) {
+            byte[] bytes = conteudo.inicio();
+            if (comprimido) {
+                CRC32 crc = new CRC32();
+                crc.update(bytes);
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(bytes.length);
+                entry.setCompressedSize(bytes.length);
+                entry.setCrc(crc.getValue());
+            }
+            zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+            zip.putNextEntry(entry);
+            zip.write(bytes);
+            zip.closeEntry();
+            return;
+        }
+
+        // STORED exige tamanho e CRC antes dos dados; sem ler o objeto inteiro, usa deflate sem compressão
+        try (InputStream restante = conteudo.restante()) {
+            zip.setLevel(comprimido ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+            zip.putNextEntry(entry);
+            zip.write(conteudo.inicio());
+            restante.transferTo(zip);
+            zip.closeEntry();
+        }
+    }
+
+    private static String nomeEntrada(Documento doc, Set<String> nomes) {
+        String nome = doc.getNomeArquivo() != null
+                ? doc.getNomeArquivo().replace('/', '_').replace('\\', '_')
+                : "documento-" + doc.getId();
+        if (!nomes.add(nome)) {
+            // Versões diferentes costumam ter o mesmo nome de arquivo
+            nome = doc.getId() + "-" + nome;
+            nomes.add(nome);
+        }
+        return nome;
+    }
+
+    private static boolean jaComprimido(String nomeArquivo) {
+        if (nomeArquivo == null || nomeArquivo.lastIndexOf('.') < 0) {
+            return false;
+        }
+        String extensao = nomeArquivo.substring(nomeArquivo.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        return EXTENSOES_COMPRIMIDAS.contains(extensao);
+    }
+
+    private static Conteudo aguardar(Future<Conteudo> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Exportação interrompida", e);
+        } catch (ExecutionException e) {
+            return new Conteudo(null, null, e.getCause());
+        }
+    }
+
+    /**
+     * Em caso de erro (ex.: cliente desconectou), cancela as leituras que ainda
+     * não começaram e espera as demais para fechar as conexões que abriram.
+     */
+    private static void descartar(Deque<Future<Conteudo>> pendentes) {
+        for (Future<Conteudo> future : pendentes) {
+            if (!future.cancel(false)) {
+                try {
+                    fechar(future.get().restante());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    // a leitura falhou e não deixou nada aberto
+                }
+            }
+        }
+    }
+
+    private static void fechar(InputStream inputStream) {
+        if (inputStream == null) {
+            return;
+        }
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            log.debug("Falha ao fechar leitura de objeto", e);
+        }
+    }
+
+    private record Conteudo(byte[] inicio, InputStream restante, Throwable erro) {
+    }
+}
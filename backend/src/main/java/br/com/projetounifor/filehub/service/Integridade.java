@@ -0,0 +1,32 @@
+package br.com.projetounifor.filehub.service;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+/**
+ * Verificação de integridade por CRC32C ({@link CRC32C}, calculado com a
+ * instrução de hardware das CPUs atuais). O valor circula em base64 dos quatro
+ * bytes big-endian, o formato do checksum de objeto do S3, então o CRC32C
+ * calculado no envio é o mesmo que o S3 confere ao receber e que o download
+ * confere ao ler.
+ */
+final class Integridade {
+
+    // Cabeçalho do download e do HEAD com o CRC32C do conteúdo, para o cliente conferir o que recebeu
+    static final String CABECALHO_CRC32C = "X-Checksum-CRC32C";
+
+    private Integridade() {
+    }
+
+    static String crc32c(Checksum crc) {
+        return Base64.getEncoder().encodeToString(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+    }
+
+    static String crc32c(byte[] conteudo) {
+        CRC32C crc = new CRC32C();
+        crc.update(conteudo);
+        return crc32c(crc);
+    }
+}
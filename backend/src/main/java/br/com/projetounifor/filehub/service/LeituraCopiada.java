@@ -0,0 +1,67 @@
+package br.com.projetounifor.filehub.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Repassa a leitura de um stream gravando cada bloco lido também em uma
+ * cópia, na mesma passagem: o download segue para o cliente desde o primeiro
+ * byte enquanto preenche o cache. O {@link #transferTo} preserva os blocos do
+ * stream de origem, então a {@link LeituraParalela} continua entregando partes
+ * inteiras. Fechar a leitura fecha também a cópia.
+ */
+final class LeituraCopiada extends InputStream {
+
+    private final InputStream inputStream;
+    private final OutputStream copia;
+
+    LeituraCopiada(InputStream inputStream, OutputStream copia) {
+        this.inputStream = inputStream;
+        this.copia = copia;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = inputStream.read();
+        if (b >= 0) {
+            copia.write(b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int lidos = inputStream.read(b, off, len);
+        if (lidos > 0) {
+            copia.write(b, off, lidos);
+        }
+        return lidos;
+    }
+
+    @Override
+    public long transferTo(OutputStream out) throws IOException {
+        return inputStream.transferTo(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                copia.write(b);
+                out.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                copia.write(b, off, len);
+                out.write(b, off, len);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            inputStream.close();
+        } finally {
+            copia.close();
+        }
+    }
+}
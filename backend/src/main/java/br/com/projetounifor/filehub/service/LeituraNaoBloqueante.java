@@ -0,0 +1,130 @@
+package br.com.projetounifor.filehub.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+
+/**
+ * Expõe o corpo da requisição como um {@link Publisher} de bytes, lido em modo
+ * não bloqueante (Servlet 3.1). Só se lê do socket enquanto o assinante tem
+ * demanda, então um armazenamento lento desacelera o cliente pelo controle de
+ * fluxo do TCP em vez de acumular o arquivo na memória. Aceita um único
+ * assinante.
+ */
+public class LeituraNaoBloqueante implements Publisher<ByteBuffer>, ReadListener {
+
+    private static final int TAMANHO_BLOCO = 64 * 1024;
+
+    private final ServletInputStream in;
+    private final byte[] buffer = new byte[TAMANHO_BLOCO];
+    private final AtomicLong demanda = new AtomicLong();
+    // Garante que só uma thread lê por vez; chamadas concorrentes apenas pedem uma nova rodada
+    private final AtomicInteger rodadas = new AtomicInteger();
+    private final AtomicBoolean encerrado = new AtomicBoolean();
+
+    private volatile Subscriber<? super ByteBuffer> assinante;
+    private volatile boolean todosOsDadosLidos;
+
+    /**
+     * Deve ser criado na thread da requisição, logo após
+     * {@link jakarta.servlet.ServletRequest#startAsync()}.
+     */
+    public LeituraNaoBloqueante(ServletInputStream in) {
+        this.in = in;
+        in.setReadListener(this);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+        if (assinante != null) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("O corpo da requisição só pode ser lido uma vez"));
+            return;
+        }
+
+        assinante = subscriber;
+        subscriber.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    falhar(new IllegalArgumentException("A demanda deve ser positiva"));
+                    return;
+                }
+                demanda.accumulateAndGet(n, (atual, pedido) -> atual + pedido < 0 ? Long.MAX_VALUE : atual + pedido);
+                ler();
+            }
+
+            @Override
+            public void cancel() {
+                encerrado.set(true);
+            }
+        });
+    }
+
+    @Override
+    public void onDataAvailable() {
+        ler();
+    }
+
+    @Override
+    public void onAllDataRead() {
+        todosOsDadosLidos = true;
+        ler();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        falhar(t);
+    }
+
+    private void ler() {
+        if (rodadas.getAndIncrement() != 0) {
+            return;
+        }
+
+        int pendentes = 1;
+        do {
+            try {
+                Subscriber<? super ByteBuffer> s = assinante;
+                while (s != null && !encerrado.get() && demanda.get() > 0 && !in.isFinished() && in.isReady()) {
+                    int lidos = in.read(buffer);
+                    if (lidos > 0) {
+                        demanda.decrementAndGet();
+                        s.onNext(ByteBuffer.wrap(Arrays.copyOf(buffer, lidos)));
+                    }
+                }
+                if (s != null && (todosOsDadosLidos || in.isFinished()) && encerrado.compareAndSet(false, true)) {
+                    s.onComplete();
+                }
+            } catch (IOException | RuntimeException e) {
+                falhar(e);
+            }
+            pendentes = rodadas.addAndGet(-pendentes);
+        } while (pendentes != 0);
+    }
+
+    private void falhar(Throwable t) {
+        Subscriber<? super ByteBuffer> s = assinante;
+        if (s != null && encerrado.compareAndSet(false, true)) {
+            s.onError(t);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package br.com.projetounifor.filehub.service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import br.com.projetounifor.filehub.storage.StorageBackend;
+
+/**
+ * Lê uma faixa de um objeto com várias leituras parciais simultâneas e entrega
+ * os bytes em ordem. Cada conexão ao armazenamento tem a sua banda, então
+ * objetos grandes chegam mais rápido do que por um único GET. No máximo
+ * {@code conexoes} partes ficam em andamento ou esperando a vez na memória;
+ * uma nova parte só é pedida quando a mais antiga é consumida, o que limita o
+ * buffer de reordenação a {@code conexoes × tamanhoParte} bytes.
+ */
+final class LeituraParalela extends InputStream {
+
+    private static final byte[] VAZIO = new byte[0];
+
+    private final StorageBackend storageBackend;
+    private final String chave;
+    private final long fim;
+    private final int tamanhoParte;
+    private final ExecutorService executor;
+    private final Deque<Future<byte[]>> partes = new ArrayDeque<>();
+
+    private long proximoInicio;
+    private byte[] atual = VAZIO;
+    private int posicao;
+    private boolean fechado;
+
+    /**
+     * Começa a ler {@code inicio..fim} (inclusivo) de {@code chave}, com até
+     * {@code conexoes} leituras parciais em paralelo no {@code executor}.
+     */
+    LeituraParalela(StorageBackend storageBackend, String chave, long inicio, long fim, int tamanhoParte,
+            int conexoes, ExecutorService executor) {
+        this.storageBackend = storageBackend;
+        this.chave = chave;
+        this.fim = fim;
+        this.tamanhoParte = tamanhoParte;
+        this.executor = executor;
+        this.proximoInicio = inicio;
+        for (int i = 0; i < conexoes; i++) {
+            if (!agendar()) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!preencher()) {
+            return -1;
+        }
+        return atual[posicao++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        if (!preencher()) {
+            return -1;
+        }
+        int lidos = Math.min(len, atual.length - posicao);
+        System.arraycopy(atual, posicao, b, off, lidos);
+        posicao += lidos;
+        return lidos;
+    }
+
+    // Cada parte vai inteira para a saída, sem passar por um buffer intermediário
+    @Override
+    public long transferTo(OutputStream out) throws IOException {
+        long transferidos = 0;
+        while (preencher()) {
+            int restante = atual.length - posicao;
+            out.write(atual, posicao, restante);
+            posicao = atual.length;
+            transferidos += restante;
+        }
+        return transferidos;
+    }
+
+    @Override
+    public void close() {
+        fechado = true;
+        Future<byte[]> parte;
+        while ((parte = partes.pollFirst()) != null) {
+            parte.cancel(true);
+        }
+        atual = VAZIO;
+    }
+
+    private boolean agendar() {
+        if (proximoInicio > fim) {
+            return false;
+        }
+        long inicioParte = proximoInicio;
+        long fimParte = Math.min(fim, inicioParte + tamanhoParte - 1);
+        proximoInicio = fimParte + 1;
+        partes.addLast(executor.submit(() -> lerParte(inicioParte, fimParte)));
+        return true;
+    }
+
+    private byte[] lerParte(long inicio, long fim) throws IOException {
+        int tamanho = (int) (fim - inicio + 1);
+        try (InputStream inputStream = storageBackend.getRange(chave, inicio, fim)) {
+            byte[] bytes = inputStream.readNBytes(tamanho);
+            if (bytes.length != tamanho) {
+                throw new EOFException("Objeto menor que o esperado: " + chave);
+            }
+            return bytes;
+        }
+    }
+
+    // Garante bytes disponíveis em atual, esperando a próxima parte na ordem; falso ao fim da faixa
+    private boolean preencher() throws IOException {
+        if (fechado) {
+            throw new IOException("Leitura encerrada");
+        }
+        if (posicao < atual.length) {
+            return true;
+        }
+
+        Future<byte[]> proxima = partes.pollFirst();
+        if (proxima == null) {
+            atual = VAZIO;
+            return false;
+        }
+        try {
+            atual = proxima.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new InterruptedIOException("Leitura interrompida");
+        } catch (ExecutionException e) {
+            close();
+            throw e.getCause() instanceof IOException io ? io : new IOException("Erro ao ler parte do objeto",
+                    e.getCause());
+        }
+        posicao = 0;
+        // A parte entregue libera uma vaga na janela
+        agendar();
+        return true;
+    }
+}
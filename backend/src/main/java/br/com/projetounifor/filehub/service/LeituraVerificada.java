@@ -0,0 +1,137 @@
+package br.com.projetounifor.filehub.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+/**
+ * Confere o CRC32C de um conteúdo enquanto ele é lido, na mesma passagem e
+ * sem buffer adicional. O último byte só é entregue depois da conferência: se
+ * o CRC32C não bater, a leitura falha antes do fim e a resposta sai truncada,
+ * o que o cliente percebe pelo Content-Length (ou pela falta do chunk final),
+ * em vez de receber um arquivo corrompido como se estivesse íntegro.
+ */
+final class LeituraVerificada extends InputStream {
+
+    private final InputStream inputStream;
+    private final String esperado;
+    // Cobre todos os bytes já lidos do stream, inclusive o pendente
+    private final CRC32C crc = new CRC32C();
+
+    // Último byte lido, ainda não entregue; -1 quando não há
+    private int pendente = -1;
+    private boolean fim;
+
+    LeituraVerificada(InputStream inputStream, String esperado) {
+        this.inputStream = inputStream;
+        this.esperado = esperado;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        if (!carregarPendente()) {
+            return -1;
+        }
+
+        // O pendente vai na frente; o último byte desta leitura passa a ser o novo pendente
+        b[off] = (byte) pendente;
+        int lidos = len > 1 ? inputStream.read(b, off + 1, len - 1) : 0;
+        if (lidos > 0) {
+            crc.update(b, off + 1, lidos);
+            pendente = b[off + lidos] & 0xff;
+            return lidos;
+        }
+        if (lidos == 0) {
+            int proximo = inputStream.read();
+            if (proximo >= 0) {
+                crc.update(proximo);
+                pendente = proximo;
+                return 1;
+            }
+        }
+
+        // O pendente era o último byte
+        conferir();
+        pendente = -1;
+        return 1;
+    }
+
+    // Repassa à saída cada bloco que o stream entregar, menos o último byte; a LeituraParalela
+    // continua entregando partes inteiras, sem cópia intermediária
+    @Override
+    public long transferTo(OutputStream out) throws IOException {
+        if (fim) {
+            return 0;
+        }
+        long[] transferidos = { 0 };
+        inputStream.transferTo(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return;
+                }
+                crc.update(b, off, len);
+                if (pendente >= 0) {
+                    out.write(pendente);
+                    transferidos[0]++;
+                }
+                out.write(b, off, len - 1);
+                transferidos[0] += len - 1;
+                pendente = b[off + len - 1] & 0xff;
+            }
+        });
+
+        conferir();
+        if (pendente >= 0) {
+            out.write(pendente);
+            transferidos[0]++;
+            pendente = -1;
+        }
+        return transferidos[0];
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+
+    private boolean carregarPendente() throws IOException {
+        if (fim) {
+            return false;
+        }
+        if (pendente < 0) {
+            pendente = inputStream.read();
+            if (pendente < 0) {
+                conferir();
+                return false;
+            }
+            crc.update(pendente);
+        }
+        return true;
+    }
+
+    private void conferir() throws IOException {
+        fim = true;
+        String lido = Integridade.crc32c(crc);
+        if (!lido.equals(esperado)) {
+            throw new IOException("CRC32C do conteúdo não confere: esperado " + esperado + ", lido " + lido);
+        }
+    }
+}
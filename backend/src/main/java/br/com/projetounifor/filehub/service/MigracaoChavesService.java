@@ -0,0 +1,162 @@
+package br.com.projetounifor.filehub.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import br.com.projetounifor.filehub.domain.model.Documento;
+import br.com.projetounifor.filehub.domain.model.ObjetoDescartado;
+import br.com.projetounifor.filehub.domain.model.TarefaAgendada;
+import br.com.projetounifor.filehub.domain.model.enums.StatusDocumento;
+import br.com.projetounifor.filehub.domain.repository.DocumentoRepository;
+import br.com.projetounifor.filehub.domain.repository.ObjetoDescartadoRepository;
+import br.com.projetounifor.filehub.domain.repository.TarefaAgendadaRepository;
+import br.com.projetounifor.filehub.storage.EntradaPacote;
+import br.com.projetounifor.filehub.storage.LayoutChaves;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import br.com.projetounifor.filehub.storage.TieredStorageBackend;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Migração, com o sistema no ar, das chaves gravadas antes do layout com shard
+ * ({@link LayoutChaves}): {@code <uuid><nome>} e {@code sha256/<hash>}. A cada
+ * execução um lote de documentos é percorrido em ordem de id; para cada chave
+ * antiga o objeto é copiado para a chave nova, a troca é registrada e só então
+ * os documentos e o registro de conteúdo passam a apontar para a chave nova, em
+ * um comando único. O objeto antigo continua legível até o fim da retenção,
+ * quando é apagado se ninguém mais o referencia.
+ * <p>
+ * Deltas de versão, conteúdos no banco e entradas de pacote ficam como estão.
+ * <p>
+ * Em um cluster, cada lote roda em um só nó: a execução reserva a linha da
+ * tarefa ({@link TarefaAgendada}), que também guarda o último documento
+ * visitado, então um reinício continua a varredura de onde ela parou.
+ */
+@Service
+public class MigracaoChavesService {
+
+    private static final Logger log = LoggerFactory.getLogger(MigracaoChavesService.class);
+
+    private final DocumentoRepository documentoRepository;
+    private final ObjetoDescartadoRepository objetoDescartadoRepository;
+    private final TarefaAgendadaRepository tarefaAgendadaRepository;
+    private final StorageBackend storageBackend;
+    private final LayoutChaves layoutChaves;
+    private final Counter chavesMigradas;
+
+    static final String TAREFA = "migracao-chaves";
+
+    @Value("${filehub.storage.layout.migracao.habilitada:false}")
+    private boolean habilitada;
+
+    @Value("${filehub.storage.layout.migracao.lote:100}")
+    private int lote = 100;
+
+    // Tempo antes de apagar a chave antiga: cobre leituras e envios que a obtiveram pouco antes da troca
+    @Value("${filehub.storage.layout.migracao.retencao:1h}")
+    private Duration retencao = Duration.ofHours(1);
+
+    // Validade da reserva: cobre um lote com folga, e a de um nó que caiu expira depois dela
+    @Value("${filehub.storage.layout.migracao.reserva:15m}")
+    private Duration reserva = Duration.ofMinutes(15);
+
+    public MigracaoChavesService(DocumentoRepository documentoRepository,
+            ObjetoDescartadoRepository objetoDescartadoRepository, TarefaAgendadaRepository tarefaAgendadaRepository,
+            StorageBackend storageBackend, LayoutChaves layoutChaves, MeterRegistry meterRegistry) {
+        this.documentoRepository = documentoRepository;
+        this.objetoDescartadoRepository = objetoDescartadoRepository;
+        this.tarefaAgendadaRepository = tarefaAgendadaRepository;
+        this.storageBackend = storageBackend;
+        this.layoutChaves = layoutChaves;
+        this.chavesMigradas = Counter.builder("filehub.layout.chaves.migradas").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${filehub.storage.layout.migracao.intervalo-ms:60000}")
+    public void migrarLote() {
+        if (!habilitada) {
+            return;
+        }
+
+        // Outro nó com a reserva está migrando este lote
+        LocalDateTime agora = LocalDateTime.now();
+        if (tarefaAgendadaRepository.reservar(TAREFA, agora, agora.plus(reserva)) == 0) {
+            return;
+        }
+
+        long cursor = tarefaAgendadaRepository.findById(TAREFA)
+                .map(TarefaAgendada::getUltimoId)
+                .orElse(0L);
+        try {
+            apagarDescartados();
+
+            List<Documento> documentos = documentoRepository.findByIdGreaterThanOrderById(cursor, Limit.of(lote));
+            for (Documento documento : documentos) {
+                try {
+                    migrar(documento);
+                } catch (IOException | RuntimeException e) {
+                    // Segue com o lote: um objeto ausente não pode travar a migração dos demais
+                    log.warn("Falha ao migrar a chave do documento {}", documento.getId(), e);
+                }
+                cursor = documento.getId();
+            }
+        } finally {
+            tarefaAgendadaRepository.liberar(TAREFA, cursor);
+        }
+    }
+
+    private void migrar(Documento documento) throws IOException {
+        String antiga = documento.getCaminhoArquivo();
+        Optional<String> nova = novaChave(documento);
+        if (nova.isEmpty()) {
+            return;
+        }
+
+        storageBackend.copy(antiga, nova.get());
+        objetoDescartadoRepository.save(new ObjetoDescartado(antiga, nova.get(),
+                LocalDateTime.now().plus(retencao)));
+        documentoRepository.trocarCaminhoArquivo(antiga, nova.get());
+        chavesMigradas.increment();
+    }
+
+    Optional<String> novaChave(Documento documento) {
+        String chave = documento.getCaminhoArquivo();
+        // Em envio, a chave ainda pode estar sendo gravada (ou é do spool local)
+        if (chave == null || documento.getStatus() == StatusDocumento.ENVIANDO || LayoutChaves.temShard(chave)
+                || TieredStorageBackend.ehInline(chave) || EntradaPacote.ehEntrada(chave)
+                || VersaoService.ehDelta(documento)) {
+            return Optional.empty();
+        }
+        return Optional.of(LayoutChaves.nomeConteudo(chave)
+                .map(layoutChaves::conteudo)
+                .orElseGet(() -> layoutChaves.documento(documento.getProjeto().getId(), documento.getId(),
+                        documento.getVersao(), documento.getNomeArquivo())));
+    }
+
+    // Uma chave antiga que voltou a ser usada (um envio que a leu antes da troca) é trocada de novo
+    private void apagarDescartados() {
+        for (ObjetoDescartado descartado : objetoDescartadoRepository.findByDescartarEmBefore(LocalDateTime.now())) {
+            try {
+                if (objetoDescartadoRepository.referenciado(descartado.getChave())) {
+                    documentoRepository.trocarCaminhoArquivo(descartado.getChave(), descartado.getNovaChave());
+                    descartado.setDescartarEm(LocalDateTime.now().plus(retencao));
+                    objetoDescartadoRepository.save(descartado);
+                    continue;
+                }
+                storageBackend.delete(descartado.getChave());
+                objetoDescartadoRepository.delete(descartado);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Falha ao apagar a chave antiga {}", descartado.getChave(), e);
+            }
+        }
+    }
+}
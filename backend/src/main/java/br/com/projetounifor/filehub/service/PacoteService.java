@@ -0,0 +1,314 @@
+package br.com.projetounifor.filehub.service;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import br.com.projetounifor.filehub.domain.model.ConteudoInline;
+import br.com.projetounifor.filehub.domain.model.Pacote;
+import br.com.projetounifor.filehub.domain.model.enums.StatusPacote;
+import br.com.projetounifor.filehub.domain.repository.ConteudoInlineRepository;
+import br.com.projetounifor.filehub.domain.repository.ConteudoInlineRepository.Pendente;
+import br.com.projetounifor.filehub.domain.repository.PacoteRepository;
+import br.com.projetounifor.filehub.domain.repository.PacoteRepository.BytesVivos;
+import br.com.projetounifor.filehub.storage.EntradaPacote;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import br.com.projetounifor.filehub.storage.TieredStorageBackend;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Empacotamento de conteúdos pequenos: em vez de um objeto (e uma requisição
+ * ao armazenamento) por arquivo, os conteúdos ficam no banco até formarem um
+ * pacote, gravado de uma vez em {@code pacotes/<id>}. Os documentos passam a
+ * apontar para a faixa do pacote com o seu conteúdo ({@link EntradaPacote}).
+ * <p>
+ * A ordem das gravações mantém tudo consistente se o processo cair no meio:
+ * o pacote só fica ativo depois de inteiro no armazenamento, e só então cada
+ * entrada troca de chave, em um comando único; até lá os documentos continuam
+ * lendo do banco. Um pacote que ficou gravando é descartado na varredura, e as
+ * entradas que ninguém mais referencia são recuperadas pela compactação.
+ */
+@Service
+public class PacoteService {
+
+    private static final Logger log = LoggerFactory.getLogger(PacoteService.class);
+
+    private final PacoteRepository pacoteRepository;
+    private final ConteudoInlineRepository conteudoInlineRepository;
+    private final StorageBackend storageBackend;
+    private final Counter entradasEmpacotadas;
+    private final Counter bytesRecuperados;
+
+    @Value("${filehub.pacotes.habilitado:false}")
+    private boolean habilitado;
+
+    // Conteúdos até este tamanho (já comprimidos, se for o caso) vão para um pacote
+    @Value("${filehub.pacotes.tamanho-maximo-objeto:1MB}")
+    private DataSize tamanhoMaximoObjeto = DataSize.ofMegabytes(1);
+
+    // O pacote é gravado ao chegar neste tamanho ou quando o conteúdo mais antigo passa da idade máxima
+    @Value("${filehub.pacotes.tamanho:64MB}")
+    private DataSize tamanhoPacote = DataSize.ofMegabytes(64);
+
+    @Value("${filehub.pacotes.idade-maxima:5m}")
+    private Duration idadeMaxima = Duration.ofMinutes(5);
+
+    @Value("${filehub.pacotes.max-entradas:10000}")
+    private int maximoEntradas = 10_000;
+
+    // Pacotes com menos desta fração ainda referenciada são reescritos só com as entradas vivas
+    @Value("${filehub.pacotes.proporcao-minima:0.5}")
+    private double proporcaoMinima = 0.5;
+
+    // Tempo antes de apagar o que foi substituído: cobre envios em andamento que ainda usem a chave antiga
+    @Value("${filehub.pacotes.retencao:1h}")
+    private Duration retencao = Duration.ofHours(1);
+
+    public PacoteService(PacoteRepository pacoteRepository, ConteudoInlineRepository conteudoInlineRepository,
+            StorageBackend storageBackend, MeterRegistry meterRegistry) {
+        this.pacoteRepository = pacoteRepository;
+        this.conteudoInlineRepository = conteudoInlineRepository;
+        this.storageBackend = storageBackend;
+        this.entradasEmpacotadas = Counter.builder("filehub.pacotes.entradas").register(meterRegistry);
+        this.bytesRecuperados = Counter.builder("filehub.pacotes.bytes.reclaimed").baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public boolean aceita(long tamanho) {
+        return habilitado && tamanho <= tamanhoMaximoObjeto.toBytes();
+    }
+
+    /**
+     * Guarda o conteúdo no banco, na chave {@code inline/<nome>}, até o próximo
+     * pacote. A chave devolvida já pode ser lida.
+     */
+    public String adicionar(String nome, String contentType, InputStream inputStream, long tamanho)
+            throws IOException {
+        byte[] conteudo = inputStream.readNBytes((int) tamanho);
+        if (conteudo.length != tamanho) {
+            throw new EOFException("Conteúdo menor que o tamanho informado: " + nome);
+        }
+        String chave = TieredStorageBackend.PREFIXO_INLINE + nome;
+        conteudoInlineRepository.save(new ConteudoInline(chave, conteudo, contentType, tamanho,
+                LocalDateTime.now(), true));
+        return chave;
+    }
+
+    @Scheduled(fixedDelayString = "${filehub.pacotes.varredura-ms:10000}")
+    public void empacotarPendentes() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            descartarEnviosInterrompidos();
+            List<Pendente> selecionados;
+            while (!(selecionados = selecionar()).isEmpty()) {
+                if (!gravarReservados(selecionados)) {
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Falha ao gravar pacote; os conteúdos seguem no banco até a próxima varredura", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${filehub.pacotes.compactacao-ms:3600000}")
+    public void compactar() {
+        if (!habilitado) {
+            return;
+        }
+        LocalDateTime limite = LocalDateTime.now().minus(retencao);
+        pacoteRepository.descartarConteudosSemReferencia();
+        Map<String, Long> vivos = pacoteRepository.bytesVivos().stream()
+                .collect(Collectors.toMap(BytesVivos::getPacote, BytesVivos::getVivos));
+
+        for (Pacote pacote : pacoteRepository.findByStatusAndCriadoEmBefore(StatusPacote.ATIVO, limite)) {
+            try {
+                compactar(pacote, vivos.getOrDefault(pacote.getId(), 0L), limite);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Falha ao compactar o pacote {}", pacote.getId(), e);
+            }
+        }
+        conteudoInlineRepository.removerSemReferencias(limite);
+    }
+
+    // Até max-entradas conteúdos, parando ao completar um pacote; vazio se ainda não é hora de gravar
+    private List<Pendente> selecionar() {
+        List<Pendente> pendentes = conteudoInlineRepository.findPendentes(PageRequest.of(0, maximoEntradas));
+        if (pendentes.isEmpty()) {
+            return List.of();
+        }
+        List<Pendente> selecionados = new ArrayList<>();
+        long total = 0;
+        for (Pendente pendente : pendentes) {
+            selecionados.add(pendente);
+            total += pendente.getTamanho();
+            if (total >= tamanhoPacote.toBytes()) {
+                return selecionados;
+            }
+        }
+        boolean cheio = selecionados.size() >= maximoEntradas;
+        boolean antigo = pendentes.get(0).getCriadoEm().isBefore(LocalDateTime.now().minus(idadeMaxima));
+        return cheio || antigo ? selecionados : List.of();
+    }
+
+    // Em um cluster, cada conteúdo vai para o pacote de um só nó; false se outro nó levou toda a seleção
+    private boolean gravarReservados(List<Pendente> selecionados) throws IOException {
+        Set<String> reservadas = new HashSet<>(
+                conteudoInlineRepository.reservar(selecionados.stream().map(Pendente::getChave).toList()));
+        if (reservadas.isEmpty()) {
+            return false;
+        }
+        try {
+            gravarPacote(selecionados.stream().filter(p -> reservadas.contains(p.getChave())).toList());
+        } catch (IOException | RuntimeException e) {
+            conteudoInlineRepository.devolver(reservadas);
+            throw e;
+        }
+        return true;
+    }
+
+    private void gravarPacote(List<Pendente> selecionados) throws IOException {
+        Pacote pacote = pacoteRepository.save(new Pacote(UUID.randomUUID().toString(), 0L, StatusPacote.ENVIANDO,
+                LocalDateTime.now(), null));
+        Map<String, String> novasChaves = new LinkedHashMap<>();
+        Path arquivo = Files.createTempFile("filehub-pacote", ".bin");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(arquivo))) {
+                long offset = 0;
+                for (Pendente pendente : selecionados) {
+                    Optional<ConteudoInline> conteudo = conteudoInlineRepository.findById(pendente.getChave());
+                    if (conteudo.isEmpty()) {
+                        continue;
+                    }
+                    byte[] bytes = conteudo.get().getConteudo();
+                    out.write(bytes);
+                    String nome = pendente.getChave().substring(TieredStorageBackend.PREFIXO_INLINE.length());
+                    novasChaves.put(pendente.getChave(),
+                            new EntradaPacote(pacote.getId(), offset, bytes.length, nome).chave());
+                    offset += bytes.length;
+                }
+            }
+            enviar(pacote, arquivo);
+        } finally {
+            Files.deleteIfExists(arquivo);
+        }
+
+        // Só com o pacote ativo as entradas passam a apontar para ele
+        novasChaves.forEach(pacoteRepository::moverEntrada);
+        entradasEmpacotadas.increment(novasChaves.size());
+        log.info("Pacote {} gravado com {} entradas ({} bytes)", pacote.getId(), novasChaves.size(),
+                pacote.getTamanho());
+    }
+
+    private void compactar(Pacote pacote, long bytesVivos, LocalDateTime limite) throws IOException {
+        // Um pacote recém-substituído ainda pode ganhar uma referência de um envio em andamento
+        if (pacote.getCompactadoEm() != null && !pacote.getCompactadoEm().isBefore(limite)) {
+            return;
+        }
+
+        String prefixo = EntradaPacote.prefixo(pacote.getId());
+        if (bytesVivos == 0) {
+            if (!pacoteRepository.entradasReferenciadas(prefixo + "%").isEmpty()) {
+                return;
+            }
+            storageBackend.delete(EntradaPacote.objeto(pacote.getId()));
+            pacoteRepository.delete(pacote);
+            if (pacote.getCompactadoEm() == null) {
+                bytesRecuperados.increment(pacote.getTamanho());
+            }
+            return;
+        }
+        if (bytesVivos >= pacote.getTamanho() * proporcaoMinima) {
+            return;
+        }
+
+        // As entradas vivas são copiadas em ordem, com uma única leitura do pacote antigo
+        List<EntradaPacote> vivas = pacoteRepository.entradasReferenciadas(prefixo + "%").stream()
+                .map(EntradaPacote::ler)
+                .flatMap(Optional::stream)
+                .sorted(Comparator.comparingLong(EntradaPacote::offset))
+                .toList();
+        Pacote novo = pacoteRepository.save(new Pacote(UUID.randomUUID().toString(), 0L, StatusPacote.ENVIANDO,
+                LocalDateTime.now(), null));
+        Map<String, String> novasChaves = new LinkedHashMap<>();
+        Path arquivo = Files.createTempFile("filehub-pacote", ".bin");
+        try {
+            try (InputStream antigo = storageBackend.get(EntradaPacote.objeto(pacote.getId()));
+                    OutputStream out = new BufferedOutputStream(Files.newOutputStream(arquivo))) {
+                long posicao = 0;
+                long offset = 0;
+                for (EntradaPacote entrada : vivas) {
+                    antigo.skipNBytes(entrada.offset() - posicao);
+                    byte[] bytes = antigo.readNBytes((int) entrada.tamanho());
+                    if (bytes.length != entrada.tamanho()) {
+                        throw new EOFException("Pacote menor que o esperado: " + pacote.getId());
+                    }
+                    out.write(bytes);
+                    posicao = entrada.offset() + entrada.tamanho();
+                    novasChaves.put(entrada.chave(),
+                            new EntradaPacote(novo.getId(), offset, entrada.tamanho(), entrada.nome()).chave());
+                    offset += entrada.tamanho();
+                }
+            }
+            enviar(novo, arquivo);
+        } finally {
+            Files.deleteIfExists(arquivo);
+        }
+
+        novasChaves.forEach(pacoteRepository::moverEntrada);
+        // O pacote antigo é apagado numa próxima compactação, depois da retenção, se ninguém mais o usar
+        pacote.setCompactadoEm(LocalDateTime.now());
+        pacoteRepository.save(pacote);
+        bytesRecuperados.increment(pacote.getTamanho() - novo.getTamanho());
+        log.info("Pacote {} compactado em {} ({} de {} bytes em uso)", pacote.getId(), novo.getId(), bytesVivos,
+                pacote.getTamanho());
+    }
+
+    private void enviar(Pacote pacote, Path arquivo) throws IOException {
+        long tamanho = Files.size(arquivo);
+        try (InputStream conteudo = Files.newInputStream(arquivo)) {
+            storageBackend.put(EntradaPacote.objeto(pacote.getId()), MediaType.APPLICATION_OCTET_STREAM_VALUE,
+                    conteudo, tamanho);
+        }
+        pacote.setTamanho(tamanho);
+        pacote.setStatus(StatusPacote.ATIVO);
+        pacoteRepository.save(pacote);
+    }
+
+    // Pacotes que ficaram gravando (queda no meio do envio): nenhuma entrada aponta para eles
+    private void descartarEnviosInterrompidos() throws IOException {
+        LocalDateTime limite = LocalDateTime.now().minus(retencao);
+        for (Pacote pacote : pacoteRepository.findByStatusAndCriadoEmBefore(StatusPacote.ENVIANDO, limite)) {
+            storageBackend.delete(EntradaPacote.objeto(pacote.getId()));
+            pacoteRepository.delete(pacote);
+            log.info("Pacote {} interrompido durante o envio foi descartado", pacote.getId());
+        }
+    }
+}
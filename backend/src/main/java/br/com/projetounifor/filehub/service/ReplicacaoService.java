@@ -0,0 +1,255 @@
+package br.com.projetounifor.filehub.service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import br.com.projetounifor.filehub.domain.model.ConteudoArquivo;
+import br.com.projetounifor.filehub.domain.model.Documento;
+import br.com.projetounifor.filehub.domain.model.enums.StatusDocumento;
+import br.com.projetounifor.filehub.domain.repository.DocumentoRepository;
+import br.com.projetounifor.filehub.service.ConteudoService.Assinatura;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Upload assíncrono: o arquivo é gravado (com fsync) no spool local e o
+ * documento fica com status {@link StatusDocumento#ENVIANDO} até que um pool
+ * limitado de workers o replique para o armazenamento. Documentos ainda em
+ * {@code ENVIANDO} são reagendados na inicialização e periodicamente, o que
+ * cobre reinícios da aplicação e envios que esgotaram as tentativas.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReplicacaoService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicacaoService.class);
+
+    private final DocumentoRepository documentoRepository;
+    private final StorageBackend storageBackend;
+    private final ConteudoService conteudoService;
+
+    @Value("${filehub.upload.spool-dir:${user.dir}/uploads}")
+    private String spoolDir;
+
+    @Value("${filehub.replicacao.threads:4}")
+    private int threads;
+
+    // Tamanho da fila de replicação; quando cheia, o arquivo aguarda a próxima varredura
+    @Value("${filehub.replicacao.fila:1000}")
+    private int tamanhoFila;
+
+    @Value("${filehub.replicacao.tentativas:5}")
+    private int tentativas;
+
+    @Value("${filehub.replicacao.intervalo-tentativa-ms:1000}")
+    private long intervaloTentativaMs;
+
+    private ThreadPoolExecutor executor;
+
+    // Documentos já na fila ou em envio, para que a varredura não os agende duas vezes
+    private final Set<Long> emReplicacao = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(Paths.get(spoolDir));
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(tamanhoFila));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Grava o arquivo no spool e força a escrita em disco antes de retornar, de
+     * modo que o upload sobrevive a uma queda do processo.
+     */
+    public void gravarNoSpool(String keyName, MultipartFile file) throws IOException {
+        Path destino = arquivoSpool(keyName);
+        Path temporario = destino.resolveSibling(destino.getFileName() + ".tmp");
+
+        try (InputStream inputStream = file.getInputStream();
+                FileChannel channel = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long tamanho = file.getSize();
+            long gravados = 0;
+            while (gravados < tamanho) {
+                long n = channel.transferFrom(Channels.newChannel(inputStream), gravados, tamanho - gravados);
+                if (n <= 0) {
+                    break;
+                }
+                gravados += n;
+            }
+            // Um arquivo truncado não pode entrar no spool como se estivesse completo
+            if (gravados != tamanho) {
+                throw new EOFException("Arquivo truncado: " + gravados + " de " + tamanho + " bytes");
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporario);
+            throw e;
+        }
+
+        Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE);
+
+        // A renomeação só é durável depois que a entrada do diretório chega ao disco
+        try (FileChannel diretorio = FileChannel.open(destino.getParent(), StandardOpenOption.READ)) {
+            diretorio.force(true);
+        }
+    }
+
+    public void agendar(Documento doc) {
+        if (!emReplicacao.add(doc.getId())) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> replicar(doc.getId(), doc.getCaminhoArquivo(),
+                    new Assinatura(doc.getHashConteudo(), doc.getCrc32c()), doc.getNomeArquivo()));
+        } catch (RejectedExecutionException e) {
+            emReplicacao.remove(doc.getId());
+            log.warn("Fila de replicação cheia; documento {} aguardará a próxima varredura", doc.getId());
+        }
+    }
+
+    public Optional<Path> arquivoEmSpool(Documento doc) {
+        Path arquivo = arquivoSpool(doc.getCaminhoArquivo());
+        return Files.isRegularFile(arquivo) ? Optional.of(arquivo) : Optional.empty();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recuperarSpool() {
+        reagendarPendentes();
+    }
+
+    @Scheduled(fixedDelayString = "${filehub.replicacao.varredura-ms:60000}")
+    public void reagendarPendentes() {
+        for (Documento doc : documentoRepository.findByStatus(StatusDocumento.ENVIANDO)) {
+            // Em um cluster, só o nó que recebeu o arquivo tem a cópia no spool
+            if (arquivoEmSpool(doc).isPresent()) {
+                agendar(doc);
+            }
+        }
+    }
+
+    /**
+     * Envia o arquivo do spool. Documentos com hash vão para a chave endereçada
+     * por conteúdo (ou reaproveitam o objeto, se outro envio já gravou os mesmos
+     * bytes); documentos antigos, sem hash, mantêm a chave do spool. O CRC32C
+     * calculado no recebimento segue junto, e uma cópia do spool que se
+     * corrompeu no disco é recusada pelo armazenamento.
+     * <p>
+     * O conteúdo é gravado (ou reaproveitado) uma única vez; as tentativas
+     * seguintes só repetem o que ainda falta. A referência obtida é devolvida
+     * sempre que não chega a ser anexada ao documento, seja porque ele saiu de
+     * {@code ENVIANDO}, seja porque as tentativas se esgotaram; a próxima
+     * varredura toma uma nova.
+     */
+    private void replicar(Long documentoId, String keyName, Assinatura assinatura, String nomeArquivo) {
+        String hash = assinatura.hash();
+        ConteudoArquivo destino = null;
+        boolean anexado = false;
+        try {
+            Path arquivo = arquivoSpool(keyName);
+            String contentType = MediaTypeFactory.getMediaType(nomeArquivo)
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+
+            if (hash != null) {
+                destino = conteudoService.reutilizar(hash).orElse(null);
+            }
+
+            boolean concluido = false;
+            for (int tentativa = 1; tentativa <= tentativas && !concluido; tentativa++) {
+                try {
+                    if (destino == null) {
+                        destino = enviar(keyName, arquivo, assinatura, contentType);
+                    }
+                    anexado = anexar(documentoId, destino);
+                    concluido = true;
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Falha ao replicar documento {} (tentativa {}/{})", documentoId, tentativa, tentativas, e);
+                    if (tentativa < tentativas) {
+                        Thread.sleep(intervaloTentativaMs * (1L << (tentativa - 1)));
+                    }
+                }
+            }
+
+            if (concluido) {
+                Files.deleteIfExists(arquivo);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Falha ao replicar documento {}", documentoId, e);
+        } finally {
+            if (hash != null && destino != null && !anexado) {
+                conteudoService.liberar(hash);
+            }
+            emReplicacao.remove(documentoId);
+        }
+    }
+
+    // Grava o arquivo do spool no armazenamento; sem hash, o objeto fica na própria chave do spool, sem compressão
+    private ConteudoArquivo enviar(String keyName, Path arquivo, Assinatura assinatura, String contentType)
+            throws IOException {
+        long tamanho = Files.size(arquivo);
+        try (InputStream inputStream = Files.newInputStream(arquivo)) {
+            if (assinatura.hash() == null) {
+                storageBackend.put(keyName, contentType, inputStream, tamanho);
+                return new ConteudoArquivo(null, tamanho, keyName, null, null, null);
+            }
+            return conteudoService.armazenar(assinatura, contentType, inputStream, tamanho);
+        }
+    }
+
+    // Aponta o documento para o objeto gravado; falso quando ele não está mais aguardando a replicação
+    private boolean anexar(Long documentoId, ConteudoArquivo destino) {
+        Optional<Documento> pendente = documentoRepository.findById(documentoId)
+                .filter(doc -> doc.getStatus() == StatusDocumento.ENVIANDO);
+        if (pendente.isEmpty()) {
+            return false;
+        }
+
+        Documento doc = pendente.get();
+        doc.setCaminhoArquivo(destino.getCaminhoArquivo());
+        doc.setCodificacao(destino.getCodificacao());
+        doc.setStatus(StatusDocumento.PENDENTE);
+        documentoRepository.save(doc);
+        return true;
+    }
+
+    private Path arquivoSpool(String keyName) {
+        return Paths.get(spoolDir).resolve(URLEncoder.encode(keyName, StandardCharsets.UTF_8));
+    }
+}
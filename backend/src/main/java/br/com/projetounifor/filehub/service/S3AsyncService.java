@@ -0,0 +1,77 @@
+package br.com.projetounifor.filehub.service;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.springframework.stereotype.Service;
+
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.async.ResponsePublisher;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Operações não bloqueantes no S3, usadas lado a lado com o {@link S3Service}
+ * durante a migração. Os bytes circulam como {@link Publisher}: o S3 só envia
+ * (ou recebe) o próximo bloco quando o assinante pede, o que dá contrapressão
+ * de ponta a ponta sem ocupar uma thread por transferência.
+ */
+@Service
+public class S3AsyncService {
+
+  private final S3AsyncClient s3AsyncClient;
+
+  public S3AsyncService(S3AsyncClient s3AsyncClient) {
+    this.s3AsyncClient = s3AsyncClient;
+  }
+
+  /**
+   * GET parcial do objeto; {@code fim} é inclusivo, como no cabeçalho Range.
+   * O futuro completa quando os cabeçalhos da resposta chegam, antes do corpo.
+   */
+  public CompletableFuture<ResponsePublisher<GetObjectResponse>> downloadFileRange(String bucket, String key,
+      long inicio, long fim) {
+    GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+        .bucket(bucket)
+        .key(key)
+        .range("bytes=" + inicio + "-" + fim)
+        .build();
+
+    return s3AsyncClient.getObject(getObjectRequest, AsyncResponseTransformer.toPublisher());
+  }
+
+  /**
+   * Envia o objeto consumindo o publisher conforme a conexão com o S3 aceita
+   * mais dados. O tamanho precisa ser conhecido de antemão (Content-Length).
+   */
+  public CompletableFuture<PutObjectResponse> uploadFile(String bucket, String key, String contentType,
+      Publisher<ByteBuffer> conteudo, long tamanho) {
+    PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+        .bucket(bucket)
+        .key(key)
+        .contentType(contentType)
+        .contentLength(tamanho)
+        .build();
+
+    AsyncRequestBody corpo = new AsyncRequestBody() {
+      @Override
+      public Optional<Long> contentLength() {
+        return Optional.of(tamanho);
+      }
+
+      @Override
+      public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+        conteudo.subscribe(subscriber);
+      }
+    };
+
+    return s3AsyncClient.putObject(putObjectRequest, corpo);
+  }
+}
@@ -1,34 +1,340 @@
 package br.com.projetounifor.filehub.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.ChecksumAlgorithm;
+import software.amazon.awssdk.services.s3.model.ChecksumType;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartCopyRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 @Service
 public class S3Service {
 
   private final S3Client s3Client;
+  private final S3Presigner s3Presigner;
 
-  public S3Service(S3Client s3Client) {
+  // Arquivos a partir deste tamanho são enviados em partes (multipart upload)
+  @Value("${filehub.s3.multipart.threshold:64MB}")
+  private DataSize multipartThreshold = DataSize.ofMegabytes(64);
+
+  // Tamanho de cada parte; o S3 exige no mínimo 5 MB, exceto para a última
+  @Value("${filehub.s3.multipart.part-size:16MB}")
+  private DataSize multipartPartSize = DataSize.ofMegabytes(16);
+
+  // Quantidade máxima de partes em memória/envio simultâneo por upload
+  @Value("${filehub.s3.multipart.max-parts-in-flight:4}")
+  private int multipartMaxPartsInFlight = 4;
+
+  @Value("${filehub.s3.multipart.threads:16}")
+  private int multipartThreads = 16;
+
+  // Objetos acima deste tamanho são copiados em partes (UploadPartCopy); o CopyObject aceita até 5 GB
+  @Value("${filehub.s3.copia.threshold:5GB}")
+  private DataSize copiaThreshold = DataSize.ofGigabytes(5);
+
+  @Value("${filehub.s3.copia.part-size:512MB}")
+  private DataSize copiaPartSize = DataSize.ofMegabytes(512);
+
+  private ExecutorService multipartExecutor;
+
+  public S3Service(S3Client s3Client, S3Presigner s3Presigner) {
     this.s3Client = s3Client;
+    this.s3Presigner = s3Presigner;
+  }
+
+  @PostConstruct
+  void init() {
+    multipartExecutor = Executors.newFixedThreadPool(multipartThreads);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (multipartExecutor != null) {
+      multipartExecutor.shutdownNow();
+    }
   }
 
   public void uploadFile(String bucketName, String keyName, MultipartFile file) throws IOException {
-    PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+    try (InputStream inputStream = file.getInputStream()) {
+      uploadFile(bucketName, keyName, file.getContentType(), inputStream, file.getSize());
+    }
+  }
+
+  public void uploadFile(String bucketName, String keyName, String contentType, InputStream inputStream, long size)
+      throws IOException {
+    uploadFile(bucketName, keyName, contentType, inputStream, size, null);
+  }
+
+  /**
+   * Envia o objeto com o checksum CRC32C do S3. Com o valor calculado antes do
+   * envio ({@code crc32c}, em base64), o S3 recusa o objeto se os bytes
+   * recebidos não baterem com o conteúdo original; sem ele, o SDK calcula o
+   * CRC32C durante o envio e o manda no trailer, o que ainda protege o trecho
+   * entre a aplicação e o bucket.
+   */
+  public void uploadFile(String bucketName, String keyName, String contentType, InputStream inputStream, long size,
+      String crc32c) throws IOException {
+    if (size >= multipartThreshold.toBytes()) {
+      uploadFileMultipart(bucketName, keyName, contentType, inputStream, crc32c);
+      return;
+    }
+
+    PutObjectRequest.Builder putObjectRequest = PutObjectRequest.builder()
+        .bucket(bucketName)
+        .key(keyName)
+        .contentType(contentType)
+        .contentLength(size);
+    if (crc32c != null) {
+      putObjectRequest.checksumCRC32C(crc32c);
+    } else {
+      putObjectRequest.checksumAlgorithm(ChecksumAlgorithm.CRC32_C);
+    }
+
+    // Envia o conteúdo em streaming a partir do tamanho já conhecido, sem copiar o arquivo para a heap
+    s3Client.putObject(putObjectRequest.build(), RequestBody.fromInputStream(inputStream, size));
+  }
+
+  public void uploadFileMultipart(String bucketName, String keyName, String contentType, InputStream inputStream)
+      throws IOException {
+    uploadFileMultipart(bucketName, keyName, contentType, inputStream, null);
+  }
+
+  /**
+   * Envia o conteúdo em partes, com até {@code max-parts-in-flight} partes sendo
+   * enviadas em paralelo. Em caso de falha o upload é abortado, de modo que o
+   * objeto só passa a existir no bucket se todas as partes forem concluídas.
+   * Cada parte leva o seu CRC32C e o S3 combina os das partes no CRC32C do
+   * objeto inteiro ({@code FULL_OBJECT}), conferido contra {@code crc32c} na
+   * conclusão quando informado.
+   */
+  public void uploadFileMultipart(String bucketName, String keyName, String contentType, InputStream inputStream,
+      String crc32c) throws IOException {
+    CreateMultipartUploadRequest criacao = CreateMultipartUploadRequest.builder()
+        .bucket(bucketName)
+        .key(keyName)
+        .contentType(contentType)
+        .checksumAlgorithm(ChecksumAlgorithm.CRC32_C)
+        .checksumType(ChecksumType.FULL_OBJECT)
+        .build();
+    String uploadId = s3Client.createMultipartUpload(criacao).uploadId();
+
+    try {
+      Semaphore slots = new Semaphore(multipartMaxPartsInFlight);
+      List<CompletableFuture<CompletedPart>> partes = new ArrayList<>();
+      int partNumber = 1;
+
+      while (true) {
+        // A vaga vem antes da leitura: no máximo max-parts-in-flight buffers de parte ficam na heap
+        slots.acquire();
+        if (partes.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+          slots.release();
+          break;
+        }
+
+        byte[] buffer = inputStream.readNBytes((int) multipartPartSize.toBytes());
+        if (buffer.length == 0) {
+          slots.release();
+          break;
+        }
+
+        int numero = partNumber++;
+        partes.add(CompletableFuture
+            .supplyAsync(() -> enviarParteVerificada(bucketName, keyName, uploadId, numero, buffer),
+                multipartExecutor)
+            .whenComplete((parte, erro) -> slots.release()));
+      }
+
+      List<CompletedPart> concluidas = new ArrayList<>();
+      for (CompletableFuture<CompletedPart> parte : partes) {
+        concluidas.add(parte.join());
+      }
+      concluidas.sort(Comparator.comparing(CompletedPart::partNumber));
+
+      CompleteMultipartUploadRequest.Builder conclusao = CompleteMultipartUploadRequest.builder()
+          .bucket(bucketName)
+          .key(keyName)
+          .uploadId(uploadId)
+          .checksumType(ChecksumType.FULL_OBJECT)
+          .multipartUpload(CompletedMultipartUpload.builder().parts(concluidas).build());
+      if (crc32c != null) {
+        conclusao.checksumCRC32C(crc32c);
+      }
+      s3Client.completeMultipartUpload(conclusao.build());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      abortMultipartUpload(bucketName, keyName, uploadId);
+      throw new IOException("Upload em partes interrompido", e);
+    } catch (CompletionException e) {
+      abortMultipartUpload(bucketName, keyName, uploadId);
+      throw new IOException("Erro ao enviar parte do arquivo", e.getCause());
+    } catch (IOException | RuntimeException e) {
+      abortMultipartUpload(bucketName, keyName, uploadId);
+      throw e;
+    }
+  }
+
+  // A parte já está em memória: o CRC32C sai de uma passada sobre o buffer, antes do envio
+  private CompletedPart enviarParteVerificada(String bucketName, String keyName, String uploadId, int partNumber,
+      byte[] buffer) {
+    String crc32c = Integridade.crc32c(buffer);
+    UploadPartRequest request = UploadPartRequest.builder()
+        .bucket(bucketName)
+        .key(keyName)
+        .uploadId(uploadId)
+        .partNumber(partNumber)
+        .contentLength((long) buffer.length)
+        .checksumCRC32C(crc32c)
+        .build();
+
+    return CompletedPart.builder()
+        .partNumber(partNumber)
+        .eTag(s3Client.uploadPart(request, RequestBody.fromBytes(buffer)).eTag())
+        .checksumCRC32C(crc32c)
+        .build();
+  }
+
+  public String createMultipartUpload(String bucketName, String keyName, String contentType) {
+    CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
+        .bucket(bucketName)
+        .key(keyName)
+        .contentType(contentType)
+        .build();
+
+    return s3Client.createMultipartUpload(request).uploadId();
+  }
+
+  public String uploadPart(String bucketName, String keyName, String uploadId, int partNumber,
+      InputStream inputStream, long length) {
+    UploadPartRequest request = UploadPartRequest.builder()
+        .bucket(bucketName)
+        .key(keyName)
+        .uploadId(uploadId)
+        .partNumber(partNumber)
+        .contentLength(length)
+        .build();
+
+    return s3Client.uploadPart(request, RequestBody.fromInputStream(inputStream, length)).eTag();
+  }
+
+  public void completeMultipartUpload(String bucketName, String keyName, String uploadId,
+      List<CompletedPart> parts) {
+    CompleteMultipartUploadRequest request = CompleteMultipartUploadRequest.builder()
         .bucket(bucketName)
         .key(keyName)
-        .contentType(file.getContentType())
+        .uploadId(uploadId)
+        .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
         .build();
 
-    s3Client.putObject(putObjectRequest, RequestBody.fromBytes(file.getBytes()));
+    s3Client.completeMultipartUpload(request);
+  }
+
+  public void abortMultipartUpload(String bucketName, String keyName, String uploadId) {
+    AbortMultipartUploadRequest request = AbortMultipartUploadRequest.builder()
+        .bucket(bucketName)
+        .key(keyName)
+        .uploadId(uploadId)
+        .build();
+
+    s3Client.abortMultipartUpload(request);
+  }
+
+  /**
+   * Copia um objeto dentro do bucket sem que os bytes passem pela aplicação:
+   * CopyObject até o limite de uma cópia simples e, acima dele, UploadPartCopy
+   * com as partes copiadas em paralelo. Em caso de falha o upload é abortado.
+   */
+  public void copyObject(String bucketName, String origem, String destino) throws IOException {
+    copyObject(bucketName, origem, bucketName, destino);
+  }
+
+  /**
+   * Cópia entre buckets, como na migração de chaves para outro layout.
+   */
+  public void copyObject(String bucketOrigem, String origem, String bucketDestino, String destino)
+      throws IOException {
+    HeadObjectResponse metadata = headObject(bucketOrigem, origem);
+    long tamanho = metadata.contentLength();
+    if (tamanho <= copiaThreshold.toBytes()) {
+      s3Client.copyObject(CopyObjectRequest.builder()
+          .sourceBucket(bucketOrigem)
+          .sourceKey(origem)
+          .destinationBucket(bucketDestino)
+          .destinationKey(destino)
+          .build());
+      return;
+    }
+
+    String uploadId = createMultipartUpload(bucketDestino, destino, metadata.contentType());
+    try {
+      // O S3 aceita no máximo 10.000 partes
+      long tamanhoParte = Math.max(copiaPartSize.toBytes(), (tamanho + 9_999) / 10_000);
+      List<CompletableFuture<CompletedPart>> partes = new ArrayList<>();
+      int partNumber = 1;
+      for (long inicio = 0; inicio < tamanho; inicio += tamanhoParte) {
+        int numero = partNumber++;
+        String faixa = "bytes=" + inicio + "-" + (Math.min(inicio + tamanhoParte, tamanho) - 1);
+        partes.add(CompletableFuture.supplyAsync(() -> CompletedPart.builder()
+            .partNumber(numero)
+            .eTag(s3Client.uploadPartCopy(UploadPartCopyRequest.builder()
+                .sourceBucket(bucketOrigem)
+                .sourceKey(origem)
+                .destinationBucket(bucketDestino)
+                .destinationKey(destino)
+                .uploadId(uploadId)
+                .partNumber(numero)
+                .copySourceRange(faixa)
+                .build()).copyPartResult().eTag())
+            .build(), multipartExecutor));
+      }
+
+      List<CompletedPart> concluidas = new ArrayList<>();
+      for (CompletableFuture<CompletedPart> parte : partes) {
+        concluidas.add(parte.join());
+      }
+      completeMultipartUpload(bucketDestino, destino, uploadId, concluidas);
+    } catch (CompletionException e) {
+      abortMultipartUpload(bucketDestino, destino, uploadId);
+      throw new IOException("Erro ao copiar parte do arquivo", e.getCause());
+    } catch (RuntimeException e) {
+      abortMultipartUpload(bucketDestino, destino, uploadId);
+      throw e;
+    }
   }
 
   public ResponseInputStream<GetObjectResponse> downloadFile(String bucket, String key) {
@@ -39,4 +345,73 @@ public class S3Service {
 
     return s3Client.getObject(getObjectRequest);
   }
+
+  /**
+   * GET parcial do objeto; {@code fim} é inclusivo, como no cabeçalho Range.
+   */
+  public ResponseInputStream<GetObjectResponse> downloadFileRange(String bucket, String key, long inicio, long fim) {
+    GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+        .bucket(bucket)
+        .key(key)
+        .range("bytes=" + inicio + "-" + fim)
+        .build();
+
+    return s3Client.getObject(getObjectRequest);
+  }
+
+  public HeadObjectResponse headObject(String bucket, String key) {
+    HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
+        .bucket(bucket)
+        .key(key)
+        .build();
+
+    return s3Client.headObject(headObjectRequest);
+  }
+
+  public void deleteObject(String bucket, String key) {
+    DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
+        .bucket(bucket)
+        .key(key)
+        .build();
+
+    s3Client.deleteObject(deleteObjectRequest);
+  }
+
+  /**
+   * Gera uma URL assinada para que o cliente envie o arquivo diretamente ao S3,
+   * sem que os bytes passem pela aplicação.
+   */
+  public URL presignUpload(String bucket, String key, String contentType, Duration expiracao) {
+    PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+        .bucket(bucket)
+        .key(key)
+        .contentType(contentType)
+        .build();
+
+    PutObjectPresignRequest presignRequest = PutObjectPresignRequest.builder()
+        .signatureDuration(expiracao)
+        .putObjectRequest(putObjectRequest)
+        .build();
+
+    return s3Presigner.presignPutObject(presignRequest).url();
+  }
+
+  /**
+   * Gera uma URL assinada de leitura; o cliente baixa o arquivo direto do S3
+   * com o nome original informado no Content-Disposition.
+   */
+  public URL presignDownload(String bucket, String key, String nomeArquivo, Duration expiracao) {
+    GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+        .bucket(bucket)
+        .key(key)
+        .responseContentDisposition("attachment; filename=\"" + nomeArquivo + "\"")
+        .build();
+
+    GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+        .signatureDuration(expiracao)
+        .getObjectRequest(getObjectRequest)
+        .build();
+
+    return s3Presigner.presignGetObject(presignRequest).url();
+  }
 }
@@ -0,0 +1,266 @@
+package br.com.projetounifor.filehub.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import br.com.projetounifor.filehub.domain.model.Documento;
+import br.com.projetounifor.filehub.domain.model.ParteUpload;
+import br.com.projetounifor.filehub.domain.model.Projeto;
+import br.com.projetounifor.filehub.domain.model.SessaoUpload;
+import br.com.projetounifor.filehub.domain.model.Usuario;
+import br.com.projetounifor.filehub.domain.model.enums.StatusDocumento;
+import br.com.projetounifor.filehub.domain.model.enums.StatusSessaoUpload;
+import br.com.projetounifor.filehub.domain.repository.DocumentoRepository;
+import br.com.projetounifor.filehub.domain.repository.ParteUploadRepository;
+import br.com.projetounifor.filehub.domain.repository.ProjetoRepository;
+import br.com.projetounifor.filehub.domain.repository.SessaoUploadRepository;
+import br.com.projetounifor.filehub.domain.repository.UsuarioRepository;
+import br.com.projetounifor.filehub.dto.DocumentoDTO;
+import br.com.projetounifor.filehub.dto.SessaoUploadDTO;
+import br.com.projetounifor.filehub.storage.LayoutChaves;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import br.com.projetounifor.filehub.storage.UploadedPart;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Upload retomável: cada sessão corresponde a um multipart upload no
+ * armazenamento e as partes recebidas ficam registradas no banco, de modo que
+ * qualquer nó pode aceitar a próxima parte e o cliente nunca reenvia bytes já
+ * armazenados.
+ * <p>
+ * Sessões abandonadas expiram após {@code filehub.upload.sessoes.validade},
+ * contada da criação, e o multipart upload correspondente é abortado para
+ * liberar as partes que o armazenamento cobra até lá.
+ */
+@Service
+@RequiredArgsConstructor
+public class SessaoUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(SessaoUploadService.class);
+
+    // Número máximo de partes aceito pelo multipart upload do S3
+    private static final int PARTE_MAXIMA = 10000;
+
+    // Tamanho mínimo do S3 para todas as partes, exceto a última
+    private static final long TAMANHO_MINIMO_PARTE = 5L * 1024 * 1024;
+
+    private final SessaoUploadRepository sessaoUploadRepository;
+    private final ParteUploadRepository parteUploadRepository;
+    private final DocumentoRepository documentoRepository;
+    private final ProjetoRepository projetoRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final DocumentoService documentoService;
+    private final StorageBackend storageBackend;
+    private final LayoutChaves layoutChaves;
+
+    @Value("${filehub.upload.sessoes.validade:7d}")
+    private Duration validadeSessao = Duration.ofDays(7);
+
+    public SessaoUploadDTO criarSessao(Long projetoId, Long usuarioId, String nomeArquivo, String contentType) {
+        Projeto projeto = projetoRepository.findById(projetoId)
+                .orElseThrow(() -> new RuntimeException("Projeto não encontrado"));
+
+        if (!documentoService.usuarioTemAcesso(projeto, usuarioId)) {
+            throw new AccessDeniedException("Usuário não pertence ao projeto");
+        }
+
+        Usuario usuario = usuarioRepository.findById(usuarioId)
+                .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
+
+        String keyName = layoutChaves.envio(projetoId, 1, nomeArquivo);
+
+        SessaoUpload sessao = new SessaoUpload();
+        sessao.setNomeArquivo(nomeArquivo);
+        sessao.setContentType(contentType);
+        sessao.setCaminhoArquivo(keyName);
+        try {
+            sessao.setUploadId(storageBackend.createMultipartUpload(keyName, contentType));
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao iniciar sessão de upload", e);
+        }
+        sessao.setStatus(StatusSessaoUpload.ABERTA);
+        sessao.setProjeto(projeto);
+        sessao.setCriadoPor(usuario);
+        sessao.setCriadoEm(LocalDateTime.now());
+
+        return toDTO(sessaoUploadRepository.save(sessao), List.of());
+    }
+
+    public SessaoUploadDTO enviarParte(Long sessaoId, Long usuarioId, int numero, InputStream conteudo,
+            long tamanho) {
+        SessaoUpload sessao = buscarSessaoAberta(sessaoId, usuarioId);
+
+        if (numero < 1 || numero > PARTE_MAXIMA) {
+            throw new IllegalArgumentException("Número da parte deve estar entre 1 e " + PARTE_MAXIMA);
+        }
+        if (tamanho <= 0) {
+            throw new IllegalArgumentException("Tamanho da parte deve ser informado");
+        }
+
+        // A parte vai direto para o armazenamento; reenviar o mesmo número apenas substitui a parte anterior
+        String etag;
+        try {
+            etag = storageBackend.uploadPart(sessao.getCaminhoArquivo(), sessao.getUploadId(), numero, conteudo,
+                    tamanho);
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao salvar parte do arquivo", e);
+        }
+
+        try {
+            registrarParte(sessao, numero, etag, tamanho);
+        } catch (DataIntegrityViolationException e) {
+            // Outro envio da mesma parte registrou a linha entre a busca e a gravação; agora ela é encontrada
+            registrarParte(sessao, numero, etag, tamanho);
+        }
+
+        return toDTO(sessao, parteUploadRepository.findBySessaoIdOrderByNumero(sessaoId));
+    }
+
+    public SessaoUploadDTO consultarSessao(Long sessaoId, Long usuarioId) {
+        SessaoUpload sessao = buscarSessao(sessaoId, usuarioId);
+        return toDTO(sessao, parteUploadRepository.findBySessaoIdOrderByNumero(sessaoId));
+    }
+
+    public DocumentoDTO finalizarSessao(Long sessaoId, Long usuarioId) {
+        SessaoUpload sessao = buscarSessaoAberta(sessaoId, usuarioId);
+        List<ParteUpload> partes = parteUploadRepository.findBySessaoIdOrderByNumero(sessaoId);
+
+        if (partes.isEmpty()) {
+            throw new IllegalStateException("Nenhuma parte foi enviada para a sessão");
+        }
+        for (int i = 0; i < partes.size(); i++) {
+            if (partes.get(i).getNumero() != i + 1) {
+                throw new IllegalStateException("Parte " + (i + 1) + " ainda não foi enviada");
+            }
+        }
+        // Recusa aqui, com a parte identificada, o que o armazenamento recusaria no complete
+        for (ParteUpload parte : partes.subList(0, partes.size() - 1)) {
+            if (parte.getTamanho() < TAMANHO_MINIMO_PARTE) {
+                throw new IllegalStateException("Parte " + parte.getNumero()
+                        + " tem menos de 5 MB; só a última parte pode ser menor");
+            }
+        }
+
+        List<UploadedPart> uploadedParts = partes.stream()
+                .map(p -> new UploadedPart(p.getNumero(), p.getEtag()))
+                .toList();
+        try {
+            storageBackend.completeMultipartUpload(sessao.getCaminhoArquivo(), sessao.getUploadId(), uploadedParts);
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao concluir sessão de upload", e);
+        }
+
+        Documento doc = new Documento();
+        doc.setNomeArquivo(sessao.getNomeArquivo());
+        doc.setCaminhoArquivo(sessao.getCaminhoArquivo());
+        doc.setTamanho(partes.stream().mapToLong(ParteUpload::getTamanho).sum());
+        doc.setContentType(sessao.getContentType());
+        doc.setStatus(StatusDocumento.PENDENTE);
+        doc.setProjeto(sessao.getProjeto());
+        doc.setCriadoPor(sessao.getCriadoPor());
+        doc.setCriadoEm(LocalDateTime.now());
+        doc.setVersao(1);
+        doc = documentoRepository.save(doc);
+
+        sessao.setStatus(StatusSessaoUpload.CONCLUIDA);
+        sessao.setDocumento(doc);
+        sessaoUploadRepository.save(sessao);
+
+        return documentoService.toDTO(doc);
+    }
+
+    public void cancelarSessao(Long sessaoId, Long usuarioId) {
+        SessaoUpload sessao = buscarSessaoAberta(sessaoId, usuarioId);
+
+        try {
+            storageBackend.abortMultipartUpload(sessao.getCaminhoArquivo(), sessao.getUploadId());
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao cancelar sessão de upload", e);
+        }
+
+        sessao.setStatus(StatusSessaoUpload.CANCELADA);
+        sessaoUploadRepository.save(sessao);
+    }
+
+    @Scheduled(fixedDelayString = "${filehub.upload.sessoes.varredura-ms:3600000}")
+    public void expirarSessoes() {
+        LocalDateTime limite = LocalDateTime.now().minus(validadeSessao);
+        for (SessaoUpload sessao : sessaoUploadRepository.findByStatusAndCriadoEmBefore(StatusSessaoUpload.ABERTA,
+                limite)) {
+            // Só quem fecha a sessão aborta o upload; se outro nó chegou antes, a troca não acontece
+            if (sessaoUploadRepository.trocarStatus(sessao.getId(), StatusSessaoUpload.ABERTA,
+                    StatusSessaoUpload.CANCELADA) == 0) {
+                continue;
+            }
+            try {
+                storageBackend.abortMultipartUpload(sessao.getCaminhoArquivo(), sessao.getUploadId());
+            } catch (IOException | RuntimeException e) {
+                log.warn("Falha ao abortar o upload da sessão expirada {}", sessao.getId(), e);
+            }
+        }
+    }
+
+    private void registrarParte(SessaoUpload sessao, int numero, String etag, long tamanho) {
+        ParteUpload parte = parteUploadRepository.findBySessaoIdAndNumero(sessao.getId(), numero)
+                .orElseGet(ParteUpload::new);
+        parte.setSessao(sessao);
+        parte.setNumero(numero);
+        parte.setEtag(etag);
+        parte.setTamanho(tamanho);
+        parteUploadRepository.save(parte);
+    }
+
+    private SessaoUpload buscarSessao(Long sessaoId, Long usuarioId) {
+        SessaoUpload sessao = sessaoUploadRepository.findById(sessaoId)
+                .orElseThrow(() -> new RuntimeException("Sessão de upload não encontrada"));
+
+        if (!sessao.getCriadoPor().getId().equals(usuarioId)) {
+            throw new RuntimeException("Sessão de upload não encontrada");
+        }
+        // Quem deixou o projeto perde também as sessões que abriu nele
+        if (!documentoService.usuarioTemAcesso(sessao.getProjeto(), usuarioId)) {
+            throw new AccessDeniedException("Usuário não pertence ao projeto");
+        }
+        return sessao;
+    }
+
+    private SessaoUpload buscarSessaoAberta(Long sessaoId, Long usuarioId) {
+        SessaoUpload sessao = buscarSessao(sessaoId, usuarioId);
+
+        if (sessao.getStatus() != StatusSessaoUpload.ABERTA) {
+            throw new IllegalStateException("Sessão de upload não está aberta");
+        }
+        return sessao;
+    }
+
+    public SessaoUploadDTO toDTO(SessaoUpload sessao, List<ParteUpload> partes) {
+        SessaoUploadDTO dto = new SessaoUploadDTO();
+        dto.setId(sessao.getId());
+        dto.setNomeArquivo(sessao.getNomeArquivo());
+        dto.setStatus(sessao.getStatus());
+
+        if (sessao.getProjeto() != null)
+            dto.setProjetoId(sessao.getProjeto().getId());
+        if (sessao.getCriadoPor() != null)
+            dto.setCriadoPorId(sessao.getCriadoPor().getId());
+        if (sessao.getDocumento() != null)
+            dto.setDocumentoId(sessao.getDocumento().getId());
+
+        dto.setPartesRecebidas(partes.stream().map(ParteUpload::getNumero).toList());
+        dto.setBytesRecebidos(partes.stream().mapToLong(ParteUpload::getTamanho).sum());
+        dto.setCriadoEm(sessao.getCriadoEm());
+
+        return dto;
+    }
+}
@@ -0,0 +1,96 @@
+package br.com.projetounifor.filehub.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import br.com.projetounifor.filehub.domain.model.Documento;
+import br.com.projetounifor.filehub.service.DeltaBinario.Indice;
+import br.com.projetounifor.filehub.service.DeltaBinario.Resultado;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sincroniza a cópia local de um cliente com a versão atual de um documento.
+ * O cliente envia as assinaturas dos blocos do arquivo que já tem (formato
+ * {@code FHS1} de {@link DeltaBinario}) e recebe um delta {@code FHD1}: os
+ * trechos que ele já possui vão como instruções de cópia sobre o arquivo
+ * local, e só o restante trafega como dados.
+ */
+@Service
+public class SincronizacaoService {
+
+    private static final Logger log = LoggerFactory.getLogger(SincronizacaoService.class);
+
+    private final StorageBackend storageBackend;
+    private final VersaoService versaoService;
+    private final Counter bytesCopiados;
+    private final Counter bytesEnviados;
+
+    // Limita a memória do índice montado com as assinaturas do cliente (12 bytes por bloco)
+    @Value("${filehub.sincronizacao.max-blocos:1000000}")
+    private int maximoBlocos = 1_000_000;
+
+    public SincronizacaoService(StorageBackend storageBackend, VersaoService versaoService,
+            MeterRegistry meterRegistry) {
+        this.storageBackend = storageBackend;
+        this.versaoService = versaoService;
+        this.bytesCopiados = Counter.builder("filehub.sincronizacao.bytes").tag("tipo", "copiado")
+                .baseUnit("bytes").register(meterRegistry);
+        this.bytesEnviados = Counter.builder("filehub.sincronizacao.bytes").tag("tipo", "enviado")
+                .baseUnit("bytes").register(meterRegistry);
+    }
+
+    /**
+     * Lê as assinaturas do corpo da requisição e responde com o delta que leva
+     * a cópia do cliente até a versão de {@code doc}. Assinaturas inválidas
+     * resultam em 400; se o cliente já tem exatamente esta versão
+     * ({@code If-None-Match}), em 304.
+     */
+    public void enviarDelta(Documento doc, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String etag = doc.getHashConteudo() != null ? "\"" + doc.getHashConteudo() + "\"" : null;
+        if (etag != null && etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            response.setHeader(HttpHeaders.ETAG, etag);
+            return;
+        }
+
+        // As assinaturas são lidas por inteiro antes de qualquer byte da resposta
+        Indice indice;
+        try {
+            indice = DeltaBinario.lerAssinaturas(request.getInputStream(), maximoBlocos);
+        } catch (IllegalArgumentException e) {
+            log.debug("Assinaturas inválidas para o documento {}: {}", doc.getId(), e.getMessage());
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+
+        try (InputStream conteudo = abrir(doc)) {
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            if (etag != null) {
+                response.setHeader(HttpHeaders.ETAG, etag);
+            }
+            Resultado resultado = DeltaBinario.codificar(indice, conteudo, response.getOutputStream());
+            bytesCopiados.increment(resultado.bytesCopiados());
+            bytesEnviados.increment(resultado.bytesLiterais());
+        }
+    }
+
+    private InputStream abrir(Documento doc) throws IOException {
+        return VersaoService.ehDelta(doc)
+                ? versaoService.abrir(doc)
+                : Compressao.descomprimir(storageBackend.get(doc.getCaminhoArquivo()), doc.getCodificacao());
+    }
+}
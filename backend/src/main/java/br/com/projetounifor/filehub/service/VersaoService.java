@@ -0,0 +1,343 @@
+package br.com.projetounifor.filehub.service;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import br.com.projetounifor.filehub.domain.model.Documento;
+import br.com.projetounifor.filehub.domain.model.enums.StatusDocumento;
+import br.com.projetounifor.filehub.domain.repository.DocumentoRepository;
+import br.com.projetounifor.filehub.service.CacheArquivoService.ArquivoEmCache;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Guarda versões novas de um documento como delta binário sobre a versão
+ * anterior, em vez de uma cópia completa. A cada
+ * {@code filehub.versoes.delta.intervalo-snapshot} versões uma cópia completa
+ * é gravada, o que limita quantos deltas precisam ser aplicados para ler uma
+ * versão. Versões reconstruídas entram no cache local, então as mais lidas
+ * não são remontadas a cada download.
+ */
+@Service
+public class VersaoService {
+
+    private static final Logger log = LoggerFactory.getLogger(VersaoService.class);
+
+    private static final String PREFIXO = "delta/";
+
+    /**
+     * Conteúdo completo de uma versão em disco local, a ser fechado por quem o
+     * recebeu. Quando {@code temporaria} é verdadeiro o arquivo não ficou no
+     * cache e é apagado ao fechar; caso contrário, fechar solta a entrada do
+     * cache.
+     */
+    public record VersaoReconstruida(ArquivoEmCache arquivo, boolean temporaria) implements AutoCloseable {
+
+        @Override
+        public void close() throws IOException {
+            if (temporaria) {
+                Files.deleteIfExists(arquivo.arquivo());
+            } else {
+                arquivo.close();
+            }
+        }
+    }
+
+    private final DocumentoRepository documentoRepository;
+    private final StorageBackend storageBackend;
+    private final CacheArquivoService cacheArquivoService;
+    private final MeterRegistry meterRegistry;
+    private final Counter deltas;
+    private final Counter snapshots;
+    private final Counter bytesEconomizados;
+
+    // Desligado por padrão: sem o cache, toda leitura de uma versão delta remonta a cadeia a partir do armazenamento
+    @Value("${filehub.versoes.delta.habilitado:false}")
+    private boolean habilitado;
+
+    // Uma cópia completa a cada N versões: nenhuma leitura aplica mais que N - 1 deltas
+    @Value("${filehub.versoes.delta.intervalo-snapshot:10}")
+    private int intervaloSnapshot = 10;
+
+    // Arquivos pequenos não compensam o custo de reconstrução
+    @Value("${filehub.versoes.delta.tamanho-minimo:1MB}")
+    private DataSize tamanhoMinimo = DataSize.ofMegabytes(1);
+
+    @Value("${filehub.versoes.delta.tamanho-bloco:8KB}")
+    private DataSize tamanhoBloco = DataSize.ofKilobytes(8);
+
+    // Deltas maiores que essa fração da versão são descartados em favor da cópia completa
+    @Value("${filehub.versoes.delta.proporcao-maxima:0.5}")
+    private double proporcaoMaxima = 0.5;
+
+    @Value("${filehub.versoes.dir:${java.io.tmpdir}/filehub-versoes}")
+    private String diretorio;
+
+    public VersaoService(DocumentoRepository documentoRepository, StorageBackend storageBackend,
+            CacheArquivoService cacheArquivoService, MeterRegistry meterRegistry) {
+        this.documentoRepository = documentoRepository;
+        this.storageBackend = storageBackend;
+        this.cacheArquivoService = cacheArquivoService;
+        this.meterRegistry = meterRegistry;
+        this.deltas = Counter.builder("filehub.versoes.armazenadas").tag("tipo", "delta").register(meterRegistry);
+        this.snapshots = Counter.builder("filehub.versoes.armazenadas").tag("tipo", "snapshot")
+                .register(meterRegistry);
+        this.bytesEconomizados = Counter.builder("filehub.versoes.delta.bytes.saved").baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(Paths.get(diretorio));
+    }
+
+    public static boolean ehDelta(Documento doc) {
+        return doc.getVersaoBaseId() != null;
+    }
+
+    /**
+     * Tenta gravar {@code file} como delta sobre {@code anterior}, preenchendo
+     * a chave, a versão base e a profundidade de {@code nova}. Retorna falso
+     * (sem alterar {@code nova}) quando a versão deve ser gravada completa: o
+     * arquivo é pequeno, a cadeia chegou ao intervalo de snapshot, o delta não
+     * compensa ou a versão anterior não pôde ser lida.
+     */
+    public boolean armazenarComoDelta(Documento anterior, Documento nova, MultipartFile file) {
+        if (!habilitado || file.getSize() < tamanhoMinimo.toBytes()
+                || anterior.getStatus() == StatusDocumento.ENVIANDO) {
+            return false;
+        }
+
+        int profundidade = anterior.getProfundidadeDelta() == null ? 0 : anterior.getProfundidadeDelta();
+        if (profundidade + 1 >= intervaloSnapshot) {
+            snapshots.increment();
+            return false;
+        }
+
+        Path delta = null;
+        VersaoReconstruida base = null;
+        try {
+            base = reconstruir(anterior);
+            delta = Files.createTempFile(Paths.get(diretorio), "delta", ".tmp");
+            try (InputStream inputStream = file.getInputStream();
+                    OutputStream out = Files.newOutputStream(delta)) {
+                DeltaBinario.codificar(base.arquivo().arquivo(), inputStream, out, (int) tamanhoBloco.toBytes());
+            }
+
+            long tamanhoDelta = Files.size(delta);
+            if (tamanhoDelta > file.getSize() * proporcaoMaxima) {
+                return false;
+            }
+
+            String chave = PREFIXO + UUID.randomUUID();
+            try (InputStream inputStream = Files.newInputStream(delta)) {
+                storageBackend.put(chave, MediaType.APPLICATION_OCTET_STREAM_VALUE, inputStream, tamanhoDelta);
+            }
+
+            nova.setCaminhoArquivo(chave);
+            nova.setVersaoBaseId(anterior.getId());
+            nova.setProfundidadeDelta(profundidade + 1);
+            deltas.increment();
+            bytesEconomizados.increment(file.getSize() - tamanhoDelta);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Não foi possível gravar a nova versão de {} como delta", anterior.getId(), e);
+            return false;
+        } finally {
+            apagar(delta);
+            if (base != null) {
+                fechar(base);
+            }
+        }
+    }
+
+    /**
+     * Monta o conteúdo completo de uma versão: baixa a última cópia completa
+     * da cadeia e aplica os deltas em ordem. O resultado é conferido contra o
+     * hash do documento e guardado no cache quando ele está habilitado.
+     */
+    public VersaoReconstruida reconstruir(Documento doc) throws IOException {
+        if (ehDelta(doc)) {
+            Optional<ArquivoEmCache> cache = cacheArquivoService.buscar(doc.getCaminhoArquivo());
+            if (cache.isPresent()) {
+                return new VersaoReconstruida(cache.get(), false);
+            }
+        }
+
+        // Da versão pedida até a cópia completa mais próxima
+        List<Documento> cadeia = new ArrayList<>();
+        Documento atual = doc;
+        while (ehDelta(atual)) {
+            if (cadeia.size() > intervaloSnapshot) {
+                throw new IOException("Cadeia de deltas inconsistente a partir do documento " + doc.getId());
+            }
+            cadeia.add(atual);
+            Long baseId = atual.getVersaoBaseId();
+            atual = documentoRepository.findById(baseId)
+                    .orElseThrow(() -> new IOException("Versão base " + baseId + " não encontrada"));
+        }
+
+        Timer.Sample amostra = Timer.start(meterRegistry);
+        VersaoReconstruida completa = copiaCompleta(atual);
+        if (cadeia.isEmpty()) {
+            // Versão completa: só é copiada do armazenamento, quem chama decide o que fazer com ela
+            return completa;
+        }
+
+        MessageDigest digest = sha256();
+        Path arquivo;
+        try {
+            Path inicio = completa.arquivo().arquivo();
+            arquivo = inicio;
+            for (int i = cadeia.size() - 1; i >= 0; i--) {
+                Path proximo = Files.createTempFile(Paths.get(diretorio), "versao", ".tmp");
+                try (InputStream delta = storageBackend.get(cadeia.get(i).getCaminhoArquivo());
+                        OutputStream out = new DigestOutputStream(
+                                new BufferedOutputStream(Files.newOutputStream(proximo)), digest)) {
+                    digest.reset();
+                    DeltaBinario.aplicar(arquivo, delta, out);
+                } catch (IOException | RuntimeException e) {
+                    apagar(proximo);
+                    throw e;
+                } finally {
+                    // A cópia completa é liberada ao fim; as intermediárias, assim que usadas
+                    if (!arquivo.equals(inicio)) {
+                        apagar(arquivo);
+                    }
+                }
+                arquivo = proximo;
+            }
+        } finally {
+            fechar(completa);
+        }
+
+        String hash = HexFormat.of().formatHex(digest.digest());
+        if (doc.getHashConteudo() != null && !doc.getHashConteudo().equals(hash)) {
+            apagar(arquivo);
+            throw new IOException("Versão reconstruída não confere com o hash do documento " + doc.getId());
+        }
+        amostra.stop(Timer.builder("filehub.versoes.reconstrucao")
+                .tag("cadeia", String.valueOf(cadeia.size()))
+                .register(meterRegistry));
+
+        ArquivoEmCache reconstruida = entrada(doc, arquivo);
+        Optional<ArquivoEmCache> adotada = cacheArquivoService.adotar(doc.getCaminhoArquivo(), arquivo,
+                reconstruida.etag(), reconstruida.ultimaModificacao(), reconstruida.contentType());
+        return adotada.map(entrada -> new VersaoReconstruida(entrada, false))
+                .orElseGet(() -> new VersaoReconstruida(reconstruida, true));
+    }
+
+    /**
+     * Abre o conteúdo completo de um documento gravado como delta. Ao fechar o
+     * stream, o arquivo temporário da reconstrução é apagado, ou a entrada do
+     * cache é solta.
+     */
+    public InputStream abrir(Documento doc) throws IOException {
+        VersaoReconstruida versao = reconstruir(doc);
+        InputStream inputStream;
+        try {
+            inputStream = Files.newInputStream(versao.arquivo().arquivo());
+        } catch (IOException | RuntimeException e) {
+            fechar(versao);
+            throw e;
+        }
+        return new FilterInputStream(inputStream) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    versao.close();
+                }
+            }
+        };
+    }
+
+    // A cópia completa do início da cadeia é lida do cache quando possível, sem baixar de novo; o cache
+    // guarda o objeto como está no armazenamento, então uma cópia comprimida ainda é descomprimida
+    private VersaoReconstruida copiaCompleta(Documento doc) throws IOException {
+        Optional<ArquivoEmCache> cache = cacheArquivoService.buscar(doc.getCaminhoArquivo());
+        if (cache.isPresent() && doc.getCodificacao() == null) {
+            return new VersaoReconstruida(cache.get(), false);
+        }
+
+        Path arquivo = Files.createTempFile(Paths.get(diretorio), "versao", ".tmp");
+        try (InputStream inputStream = Compressao.descomprimir(cache.isPresent()
+                ? Files.newInputStream(cache.get().arquivo())
+                : storageBackend.get(doc.getCaminhoArquivo()), doc.getCodificacao())) {
+            Files.copy(inputStream, arquivo, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            apagar(arquivo);
+            throw e;
+        } finally {
+            cache.ifPresent(ArquivoEmCache::close);
+        }
+        return new VersaoReconstruida(entrada(doc, arquivo), true);
+    }
+
+    // Versões gravadas como delta são identificadas pelo hash do conteúdo, não pelo ETag do delta no S3
+    private ArquivoEmCache entrada(Documento doc, Path arquivo) throws IOException {
+        String contentType = MediaTypeFactory.getMediaType(doc.getNomeArquivo())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString();
+        long ultimaModificacao = doc.getCriadoEm() == null ? 0
+                : doc.getCriadoEm().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return new ArquivoEmCache(arquivo, Files.size(arquivo), "\"" + doc.getHashConteudo() + "\"",
+                ultimaModificacao, contentType);
+    }
+
+    private static void fechar(VersaoReconstruida versao) {
+        try {
+            versao.close();
+        } catch (IOException e) {
+            log.warn("Não foi possível remover o arquivo temporário {}", versao.arquivo().arquivo(), e);
+        }
+    }
+
+    private static void apagar(Path arquivo) {
+        if (arquivo == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(arquivo);
+        } catch (IOException e) {
+            log.warn("Não foi possível remover o arquivo temporário {}", arquivo, e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package br.com.projetounifor.filehub.storage;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * {@link Publisher} que entrega um array já em memória como um único
+ * {@link ByteBuffer} (ou nenhum, se vazio), sem depender do SDK de um backend
+ * específico. Cada assinante recebe uma visão própria, somente leitura.
+ */
+final class BytesPublisher implements Publisher<ByteBuffer> {
+
+    private final byte[] conteudo;
+
+    BytesPublisher(byte[] conteudo) {
+        this.conteudo = conteudo;
+    }
+
+    static BytesPublisher vazio() {
+        return new BytesPublisher(new byte[0]);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+        subscriber.onSubscribe(new Subscription() {
+            private final AtomicBoolean encerrada = new AtomicBoolean();
+
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    if (encerrada.compareAndSet(false, true)) {
+                        subscriber.onError(new IllegalArgumentException("Demanda deve ser positiva: " + n));
+                    }
+                    return;
+                }
+                if (encerrada.compareAndSet(false, true)) {
+                    if (conteudo.length > 0) {
+                        subscriber.onNext(ByteBuffer.wrap(conteudo).asReadOnlyBuffer());
+                    }
+                    subscriber.onComplete();
+                }
+            }
+
+            @Override
+            public void cancel() {
+                encerrada.set(true);
+            }
+        });
+    }
+}
@@ -0,0 +1,51 @@
+package br.com.projetounifor.filehub.storage;
+
+import java.util.Optional;
+
+/**
+ * Posição de um conteúdo dentro de um pacote. A chave
+ * {@code pacote/<pacote>/<offset>/<tamanho>/<nome>}, guardada no documento, já
+ * diz de onde ler, sem consulta a um índice; os bytes ficam no objeto
+ * {@code pacotes/<pacote>} do armazenamento.
+ */
+public record EntradaPacote(String pacote, long offset, long tamanho, String nome) {
+
+    public static final String PREFIXO = "pacote/";
+    private static final String PREFIXO_OBJETO = "pacotes/";
+
+    public static boolean ehEntrada(String key) {
+        return key != null && key.startsWith(PREFIXO);
+    }
+
+    public static Optional<EntradaPacote> ler(String key) {
+        if (!ehEntrada(key)) {
+            return Optional.empty();
+        }
+        String[] partes = key.substring(PREFIXO.length()).split("/", 4);
+        if (partes.length != 4) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new EntradaPacote(partes[0], Long.parseLong(partes[1]), Long.parseLong(partes[2]),
+                    partes[3]));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    public static String prefixo(String pacote) {
+        return PREFIXO + pacote + "/";
+    }
+
+    public static String objeto(String pacote) {
+        return PREFIXO_OBJETO + pacote;
+    }
+
+    public String chave() {
+        return prefixo(pacote) + offset + "/" + tamanho + "/" + nome;
+    }
+
+    public String objeto() {
+        return objeto(pacote);
+    }
+}
@@ -0,0 +1,102 @@
+package br.com.projetounifor.filehub.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Layout das chaves dos objetos. Toda chave começa por um prefixo de shard em
+ * hexadecimal, que espalha a carga pelas partições do S3 e escolhe o bucket
+ * quando há mais de um:
+ * <ul>
+ * <li>{@code <shard>/p<projeto>/u<envio>/v<versao>/<nome>} para objetos de um
+ * documento, com o shard derivado do projeto. Os objetos de um projeto ficam
+ * sob um mesmo prefixo, para listagens e regras de ciclo de vida. A chave é
+ * escolhida antes de o documento existir (o objeto é gravado antes da linha no
+ * banco), então o segmento {@code u<envio>} é um UUID de cada envio;</li>
+ * <li>{@code <shard>/p<projeto>/d<documento>/v<versao>/<nome>} para objetos de
+ * documentos já gravados, que só a migração produz;</li>
+ * <li>{@code <shard>/sha256/<hash>} para conteúdos endereçados por hash,
+ * compartilhados entre projetos, com o shard tirado do próprio hash.</li>
+ * </ul>
+ * Chaves gravadas antes do layout (sem shard) continuam válidas até a
+ * migração ({@code MigracaoChavesService}).
+ */
+@Component
+public class LayoutChaves {
+
+    private static final Pattern SHARD = Pattern.compile("^([0-9a-f]{1,4})/");
+    private static final String CONTEUDO = "sha256/";
+
+    // Dígitos hexadecimais do shard: 2 dá 256 prefixos
+    @Value("${filehub.storage.layout.digitos-shard:2}")
+    private int digitosShard = 2;
+
+    /**
+     * Chave de um objeto novo, gravado antes de o documento ter id.
+     */
+    public String envio(Long projetoId, Integer versao, String nomeArquivo) {
+        return chave(projetoId, "u" + UUID.randomUUID(), versao, nomeArquivo);
+    }
+
+    /**
+     * Chave de um objeto de um documento que já existe (migração).
+     */
+    public String documento(Long projetoId, Long documentoId, Integer versao, String nomeArquivo) {
+        return chave(projetoId, "d" + documentoId, versao, nomeArquivo);
+    }
+
+    /**
+     * Chave de um conteúdo endereçado por hash; {@code nome} é o hash, com o
+     * sufixo da codificação quando houver.
+     */
+    public String conteudo(String nome) {
+        return nome.substring(0, digitosShard) + "/" + CONTEUDO + nome;
+    }
+
+    /**
+     * Nome do conteúdo ({@code <hash>} ou {@code <hash>.gz}) de uma chave
+     * {@code sha256/}, com ou sem shard.
+     */
+    public static Optional<String> nomeConteudo(String key) {
+        String semShard = key.substring(prefixoShard(key).length());
+        return semShard.startsWith(CONTEUDO)
+                ? Optional.of(semShard.substring(CONTEUDO.length()))
+                : Optional.empty();
+    }
+
+    public static boolean temShard(String key) {
+        return !prefixoShard(key).isEmpty();
+    }
+
+    /**
+     * Valor do shard no início da chave; vazio para chaves anteriores ao layout.
+     */
+    public static Optional<Integer> shard(String key) {
+        Matcher matcher = SHARD.matcher(key);
+        return matcher.find() ? Optional.of(Integer.parseInt(matcher.group(1), 16)) : Optional.empty();
+    }
+
+    private static String prefixoShard(String key) {
+        Matcher matcher = SHARD.matcher(key);
+        return matcher.find() ? matcher.group() : "";
+    }
+
+    private String chave(Long projetoId, String segmento, Integer versao, String nomeArquivo) {
+        return shardDoProjeto(projetoId) + "/p" + projetoId + "/" + segmento + "/v" + (versao != null ? versao : 1)
+                + "/" + nomeArquivo;
+    }
+
+    private String shardDoProjeto(Long projetoId) {
+        CRC32 crc = new CRC32();
+        crc.update(String.valueOf(projetoId).getBytes(StandardCharsets.UTF_8));
+        long shards = 1L << (4 * digitosShard);
+        return String.format("%0" + digitosShard + "x", crc.getValue() % shards);
+    }
+}
@@ -0,0 +1,282 @@
+package br.com.projetounifor.filehub.storage;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Armazenamento em um diretório local, para instalações sem S3. Os uploads são
+ * gravados em um arquivo temporário com o tamanho final já reservado e só
+ * então movidos atomicamente para o lugar; os downloads expõem o arquivo via
+ * {@link #localPath(String)} para que sejam enviados com sendfile.
+ */
+@Component
+@ConditionalOnProperty(name = "filehub.storage.backend", havingValue = "local")
+@Qualifier(TieredStorageBackend.OBJETOS)
+public class LocalStorageBackend implements StorageBackend {
+
+    @Value("${filehub.storage.local.dir:${user.dir}/storage}")
+    private String diretorio;
+
+    private Path objetos;
+    private Path temporarios;
+    private Path uploads;
+
+    @PostConstruct
+    void init() throws IOException {
+        Path raiz = Paths.get(diretorio);
+        objetos = Files.createDirectories(raiz.resolve("objects"));
+        temporarios = Files.createDirectories(raiz.resolve("tmp"));
+        uploads = Files.createDirectories(raiz.resolve("multipart"));
+    }
+
+    @Override
+    public void put(String key, String contentType, InputStream inputStream, long size) throws IOException {
+        Path temporario = temporarios.resolve(UUID.randomUUID().toString());
+        try {
+            gravar(temporario, inputStream, size);
+            Files.move(temporario, arquivo(key), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return Files.newInputStream(arquivo(key));
+    }
+
+    @Override
+    public InputStream getRange(String key, long start, long end) throws IOException {
+        FileChannel channel = FileChannel.open(arquivo(key), StandardOpenOption.READ);
+        channel.position(start);
+        return new LimitedInputStream(Channels.newInputStream(channel), end - start + 1);
+    }
+
+    @Override
+    public Optional<StoredObject> head(String key) throws IOException {
+        Path arquivo = arquivo(key);
+        if (!Files.isRegularFile(arquivo)) {
+            return Optional.empty();
+        }
+
+        BasicFileAttributes atributos = Files.readAttributes(arquivo, BasicFileAttributes.class);
+        String contentType = MediaTypeFactory.getMediaType(key).map(MediaType::toString).orElse(null);
+        return Optional.of(new StoredObject(atributos.size(), etag(atributos),
+                atributos.lastModifiedTime().toMillis(), contentType));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(arquivo(key));
+    }
+
+    @Override
+    public void copy(String sourceKey, String targetKey) throws IOException {
+        // Files.copy usa a cópia do próprio sistema de arquivos (copy_file_range) quando disponível
+        Path temporario = temporarios.resolve(UUID.randomUUID().toString());
+        try {
+            Files.copy(arquivo(sourceKey), temporario);
+            Files.move(temporario, arquivo(targetKey), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        Path arquivo = arquivo(key);
+        return Files.isRegularFile(arquivo) ? Optional.of(arquivo) : Optional.empty();
+    }
+
+    @Override
+    public String createMultipartUpload(String key, String contentType) throws IOException {
+        String uploadId = UUID.randomUUID().toString();
+        Files.createDirectories(uploads.resolve(uploadId));
+        return uploadId;
+    }
+
+    @Override
+    public String uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long length)
+            throws IOException {
+        Path parte = diretorioUpload(uploadId).resolve(String.valueOf(partNumber));
+        Path temporario = temporarios.resolve(UUID.randomUUID().toString());
+        try {
+            gravar(temporario, inputStream, length);
+            Files.move(temporario, parte, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+        return etag(Files.readAttributes(parte, BasicFileAttributes.class));
+    }
+
+    /**
+     * Concatena as partes com {@link FileChannel#transferTo} em um arquivo já
+     * alocado com o tamanho total, sem passar os bytes pela heap.
+     */
+    @Override
+    public void completeMultipartUpload(String key, String uploadId, List<UploadedPart> parts) throws IOException {
+        Path dir = diretorioUpload(uploadId);
+
+        long total = 0;
+        for (UploadedPart part : parts) {
+            Path parte = dir.resolve(String.valueOf(part.partNumber()));
+            if (!Files.isRegularFile(parte)
+                    || !etag(Files.readAttributes(parte, BasicFileAttributes.class)).equals(part.etag())) {
+                throw new IOException("Parte " + part.partNumber() + " não corresponde ao ETag informado");
+            }
+            total += Files.size(parte);
+        }
+
+        Path temporario = temporarios.resolve(UUID.randomUUID().toString());
+        try {
+            try (RandomAccessFile destino = new RandomAccessFile(temporario.toFile(), "rw")) {
+                destino.setLength(total);
+                FileChannel channel = destino.getChannel();
+                for (UploadedPart part : parts) {
+                    try (FileChannel origem = FileChannel.open(dir.resolve(String.valueOf(part.partNumber())),
+                            StandardOpenOption.READ)) {
+                        long tamanho = origem.size();
+                        long posicao = 0;
+                        while (posicao < tamanho) {
+                            posicao += origem.transferTo(posicao, tamanho - posicao, channel);
+                        }
+                    }
+                }
+                channel.force(true);
+            }
+            Files.move(temporario, arquivo(key), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+
+        apagarDiretorio(dir);
+    }
+
+    @Override
+    public void abortMultipartUpload(String key, String uploadId) throws IOException {
+        apagarDiretorio(diretorioUpload(uploadId));
+    }
+
+    // Grava exatamente size bytes em um arquivo cujo tamanho final é reservado antes da cópia
+    private static void gravar(Path destino, InputStream inputStream, long size) throws IOException {
+        try (RandomAccessFile arquivo = new RandomAccessFile(destino.toFile(), "rw")) {
+            arquivo.setLength(size);
+            FileChannel channel = arquivo.getChannel();
+            ReadableByteChannel origem = Channels.newChannel(inputStream);
+            long gravados = 0;
+            while (gravados < size) {
+                long n = channel.transferFrom(origem, gravados, size - gravados);
+                if (n <= 0) {
+                    throw new EOFException("Conteúdo menor que o tamanho informado: " + gravados + " de " + size
+                            + " bytes");
+                }
+                gravados += n;
+            }
+            channel.force(true);
+        }
+    }
+
+    private static String etag(BasicFileAttributes atributos) {
+        return "\"" + Long.toHexString(atributos.lastModifiedTime().toMillis()) + "-"
+                + Long.toHexString(atributos.size()) + "\"";
+    }
+
+    private Path arquivo(String key) {
+        return objetos.resolve(URLEncoder.encode(key, StandardCharsets.UTF_8));
+    }
+
+    private Path diretorioUpload(String uploadId) throws IOException {
+        // O uploadId vem do cliente; só aceita os identificadores gerados por createMultipartUpload
+        Path dir = uploads.resolve(UUID.fromString(uploadId).toString());
+        if (!Files.isDirectory(dir)) {
+            throw new NoSuchFileException("Upload " + uploadId + " não encontrado");
+        }
+        return dir;
+    }
+
+    private static void apagarDiretorio(Path dir) throws IOException {
+        try (Stream<Path> arquivos = Files.walk(dir)) {
+            for (Path arquivo : arquivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(arquivo);
+            }
+        }
+    }
+
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private long restantes;
+
+        LimitedInputStream(InputStream in, long limite) {
+            super(in);
+            this.restantes = limite;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (restantes <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                restantes--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (restantes <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, restantes));
+            if (n > 0) {
+                restantes -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long pulados = super.skip(Math.min(n, restantes));
+            restantes -= pulados;
+            return pulados;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), restantes);
+        }
+    }
+}
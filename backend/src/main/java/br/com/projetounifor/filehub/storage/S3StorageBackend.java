@@ -0,0 +1,155 @@
+package br.com.projetounifor.filehub.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.reactivestreams.Publisher;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import br.com.projetounifor.filehub.service.S3AsyncService;
+import br.com.projetounifor.filehub.service.S3Service;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+@Component
+@ConditionalOnProperty(name = "filehub.storage.backend", havingValue = "s3", matchIfMissing = true)
+@Qualifier(TieredStorageBackend.OBJETOS)
+public class S3StorageBackend implements StorageBackend {
+
+    private final S3Service s3Service;
+    private final S3AsyncService s3AsyncService;
+
+    @Value("${filehub.storage.s3.bucket:filehub-document-bucket}")
+    private String bucket = "filehub-document-bucket";
+
+    // Buckets entre os quais as chaves com shard são distribuídas (vazio: tudo em bucket). A lista não pode
+    // mudar depois que houver objetos gravados; chaves anteriores ao layout continuam em bucket
+    @Value("${filehub.storage.s3.buckets:}")
+    private List<String> buckets = List.of();
+
+    public S3StorageBackend(S3Service s3Service, S3AsyncService s3AsyncService) {
+        this.s3Service = s3Service;
+        this.s3AsyncService = s3AsyncService;
+    }
+
+    @Override
+    public void put(String key, String contentType, InputStream inputStream, long size) throws IOException {
+        s3Service.uploadFile(bucket(key), key, contentType, inputStream, size);
+    }
+
+    @Override
+    public void put(String key, String contentType, InputStream inputStream, long size, String crc32c)
+            throws IOException {
+        s3Service.uploadFile(bucket(key), key, contentType, inputStream, size, crc32c);
+    }
+
+    @Override
+    public InputStream get(String key) {
+        return s3Service.downloadFile(bucket(key), key);
+    }
+
+    @Override
+    public InputStream getRange(String key, long start, long end) {
+        return s3Service.downloadFileRange(bucket(key), key, start, end);
+    }
+
+    @Override
+    public Optional<StoredObject> head(String key) {
+        try {
+            HeadObjectResponse metadata = s3Service.headObject(bucket(key), key);
+            return Optional.of(new StoredObject(metadata.contentLength(), metadata.eTag(),
+                    metadata.lastModified().toEpochMilli(), metadata.contentType()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            // HEAD não tem corpo, então alguns serviços compatíveis devolvem só o 404
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        s3Service.deleteObject(bucket(key), key);
+    }
+
+    @Override
+    public void copy(String sourceKey, String targetKey) throws IOException {
+        s3Service.copyObject(bucket(sourceKey), sourceKey, bucket(targetKey), targetKey);
+    }
+
+    @Override
+    public String createMultipartUpload(String key, String contentType) {
+        return s3Service.createMultipartUpload(bucket(key), key, contentType);
+    }
+
+    @Override
+    public String uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long length) {
+        return s3Service.uploadPart(bucket(key), key, uploadId, partNumber, inputStream, length);
+    }
+
+    @Override
+    public void completeMultipartUpload(String key, String uploadId, List<UploadedPart> parts) {
+        List<CompletedPart> completedParts = parts.stream()
+                .map(p -> CompletedPart.builder().partNumber(p.partNumber()).eTag(p.etag()).build())
+                .toList();
+        s3Service.completeMultipartUpload(bucket(key), key, uploadId, completedParts);
+    }
+
+    @Override
+    public void abortMultipartUpload(String key, String uploadId) {
+        s3Service.abortMultipartUpload(bucket(key), key, uploadId);
+    }
+
+    @Override
+    public Optional<URL> presignUpload(String key, String contentType, Duration expiration) {
+        return Optional.of(s3Service.presignUpload(bucket(key), key, contentType, expiration));
+    }
+
+    @Override
+    public Optional<URL> presignDownload(String key, String fileName, Duration expiration) {
+        return Optional.of(s3Service.presignDownload(bucket(key), key, fileName, expiration));
+    }
+
+    @Override
+    public boolean supportsPresign() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsAsync() {
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Publisher<ByteBuffer>> getRangeAsync(String key, long start, long end) {
+        return s3AsyncService.downloadFileRange(bucket(key), key, start, end).thenApply(publisher -> publisher);
+    }
+
+    @Override
+    public CompletableFuture<Void> putAsync(String key, String contentType, Publisher<ByteBuffer> content,
+            long size) {
+        return s3AsyncService.uploadFile(bucket(key), key, contentType, content, size).thenApply(response -> null);
+    }
+
+    private String bucket(String key) {
+        if (buckets.isEmpty()) {
+            return bucket;
+        }
+        return LayoutChaves.shard(key).map(shard -> buckets.get(shard % buckets.size())).orElse(bucket);
+    }
+}
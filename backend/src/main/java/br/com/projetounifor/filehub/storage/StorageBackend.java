@@ -0,0 +1,124 @@
+package br.com.projetounifor.filehub.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.reactivestreams.Publisher;
+
+/**
+ * Armazenamento do conteúdo dos documentos. A implementação é escolhida pela
+ * propriedade {@code filehub.storage.backend} ({@code s3} ou {@code local}).
+ * Os objetos são imutáveis: uma chave nunca é regravada com outro conteúdo.
+ * Os serviços recebem a {@link TieredStorageBackend}, que guarda no banco as
+ * chaves {@code inline/} e repassa as demais a essa implementação.
+ */
+public interface StorageBackend {
+
+    /**
+     * Grava o objeto lendo exatamente {@code size} bytes do stream. O objeto só
+     * fica visível depois que todo o conteúdo foi gravado.
+     */
+    void put(String key, String contentType, InputStream inputStream, long size) throws IOException;
+
+    /**
+     * Como {@link #put(String, String, InputStream, long)}, com o CRC32C do
+     * conteúdo (base64 dos quatro bytes big-endian) calculado por quem envia.
+     * O backend que sabe conferir recusa o objeto se os bytes recebidos não
+     * baterem; os demais ignoram o valor.
+     */
+    default void put(String key, String contentType, InputStream inputStream, long size, String crc32c)
+            throws IOException {
+        put(key, contentType, inputStream, size);
+    }
+
+    InputStream get(String key) throws IOException;
+
+    /**
+     * Leitura parcial; {@code end} é inclusivo, como no cabeçalho Range.
+     */
+    InputStream getRange(String key, long start, long end) throws IOException;
+
+    Optional<StoredObject> head(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    /**
+     * Copia o objeto para outra chave dentro do próprio armazenamento, sem que o
+     * conteúdo passe pela aplicação.
+     */
+    void copy(String sourceKey, String targetKey) throws IOException;
+
+    String createMultipartUpload(String key, String contentType) throws IOException;
+
+    String uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long length)
+            throws IOException;
+
+    void completeMultipartUpload(String key, String uploadId, List<UploadedPart> parts) throws IOException;
+
+    void abortMultipartUpload(String key, String uploadId) throws IOException;
+
+    /**
+     * Caminho do objeto no disco local, quando existe, para que o download use
+     * sendfile ou {@link java.nio.channels.FileChannel#transferTo}.
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    /**
+     * URL assinada para o cliente enviar o objeto sem passar pela aplicação;
+     * vazio quando o backend não oferece acesso direto.
+     */
+    default Optional<URL> presignUpload(String key, String contentType, Duration expiration) {
+        return Optional.empty();
+    }
+
+    /**
+     * URL assinada de leitura; vazio quando o backend não oferece acesso direto.
+     */
+    default Optional<URL> presignDownload(String key, String fileName, Duration expiration) {
+        return Optional.empty();
+    }
+
+    /**
+     * Indica se o backend gera URLs assinadas, para recusar o upload direto
+     * antes de criar o documento.
+     */
+    default boolean supportsPresign() {
+        return false;
+    }
+
+    /**
+     * Indica se o backend implementa {@link #getRangeAsync} e {@link #putAsync}
+     * sem bloquear threads durante a transferência.
+     */
+    default boolean supportsAsync() {
+        return false;
+    }
+
+    /**
+     * Leitura parcial não bloqueante; {@code end} é inclusivo. O futuro completa
+     * com um publisher que só entrega o próximo bloco quando o assinante pede.
+     */
+    default CompletableFuture<Publisher<ByteBuffer>> getRangeAsync(String key, long start, long end) {
+        return CompletableFuture.failedFuture(
+                new UnsupportedOperationException("Leitura não bloqueante não suportada pelo armazenamento"));
+    }
+
+    /**
+     * Gravação não bloqueante de exatamente {@code size} bytes consumidos do
+     * publisher, no ritmo em que o armazenamento os aceita.
+     */
+    default CompletableFuture<Void> putAsync(String key, String contentType, Publisher<ByteBuffer> content,
+            long size) {
+        return CompletableFuture.failedFuture(
+                new UnsupportedOperationException("Gravação não bloqueante não suportada pelo armazenamento"));
+    }
+}
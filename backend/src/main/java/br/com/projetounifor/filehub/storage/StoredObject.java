@@ -0,0 +1,8 @@
+package br.com.projetounifor.filehub.storage;
+
+/**
+ * Metadados de um objeto armazenado; {@code lastModified} em milissegundos
+ * desde a época.
+ */
+public record StoredObject(long size, String etag, long lastModified, String contentType) {
+}
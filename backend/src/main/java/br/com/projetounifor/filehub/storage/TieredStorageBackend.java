@@ -0,0 +1,271 @@
+package br.com.projetounifor.filehub.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.reactivestreams.Publisher;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import br.com.projetounifor.filehub.domain.model.ConteudoInline;
+import br.com.projetounifor.filehub.domain.repository.ConteudoInlineRepository;
+
+/**
+ * Camada à frente do armazenamento de objetos: as chaves com o prefixo
+ * {@code inline/} ficam na tabela {@link ConteudoInline}, as chaves
+ * {@code pacote/} são lidas por faixa de dentro de um pacote
+ * ({@link EntradaPacote}), e as demais seguem para o backend configurado (S3
+ * ou disco local). Quem grava escolhe a camada pela chave; quem lê não precisa
+ * saber onde o conteúdo está.
+ */
+@Component
+@Primary
+public class TieredStorageBackend implements StorageBackend {
+
+    public static final String PREFIXO_INLINE = "inline/";
+
+    // Nome do backend de objetos (S3StorageBackend ou LocalStorageBackend) para quem precisa dele diretamente
+    public static final String OBJETOS = "objetos";
+
+    // O conteúdo inline é lido inteiro para a memória; acima disso é um erro de configuração
+    private static final int TAMANHO_MAXIMO_INLINE = 1024 * 1024;
+
+    private final StorageBackend objetos;
+    private final ConteudoInlineRepository conteudoInlineRepository;
+
+    public TieredStorageBackend(@Qualifier(OBJETOS) StorageBackend objetos,
+            ConteudoInlineRepository conteudoInlineRepository) {
+        this.objetos = objetos;
+        this.conteudoInlineRepository = conteudoInlineRepository;
+    }
+
+    public static boolean ehInline(String key) {
+        return key != null && key.startsWith(PREFIXO_INLINE);
+    }
+
+    @Override
+    public void put(String key, String contentType, InputStream inputStream, long size) throws IOException {
+        if (EntradaPacote.ehEntrada(key)) {
+            throw new UnsupportedOperationException("Entradas de pacote são gravadas pelo empacotamento");
+        }
+        if (!ehInline(key)) {
+            objetos.put(key, contentType, inputStream, size);
+            return;
+        }
+        if (size > TAMANHO_MAXIMO_INLINE) {
+            throw new IllegalArgumentException("Conteúdo grande demais para o banco: " + size + " bytes");
+        }
+        byte[] conteudo = inputStream.readNBytes((int) size);
+        if (conteudo.length != size) {
+            throw new EOFException("Conteúdo menor que o tamanho informado: " + key);
+        }
+        conteudoInlineRepository.save(new ConteudoInline(key, conteudo, contentType, size, LocalDateTime.now(), false));
+    }
+
+    // O CRC32C só segue para o backend de objetos; no banco o conteúdo não atravessa a rede em partes
+    @Override
+    public void put(String key, String contentType, InputStream inputStream, long size, String crc32c)
+            throws IOException {
+        if (ehInline(key) || EntradaPacote.ehEntrada(key)) {
+            put(key, contentType, inputStream, size);
+            return;
+        }
+        objetos.put(key, contentType, inputStream, size, crc32c);
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        if (EntradaPacote.ehEntrada(key)) {
+            EntradaPacote entrada = entrada(key);
+            return getRange(key, 0, entrada.tamanho() - 1);
+        }
+        if (!ehInline(key)) {
+            return objetos.get(key);
+        }
+        return new ByteArrayInputStream(buscar(key).getConteudo());
+    }
+
+    @Override
+    public InputStream getRange(String key, long start, long end) throws IOException {
+        if (EntradaPacote.ehEntrada(key)) {
+            EntradaPacote entrada = entrada(key);
+            long fim = Math.min(end, entrada.tamanho() - 1);
+            if (start > fim) {
+                return InputStream.nullInputStream();
+            }
+            return objetos.getRange(entrada.objeto(), entrada.offset() + start, entrada.offset() + fim);
+        }
+        if (!ehInline(key)) {
+            return objetos.getRange(key, start, end);
+        }
+        return new ByteArrayInputStream(faixa(buscar(key).getConteudo(), start, end));
+    }
+
+    @Override
+    public Optional<StoredObject> head(String key) throws IOException {
+        if (EntradaPacote.ehEntrada(key)) {
+            // O pacote não guarda o tipo de cada entrada; quem serve o arquivo deduz pelo nome
+            EntradaPacote entrada = entrada(key);
+            return objetos.head(entrada.objeto()).map(pacote -> new StoredObject(entrada.tamanho(),
+                    "\"" + entrada.nome() + "\"", pacote.lastModified(), null));
+        }
+        if (!ehInline(key)) {
+            return objetos.head(key);
+        }
+        return conteudoInlineRepository.findById(key).map(c -> new StoredObject(c.getConteudo().length,
+                "\"" + key.substring(PREFIXO_INLINE.length()) + "\"",
+                c.getCriadoEm().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), c.getContentType()));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        if (EntradaPacote.ehEntrada(key)) {
+            // O espaço da entrada é recuperado pela compactação do pacote
+            return;
+        }
+        if (!ehInline(key)) {
+            objetos.delete(key);
+            return;
+        }
+        conteudoInlineRepository.deleteById(key);
+    }
+
+    // Entre camadas a cópia passa pela aplicação, o que só acontece com conteúdos pequenos
+    @Override
+    public void copy(String sourceKey, String targetKey) throws IOException {
+        if (EntradaPacote.ehEntrada(sourceKey)) {
+            EntradaPacote origem = entrada(sourceKey);
+            try (InputStream conteudo = get(sourceKey)) {
+                put(targetKey, null, conteudo, origem.tamanho());
+            }
+            return;
+        }
+        if (!ehInline(sourceKey) && !ehInline(targetKey)) {
+            objetos.copy(sourceKey, targetKey);
+            return;
+        }
+        if (!ehInline(sourceKey)) {
+            StoredObject origem = objetos.head(sourceKey)
+                    .orElseThrow(() -> new NoSuchFileException(sourceKey));
+            try (InputStream conteudo = objetos.get(sourceKey)) {
+                put(targetKey, origem.contentType(), conteudo, origem.size());
+            }
+            return;
+        }
+        ConteudoInline origem = buscar(sourceKey);
+        put(targetKey, origem.getContentType(), new ByteArrayInputStream(origem.getConteudo()),
+                origem.getConteudo().length);
+    }
+
+    @Override
+    public String createMultipartUpload(String key, String contentType) throws IOException {
+        return objetos.createMultipartUpload(key, contentType);
+    }
+
+    @Override
+    public String uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long length)
+            throws IOException {
+        return objetos.uploadPart(key, uploadId, partNumber, inputStream, length);
+    }
+
+    @Override
+    public void completeMultipartUpload(String key, String uploadId, List<UploadedPart> parts) throws IOException {
+        objetos.completeMultipartUpload(key, uploadId, parts);
+    }
+
+    @Override
+    public void abortMultipartUpload(String key, String uploadId) throws IOException {
+        objetos.abortMultipartUpload(key, uploadId);
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return objetoInteiro(key) ? objetos.localPath(key) : Optional.empty();
+    }
+
+    @Override
+    public Optional<URL> presignUpload(String key, String contentType, Duration expiration) {
+        return objetoInteiro(key) ? objetos.presignUpload(key, contentType, expiration) : Optional.empty();
+    }
+
+    @Override
+    public Optional<URL> presignDownload(String key, String fileName, Duration expiration) {
+        return objetoInteiro(key) ? objetos.presignDownload(key, fileName, expiration) : Optional.empty();
+    }
+
+    @Override
+    public boolean supportsPresign() {
+        return objetos.supportsPresign();
+    }
+
+    @Override
+    public boolean supportsAsync() {
+        return objetos.supportsAsync();
+    }
+
+    @Override
+    public CompletableFuture<Publisher<ByteBuffer>> getRangeAsync(String key, long start, long end) {
+        if (EntradaPacote.ehEntrada(key)) {
+            EntradaPacote entrada = entrada(key);
+            long fim = Math.min(end, entrada.tamanho() - 1);
+            if (start > fim) {
+                return CompletableFuture.completedFuture(BytesPublisher.vazio());
+            }
+            return objetos.getRangeAsync(entrada.objeto(), entrada.offset() + start, entrada.offset() + fim);
+        }
+        if (!ehInline(key)) {
+            return objetos.getRangeAsync(key, start, end);
+        }
+        try {
+            return CompletableFuture.completedFuture(new BytesPublisher(faixa(buscar(key).getConteudo(),
+                    start, end)));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> putAsync(String key, String contentType, Publisher<ByteBuffer> content,
+            long size) {
+        if (!objetoInteiro(key)) {
+            return CompletableFuture.failedFuture(new UnsupportedOperationException(
+                    "Só objetos inteiros são gravados pelo caminho não bloqueante"));
+        }
+        return objetos.putAsync(key, contentType, content, size);
+    }
+
+    // Chave que é um objeto inteiro do backend configurado
+    private static boolean objetoInteiro(String key) {
+        return !ehInline(key) && !EntradaPacote.ehEntrada(key);
+    }
+
+    private static EntradaPacote entrada(String key) {
+        return EntradaPacote.ler(key)
+                .orElseThrow(() -> new IllegalArgumentException("Chave de pacote inválida: " + key));
+    }
+
+    private ConteudoInline buscar(String key) throws IOException {
+        return conteudoInlineRepository.findById(key).orElseThrow(() -> new NoSuchFileException(key));
+    }
+
+    private static byte[] faixa(byte[] conteudo, long start, long end) {
+        int inicio = (int) Math.min(start, conteudo.length);
+        int fim = (int) Math.min(end + 1, conteudo.length);
+        return Arrays.copyOfRange(conteudo, inicio, Math.max(inicio, fim));
+    }
+}
@@ -0,0 +1,4 @@
+package br.com.projetounifor.filehub.storage;
+
+public record UploadedPart(int partNumber, String etag) {
+}
@@ -1,5 +1,7 @@
 package br.com.projetounifor.filehub.controller;
 
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -25,6 +27,7 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import br.com.projetounifor.filehub.domain.model.Documento;
 import br.com.projetounifor.filehub.dto.DocumentoDTO;
+import br.com.projetounifor.filehub.dto.ResultadoUploadDTO;
 import br.com.projetounifor.filehub.service.DocumentoService;
 
 @ExtendWith(MockitoExtension.class)
@@ -64,6 +67,27 @@ class DocumentoControllerTest {
 		verifyNoMoreInteractions(documentoService);
 	}
 
+	@Test
+	void submeterLote_ShouldReturnResultPerFile() throws Exception {
+		// Arrange
+		MockMultipartFile a = new MockMultipartFile("files", "a.pdf", "application/pdf", "A".getBytes());
+		MockMultipartFile b = new MockMultipartFile("files", "b.pdf", "application/pdf", "B".getBytes());
+		DocumentoDTO documentoDTO = new DocumentoDTO();
+		documentoDTO.setId(1L);
+		when(documentoService.submeterLote(eq(1L), eq(2L), anyList())).thenReturn(List.of(
+				new ResultadoUploadDTO("a.pdf", documentoDTO, null),
+				new ResultadoUploadDTO("b.pdf", null, "Erro ao salvar arquivo")));
+
+		// Act & Assert
+		mockMvc.perform(multipart("/documentos/submeter-lote").file(a).file(b).param("projetoId", "1")
+				.param("usuarioId", "2").contentType(MediaType.MULTIPART_FORM_DATA))
+				.andExpect(status().isOk()).andExpect(jsonPath("$[0].documento.id").value(1L))
+				.andExpect(jsonPath("$[1].erro").value("Erro ao salvar arquivo"));
+
+		verify(documentoService, times(1)).submeterLote(eq(1L), eq(2L), anyList());
+		verifyNoMoreInteractions(documentoService);
+	}
+
 	@Test
 	void aprovar_ShouldReturnDocumento() throws Exception {
 		// Arrange
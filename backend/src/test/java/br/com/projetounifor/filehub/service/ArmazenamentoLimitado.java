@@ -0,0 +1,183 @@
+package br.com.projetounifor.filehub.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import br.com.projetounifor.filehub.storage.StoredObject;
+import br.com.projetounifor.filehub.storage.UploadedPart;
+
+/**
+ * Armazenamento em memória para os testes de carga: serve o conteúdo gravado
+ * na chave por {@code put}, ou o conteúdo informado em qualquer outra chave.
+ * Cada requisição ({@code head}, {@code get}, {@code getRange} ou
+ * {@code put}) espera a latência informada, como uma chamada ao S3, e as
+ * leituras entregam no máximo a banda informada por segundo. Registra quantas
+ * requisições foram feitas e quantas leituras chegaram a estar abertas ao
+ * mesmo tempo.
+ */
+class ArmazenamentoLimitado implements StorageBackend {
+
+	private final byte[] conteudo;
+	private final long bandaPorConexao;
+	private final long latenciaMs;
+	private final Map<String, byte[]> gravados = new ConcurrentHashMap<>();
+	private final AtomicInteger requisicoes = new AtomicInteger();
+	private final AtomicInteger abertas = new AtomicInteger();
+	private final AtomicInteger maximoSimultaneo = new AtomicInteger();
+
+	ArmazenamentoLimitado(byte[] conteudo, long bandaPorConexao) {
+		this(conteudo, bandaPorConexao, 0);
+	}
+
+	ArmazenamentoLimitado(byte[] conteudo, long bandaPorConexao, long latenciaMs) {
+		this.conteudo = conteudo;
+		this.bandaPorConexao = bandaPorConexao;
+		this.latenciaMs = latenciaMs;
+	}
+
+	int requisicoes() {
+		return requisicoes.get();
+	}
+
+	int maximoSimultaneo() {
+		return maximoSimultaneo.get();
+	}
+
+	private byte[] conteudo(String key) {
+		return gravados.getOrDefault(key, conteudo);
+	}
+
+	private void requisicao() throws InterruptedIOException {
+		requisicoes.incrementAndGet();
+		esperar(TimeUnit.MILLISECONDS.toNanos(latenciaMs));
+	}
+
+	@Override
+	public Optional<StoredObject> head(String key) throws IOException {
+		requisicao();
+		return Optional.of(new StoredObject(conteudo(key).length, "\"" + key + "\"", 0L,
+				"application/octet-stream"));
+	}
+
+	@Override
+	public InputStream get(String key) throws IOException {
+		return getRange(key, 0, conteudo(key).length - 1);
+	}
+
+	@Override
+	public InputStream getRange(String key, long start, long end) throws IOException {
+		maximoSimultaneo.accumulateAndGet(abertas.incrementAndGet(), Math::max);
+		try {
+			requisicao();
+		} catch (IOException e) {
+			abertas.decrementAndGet();
+			throw e;
+		}
+		byte[] dados = conteudo(key);
+		return new ConexaoLimitada(dados, (int) start, (int) Math.min(end, dados.length - 1) + 1);
+	}
+
+	@Override
+	public void put(String key, String contentType, InputStream inputStream, long size) throws IOException {
+		requisicao();
+		gravados.put(key, inputStream.readNBytes((int) size));
+	}
+
+	@Override
+	public void delete(String key) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void copy(String sourceKey, String targetKey) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public String createMultipartUpload(String key, String contentType) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public String uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long length) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void completeMultipartUpload(String key, String uploadId, List<UploadedPart> parts) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void abortMultipartUpload(String key, String uploadId) {
+		throw new UnsupportedOperationException();
+	}
+
+	// Entrega a faixa [posicao, fim) esperando o tempo que os bytes levariam para chegar pela banda da conexão
+	private class ConexaoLimitada extends InputStream {
+
+		private final long inicio = System.nanoTime();
+		private final byte[] dados;
+		private final int primeiro;
+		private final int fim;
+		private int posicao;
+		private boolean fechada;
+
+		ConexaoLimitada(byte[] dados, int primeiro, int fim) {
+			this.dados = dados;
+			this.primeiro = primeiro;
+			this.fim = fim;
+			this.posicao = primeiro;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] um = new byte[1];
+			return read(um, 0, 1) == -1 ? -1 : um[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (posicao == fim) {
+				return -1;
+			}
+			int lidos = Math.min(Math.min(len, 64 * 1024), fim - posicao);
+			System.arraycopy(dados, posicao, b, off, lidos);
+			posicao += lidos;
+			aguardar();
+			return lidos;
+		}
+
+		@Override
+		public void close() {
+			if (!fechada) {
+				fechada = true;
+				abertas.decrementAndGet();
+			}
+		}
+
+		private void aguardar() throws InterruptedIOException {
+			long previsto = (posicao - primeiro) * 1_000_000_000L / bandaPorConexao;
+			esperar(previsto - (System.nanoTime() - inicio));
+		}
+	}
+
+	private static void esperar(long nanos) throws InterruptedIOException {
+		if (nanos > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(nanos);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+		}
+	}
+}
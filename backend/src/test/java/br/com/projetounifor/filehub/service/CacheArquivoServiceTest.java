@@ -0,0 +1,127 @@
+package br.com.projetounifor.filehub.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import br.com.projetounifor.filehub.service.CacheArquivoService.ArquivoEmCache;
+import br.com.projetounifor.filehub.service.CacheArquivoService.GravacaoCache;
+import br.com.projetounifor.filehub.storage.StoredObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CacheArquivoServiceTest {
+
+	@TempDir
+	Path tempDir;
+
+	private SimpleMeterRegistry meterRegistry;
+	private CacheArquivoService cacheArquivoService;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		meterRegistry = new SimpleMeterRegistry();
+		cacheArquivoService = new CacheArquivoService(meterRegistry);
+		ReflectionTestUtils.setField(cacheArquivoService, "habilitado", true);
+		ReflectionTestUtils.setField(cacheArquivoService, "diretorio", tempDir.toString());
+		ReflectionTestUtils.setField(cacheArquivoService, "tamanhoMaximo", DataSize.ofBytes(20));
+		cacheArquivoService.init();
+	}
+
+	private StoredObject objeto(String chave, long tamanho) {
+		return new StoredObject(tamanho, "\"" + chave + "\"", Instant.now().toEpochMilli(), "text/plain");
+	}
+
+	private void gravar(String chave, int tamanho) {
+		GravacaoCache gravacao = cacheArquivoService.iniciarGravacao(chave, objeto(chave, tamanho)).orElseThrow();
+		gravacao.write(new byte[tamanho], 0, tamanho);
+		gravacao.close();
+	}
+
+	@Test
+	void iniciarGravacao_WhenCopyIsComplete_ShouldServeNextLookupFromDisk() {
+		// Act
+		gravar("a", 10);
+		Optional<ArquivoEmCache> buscado = cacheArquivoService.buscar("a");
+
+		// Assert
+		assertTrue(buscado.isPresent(), "A próxima busca deve ser um acerto");
+		assertTrue(Files.exists(buscado.get().arquivo()));
+		assertEquals("\"a\"", buscado.get().etag());
+		assertEquals(1.0, meterRegistry.counter("filehub.cache.requests", "result", "hit").count());
+		assertEquals(10L, cacheArquivoService.getBytesEmCache());
+	}
+
+	@Test
+	void iniciarGravacao_WhenCopyIsInterrupted_ShouldDiscardIt() throws IOException {
+		// Arrange
+		GravacaoCache gravacao = cacheArquivoService.iniciarGravacao("a", objeto("a", 10)).orElseThrow();
+
+		// Act
+		gravacao.write(new byte[4], 0, 4);
+		gravacao.close();
+
+		// Assert
+		assertFalse(cacheArquivoService.buscar("a").isPresent(), "Uma cópia incompleta não deve ser servida");
+		assertEquals(0L, cacheArquivoService.getBytesEmCache());
+		try (Stream<Path> arquivos = Files.list(tempDir)) {
+			assertEquals(0L, arquivos.count(), "O arquivo temporário deve ser apagado");
+		}
+	}
+
+	@Test
+	void iniciarGravacao_WhenBudgetIsExceeded_ShouldEvictLeastRecentlyUsed() {
+		// Arrange
+		gravar("a", 8);
+		gravar("b", 8);
+		cacheArquivoService.buscar("a");
+
+		// Act
+		gravar("c", 8);
+
+		// Assert
+		assertTrue(cacheArquivoService.buscar("a").isPresent(), "A entrada usada recentemente deve permanecer");
+		assertFalse(cacheArquivoService.buscar("b").isPresent(), "A entrada menos usada deve ser removida");
+		assertTrue(cacheArquivoService.buscar("c").isPresent());
+		assertEquals(16L, cacheArquivoService.getBytesEmCache());
+		assertEquals(1.0, meterRegistry.counter("filehub.cache.evictions").count());
+	}
+
+	@Test
+	void buscar_WhenEntryIsEvictedWhileBeingRead_ShouldKeepFileUntilReleased() {
+		// Arrange
+		gravar("a", 8);
+		ArquivoEmCache lendo = cacheArquivoService.buscar("a").orElseThrow();
+		gravar("b", 8);
+
+		// Act
+		gravar("c", 8);
+
+		// Assert
+		assertFalse(cacheArquivoService.buscar("a").isPresent(), "A entrada menos usada deve sair do índice");
+		assertTrue(Files.exists(lendo.arquivo()), "O arquivo não pode sumir durante a leitura");
+		lendo.close();
+		assertFalse(Files.exists(lendo.arquivo()), "O último leitor apaga o arquivo da entrada removida");
+	}
+
+	@Test
+	void iniciarGravacao_WhenObjectIsLargerThanBudget_ShouldNotCache() {
+		// Act
+		Optional<GravacaoCache> gravacao = cacheArquivoService.iniciarGravacao("grande", objeto("grande", 100));
+
+		// Assert
+		assertFalse(gravacao.isPresent(), "Objetos maiores que o orçamento não devem ser armazenados");
+	}
+}
@@ -0,0 +1,148 @@
+package br.com.projetounifor.filehub.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import br.com.projetounifor.filehub.domain.model.ConteudoArquivo;
+import br.com.projetounifor.filehub.domain.model.ConteudoInline;
+import br.com.projetounifor.filehub.domain.model.Documento;
+import br.com.projetounifor.filehub.domain.repository.ConteudoArquivoRepository;
+import br.com.projetounifor.filehub.domain.repository.ConteudoInlineRepository;
+import br.com.projetounifor.filehub.storage.LayoutChaves;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import br.com.projetounifor.filehub.storage.TieredStorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Teste de carga comparando o envio e o download de arquivos pequenos
+ * guardados no banco com os mesmos arquivos no armazenamento de objetos. O S3
+ * é simulado com uma latência fixa por requisição e o banco com uma latência
+ * menor por consulta, como em uma rede local. Executar com
+ * {@code mvn test -Dfilehub.teste-carga=true}.
+ */
+@EnabledIfSystemProperty(named = "filehub.teste-carga", matches = "true")
+class ConteudoInlineCargaTest {
+
+	private static final Logger log = LoggerFactory.getLogger(ConteudoInlineCargaTest.class);
+
+	private static final int ARQUIVOS = 200;
+	private static final int TAMANHO_ARQUIVO = 2 * 1024;
+	private static final long LATENCIA_S3_MS = 20;
+	private static final long LATENCIA_BANCO_MS = 2;
+	// Arquivos de poucos KB: o tempo é o da latência, não o da banda
+	private static final long BANDA_S3 = 100L * 1024 * 1024;
+
+	@Test
+	void armazenarEEnviar_WhenFilesAreTiny_InlineShouldBeFasterThanObjectStorage() throws Exception {
+		// Act
+		Resultado s3 = executar(DataSize.ofBytes(0));
+		Resultado inline = executar(DataSize.ofKilobytes(4));
+
+		log.info("s3:     envio p50={}ms, download p50={}ms, requisições={}", s3.envioP50Ms(), s3.downloadP50Ms(),
+				s3.requisicoesS3());
+		log.info("inline: envio p50={}ms, download p50={}ms, requisições={}", inline.envioP50Ms(),
+				inline.downloadP50Ms(), inline.requisicoesS3());
+
+		// Assert
+		assertEquals(0, inline.requisicoesS3(), "Arquivos pequenos não devem chegar ao S3");
+		assertTrue(inline.envioP50Ms() < s3.envioP50Ms(), "O envio inline deve ser mais rápido");
+		assertTrue(inline.downloadP50Ms() < s3.downloadP50Ms(), "O download inline deve ser mais rápido");
+	}
+
+	private Resultado executar(DataSize tamanhoMaximoInline) throws Exception {
+		ArmazenamentoLimitado s3 = new ArmazenamentoLimitado(new byte[0], BANDA_S3, LATENCIA_S3_MS);
+		StorageBackend storageBackend = new TieredStorageBackend(s3, bancoSimulado());
+		ConteudoService conteudoService = new ConteudoService(mock(ConteudoArquivoRepository.class), storageBackend,
+				null, new LayoutChaves(), new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(conteudoService, "tamanhoMaximoInline", tamanhoMaximoInline);
+		// Cache desabilitado: todo download vai ao armazenamento
+		CacheArquivoService cacheArquivoService = new CacheArquivoService(new SimpleMeterRegistry());
+		DownloadService downloadService = new DownloadService(storageBackend, cacheArquivoService, null);
+
+		Random random = new Random(42);
+		List<Long> envios = new ArrayList<>(ARQUIVOS);
+		List<Long> downloads = new ArrayList<>(ARQUIVOS);
+		for (int i = 0; i < ARQUIVOS; i++) {
+			byte[] conteudo = new byte[TAMANHO_ARQUIVO];
+			random.nextBytes(conteudo);
+
+			long inicio = System.nanoTime();
+			ConteudoArquivo armazenado = conteudoService.armazenar("hash" + i, "application/octet-stream",
+					new ByteArrayInputStream(conteudo), conteudo.length);
+			envios.add(System.nanoTime() - inicio);
+
+			Documento documento = new Documento();
+			documento.setId((long) i);
+			documento.setNomeArquivo("pequeno" + i + ".bin");
+			documento.setCaminhoArquivo(armazenado.getCaminhoArquivo());
+
+			inicio = System.nanoTime();
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			downloadService.enviarArquivo(documento, new MockHttpServletRequest("GET", "/documentos/" + i), response);
+			downloads.add(System.nanoTime() - inicio);
+
+			assertEquals(200, response.getStatus());
+			assertArrayEquals(conteudo, response.getContentAsByteArray());
+		}
+
+		return new Resultado(p50Ms(envios), p50Ms(downloads), s3.requisicoes());
+	}
+
+	private static double p50Ms(List<Long> latencias) {
+		latencias.sort(null);
+		return latencias.get(latencias.size() / 2) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	private static void esperar(long ms) throws InterruptedIOException {
+		try {
+			Thread.sleep(ms);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+	}
+
+	// Repositório em memória que espera LATENCIA_BANCO_MS a cada consulta
+	private static ConteudoInlineRepository bancoSimulado() {
+		Map<String, ConteudoInline> tabela = new ConcurrentHashMap<>();
+		ConteudoInlineRepository repository = mock(ConteudoInlineRepository.class);
+		when(repository.save(any())).thenAnswer(invocation -> {
+			esperar(LATENCIA_BANCO_MS);
+			ConteudoInline conteudo = invocation.getArgument(0);
+			tabela.put(conteudo.getChave(), conteudo);
+			return conteudo;
+		});
+		when(repository.findById(anyString())).thenAnswer(invocation -> {
+			esperar(LATENCIA_BANCO_MS);
+			return Optional.ofNullable(tabela.get(invocation.<String>getArgument(0)));
+		});
+		return repository;
+	}
+
+	private record Resultado(double envioP50Ms, double downloadP50Ms, int requisicoesS3) {
+	}
+}
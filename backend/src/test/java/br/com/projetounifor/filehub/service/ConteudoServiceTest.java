@@ -0,0 +1,231 @@
+package br.com.projetounifor.filehub.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import br.com.projetounifor.filehub.domain.model.ConteudoArquivo;
+import br.com.projetounifor.filehub.domain.repository.ConteudoArquivoRepository;
+import br.com.projetounifor.filehub.service.ConteudoService.Assinatura;
+import br.com.projetounifor.filehub.storage.LayoutChaves;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class ConteudoServiceTest {
+
+	// SHA-256 de "abc"
+	private static final String HASH_ABC = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+	// CRC32C de "abc" (0x364b3fb7) em base64
+	private static final String CRC_ABC = "Nks/tw==";
+	private static final Assinatura ASSINATURA_ABC = new Assinatura(HASH_ABC, CRC_ABC);
+
+	@Mock
+	private ConteudoArquivoRepository conteudoArquivoRepository;
+
+	@Mock
+	private StorageBackend storageBackend;
+
+	@Mock
+	private PacoteService pacoteService;
+
+	private SimpleMeterRegistry meterRegistry;
+	private ConteudoService conteudoService;
+	private MockMultipartFile arquivo;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		conteudoService = new ConteudoService(conteudoArquivoRepository, storageBackend, pacoteService, new LayoutChaves(),
+				meterRegistry);
+		arquivo = new MockMultipartFile("file", "a.txt", "text/plain", "abc".getBytes());
+	}
+
+	@Test
+	void calcularAssinatura_ShouldReturnHexSha256AndBase64Crc32c() throws IOException {
+		// Act
+		Assinatura assinatura = conteudoService.calcularAssinatura(arquivo);
+
+		// Assert
+		assertEquals(HASH_ABC, assinatura.hash());
+		assertEquals(CRC_ABC, assinatura.crc32c());
+	}
+
+	@Test
+	void reutilizar_WhenContentExists_ShouldAddReferenceAndReturnExistingKey() {
+		// Arrange
+		ConteudoArquivo existente = new ConteudoArquivo(HASH_ABC, 3L, "sha256/" + HASH_ABC, null, 1,
+				LocalDateTime.now());
+		when(conteudoArquivoRepository.findById(HASH_ABC)).thenReturn(Optional.of(existente));
+		when(conteudoArquivoRepository.adicionarReferencia(HASH_ABC)).thenReturn(1);
+
+		// Act
+		Optional<ConteudoArquivo> conteudo = conteudoService.reutilizar(HASH_ABC);
+
+		// Assert
+		assertEquals("sha256/" + HASH_ABC, conteudo.get().getCaminhoArquivo());
+		assertEquals(1.0, meterRegistry.counter("filehub.dedup.uploads", "result", "duplicate").count());
+		assertEquals(3.0, meterRegistry.counter("filehub.dedup.bytes.saved").count());
+		verifyNoInteractions(storageBackend);
+	}
+
+	@Test
+	void reutilizar_WhenContentIsNew_ShouldReturnEmpty() {
+		// Arrange
+		when(conteudoArquivoRepository.findById(HASH_ABC)).thenReturn(Optional.empty());
+
+		// Act
+		Optional<ConteudoArquivo> conteudo = conteudoService.reutilizar(HASH_ABC);
+
+		// Assert
+		assertFalse(conteudo.isPresent());
+		verify(conteudoArquivoRepository, never()).adicionarReferencia(anyString());
+	}
+
+	@Test
+	void armazenar_ShouldUploadUnderContentKeyAndRegisterReference() throws IOException {
+		// Arrange
+		ReflectionTestUtils.setField(conteudoService, "tamanhoMaximoInline", DataSize.ofBytes(0));
+
+		// Act
+		ConteudoArquivo armazenado = conteudoService.armazenar(ASSINATURA_ABC, arquivo);
+
+		// Assert
+		assertEquals("ba/sha256/" + HASH_ABC, armazenado.getCaminhoArquivo());
+		assertNull(armazenado.getCodificacao(), "Arquivos pequenos não são comprimidos");
+		verify(storageBackend).put(eq("ba/sha256/" + HASH_ABC), any(), any(InputStream.class), anyLong(),
+				eq(CRC_ABC));
+		verify(conteudoArquivoRepository).registrar(HASH_ABC, 3L, "ba/sha256/" + HASH_ABC, null);
+	}
+
+	@Test
+	void armazenar_WhenContentIsTiny_ShouldStoreInlineKey() throws IOException {
+		// Act
+		ConteudoArquivo armazenado = conteudoService.armazenar(ASSINATURA_ABC, arquivo);
+
+		// Assert
+		assertEquals("inline/" + HASH_ABC, armazenado.getCaminhoArquivo());
+		verify(storageBackend).put(eq("inline/" + HASH_ABC), eq("text/plain"), any(InputStream.class), eq(3L));
+		verify(conteudoArquivoRepository).registrar(HASH_ABC, 3L, "inline/" + HASH_ABC, null);
+	}
+
+	@Test
+	void armazenar_WhenPackingAcceptsSize_ShouldStageContentForNextPack() throws IOException {
+		// Arrange
+		byte[] conteudo = new byte[100_000];
+		when(pacoteService.aceita(conteudo.length)).thenReturn(true);
+		when(pacoteService.adicionar(eq("hash"), eq("image/png"), any(InputStream.class), eq((long) conteudo.length)))
+				.thenReturn("inline/hash");
+
+		// Act
+		ConteudoArquivo armazenado = conteudoService.armazenar("hash", "image/png",
+				new ByteArrayInputStream(conteudo), conteudo.length);
+
+		// Assert
+		assertEquals("inline/hash", armazenado.getCaminhoArquivo());
+		verify(conteudoArquivoRepository).registrar("hash", conteudo.length, "inline/hash", null);
+		verifyNoInteractions(storageBackend);
+	}
+
+	@Test
+	void armazenar_WhenUploadFails_ShouldNotRegisterContent() throws IOException {
+		// Arrange
+		doThrow(new IOException("S3 indisponível")).when(storageBackend)
+				.put(any(), any(), any(InputStream.class), anyLong());
+
+		// Act & Assert
+		assertThrows(IOException.class, () -> conteudoService.armazenar(ASSINATURA_ABC, arquivo));
+		verify(conteudoArquivoRepository, never()).registrar(anyString(), anyLong(), anyString(), any());
+	}
+
+	@Test
+	void armazenar_WhenContentCompressesWell_ShouldStoreGzipUnderSuffixedKey() throws IOException {
+		// Arrange
+		ReflectionTestUtils.setField(conteudoService, "compressaoHabilitada", true);
+		byte[] csv = "id;nome;valor\n1;documento;10.00\n".repeat(4000).getBytes(StandardCharsets.UTF_8);
+		ByteArrayOutputStream gravado = new ByteArrayOutputStream();
+		doAnswer(invocation -> {
+			((InputStream) invocation.getArgument(2)).transferTo(gravado);
+			return null;
+		}).when(storageBackend).put(anyString(), anyString(), any(InputStream.class), anyLong(), isNull());
+
+		// Act
+		ConteudoArquivo armazenado = conteudoService.armazenar("hash", "text/csv", new ByteArrayInputStream(csv),
+				csv.length);
+
+		// Assert
+		assertEquals("ha/sha256/hash.gz", armazenado.getCaminhoArquivo());
+		assertEquals("gzip", armazenado.getCodificacao());
+		assertTrue(gravado.size() < csv.length / 10, "O CSV deve ser gravado comprimido");
+		try (InputStream descomprimido = new GZIPInputStream(new ByteArrayInputStream(gravado.toByteArray()))) {
+			assertArrayEquals(csv, descomprimido.readAllBytes());
+		}
+		verify(conteudoArquivoRepository).registrar("hash", csv.length, "ha/sha256/hash.gz", "gzip");
+		assertTrue(meterRegistry.counter("filehub.compressao.bytes.saved").count() > 0);
+	}
+
+	@Test
+	void armazenar_WhenCompressionIsDisabledByDefault_ShouldStoreRawSoRangesKeepWorking() throws IOException {
+		// Arrange
+		byte[] csv = "id;nome;valor\n1;documento;10.00\n".repeat(4000).getBytes(StandardCharsets.UTF_8);
+
+		// Act
+		ConteudoArquivo armazenado = conteudoService.armazenar("hash", "text/csv", new ByteArrayInputStream(csv),
+				csv.length);
+
+		// Assert
+		assertEquals("ha/sha256/hash", armazenado.getCaminhoArquivo());
+		assertNull(armazenado.getCodificacao());
+		verify(conteudoArquivoRepository).registrar("hash", csv.length, "ha/sha256/hash", null);
+	}
+
+	@Test
+	void armazenar_WhenTypeIsAlreadyCompressed_ShouldStoreRaw() throws IOException {
+		// Arrange
+		ReflectionTestUtils.setField(conteudoService, "compressaoHabilitada", true);
+		byte[] conteudo = "a".repeat(100_000).getBytes(StandardCharsets.UTF_8);
+
+		// Act
+		ConteudoArquivo armazenado = conteudoService.armazenar("hash", "image/jpeg",
+				new ByteArrayInputStream(conteudo), conteudo.length);
+
+		// Assert
+		assertEquals("ha/sha256/hash", armazenado.getCaminhoArquivo());
+		assertNull(armazenado.getCodificacao());
+		verify(storageBackend).put(eq("ha/sha256/hash"), eq("image/jpeg"), any(InputStream.class),
+				eq((long) conteudo.length), isNull());
+	}
+}
@@ -3,9 +3,15 @@ package br.com.projetounifor.filehub.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -13,27 +19,48 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import br.com.projetounifor.filehub.domain.model.ConteudoArquivo;
 import br.com.projetounifor.filehub.domain.model.Documento;
+import br.com.projetounifor.filehub.domain.model.DocumentoRemovido;
 import br.com.projetounifor.filehub.domain.model.Projeto;
 import br.com.projetounifor.filehub.domain.model.Usuario;
 import br.com.projetounifor.filehub.domain.model.enums.StatusDocumento;
+import br.com.projetounifor.filehub.domain.repository.DocumentoRemovidoRepository;
 import br.com.projetounifor.filehub.domain.repository.DocumentoRepository;
 import br.com.projetounifor.filehub.domain.repository.ProjetoRepository;
 import br.com.projetounifor.filehub.domain.repository.UsuarioRepository;
+import br.com.projetounifor.filehub.dto.AlteracoesDTO;
 import br.com.projetounifor.filehub.dto.DocumentoDTO;
+import br.com.projetounifor.filehub.dto.ManifestoDTO;
+import br.com.projetounifor.filehub.dto.ResultadoUploadDTO;
+import br.com.projetounifor.filehub.dto.UploadDiretoDTO;
+import br.com.projetounifor.filehub.service.ConteudoService.Assinatura;
+import br.com.projetounifor.filehub.storage.LayoutChaves;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import br.com.projetounifor.filehub.storage.StoredObject;
 
 @ExtendWith(MockitoExtension.class)
 class DocumentoServiceTest {
@@ -41,6 +68,9 @@ class DocumentoServiceTest {
 	@Mock
 	private DocumentoRepository documentoRepository;
 
+	@Mock
+	private DocumentoRemovidoRepository documentoRemovidoRepository;
+
 	@Mock
 	private ProjetoRepository projetoRepository;
 
@@ -51,7 +81,19 @@ class DocumentoServiceTest {
 	private DocumentoService documentoService;
 
 	@Mock
-	private S3Service s3Service; // Mock para S3Service
+	private StorageBackend storageBackend; // Mock para o armazenamento
+
+	@Mock
+	private ReplicacaoService replicacaoService;
+
+	@Mock
+	private ConteudoService conteudoService;
+
+	@Mock
+	private VersaoService versaoService;
+
+	@Spy
+	private LayoutChaves layoutChaves = new LayoutChaves();
 
 	private MockMultipartFile mockFile;
 
@@ -60,6 +102,14 @@ class DocumentoServiceTest {
 		mockFile = new MockMultipartFile("file", "test.pdf", "application/pdf", "Test content".getBytes());
 	}
 
+	private static ConteudoArquivo conteudo(String hash) {
+		return new ConteudoArquivo(hash, 1L, "sha256/" + hash, null, 1, null);
+	}
+
+	private static Assinatura assinatura(String hash) {
+		return new Assinatura(hash, "crc-" + hash);
+	}
+
 	@Test
 	void submeterDocumento_ShouldCreateAndSaveDocumento() throws IOException {
 		// Arrange
@@ -81,7 +131,8 @@ class DocumentoServiceTest {
 		when(projetoRepository.findById(projetoId)).thenReturn(Optional.of(projeto));
 		when(usuarioRepository.findById(usuarioId)).thenReturn(Optional.of(usuario));
 		when(documentoRepository.save(any(Documento.class))).thenReturn(documento);
-		doNothing().when(s3Service).uploadFile(anyString(), anyString(), any(MultipartFile.class)); // Corrigido
+		when(conteudoService.calcularAssinatura(mockFile)).thenReturn(assinatura("hash"));
+		when(conteudoService.armazenar(assinatura("hash"), mockFile)).thenReturn(conteudo("hash"));
 
 		// Act
 		DocumentoDTO result = documentoService.submeterDocumento(projetoId, usuarioId, mockFile);
@@ -95,9 +146,116 @@ class DocumentoServiceTest {
 		assertEquals(usuarioId, result.getCriadoPorId(), "O criadoPorId deve ser o esperado");
 		verify(projetoRepository, times(1)).findById(projetoId);
 		verify(usuarioRepository, times(1)).findById(usuarioId);
-		verify(documentoRepository, times(1)).save(any(Documento.class));
-		verify(s3Service, times(1)).uploadFile(anyString(), anyString(), any(MultipartFile.class));
-		verifyNoMoreInteractions(projetoRepository, usuarioRepository, documentoRepository, s3Service);
+		verify(documentoRepository, times(1)).save(argThat(doc -> "sha256/hash".equals(doc.getCaminhoArquivo())
+				&& "hash".equals(doc.getHashConteudo()) && doc.getTamanho() == mockFile.getSize()
+				&& "application/pdf".equals(doc.getContentType()) && "crc-hash".equals(doc.getCrc32c())));
+		verify(conteudoService, times(1)).armazenar(assinatura("hash"), mockFile);
+		verifyNoMoreInteractions(projetoRepository, usuarioRepository, documentoRepository, storageBackend);
+	}
+
+	@Test
+	void submeterDocumento_WhenContentAlreadyStored_ShouldReuseObjectWithoutUpload() throws IOException {
+		// Arrange
+		Projeto projeto = new Projeto();
+		projeto.setId(1L);
+		Usuario usuario = new Usuario();
+		usuario.setId(2L);
+		when(projetoRepository.findById(1L)).thenReturn(Optional.of(projeto));
+		when(usuarioRepository.findById(2L)).thenReturn(Optional.of(usuario));
+		when(documentoRepository.save(any(Documento.class))).thenAnswer(inv -> inv.getArgument(0));
+		when(conteudoService.calcularAssinatura(mockFile)).thenReturn(assinatura("hash"));
+		when(conteudoService.reutilizar("hash")).thenReturn(Optional.of(conteudo("hash")));
+
+		// Act
+		DocumentoDTO result = documentoService.submeterDocumento(1L, 2L, mockFile);
+
+		// Assert
+		assertEquals("sha256/hash", result.getCaminhoArquivo(), "O documento deve apontar para o objeto existente");
+		assertEquals(StatusDocumento.PENDENTE, result.getStatus());
+		verify(conteudoService, never()).armazenar(any(Assinatura.class), any(MultipartFile.class));
+		verifyNoInteractions(storageBackend, replicacaoService);
+	}
+
+	@Test
+	void submeterDocumento_WhenSaveFails_ShouldReleaseContentReference() throws IOException {
+		// Arrange
+		Projeto projeto = new Projeto();
+		projeto.setId(1L);
+		Usuario usuario = new Usuario();
+		usuario.setId(2L);
+		when(projetoRepository.findById(1L)).thenReturn(Optional.of(projeto));
+		when(usuarioRepository.findById(2L)).thenReturn(Optional.of(usuario));
+		when(conteudoService.calcularAssinatura(mockFile)).thenReturn(assinatura("hash"));
+		when(conteudoService.reutilizar("hash")).thenReturn(Optional.of(conteudo("hash")));
+		when(documentoRepository.save(any(Documento.class))).thenThrow(new RuntimeException("banco indisponível"));
+
+		// Act & Assert
+		assertThrows(RuntimeException.class, () -> documentoService.submeterDocumento(1L, 2L, mockFile));
+		verify(conteudoService, times(1)).liberar("hash");
+	}
+
+	@Test
+	void submeterLote_ShouldResolveProjetoOnceAndSaveDocumentosTogether() throws IOException {
+		// Arrange
+		documentoService.init();
+		Projeto projeto = new Projeto();
+		projeto.setId(1L);
+		Usuario usuario = new Usuario();
+		usuario.setId(2L);
+		when(projetoRepository.findById(1L)).thenReturn(Optional.of(projeto));
+		when(usuarioRepository.findById(2L)).thenReturn(Optional.of(usuario));
+		when(documentoRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+		when(conteudoService.calcularAssinatura(any(MultipartFile.class)))
+				.thenAnswer(inv -> assinatura(inv.getArgument(0, MultipartFile.class).getOriginalFilename()));
+		lenient().when(conteudoService.armazenar(any(Assinatura.class), any(MultipartFile.class)))
+				.thenAnswer(inv -> conteudo(inv.getArgument(0, Assinatura.class).hash()));
+		lenient().when(conteudoService.armazenar(eq(assinatura("b.pdf")), any(MultipartFile.class)))
+				.thenThrow(new IOException("disco cheio"));
+		List<MultipartFile> files = List.of(
+				new MockMultipartFile("files", "a.pdf", "application/pdf", "A".getBytes()),
+				new MockMultipartFile("files", "b.pdf", "application/pdf", "B".getBytes()),
+				new MockMultipartFile("files", "c.pdf", "application/pdf", "C".getBytes()));
+
+		// Act
+		List<ResultadoUploadDTO> result = documentoService.submeterLote(1L, 2L, files);
+		documentoService.shutdown();
+
+		// Assert
+		assertEquals(3, result.size(), "Deve haver um resultado por arquivo");
+		assertEquals("a.pdf", result.get(0).getDocumento().getNomeArquivo());
+		assertEquals("disco cheio", result.get(1).getErro(), "A falha deve ser informada no resultado do arquivo");
+		assertEquals(null, result.get(1).getDocumento());
+		assertEquals(StatusDocumento.PENDENTE, result.get(2).getDocumento().getStatus());
+		verify(projetoRepository, times(1)).findById(1L);
+		verify(usuarioRepository, times(1)).findById(2L);
+		verify(documentoRepository, times(1)).saveAll(anyList());
+		verify(documentoRepository, never()).save(any(Documento.class));
+	}
+
+	@Test
+	void submeterDocumento_WhenAsync_ShouldSpoolAndScheduleReplication() throws IOException {
+		// Arrange
+		ReflectionTestUtils.setField(documentoService, "uploadAssincrono", true);
+		Long projetoId = 1L;
+		Long usuarioId = 2L;
+		Projeto projeto = new Projeto();
+		projeto.setId(projetoId);
+		Usuario usuario = new Usuario();
+		usuario.setId(usuarioId);
+		when(projetoRepository.findById(projetoId)).thenReturn(Optional.of(projeto));
+		when(usuarioRepository.findById(usuarioId)).thenReturn(Optional.of(usuario));
+		when(documentoRepository.save(any(Documento.class))).thenAnswer(inv -> inv.getArgument(0));
+		when(conteudoService.calcularAssinatura(mockFile)).thenReturn(assinatura("hash"));
+
+		// Act
+		DocumentoDTO result = documentoService.submeterDocumento(projetoId, usuarioId, mockFile);
+
+		// Assert
+		assertEquals(StatusDocumento.ENVIANDO, result.getStatus(), "O status deve ser ENVIANDO até a replicação");
+		verify(replicacaoService, times(1)).gravarNoSpool(anyString(), any(MultipartFile.class));
+		verify(replicacaoService, times(1)).agendar(any(Documento.class));
+		verify(conteudoService, never()).armazenar(any(), any(MultipartFile.class));
+		verifyNoInteractions(storageBackend);
 	}
 
 	@Test
@@ -116,6 +274,151 @@ class DocumentoServiceTest {
 		verifyNoInteractions(usuarioRepository, documentoRepository);
 	}
 
+	@Test
+	void iniciarUploadDireto_ShouldCreatePendingDocumentoAndReturnPresignedUrl() throws Exception {
+		// Arrange
+		Usuario usuario = new Usuario();
+		usuario.setId(2L);
+		Projeto projeto = new Projeto();
+		projeto.setId(1L);
+		projeto.setCriador(usuario);
+		projeto.setUsuarios(Set.of());
+		when(projetoRepository.findById(1L)).thenReturn(Optional.of(projeto));
+		when(usuarioRepository.findById(2L)).thenReturn(Optional.of(usuario));
+		when(documentoRepository.save(any(Documento.class))).thenAnswer(inv -> {
+			Documento doc = inv.getArgument(0);
+			doc.setId(7L);
+			return doc;
+		});
+		when(storageBackend.presignUpload(anyString(), anyString(), any()))
+				.thenReturn(Optional.of(
+						URI.create("https://bucket.s3.amazonaws.com/key?X-Amz-Signature=abc").toURL()));
+
+		// Act
+		UploadDiretoDTO result = documentoService.iniciarUploadDireto(1L, 2L, "test.pdf", "application/pdf");
+
+		// Assert
+		assertEquals(7L, result.getDocumentoId(), "O ID do documento criado deve ser retornado");
+		assertEquals("https://bucket.s3.amazonaws.com/key?X-Amz-Signature=abc", result.getUrl());
+		verify(storageBackend, never()).put(anyString(), any(), any(InputStream.class), anyLong());
+	}
+
+	@Test
+	void iniciarUploadDireto_WhenStorageHasNoDirectAccess_ShouldThrowException() {
+		// Arrange
+		Usuario usuario = new Usuario();
+		usuario.setId(2L);
+		Projeto projeto = new Projeto();
+		projeto.setId(1L);
+		projeto.setCriador(usuario);
+		projeto.setUsuarios(Set.of());
+		when(projetoRepository.findById(1L)).thenReturn(Optional.of(projeto));
+		when(usuarioRepository.findById(2L)).thenReturn(Optional.of(usuario));
+		when(storageBackend.presignUpload(anyString(), anyString(), any())).thenReturn(Optional.empty());
+
+		// Act & Assert
+		assertThrows(UnsupportedOperationException.class,
+				() -> documentoService.iniciarUploadDireto(1L, 2L, "test.pdf", "application/pdf"));
+		verifyNoInteractions(documentoRepository);
+	}
+
+	@Test
+	void iniciarUploadDireto_WhenUserNotInProject_ShouldThrowException() {
+		// Arrange
+		Usuario criador = new Usuario();
+		criador.setId(1L);
+		Usuario usuario = new Usuario();
+		usuario.setId(2L);
+		Projeto projeto = new Projeto();
+		projeto.setId(1L);
+		projeto.setCriador(criador);
+		projeto.setUsuarios(Set.of());
+		when(projetoRepository.findById(1L)).thenReturn(Optional.of(projeto));
+		when(usuarioRepository.findById(2L)).thenReturn(Optional.of(usuario));
+
+		// Act & Assert
+		assertThrows(AccessDeniedException.class,
+				() -> documentoService.iniciarUploadDireto(1L, 2L, "test.pdf", "application/pdf"));
+		verifyNoInteractions(documentoRepository, storageBackend);
+	}
+
+	@Test
+	void concluirUploadDireto_ShouldCheckObjectAndMarkAsPendente() throws IOException {
+		// Arrange
+		Usuario usuario = new Usuario();
+		usuario.setId(2L);
+		Documento documento = new Documento();
+		documento.setId(7L);
+		documento.setCaminhoArquivo("key");
+		documento.setStatus(StatusDocumento.ENVIANDO);
+		documento.setCriadoPor(usuario);
+		when(documentoRepository.findById(7L)).thenReturn(Optional.of(documento));
+		when(storageBackend.head("key")).thenReturn(Optional.of(new StoredObject(10L, "\"etag\"", 0L, null)));
+		when(documentoRepository.save(documento)).thenReturn(documento);
+
+		// Act
+		DocumentoDTO result = documentoService.concluirUploadDireto(7L, 2L);
+
+		// Assert
+		assertEquals(StatusDocumento.PENDENTE, result.getStatus(), "O status deve ser PENDENTE");
+		assertEquals(10L, result.getTamanho(), "O tamanho enviado deve ser gravado no documento");
+	}
+
+	@Test
+	void concluirUploadDireto_WhenObjectIsMissing_ShouldThrowException() throws IOException {
+		// Arrange
+		Usuario usuario = new Usuario();
+		usuario.setId(2L);
+		Documento documento = new Documento();
+		documento.setId(7L);
+		documento.setCaminhoArquivo("key");
+		documento.setStatus(StatusDocumento.ENVIANDO);
+		documento.setCriadoPor(usuario);
+		when(documentoRepository.findById(7L)).thenReturn(Optional.of(documento));
+		when(storageBackend.head("key")).thenReturn(Optional.empty());
+
+		// Act & Assert
+		assertThrows(IllegalStateException.class, () -> documentoService.concluirUploadDireto(7L, 2L));
+		assertEquals(StatusDocumento.ENVIANDO, documento.getStatus(), "O status não deve mudar");
+	}
+
+	@Test
+	void submeterNaoBloqueante_ShouldSaveDocumentoAfterObjectIsStored() {
+		// Arrange
+		Documento documento = new Documento();
+		documento.setCaminhoArquivo("key");
+		CompletableFuture<Void> envio = new CompletableFuture<>();
+		when(storageBackend.putAsync(any(), any(), any(), anyLong())).thenReturn(envio);
+		when(documentoRepository.save(documento)).thenReturn(documento);
+
+		// Act
+		CompletableFuture<DocumentoDTO> result = documentoService.submeterNaoBloqueante(documento, "application/pdf",
+				10L, null);
+
+		// Assert
+		verify(documentoRepository, never()).save(any());
+		envio.complete(null);
+		assertEquals(StatusDocumento.PENDENTE, result.join().getStatus(), "O status deve ser PENDENTE");
+		verify(storageBackend).putAsync("key", "application/pdf", null, 10L);
+	}
+
+	@Test
+	void submeterNaoBloqueante_WhenStorageFails_ShouldNotSaveDocumento() {
+		// Arrange
+		Documento documento = new Documento();
+		documento.setCaminhoArquivo("key");
+		when(storageBackend.putAsync(any(), any(), any(), anyLong()))
+				.thenReturn(CompletableFuture.failedFuture(new IOException("S3 indisponível")));
+
+		// Act
+		CompletableFuture<DocumentoDTO> result = documentoService.submeterNaoBloqueante(documento, "application/pdf",
+				10L, null);
+
+		// Assert
+		assertThrows(CompletionException.class, result::join);
+		verify(documentoRepository, never()).save(any());
+	}
+
 	@Test
 	void aprovar_ShouldUpdateDocumentoStatusAndAprovador() {
 		// Arrange
@@ -188,6 +491,210 @@ class DocumentoServiceTest {
 		verifyNoMoreInteractions(documentoRepository);
 	}
 
+	@Test
+	void consultarPorProjetoComUrl_ShouldFillPresignedUrls() throws Exception {
+		// Arrange
+		Usuario usuario = new Usuario();
+		usuario.setId(2L);
+		Projeto projeto = new Projeto();
+		projeto.setId(1L);
+		projeto.setCriador(usuario);
+		Documento documento = new Documento();
+		documento.setId(1L);
+		documento.setNomeArquivo("test.pdf");
+		documento.setCaminhoArquivo("uuidtest.pdf");
+		documento.setStatus(StatusDocumento.PENDENTE);
+		documento.setProjeto(projeto);
+		when(projetoRepository.findById(1L)).thenReturn(Optional.of(projeto));
+		when(documentoRepository.findByProjetoId(1L)).thenReturn(List.of(documento));
+		when(storageBackend.presignDownload(anyString(), anyString(), any()))
+				.thenReturn(Optional.of(
+						URI.create("https://bucket.s3.amazonaws.com/uuidtest.pdf?X-Amz-Signature=abc").toURL()));
+
+		// Act
+		List<DocumentoDTO> result = documentoService.consultarPorProjetoComUrl(1L, 2L);
+
+		// Assert
+		assertEquals(1, result.size(), "A lista deve conter exatamente um documento");
+		assertEquals("https://bucket.s3.amazonaws.com/uuidtest.pdf?X-Amz-Signature=abc", result.get(0).getUrlDownload(),
+				"A URL assinada deve ser incluída");
+	}
+
+	private static Projeto projeto(Long projetoId, Long usuarioId) {
+		Usuario usuario = new Usuario();
+		usuario.setId(usuarioId);
+		Projeto projeto = new Projeto();
+		projeto.setId(projetoId);
+		projeto.setCriador(usuario);
+		return projeto;
+	}
+
+	private Projeto projetoDoUsuario(Long projetoId, Long usuarioId) {
+		Projeto projeto = projeto(projetoId, usuarioId);
+		when(projetoRepository.findById(projetoId)).thenReturn(Optional.of(projeto));
+		return projeto;
+	}
+
+	private static DocumentoRemovido saida(Long documentoId, long sequencia) {
+		DocumentoRemovido saida = new DocumentoRemovido(documentoId, 1L);
+		saida.setSequenciaAlteracao(sequencia);
+		return saida;
+	}
+
+	private static Documento alterado(Long id, long sequencia, String hash) {
+		Documento documento = new Documento();
+		documento.setId(id);
+		documento.setVersao(1);
+		documento.setHashConteudo(hash);
+		documento.setSequenciaAlteracao(sequencia);
+		return documento;
+	}
+
+	@Test
+	void sincronizarProjeto_WithCursor_ShouldReturnPageOfChangesAfterIt() {
+		// Arrange
+		projetoDoUsuario(1L, 2L);
+		ReflectionTestUtils.setField(documentoService, "limiteSincronizacao", 2);
+		when(documentoRepository.findByProjetoIdAndSequenciaAlteracaoGreaterThanOrderBySequenciaAlteracao(1L, 40L,
+				Limit.of(3)))
+				.thenReturn(List.of(alterado(7L, 41, "a"), alterado(3L, 45, "b"), alterado(9L, 46, "c")));
+
+		// Act
+		AlteracoesDTO result = documentoService.sincronizarProjeto(1L, 2L, new ManifestoDTO(40L, null));
+
+		// Assert
+		assertEquals(List.of(7L, 3L), result.getAlterados().stream().map(DocumentoDTO::getId).toList());
+		assertEquals(45L, result.getCursor(), "O cursor avança até a última alteração devolvida");
+		assertTrue(result.isTemMais());
+		verify(documentoRepository, never()).findByProjetoId(anyLong());
+	}
+
+	@Test
+	void sincronizarProjeto_WithCursor_ShouldReturnDocumentsMovedOutAsRemoved() {
+		// Arrange
+		projetoDoUsuario(1L, 2L);
+		ReflectionTestUtils.setField(documentoService, "limiteSincronizacao", 4);
+		when(documentoRepository.findByProjetoIdAndSequenciaAlteracaoGreaterThanOrderBySequenciaAlteracao(1L, 40L,
+				Limit.of(5)))
+				.thenReturn(List.of(alterado(7L, 41, "a"), alterado(5L, 44, "b")));
+		when(documentoRemovidoRepository.findByProjetoIdAndSequenciaAlteracaoGreaterThanOrderBySequenciaAlteracao(1L,
+				40L, Limit.of(5)))
+				.thenReturn(List.of(saida(3L, 42), saida(5L, 43), saida(9L, 45)));
+
+		// Act
+		AlteracoesDTO result = documentoService.sincronizarProjeto(1L, 2L, new ManifestoDTO(40L, null));
+
+		// Assert
+		assertEquals(List.of(7L, 5L), result.getAlterados().stream().map(DocumentoDTO::getId).toList());
+		assertEquals(List.of(3L), result.getRemovidos(), "Um documento que voltou ao projeto não é removido");
+		assertEquals(44L, result.getCursor(), "O cursor para na última alteração da página");
+		assertTrue(result.isTemMais());
+	}
+
+	@Test
+	void sincronizarProjeto_WithManifest_ShouldReturnDifferencesAndCursor() {
+		// Arrange
+		projetoDoUsuario(1L, 2L);
+		when(documentoRepository.findByProjetoId(1L))
+				.thenReturn(List.of(alterado(1L, 10, "igual"), alterado(2L, 12, "novo"), alterado(3L, 11, "x")));
+		ManifestoDTO manifesto = new ManifestoDTO(null, List.of(
+				new ManifestoDTO.Item(1L, 1, "igual"),
+				new ManifestoDTO.Item(2L, 1, "antigo"),
+				new ManifestoDTO.Item(8L, 1, "apagado")));
+
+		// Act
+		AlteracoesDTO result = documentoService.sincronizarProjeto(1L, 2L, manifesto);
+
+		// Assert
+		assertEquals(List.of(2L, 3L), result.getAlterados().stream().map(DocumentoDTO::getId).toList());
+		assertEquals(List.of(8L), result.getRemovidos());
+		assertEquals(12L, result.getCursor());
+	}
+
+	@Test
+	void sincronizarProjeto_WhenUserNotInProject_ShouldThrowException() {
+		// Arrange
+		projetoDoUsuario(1L, 2L);
+
+		// Act & Assert
+		assertThrows(AccessDeniedException.class,
+				() -> documentoService.sincronizarProjeto(1L, 5L, new ManifestoDTO(0L, null)));
+		verifyNoInteractions(documentoRepository);
+	}
+
+	private Documento documentoDoProjeto(Projeto projeto, String chave, String hash) {
+		Documento documento = new Documento();
+		documento.setId(10L);
+		documento.setNomeArquivo("planta.pdf");
+		documento.setCaminhoArquivo(chave);
+		documento.setHashConteudo(hash);
+		documento.setVersao(3);
+		documento.setStatus(StatusDocumento.APROVADO);
+		documento.setProjeto(projeto);
+		when(documentoRepository.findById(10L)).thenReturn(Optional.of(documento));
+		return documento;
+	}
+
+	@Test
+	void copiar_WhenContentIsAddressed_ShouldShareObjectWithoutCopying() throws IOException {
+		// Arrange
+		Projeto origem = projeto(1L, 2L);
+		projetoDoUsuario(3L, 2L);
+		documentoDoProjeto(origem, "sha256/hash", "hash");
+		when(usuarioRepository.findById(2L)).thenReturn(Optional.of(origem.getCriador()));
+		when(conteudoService.referenciar("hash")).thenReturn(true);
+		when(documentoRepository.save(any(Documento.class))).thenAnswer(inv -> inv.getArgument(0));
+
+		// Act
+		DocumentoDTO result = documentoService.copiar(10L, 3L, 2L);
+
+		// Assert
+		assertEquals(3L, result.getProjetoId());
+		assertEquals("sha256/hash", result.getCaminhoArquivo(), "A cópia deve apontar para o mesmo objeto");
+		assertEquals(3, result.getVersao());
+		assertEquals(StatusDocumento.PENDENTE, result.getStatus(), "A aprovação não é copiada");
+		verify(storageBackend, never()).copy(anyString(), anyString());
+	}
+
+	@Test
+	void copiar_WhenObjectHasNoReferenceCount_ShouldCopyInsideStorage() throws IOException {
+		// Arrange
+		Projeto origem = projeto(1L, 2L);
+		projetoDoUsuario(3L, 2L);
+		documentoDoProjeto(origem, "uuidplanta.pdf", null);
+		when(usuarioRepository.findById(2L)).thenReturn(Optional.of(origem.getCriador()));
+		when(documentoRepository.save(any(Documento.class))).thenAnswer(inv -> inv.getArgument(0));
+
+		// Act
+		DocumentoDTO result = documentoService.copiar(10L, 3L, 2L);
+
+		// Assert
+		assertTrue(result.getCaminhoArquivo().matches("[0-9a-f]{2}/p3/u[^/]+/v\\d+/planta\\.pdf"),
+				"A cópia deve ficar sob o prefixo do projeto de destino");
+		verify(storageBackend).copy("uuidplanta.pdf", result.getCaminhoArquivo());
+		verify(storageBackend, never()).get(anyString());
+	}
+
+	@Test
+	void mover_ShouldOnlyChangeProjeto() throws IOException {
+		// Arrange
+		Projeto origem = projeto(1L, 2L);
+		Projeto destino = projetoDoUsuario(3L, 2L);
+		Documento documento = documentoDoProjeto(origem, "sha256/hash", "hash");
+		when(documentoRepository.save(documento)).thenReturn(documento);
+
+		// Act
+		DocumentoDTO result = documentoService.mover(10L, 3L, 2L);
+
+		// Assert
+		assertEquals(destino, documento.getProjeto());
+		assertEquals(3L, result.getProjetoId());
+		assertEquals(10L, result.getId(), "O documento movido mantém o id");
+		verify(documentoRemovidoRepository).save(argThat(saida -> saida.getDocumentoId() == 10L
+				&& saida.getProjetoId() == 1L));
+		verifyNoInteractions(storageBackend, conteudoService);
+	}
+
 	@Test
 	void novaVersao_ShouldCreateNewVersion() throws IOException {
 		// Arrange
@@ -210,6 +717,8 @@ class DocumentoServiceTest {
 		when(documentoRepository.findById(documentoOriginalId)).thenReturn(Optional.of(documentoOriginal));
 		when(usuarioRepository.findById(usuarioId)).thenReturn(Optional.of(usuario));
 		when(documentoRepository.save(any(Documento.class))).thenReturn(novaVersao);
+		when(conteudoService.calcularAssinatura(any(MultipartFile.class))).thenReturn(assinatura("hash"));
+		when(conteudoService.armazenar(any(), any(MultipartFile.class))).thenReturn(conteudo("hash"));
 
 		MockMultipartFile newFile = new MockMultipartFile("file", "new_version.pdf", "application/pdf",
 				"New content".getBytes());
@@ -226,6 +735,70 @@ class DocumentoServiceTest {
 		verify(documentoRepository, times(1)).findById(documentoOriginalId);
 		verify(usuarioRepository, times(1)).findById(usuarioId);
 		verify(documentoRepository, times(1)).save(any(Documento.class));
+		verify(conteudoService, times(1)).armazenar(any(), any(MultipartFile.class));
+	}
+
+	@Test
+	void novaVersao_WhenStoredAsDelta_ShouldNotStoreFullCopy() throws IOException {
+		// Arrange
+		Documento documentoOriginal = new Documento();
+		documentoOriginal.setId(1L);
+		documentoOriginal.setVersao(1);
+		Usuario usuario = new Usuario();
+		usuario.setId(2L);
+		MockMultipartFile newFile = new MockMultipartFile("file", "new_version.pdf", "application/pdf",
+				"New content".getBytes());
+		when(documentoRepository.findById(1L)).thenReturn(Optional.of(documentoOriginal));
+		when(usuarioRepository.findById(2L)).thenReturn(Optional.of(usuario));
+		when(conteudoService.calcularAssinatura(newFile)).thenReturn(assinatura("hash-nova"));
+		when(versaoService.armazenarComoDelta(eq(documentoOriginal), any(Documento.class), eq(newFile)))
+				.thenAnswer(invocation -> {
+					Documento nova = invocation.getArgument(1);
+					nova.setCaminhoArquivo("delta/1");
+					nova.setVersaoBaseId(1L);
+					nova.setProfundidadeDelta(1);
+					return true;
+				});
+		when(documentoRepository.save(any(Documento.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		// Act
+		Documento result = documentoService.novaVersao(1L, 2L, newFile);
+
+		// Assert
+		assertEquals("delta/1", result.getCaminhoArquivo(), "A versão deve apontar para o delta");
+		assertEquals(1L, result.getVersaoBaseId(), "O delta deve se aplicar sobre a versão anterior");
+		assertEquals(StatusDocumento.PENDENTE, result.getStatus());
+		verify(conteudoService, never()).armazenar(any(), any(MultipartFile.class));
+	}
+
+	@Test
+	void urlDownload_WhenVersionIsDelta_ShouldNotPresign() {
+		// Arrange
+		Documento documento = new Documento();
+		documento.setCaminhoArquivo("delta/1");
+		documento.setVersaoBaseId(1L);
+
+		// Act
+		Optional<URL> result = documentoService.urlDownload(documento);
+
+		// Assert
+		assertTrue(result.isEmpty(), "Um delta não pode ser baixado diretamente do armazenamento");
+		verifyNoInteractions(storageBackend);
+	}
+
+	@Test
+	void urlDownload_WhenObjectIsCompressed_ShouldNotPresign() {
+		// Arrange
+		Documento documento = new Documento();
+		documento.setCaminhoArquivo("sha256/hash.gz");
+		documento.setCodificacao("gzip");
+
+		// Act
+		Optional<URL> result = documentoService.urlDownload(documento);
+
+		// Assert
+		assertTrue(result.isEmpty(), "Um objeto comprimido depende do Accept-Encoding do cliente");
+		verifyNoInteractions(storageBackend);
 	}
 
 	@Test
@@ -0,0 +1,146 @@
+package br.com.projetounifor.filehub.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.autoconfigure.web.embedded.TomcatVirtualThreadsWebServerFactoryCustomizer;
+import org.springframework.boot.autoconfigure.web.embedded.TomcatWebServerFactoryCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.core.env.StandardEnvironment;
+
+import br.com.projetounifor.filehub.domain.model.Documento;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Teste de carga do caminho bloqueante de download no Tomcat embutido,
+ * configurado como a aplicação o configura: com o pool padrão de threads de
+ * plataforma ({@code server.tomcat.threads.max}) e com
+ * {@code spring.threads.virtual.enabled}, que troca o executor do conector
+ * por threads virtuais. O armazenamento é simulado com uma latência fixa antes
+ * do primeiro byte, como uma chamada ao S3. Executar com
+ * {@code mvn test -Dfilehub.teste-carga=true}.
+ */
+@EnabledIfSystemProperty(named = "filehub.teste-carga", matches = "true")
+class DownloadCargaTest {
+
+	private static final Logger log = LoggerFactory.getLogger(DownloadCargaTest.class);
+
+	private static final int REQUISICOES = 2000;
+	private static final long LATENCIA_MS = 50;
+	private static final long BANDA = 1024L * 1024 * 1024;
+	private static final byte[] CONTEUDO = new byte[64 * 1024];
+
+	private Documento documento;
+
+	@BeforeEach
+	void setUp() {
+		documento = new Documento();
+		documento.setId(1L);
+		documento.setNomeArquivo("carga.bin");
+		documento.setCaminhoArquivo("carga.bin");
+	}
+
+	@Test
+	void enviarArquivo_WithVirtualThreadsEnabled_ShouldServeMoreConcurrentDownloadsThanPlatformPool()
+			throws Exception {
+		// Arrange
+		int threadsPlataforma = new ServerProperties().getTomcat().getThreads().getMax();
+
+		// Act
+		Resultado plataforma = executar(false);
+		Resultado virtuais = executar(true);
+
+		// Assert
+		log.info("threads de plataforma: máximo simultâneo={}, p99={}ms", plataforma.maximoSimultaneo(),
+				plataforma.p99Ms());
+		log.info("threads virtuais:      máximo simultâneo={}, p99={}ms", virtuais.maximoSimultaneo(),
+				virtuais.p99Ms());
+		assertTrue(plataforma.maximoSimultaneo() <= threadsPlataforma,
+				"O pool de plataforma não deve passar de server.tomcat.threads.max");
+		assertTrue(virtuais.maximoSimultaneo() > threadsPlataforma,
+				"Com threads virtuais o conector não deve ficar limitado ao pool");
+	}
+
+	private Resultado executar(boolean threadsVirtuais) throws Exception {
+		ArmazenamentoLimitado storageBackend = new ArmazenamentoLimitado(CONTEUDO, BANDA, LATENCIA_MS);
+		// Cache desabilitado: todo download vai ao armazenamento
+		DownloadService downloadService = new DownloadService(storageBackend,
+				new CacheArquivoService(new SimpleMeterRegistry()), null);
+
+		WebServer servidor = servidor(downloadService, threadsVirtuais);
+		servidor.start();
+		try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+			HttpClient httpClient = HttpClient.newBuilder()
+					.version(HttpClient.Version.HTTP_1_1)
+					.executor(clientes)
+					.build();
+			HttpRequest requisicao = HttpRequest.newBuilder(
+					URI.create("http://localhost:" + servidor.getPort() + "/documentos/1")).build();
+
+			// O tempo de resposta conta a espera na fila do conector, como um cliente perceberia
+			List<CompletableFuture<Long>> respostas = new ArrayList<>(REQUISICOES);
+			for (int i = 0; i < REQUISICOES; i++) {
+				long chegada = System.nanoTime();
+				respostas.add(httpClient.sendAsync(requisicao, HttpResponse.BodyHandlers.ofByteArray())
+						.thenApply(resposta -> {
+							assertEquals(200, resposta.statusCode());
+							assertEquals(CONTEUDO.length, resposta.body().length);
+							return System.nanoTime() - chegada;
+						}));
+			}
+
+			List<Long> latencias = new ArrayList<>(REQUISICOES);
+			for (CompletableFuture<Long> resposta : respostas) {
+				latencias.add(resposta.get());
+			}
+			latencias.sort(null);
+			long p99 = latencias.get((int) Math.ceil(latencias.size() * 0.99) - 1);
+
+			return new Resultado(storageBackend.maximoSimultaneo(), TimeUnit.NANOSECONDS.toMillis(p99));
+		} finally {
+			servidor.stop();
+		}
+	}
+
+	// Tomcat com as mesmas customizações que a autoconfiguração do Spring Boot aplica
+	private WebServer servidor(DownloadService downloadService, boolean threadsVirtuais) {
+		TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+		new TomcatWebServerFactoryCustomizer(new StandardEnvironment(), new ServerProperties()).customize(factory);
+		if (threadsVirtuais) {
+			new TomcatVirtualThreadsWebServerFactoryCustomizer().customize(factory);
+		}
+
+		HttpServlet servlet = new HttpServlet() {
+			@Override
+			protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+				downloadService.enviarArquivo(documento, request, response);
+			}
+		};
+		return factory.getWebServer(contexto -> contexto.addServlet("download", servlet).addMapping("/documentos/*"));
+	}
+
+	private record Resultado(int maximoSimultaneo, long p99Ms) {
+	}
+}
@@ -0,0 +1,86 @@
+package br.com.projetounifor.filehub.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import br.com.projetounifor.filehub.domain.model.Documento;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Vazão do download de um objeto grande por um único GET e por GETs parciais
+ * simultâneos. O armazenamento é simulado em memória com a banda de cada
+ * conexão limitada, como acontece com um stream do S3. Executar com
+ * {@code mvn test -Dfilehub.teste-carga=true}.
+ */
+@EnabledIfSystemProperty(named = "filehub.teste-carga", matches = "true")
+class DownloadParaleloCargaTest {
+
+	private static final int TAMANHO_OBJETO = 64 * 1024 * 1024;
+	private static final long BANDA_POR_CONEXAO = 16L * 1024 * 1024;
+	private static final int CONEXOES = 8;
+	private static final byte[] CONTEUDO = new byte[TAMANHO_OBJETO];
+
+	static {
+		new Random(5).nextBytes(CONTEUDO);
+	}
+
+	private Documento documento;
+
+	@BeforeEach
+	void setUp() {
+		documento = new Documento();
+		documento.setId(1L);
+		documento.setNomeArquivo("grande.bin");
+		documento.setCaminhoArquivo("grande.bin");
+	}
+
+	private DownloadService downloadService(boolean paralelo) {
+		StorageBackend storageBackend = new ArmazenamentoLimitado(CONTEUDO, BANDA_POR_CONEXAO);
+		// Cache desabilitado: todo download vai ao armazenamento
+		CacheArquivoService cacheArquivoService = new CacheArquivoService(new SimpleMeterRegistry());
+		DownloadService downloadService = new DownloadService(storageBackend, cacheArquivoService, null);
+		ReflectionTestUtils.setField(downloadService, "paralelo", paralelo);
+		ReflectionTestUtils.setField(downloadService, "tamanhoParteParalelo", DataSize.ofMegabytes(4));
+		ReflectionTestUtils.setField(downloadService, "conexoesParalelo", CONEXOES);
+		downloadService.init();
+		return downloadService;
+	}
+
+	@Test
+	void enviarArquivo_WithParallelRangedGets_ShouldMultiplyThroughput() throws Exception {
+		// Act
+		double sequencial = medirMBps(downloadService(false));
+		double paralelo = medirMBps(downloadService(true));
+
+		System.out.printf("GET único:           %.1f MB/s%n", sequencial);
+		System.out.printf("%d GETs parciais:    %.1f MB/s%n", CONEXOES, paralelo);
+
+		// Assert
+		assertTrue(paralelo > sequencial * 3, "GETs parciais simultâneos devem somar a banda das conexões");
+	}
+
+	private double medirMBps(DownloadService downloadService) throws IOException {
+		try {
+			RespostaEmMemoria response = new RespostaEmMemoria();
+			long inicio = System.nanoTime();
+			downloadService.enviarArquivo(documento, new MockHttpServletRequest("GET", "/documentos/1"), response);
+			long nanos = System.nanoTime() - inicio;
+
+			assertArrayEquals(CONTEUDO, response.getContentAsByteArray(), "O conteúdo deve chegar em ordem");
+			return TAMANHO_OBJETO / (1024.0 * 1024.0) / (nanos / 1e9);
+		} finally {
+			downloadService.shutdown();
+		}
+	}
+}
@@ -0,0 +1,429 @@
+package br.com.projetounifor.filehub.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import br.com.projetounifor.filehub.domain.model.Documento;
+import br.com.projetounifor.filehub.service.CacheArquivoService.ArquivoEmCache;
+import br.com.projetounifor.filehub.service.VersaoService.VersaoReconstruida;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import br.com.projetounifor.filehub.storage.StoredObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class DownloadServiceTest {
+
+	private static final byte[] CONTEUDO = "0123456789".getBytes();
+	private static final String ETAG = "\"abc123\"";
+
+	@Mock
+	private StorageBackend storageBackend;
+
+	@Mock
+	private CacheArquivoService cacheArquivoService;
+
+	@Mock
+	private VersaoService versaoService;
+
+	@InjectMocks
+	private DownloadService downloadService;
+
+	private Documento documento;
+	private MockHttpServletRequest request;
+	private MockHttpServletResponse response;
+
+	@TempDir
+	Path tempDir;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		documento = new Documento();
+		documento.setId(1L);
+		documento.setNomeArquivo("test.pdf");
+		documento.setCaminhoArquivo("uuidtest.pdf");
+		request = new MockHttpServletRequest("GET", "/documentos/1");
+		response = new MockHttpServletResponse();
+
+		lenient().when(storageBackend.head("uuidtest.pdf")).thenReturn(Optional.of(new StoredObject(CONTEUDO.length,
+				ETAG, Instant.parse("2025-01-01T00:00:00Z").toEpochMilli(), "application/pdf")));
+	}
+
+	private ByteArrayInputStream stream(byte[] bytes) {
+		return new ByteArrayInputStream(bytes);
+	}
+
+	@Test
+	void enviarArquivo_WithoutRange_ShouldReturnFullContentWithEtag() throws IOException {
+		// Arrange
+		when(storageBackend.get("uuidtest.pdf")).thenReturn(stream(CONTEUDO));
+
+		// Act
+		downloadService.enviarArquivo(documento, request, response);
+
+		// Assert
+		assertEquals(200, response.getStatus());
+		assertEquals(ETAG, response.getHeader("ETag"));
+		assertEquals("bytes", response.getHeader("Accept-Ranges"));
+		assertEquals("0123456789", response.getContentAsString());
+	}
+
+	@Test
+	void enviarArquivo_WhenStoredBytesDoNotMatchCrc32c_ShouldFailBeforeLastByte() throws IOException {
+		// Arrange
+		documento.setCrc32c(Integridade.crc32c(CONTEUDO));
+		byte[] corrompido = CONTEUDO.clone();
+		corrompido[3] ^= 1;
+		when(storageBackend.get("uuidtest.pdf")).thenReturn(stream(corrompido));
+
+		// Act & Assert
+		assertThrows(IOException.class, () -> downloadService.enviarArquivo(documento, request, response));
+		assertEquals(Integridade.crc32c(CONTEUDO), response.getHeader("X-Checksum-CRC32C"));
+		assertEquals(CONTEUDO.length - 1, response.getContentAsByteArray().length,
+				"A resposta deve ficar truncada para o cliente perceber a falha");
+	}
+
+	@Test
+	void enviarMetadados_WhenSizeIsStored_ShouldAnswerWithoutStorage() throws IOException {
+		// Arrange
+		documento.setTamanho((long) CONTEUDO.length);
+		documento.setContentType("application/pdf");
+		documento.setHashConteudo("abc");
+		request.setMethod("HEAD");
+
+		// Act
+		downloadService.enviarMetadados(documento, request, response);
+
+		// Assert
+		assertEquals(200, response.getStatus());
+		assertEquals(CONTEUDO.length, response.getContentLengthLong());
+		assertEquals("application/pdf", response.getContentType());
+		assertEquals("\"abc\"", response.getHeader("ETag"));
+		assertEquals(0, response.getContentAsByteArray().length);
+		verifyNoInteractions(storageBackend, cacheArquivoService);
+	}
+
+	@Test
+	void enviarMetadados_WhenSizeIsUnknown_ShouldReadStorageMetadata() throws IOException {
+		// Arrange
+		request.setMethod("HEAD");
+
+		// Act
+		downloadService.enviarMetadados(documento, request, response);
+
+		// Assert
+		assertEquals(200, response.getStatus());
+		assertEquals(CONTEUDO.length, response.getContentLengthLong());
+		assertEquals(ETAG, response.getHeader("ETag"));
+		verify(storageBackend, never()).get(anyString());
+	}
+
+	@Test
+	void enviarArquivo_WithSingleRange_ShouldReturnPartialContent() throws IOException {
+		// Arrange
+		request.addHeader("Range", "bytes=2-5");
+		when(storageBackend.getRange("uuidtest.pdf", 2, 5))
+				.thenReturn(stream(Arrays.copyOfRange(CONTEUDO, 2, 6)));
+
+		// Act
+		downloadService.enviarArquivo(documento, request, response);
+
+		// Assert
+		assertEquals(206, response.getStatus());
+		assertEquals("bytes 2-5/10", response.getHeader("Content-Range"));
+		assertEquals(4, response.getContentLength());
+		assertEquals("2345", response.getContentAsString());
+	}
+
+	@Test
+	void enviarArquivo_WithMultipleRanges_ShouldReturnMultipartByteranges() throws IOException {
+		// Arrange
+		request.addHeader("Range", "bytes=0-1,8-9");
+		when(storageBackend.getRange("uuidtest.pdf", 0, 1))
+				.thenReturn(stream(Arrays.copyOfRange(CONTEUDO, 0, 2)));
+		when(storageBackend.getRange("uuidtest.pdf", 8, 9))
+				.thenReturn(stream(Arrays.copyOfRange(CONTEUDO, 8, 10)));
+
+		// Act
+		downloadService.enviarArquivo(documento, request, response);
+
+		// Assert
+		assertEquals(206, response.getStatus());
+		assertTrue(response.getContentType().startsWith("multipart/byteranges"));
+		String corpo = response.getContentAsString();
+		assertTrue(corpo.contains("Content-Range: bytes 0-1/10\r\n\r\n01"));
+		assertTrue(corpo.contains("Content-Range: bytes 8-9/10\r\n\r\n89"));
+	}
+
+	@Test
+	void enviarArquivo_WhenEtagMatches_ShouldReturnNotModified() throws IOException {
+		// Arrange
+		request.addHeader("If-None-Match", ETAG);
+
+		// Act
+		downloadService.enviarArquivo(documento, request, response);
+
+		// Assert
+		assertEquals(304, response.getStatus());
+		verify(storageBackend, never()).get(anyString());
+	}
+
+	@Test
+	void enviarArquivo_WithUnsatisfiableRange_ShouldReturn416() throws IOException {
+		// Arrange
+		request.addHeader("Range", "bytes=20-30");
+
+		// Act
+		downloadService.enviarArquivo(documento, request, response);
+
+		// Assert
+		assertEquals(416, response.getStatus());
+		assertEquals("bytes */10", response.getHeader("Content-Range"));
+		verify(storageBackend, never()).getRange(anyString(), anyLong(), anyLong());
+	}
+
+	@Test
+	void enviarArquivo_WhenIfRangeDoesNotMatch_ShouldReturnFullContent() throws IOException {
+		// Arrange
+		request.addHeader("Range", "bytes=2-5");
+		request.addHeader("If-Range", "\"outro\"");
+		when(storageBackend.get("uuidtest.pdf")).thenReturn(stream(CONTEUDO));
+
+		// Act
+		downloadService.enviarArquivo(documento, request, response);
+
+		// Assert
+		assertEquals(200, response.getStatus());
+		assertEquals("0123456789", response.getContentAsString());
+	}
+
+	@Test
+	void enviarArquivo_WhenCached_ShouldServeLocalFileWithoutCallingStorage() throws IOException {
+		// Arrange
+		Path arquivo = Files.write(tempDir.resolve("uuidtest.pdf"), CONTEUDO);
+		when(cacheArquivoService.buscar("uuidtest.pdf")).thenReturn(Optional.of(new ArquivoEmCache(arquivo,
+				CONTEUDO.length, ETAG, Instant.parse("2025-01-01T00:00:00Z").toEpochMilli(), "application/pdf")));
+		request.addHeader("Range", "bytes=2-5");
+
+		// Act
+		downloadService.enviarArquivo(documento, request, response);
+
+		// Assert
+		assertEquals(206, response.getStatus());
+		assertEquals("2345", response.getContentAsString());
+		verify(storageBackend, never()).head(anyString());
+		verify(storageBackend, never()).getRange(anyString(), anyLong(), anyLong());
+	}
+
+	@Test
+	void enviarArquivo_WhenCachedAndSendfileIsSupported_ShouldCopyBeforeReleasingEntry() throws IOException {
+		// Arrange
+		Path arquivo = Files.write(tempDir.resolve("uuidtest.pdf"), CONTEUDO);
+		ArquivoEmCache entrada = mock(ArquivoEmCache.class);
+		when(entrada.arquivo()).thenReturn(arquivo);
+		when(entrada.tamanho()).thenReturn((long) CONTEUDO.length);
+		when(entrada.etag()).thenReturn(ETAG);
+		when(entrada.ultimaModificacao()).thenReturn(Instant.parse("2025-01-01T00:00:00Z").toEpochMilli());
+		when(entrada.contentType()).thenReturn("application/pdf");
+		when(cacheArquivoService.buscar("uuidtest.pdf")).thenReturn(Optional.of(entrada));
+		request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+
+		// Act
+		downloadService.enviarArquivo(documento, request, response);
+
+		// Assert
+		assertEquals(200, response.getStatus());
+		assertNull(request.getAttribute("org.apache.tomcat.sendfile.filename"),
+				"O sendfile leria o arquivo depois que a entrada do cache foi solta");
+		assertEquals("0123456789", response.getContentAsString());
+		verify(entrada).close();
+	}
+
+	@Test
+	void enviarArquivo_WhenStorageIsLocalAndSendfileIsSupported_ShouldDelegateToContainer() throws IOException {
+		// Arrange
+		Path arquivo = Files.write(tempDir.resolve("uuidtest.pdf"), CONTEUDO);
+		when(storageBackend.localPath("uuidtest.pdf")).thenReturn(Optional.of(arquivo));
+		request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+
+		// Act
+		downloadService.enviarArquivo(documento, request, response);
+
+		// Assert
+		assertEquals(200, response.getStatus());
+		assertEquals(arquivo.toAbsolutePath().toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+		assertEquals(0L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+		assertEquals(10L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+		assertEquals(0, response.getContentAsByteArray().length, "O corpo deve ser enviado pelo container");
+	}
+
+	private CacheArquivoService cacheEmDisco() throws IOException {
+		CacheArquivoService cache = new CacheArquivoService(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(cache, "habilitado", true);
+		ReflectionTestUtils.setField(cache, "diretorio", tempDir.resolve("cache").toString());
+		cache.init();
+		return cache;
+	}
+
+	@Test
+	void enviarArquivo_WhenNotCached_ShouldFillCacheWhileStreamingToClient() throws IOException {
+		// Arrange
+		CacheArquivoService cache = cacheEmDisco();
+		DownloadService comCache = new DownloadService(storageBackend, cache, versaoService);
+		when(storageBackend.get("uuidtest.pdf")).thenReturn(stream(CONTEUDO));
+
+		// Act
+		comCache.enviarArquivo(documento, request, response);
+
+		// Assert
+		assertEquals("0123456789", response.getContentAsString());
+		ArquivoEmCache entrada = cache.buscar("uuidtest.pdf").orElseThrow();
+		assertArrayEquals(CONTEUDO, Files.readAllBytes(entrada.arquivo()));
+		verify(storageBackend).get("uuidtest.pdf");
+	}
+
+	@Test
+	void enviarArquivo_WhenNotCachedAndCrc32cDoesNotMatch_ShouldNotCacheObject() throws IOException {
+		// Arrange
+		CacheArquivoService cache = cacheEmDisco();
+		DownloadService comCache = new DownloadService(storageBackend, cache, versaoService);
+		documento.setCrc32c(Integridade.crc32c(CONTEUDO));
+		byte[] corrompido = CONTEUDO.clone();
+		corrompido[3] ^= 1;
+		when(storageBackend.get("uuidtest.pdf")).thenReturn(stream(corrompido));
+
+		// Act & Assert
+		assertThrows(IOException.class, () -> comCache.enviarArquivo(documento, request, response));
+		assertFalse(cache.buscar("uuidtest.pdf").isPresent(), "Um objeto corrompido não deve entrar no cache");
+	}
+
+	@Test
+	void enviarArquivo_WhenStorageIsLocal_ShouldUseFileWithoutCache() throws IOException {
+		// Arrange
+		Path arquivo = Files.write(tempDir.resolve("uuidtest.pdf"), CONTEUDO);
+		when(storageBackend.localPath("uuidtest.pdf")).thenReturn(Optional.of(arquivo));
+		request.addHeader("Range", "bytes=2-5");
+
+		// Act
+		downloadService.enviarArquivo(documento, request, response);
+
+		// Assert
+		assertEquals(206, response.getStatus());
+		assertEquals("2345", response.getContentAsString());
+		verifyNoInteractions(cacheArquivoService);
+		verify(storageBackend, never()).getRange(anyString(), anyLong(), anyLong());
+	}
+
+	@Test
+	void enviarArquivo_WhenVersionIsDelta_ShouldServeReconstructedFileAndDeleteIt() throws IOException {
+		// Arrange
+		documento.setCaminhoArquivo("delta/1");
+		documento.setVersaoBaseId(7L);
+		Path arquivo = Files.write(tempDir.resolve("versao.tmp"), CONTEUDO);
+		when(versaoService.reconstruir(documento)).thenReturn(new VersaoReconstruida(new ArquivoEmCache(arquivo,
+				CONTEUDO.length, ETAG, Instant.parse("2025-01-01T00:00:00Z").toEpochMilli(), "application/pdf"),
+				true));
+		request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+
+		// Act
+		downloadService.enviarArquivo(documento, request, response);
+
+		// Assert
+		assertEquals(200, response.getStatus());
+		assertEquals(ETAG, response.getHeader("ETag"));
+		assertEquals("0123456789", response.getContentAsString(), "Um arquivo temporário não pode ir por sendfile");
+		assertFalse(Files.exists(arquivo), "A reconstrução temporária deve ser apagada após o envio");
+		verify(storageBackend, never()).get(anyString());
+	}
+
+	private byte[] comprimirDocumento() throws IOException {
+		ByteArrayOutputStream comprimido = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(comprimido)) {
+			gzip.write(CONTEUDO);
+		}
+		documento.setCaminhoArquivo("sha256/hash.gz");
+		documento.setCodificacao("gzip");
+		when(storageBackend.head("sha256/hash.gz")).thenReturn(Optional.of(new StoredObject(comprimido.size(), ETAG,
+				Instant.parse("2025-01-01T00:00:00Z").toEpochMilli(), "text/csv")));
+		when(storageBackend.get("sha256/hash.gz")).thenReturn(stream(comprimido.toByteArray()));
+		return comprimido.toByteArray();
+	}
+
+	@Test
+	void enviarArquivo_WhenCompressedAndClientAcceptsGzip_ShouldPassCompressedBytesThrough() throws IOException {
+		// Arrange
+		byte[] comprimido = comprimirDocumento();
+		request.addHeader("Accept-Encoding", "gzip, deflate, br");
+
+		// Act
+		downloadService.enviarArquivo(documento, request, response);
+
+		// Assert
+		assertEquals(200, response.getStatus());
+		assertEquals("gzip", response.getHeader("Content-Encoding"));
+		assertEquals("Accept-Encoding", response.getHeader("Vary"));
+		assertEquals("\"abc123-gzip\"", response.getHeader("ETag"), "Cada codificação precisa de um ETag próprio");
+		assertArrayEquals(comprimido, response.getContentAsByteArray());
+	}
+
+	@Test
+	void enviarArquivo_WhenCompressedAndClientDoesNotAcceptGzip_ShouldDecompressOnTheFly() throws IOException {
+		// Arrange
+		comprimirDocumento();
+		request.addHeader("Accept-Encoding", "gzip;q=0, identity");
+		request.addHeader("Range", "bytes=2-5");
+
+		// Act
+		downloadService.enviarArquivo(documento, request, response);
+
+		// Assert
+		assertEquals(200, response.getStatus(), "Faixas não são atendidas para objetos comprimidos");
+		assertNull(response.getHeader("Content-Encoding"));
+		assertEquals("none", response.getHeader("Accept-Ranges"));
+		assertEquals("0123456789", response.getContentAsString());
+	}
+
+	@Test
+	void enviarArquivo_WhenObjectIsMissing_ShouldReturn404() throws IOException {
+		// Arrange
+		when(storageBackend.head("uuidtest.pdf")).thenReturn(Optional.empty());
+
+		// Act
+		downloadService.enviarArquivo(documento, request, response);
+
+		// Assert
+		assertEquals(404, response.getStatus());
+	}
+}
@@ -0,0 +1,147 @@
+package br.com.projetounifor.filehub.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+class EscritaNaoBloqueanteTest {
+
+	private SaidaControlada saida;
+	private MockHttpServletRequest request;
+	private MockHttpServletResponse response;
+	private AssinaturaContada assinatura;
+	private EscritaNaoBloqueante escrita;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		saida = new SaidaControlada();
+		request = new MockHttpServletRequest("GET", "/documentos/1");
+		request.setAsyncSupported(true);
+		response = new MockHttpServletResponse();
+		HttpServletResponseWrapper wrapper = new HttpServletResponseWrapper(response) {
+			@Override
+			public ServletOutputStream getOutputStream() {
+				return saida;
+			}
+		};
+		assinatura = new AssinaturaContada();
+		escrita = new EscritaNaoBloqueante(request.startAsync(request, wrapper));
+	}
+
+	private static ByteBuffer bloco(String texto) {
+		return ByteBuffer.wrap(texto.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void onNext_ShouldRequestNextBlockOnlyAfterWriting() {
+		// Act
+		escrita.onSubscribe(assinatura);
+		escrita.onNext(bloco("abc"));
+
+		// Assert
+		assertEquals(2, assinatura.pedidos, "Deve haver um pedido inicial e um após a escrita");
+		assertEquals("abc", saida.escrito.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void onNext_WhenSocketIsNotReady_ShouldWaitForWritePossible() throws IOException {
+		// Arrange
+		escrita.onSubscribe(assinatura);
+		saida.pronto = false;
+
+		// Act
+		escrita.onNext(bloco("abc"));
+
+		// Assert
+		assertEquals(1, assinatura.pedidos, "Nenhum bloco novo deve ser pedido enquanto o socket está cheio");
+		assertEquals(0, saida.escrito.size());
+
+		// Act
+		saida.pronto = true;
+		saida.listener.onWritePossible();
+
+		// Assert
+		assertEquals(2, assinatura.pedidos);
+		assertEquals("abc", saida.escrito.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void onComplete_ShouldCompleteAsyncContext() {
+		// Arrange
+		escrita.onSubscribe(assinatura);
+		escrita.onNext(bloco("abc"));
+
+		// Act
+		escrita.onComplete();
+
+		// Assert
+		assertFalse(request.isAsyncStarted(), "A resposta deve ser encerrada");
+	}
+
+	@Test
+	void onError_BeforeAnyByte_ShouldCancelAndRespondBadGateway() {
+		// Arrange
+		escrita.onSubscribe(assinatura);
+
+		// Act
+		escrita.onError(new IOException("S3 indisponível"));
+
+		// Assert
+		assertTrue(assinatura.cancelada, "A leitura no armazenamento deve ser cancelada");
+		assertEquals(502, response.getStatus());
+		assertFalse(request.isAsyncStarted());
+	}
+
+	private static class SaidaControlada extends ServletOutputStream {
+
+		private final ByteArrayOutputStream escrito = new ByteArrayOutputStream();
+		private boolean pronto = true;
+		private WriteListener listener;
+
+		@Override
+		public boolean isReady() {
+			return pronto;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			listener = writeListener;
+		}
+
+		@Override
+		public void write(int b) {
+			escrito.write(b);
+		}
+	}
+
+	private static class AssinaturaContada implements Subscription {
+
+		private int pedidos;
+		private boolean cancelada;
+
+		@Override
+		public void request(long n) {
+			pedidos++;
+		}
+
+		@Override
+		public void cancel() {
+			cancelada = true;
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package br.com.projetounifor.filehub.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import br.com.projetounifor.filehub.domain.model.Documento;
+import br.com.projetounifor.filehub.domain.model.Projeto;
+import br.com.projetounifor.filehub.domain.model.Usuario;
+import br.com.projetounifor.filehub.domain.repository.DocumentoRepository;
+import br.com.projetounifor.filehub.domain.repository.ProjetoRepository;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+
+@ExtendWith(MockitoExtension.class)
+class ExportacaoServiceTest {
+
+	@Mock
+	private ProjetoRepository projetoRepository;
+
+	@Mock
+	private DocumentoRepository documentoRepository;
+
+	@Mock
+	private DocumentoService documentoService;
+
+	@Mock
+	private StorageBackend storageBackend;
+
+	@Mock
+	private VersaoService versaoService;
+
+	@InjectMocks
+	private ExportacaoService exportacaoService;
+
+	private final List<Documento> documentos = new ArrayList<>();
+	private Map<String, ZipEntry> entradas;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(exportacaoService, "threads", 2);
+		ReflectionTestUtils.setField(exportacaoService, "janela", 2);
+		ReflectionTestUtils.setField(exportacaoService, "tamanhoMaximoPrefetch", DataSize.ofBytes(16));
+		exportacaoService.init();
+	}
+
+	@AfterEach
+	void tearDown() {
+		exportacaoService.shutdown();
+	}
+
+	private void documento(long id, String nome, byte[] conteudo) throws IOException {
+		Documento doc = new Documento();
+		doc.setId(id);
+		doc.setNomeArquivo(nome);
+		doc.setCaminhoArquivo("uuid" + id + nome);
+		documentos.add(doc);
+		if (conteudo != null) {
+			when(storageBackend.get("uuid" + id + nome)).thenReturn(new ByteArrayInputStream(conteudo));
+		}
+	}
+
+	private Map<String, byte[]> exportar() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		exportacaoService.exportar(documentos, out);
+
+		entradas = new LinkedHashMap<>();
+		Map<String, byte[]> conteudos = new LinkedHashMap<>();
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			ZipEntry entry;
+			while ((entry = zip.getNextEntry()) != null) {
+				entradas.put(entry.getName(), entry);
+				conteudos.put(entry.getName(), zip.readAllBytes());
+			}
+		}
+		return conteudos;
+	}
+
+	@Test
+	void exportar_ShouldWriteEveryDocumentInOrder() throws IOException {
+		// Arrange
+		documento(1L, "a.txt", "texto a".getBytes());
+		documento(2L, "b.txt", "texto b".getBytes());
+		documento(3L, "c.txt", "texto c".getBytes());
+
+		// Act
+		Map<String, byte[]> conteudos = exportar();
+
+		// Assert
+		assertEquals(List.of("a.txt", "b.txt", "c.txt"), List.copyOf(conteudos.keySet()));
+		assertArrayEquals("texto b".getBytes(), conteudos.get("b.txt"));
+	}
+
+	@Test
+	void exportar_ShouldStoreAlreadyCompressedContentWithoutDeflate() throws IOException {
+		// Arrange
+		documento(1L, "foto.jpg", new byte[] { 1, 2, 3 });
+		documento(2L, "notas.txt", "notas".getBytes());
+
+		// Act
+		exportar();
+
+		// Assert
+		assertEquals(ZipEntry.STORED, entradas.get("foto.jpg").getMethod());
+		assertEquals(ZipEntry.DEFLATED, entradas.get("notas.txt").getMethod());
+	}
+
+	@Test
+	void exportar_WhenObjectExceedsPrefetchLimit_ShouldStreamItCompletely() throws IOException {
+		// Arrange
+		byte[] grande = new byte[100];
+		for (int i = 0; i < grande.length; i++) {
+			grande[i] = (byte) i;
+		}
+		documento(1L, "video.mp4", grande);
+
+		// Act
+		Map<String, byte[]> conteudos = exportar();
+
+		// Assert
+		assertArrayEquals(grande, conteudos.get("video.mp4"));
+	}
+
+	@Test
+	void exportar_WhenNamesRepeat_ShouldKeepEveryVersion() throws IOException {
+		// Arrange
+		documento(1L, "contrato.pdf", "v1".getBytes());
+		documento(2L, "contrato.pdf", "v2".getBytes());
+
+		// Act
+		Map<String, byte[]> conteudos = exportar();
+
+		// Assert
+		assertArrayEquals("v1".getBytes(), conteudos.get("contrato.pdf"));
+		assertArrayEquals("v2".getBytes(), conteudos.get("2-contrato.pdf"));
+	}
+
+	@Test
+	void exportar_WhenObjectIsMissing_ShouldListItInsteadOfAborting() throws IOException {
+		// Arrange
+		documento(1L, "a.txt", "texto a".getBytes());
+		documento(2L, "perdido.txt", null);
+		when(storageBackend.get("uuid2perdido.txt")).thenThrow(new NoSuchFileException("uuid2perdido.txt"));
+
+		// Act
+		Map<String, byte[]> conteudos = exportar();
+
+		// Assert
+		assertEquals(Set.of("a.txt", "ERROS.txt"), conteudos.keySet());
+		assertTrue(new String(conteudos.get("ERROS.txt")).contains("perdido.txt"));
+	}
+
+	@Test
+	void listarDocumentos_WhenUserNotInProject_ShouldThrowException() {
+		// Arrange
+		Projeto projeto = new Projeto();
+		projeto.setId(1L);
+		projeto.setCriador(new Usuario());
+		when(projetoRepository.findById(1L)).thenReturn(Optional.of(projeto));
+		when(documentoService.usuarioTemAcesso(projeto, 2L)).thenReturn(false);
+
+		// Act & Assert
+		assertThrows(AccessDeniedException.class, () -> exportacaoService.listarDocumentos(1L, 2L));
+	}
+}
@@ -0,0 +1,84 @@
+package br.com.projetounifor.filehub.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import br.com.projetounifor.filehub.domain.model.Documento;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Custo da conferência do CRC32C no download de um objeto grande, com o
+ * armazenamento simulado em memória e a banda limitada como a de um stream do
+ * S3. O CRC32C é calculado pela instrução de hardware enquanto os bytes passam
+ * e deve sumir sob o tempo de transferência. Executar com
+ * {@code mvn test -Dfilehub.teste-carga=true}.
+ */
+@EnabledIfSystemProperty(named = "filehub.teste-carga", matches = "true")
+class IntegridadeCargaTest {
+
+	private static final int TAMANHO_OBJETO = 128 * 1024 * 1024;
+	private static final long BANDA = 512L * 1024 * 1024;
+	private static final int RODADAS = 3;
+	private static final byte[] CONTEUDO = new byte[TAMANHO_OBJETO];
+
+	static {
+		new Random(11).nextBytes(CONTEUDO);
+	}
+
+	private DownloadService downloadService;
+	private Documento documento;
+
+	@BeforeEach
+	void setUp() {
+		StorageBackend storageBackend = new ArmazenamentoLimitado(CONTEUDO, BANDA);
+		// Cache desabilitado: todo download vai ao armazenamento
+		CacheArquivoService cacheArquivoService = new CacheArquivoService(new SimpleMeterRegistry());
+		downloadService = new DownloadService(storageBackend, cacheArquivoService, null);
+
+		documento = new Documento();
+		documento.setId(1L);
+		documento.setNomeArquivo("grande.bin");
+		documento.setCaminhoArquivo("grande.bin");
+	}
+
+	@Test
+	void enviarArquivo_WithCrc32cCheck_ShouldKeepThroughput() throws IOException {
+		// Arrange
+		String crc32c = Integridade.crc32c(CONTEUDO);
+		medirMBps(null);
+
+		// Act
+		double semConferencia = 0;
+		double comConferencia = 0;
+		for (int i = 0; i < RODADAS; i++) {
+			semConferencia = Math.max(semConferencia, medirMBps(null));
+			comConferencia = Math.max(comConferencia, medirMBps(crc32c));
+		}
+
+		System.out.printf("Sem CRC32C:  %.1f MB/s%n", semConferencia);
+		System.out.printf("Com CRC32C:  %.1f MB/s%n", comConferencia);
+
+		// Assert
+		assertTrue(comConferencia > semConferencia * 0.95, "A conferência deve custar menos de 5% da vazão");
+	}
+
+	private double medirMBps(String crc32c) throws IOException {
+		documento.setCrc32c(crc32c);
+		RespostaEmMemoria response = new RespostaEmMemoria();
+		long inicio = System.nanoTime();
+		downloadService.enviarArquivo(documento, new MockHttpServletRequest("GET", "/documentos/1"), response);
+		long nanos = System.nanoTime() - inicio;
+
+		assertArrayEquals(CONTEUDO, response.getContentAsByteArray());
+		return TAMANHO_OBJETO / (1024.0 * 1024.0) / (nanos / 1e9);
+	}
+}
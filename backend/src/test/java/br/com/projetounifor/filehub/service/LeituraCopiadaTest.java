@@ -0,0 +1,65 @@
+package br.com.projetounifor.filehub.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LeituraCopiadaTest {
+
+	private static final byte[] CONTEUDO = new byte[200_000];
+
+	static {
+		new Random(11).nextBytes(CONTEUDO);
+	}
+
+	private static class CopiaFechavel extends ByteArrayOutputStream {
+		boolean fechada;
+
+		@Override
+		public void close() {
+			fechada = true;
+		}
+	}
+
+	@Test
+	void transferTo_ShouldDeliverAndCopyEveryByte() throws IOException {
+		// Arrange
+		CopiaFechavel copia = new CopiaFechavel();
+		ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+		// Act
+		try (InputStream inputStream = new LeituraCopiada(new ByteArrayInputStream(CONTEUDO), copia)) {
+			inputStream.transferTo(saida);
+		}
+
+		// Assert
+		assertArrayEquals(CONTEUDO, saida.toByteArray());
+		assertArrayEquals(CONTEUDO, copia.toByteArray());
+		assertTrue(copia.fechada, "Fechar a leitura deve fechar a cópia");
+	}
+
+	@Test
+	void read_ShouldCopyOnlyTheBytesDelivered() throws IOException {
+		// Arrange
+		CopiaFechavel copia = new CopiaFechavel();
+		InputStream inputStream = new LeituraCopiada(new ByteArrayInputStream(CONTEUDO), copia);
+
+		// Act
+		byte[] lidos = new byte[1000];
+		int n = inputStream.read(lidos, 0, lidos.length);
+		int unico = inputStream.read();
+
+		// Assert
+		byte[] esperado = new byte[n + 1];
+		System.arraycopy(CONTEUDO, 0, esperado, 0, n + 1);
+		assertArrayEquals(esperado, copia.toByteArray());
+		assertTrue(unico == (CONTEUDO[n] & 0xff));
+	}
+}
@@ -0,0 +1,158 @@
+package br.com.projetounifor.filehub.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+
+class LeituraNaoBloqueanteTest {
+
+	private EntradaControlada entrada;
+	private AssinanteManual assinante;
+	private LeituraNaoBloqueante leitura;
+
+	@BeforeEach
+	void setUp() {
+		entrada = new EntradaControlada("conteudo do arquivo".getBytes(StandardCharsets.UTF_8));
+		assinante = new AssinanteManual();
+		leitura = new LeituraNaoBloqueante(entrada);
+	}
+
+	@Test
+	void subscribe_WithoutDemand_ShouldNotReadFromSocket() throws IOException {
+		// Act
+		leitura.subscribe(assinante);
+		entrada.listener.onDataAvailable();
+
+		// Assert
+		assertEquals(0, assinante.recebido.size(), "Sem demanda nada deve ser lido");
+		assertEquals(19, entrada.conteudo.available(), "O corpo deve continuar no socket");
+	}
+
+	@Test
+	void request_ShouldPublishBodyAndComplete() {
+		// Arrange
+		leitura.subscribe(assinante);
+
+		// Act
+		assinante.assinatura.request(Long.MAX_VALUE);
+
+		// Assert
+		assertEquals("conteudo do arquivo", assinante.recebido.toString(StandardCharsets.UTF_8));
+		assertTrue(assinante.concluido, "O publisher deve concluir ao fim do corpo");
+	}
+
+	@Test
+	void request_WhenSocketIsNotReady_ShouldResumeOnDataAvailable() throws IOException {
+		// Arrange
+		leitura.subscribe(assinante);
+		entrada.pronto = false;
+
+		// Act
+		assinante.assinatura.request(Long.MAX_VALUE);
+
+		// Assert
+		assertEquals(0, assinante.recebido.size());
+		assertFalse(assinante.concluido);
+
+		// Act
+		entrada.pronto = true;
+		entrada.listener.onDataAvailable();
+
+		// Assert
+		assertEquals("conteudo do arquivo", assinante.recebido.toString(StandardCharsets.UTF_8));
+		assertTrue(assinante.concluido);
+	}
+
+	@Test
+	void subscribe_WhenAlreadySubscribed_ShouldFailSecondSubscriber() {
+		// Arrange
+		leitura.subscribe(assinante);
+		AssinanteManual segundo = new AssinanteManual();
+
+		// Act
+		leitura.subscribe(segundo);
+
+		// Assert
+		assertTrue(segundo.erro instanceof IllegalStateException, "O corpo só pode ser lido uma vez");
+	}
+
+	private static class EntradaControlada extends ServletInputStream {
+
+		private final ByteArrayInputStream conteudo;
+		private boolean pronto = true;
+		private ReadListener listener;
+
+		EntradaControlada(byte[] bytes) {
+			conteudo = new ByteArrayInputStream(bytes);
+		}
+
+		@Override
+		public boolean isFinished() {
+			return conteudo.available() == 0;
+		}
+
+		@Override
+		public boolean isReady() {
+			return pronto;
+		}
+
+		@Override
+		public void setReadListener(ReadListener readListener) {
+			listener = readListener;
+		}
+
+		@Override
+		public int read() {
+			return conteudo.read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			return conteudo.read(b, off, len);
+		}
+	}
+
+	private static class AssinanteManual implements Subscriber<ByteBuffer> {
+
+		private final ByteArrayOutputStream recebido = new ByteArrayOutputStream();
+		private Subscription assinatura;
+		private boolean concluido;
+		private Throwable erro;
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			assinatura = s;
+		}
+
+		@Override
+		public void onNext(ByteBuffer buffer) {
+			byte[] bytes = new byte[buffer.remaining()];
+			buffer.get(bytes);
+			recebido.writeBytes(bytes);
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			erro = t;
+		}
+
+		@Override
+		public void onComplete() {
+			concluido = true;
+		}
+	}
+}
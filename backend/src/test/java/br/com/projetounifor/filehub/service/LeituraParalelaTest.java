@@ -0,0 +1,95 @@
+package br.com.projetounifor.filehub.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import br.com.projetounifor.filehub.storage.StorageBackend;
+
+@ExtendWith(MockitoExtension.class)
+class LeituraParalelaTest {
+
+	@Mock
+	private StorageBackend storageBackend;
+
+	private ExecutorService executor;
+	private byte[] conteudo;
+
+	@BeforeEach
+	void setUp() {
+		executor = Executors.newFixedThreadPool(8);
+		conteudo = new byte[100_000];
+		new Random(3).nextBytes(conteudo);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void transferTo_WhenPartsCompleteOutOfOrder_ShouldWriteBytesInOrder() throws IOException {
+		// Arrange
+		AtomicInteger simultaneas = new AtomicInteger();
+		AtomicInteger maximoSimultaneas = new AtomicInteger();
+		when(storageBackend.getRange(eq("grande.bin"), anyLong(), anyLong())).thenAnswer(invocation -> {
+			maximoSimultaneas.accumulateAndGet(simultaneas.incrementAndGet(), Math::max);
+			try {
+				// Latências diferentes fazem as partes terminarem fora de ordem
+				TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextInt(20));
+			} finally {
+				simultaneas.decrementAndGet();
+			}
+			long inicio = invocation.getArgument(1);
+			long fim = invocation.getArgument(2);
+			return new ByteArrayInputStream(Arrays.copyOfRange(conteudo, (int) inicio, (int) fim + 1));
+		});
+		ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+		// Act
+		try (LeituraParalela leitura = new LeituraParalela(storageBackend, "grande.bin", 1_000, 98_999, 4_096, 4,
+				executor)) {
+			leitura.transferTo(saida);
+		}
+
+		// Assert
+		assertArrayEquals(Arrays.copyOfRange(conteudo, 1_000, 99_000), saida.toByteArray());
+		assertTrue(maximoSimultaneas.get() <= 4, "Não deve haver mais partes em andamento que conexões");
+	}
+
+	@Test
+	void read_WhenPartFails_ShouldPropagateError() throws IOException {
+		// Arrange
+		when(storageBackend.getRange(eq("grande.bin"), anyLong(), anyLong()))
+				.thenAnswer(invocation -> new ByteArrayInputStream(conteudo, 0, 10));
+
+		// Act & Assert
+		try (LeituraParalela leitura = new LeituraParalela(storageBackend, "grande.bin", 0, 99_999, 4_096, 2,
+				executor)) {
+			IOException erro = assertThrows(IOException.class, () -> leitura.readAllBytes());
+			assertEquals("Objeto menor que o esperado: grande.bin", erro.getMessage());
+		}
+	}
+}
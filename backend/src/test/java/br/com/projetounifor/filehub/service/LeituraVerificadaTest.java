@@ -0,0 +1,84 @@
+package br.com.projetounifor.filehub.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LeituraVerificadaTest {
+
+	private static final byte[] CONTEUDO = new byte[200_000];
+
+	static {
+		new Random(7).nextBytes(CONTEUDO);
+	}
+
+	private static byte[] corrompido() {
+		byte[] bytes = CONTEUDO.clone();
+		bytes[100_000] ^= 1;
+		return bytes;
+	}
+
+	@Test
+	void read_WhenCrc32cMatches_ShouldDeliverAllBytes() throws IOException {
+		// Arrange
+		InputStream inputStream = new LeituraVerificada(new ByteArrayInputStream(CONTEUDO),
+				Integridade.crc32c(CONTEUDO));
+
+		// Act
+		ByteArrayOutputStream lido = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1000];
+		int n;
+		while ((n = inputStream.read(buffer, 0, buffer.length)) != -1) {
+			lido.write(buffer, 0, n);
+		}
+
+		// Assert
+		assertArrayEquals(CONTEUDO, lido.toByteArray());
+		assertEquals(-1, inputStream.read());
+	}
+
+	@Test
+	void read_WhenCrc32cDoesNotMatch_ShouldFailBeforeLastByte() {
+		// Arrange
+		InputStream inputStream = new LeituraVerificada(new ByteArrayInputStream(corrompido()),
+				Integridade.crc32c(CONTEUDO));
+		byte[] buffer = new byte[1000];
+		long[] entregues = { 0 };
+
+		// Act & Assert
+		assertThrows(IOException.class, () -> {
+			int n;
+			while ((n = inputStream.read(buffer, 0, buffer.length)) != -1) {
+				entregues[0] += n;
+			}
+		});
+		assertEquals(CONTEUDO.length - 1, entregues[0], "O último byte só é entregue depois da conferência");
+	}
+
+	@Test
+	void transferTo_WhenCrc32cDoesNotMatch_ShouldFailBeforeLastByte() throws IOException {
+		// Arrange
+		ByteArrayOutputStream saida = new ByteArrayOutputStream();
+		InputStream integro = new LeituraVerificada(new ByteArrayInputStream(CONTEUDO), Integridade.crc32c(CONTEUDO));
+		InputStream corrompido = new LeituraVerificada(new ByteArrayInputStream(corrompido()),
+				Integridade.crc32c(CONTEUDO));
+
+		// Act
+		long transferidos = integro.transferTo(saida);
+		ByteArrayOutputStream truncada = new ByteArrayOutputStream();
+
+		// Assert
+		assertEquals(CONTEUDO.length, transferidos);
+		assertArrayEquals(CONTEUDO, saida.toByteArray());
+		assertThrows(IOException.class, () -> corrompido.transferTo(truncada));
+		assertEquals(CONTEUDO.length - 1, truncada.size());
+	}
+}
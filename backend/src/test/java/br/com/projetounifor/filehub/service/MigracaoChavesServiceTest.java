@@ -0,0 +1,165 @@
+package br.com.projetounifor.filehub.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import br.com.projetounifor.filehub.domain.model.Documento;
+import br.com.projetounifor.filehub.domain.model.ObjetoDescartado;
+import br.com.projetounifor.filehub.domain.model.Projeto;
+import br.com.projetounifor.filehub.domain.model.TarefaAgendada;
+import br.com.projetounifor.filehub.domain.model.enums.StatusDocumento;
+import br.com.projetounifor.filehub.domain.repository.DocumentoRepository;
+import br.com.projetounifor.filehub.domain.repository.ObjetoDescartadoRepository;
+import br.com.projetounifor.filehub.domain.repository.TarefaAgendadaRepository;
+import br.com.projetounifor.filehub.storage.LayoutChaves;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class MigracaoChavesServiceTest {
+
+	@Mock
+	private DocumentoRepository documentoRepository;
+
+	@Mock
+	private ObjetoDescartadoRepository objetoDescartadoRepository;
+
+	@Mock
+	private TarefaAgendadaRepository tarefaAgendadaRepository;
+
+	@Mock
+	private StorageBackend storageBackend;
+
+	private SimpleMeterRegistry meterRegistry;
+	private MigracaoChavesService migracaoChavesService;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		migracaoChavesService = new MigracaoChavesService(documentoRepository, objetoDescartadoRepository,
+				tarefaAgendadaRepository, storageBackend, new LayoutChaves(), meterRegistry);
+		ReflectionTestUtils.setField(migracaoChavesService, "habilitada", true);
+	}
+
+	private void reservar(long ultimoId) {
+		when(tarefaAgendadaRepository.reservar(eq(MigracaoChavesService.TAREFA), any(), any())).thenReturn(1);
+		when(tarefaAgendadaRepository.findById(MigracaoChavesService.TAREFA))
+				.thenReturn(Optional.of(new TarefaAgendada(MigracaoChavesService.TAREFA, ultimoId, null)));
+	}
+
+	private static Documento documento(Long id, String chave) {
+		Projeto projeto = new Projeto();
+		projeto.setId(3L);
+		Documento documento = new Documento();
+		documento.setId(id);
+		documento.setProjeto(projeto);
+		documento.setNomeArquivo("planta.pdf");
+		documento.setVersao(2);
+		documento.setCaminhoArquivo(chave);
+		documento.setStatus(StatusDocumento.APROVADO);
+		return documento;
+	}
+
+	@Test
+	void migrarLote_WhenKeyIsLegacy_ShouldCopyBeforeSwitchingRows() throws IOException {
+		// Arrange
+		reservar(0L);
+		when(documentoRepository.findByIdGreaterThanOrderById(eq(0L), any()))
+				.thenReturn(List.of(documento(10L, "uuidplanta.pdf")));
+
+		// Act
+		migracaoChavesService.migrarLote();
+
+		// Assert
+		ArgumentCaptor<String> nova = ArgumentCaptor.forClass(String.class);
+		InOrder ordem = inOrder(storageBackend, objetoDescartadoRepository, documentoRepository);
+		ordem.verify(storageBackend).copy(eq("uuidplanta.pdf"), nova.capture());
+		ordem.verify(objetoDescartadoRepository).save(any(ObjetoDescartado.class));
+		ordem.verify(documentoRepository).trocarCaminhoArquivo("uuidplanta.pdf", nova.getValue());
+		assertTrue(nova.getValue().matches("[0-9a-f]{2}/p3/d10/v2/planta\\.pdf"), nova.getValue());
+		assertEquals(1.0, meterRegistry.counter("filehub.layout.chaves.migradas").count());
+	}
+
+	@Test
+	void migrarLote_WhenKeyIsContentAddressed_ShouldShardByHash() throws IOException {
+		// Arrange
+		reservar(0L);
+		when(documentoRepository.findByIdGreaterThanOrderById(eq(0L), any()))
+				.thenReturn(List.of(documento(10L, "sha256/c0ffee.gz"), documento(11L, "c0/sha256/c0ffee")));
+
+		// Act
+		migracaoChavesService.migrarLote();
+
+		// Assert
+		verify(storageBackend).copy("sha256/c0ffee.gz", "c0/sha256/c0ffee.gz");
+		verify(documentoRepository).trocarCaminhoArquivo("sha256/c0ffee.gz", "c0/sha256/c0ffee.gz");
+		verify(storageBackend, never()).copy(eq("c0/sha256/c0ffee"), anyString());
+	}
+
+	@Test
+	void migrarLote_WhenDiscardedKeyIsStillReferenced_ShouldSwitchAgainInsteadOfDeleting() throws IOException {
+		// Arrange
+		reservar(0L);
+		ObjetoDescartado descartado = new ObjetoDescartado("uuidplanta.pdf", "ab/p3/d10/v2/planta.pdf",
+				LocalDateTime.now().minusMinutes(1));
+		when(objetoDescartadoRepository.findByDescartarEmBefore(any())).thenReturn(List.of(descartado));
+		when(objetoDescartadoRepository.referenciado("uuidplanta.pdf")).thenReturn(true);
+
+		// Act
+		migracaoChavesService.migrarLote();
+
+		// Assert
+		verify(documentoRepository).trocarCaminhoArquivo("uuidplanta.pdf", "ab/p3/d10/v2/planta.pdf");
+		verify(storageBackend, never()).delete(anyString());
+		assertTrue(descartado.getDescartarEm().isAfter(LocalDateTime.now()), "A exclusão deve ser adiada");
+	}
+
+	@Test
+	void migrarLote_WhenRestarted_ShouldResumeFromPersistedCursor() {
+		// Arrange
+		reservar(10L);
+		when(documentoRepository.findByIdGreaterThanOrderById(eq(10L), any()))
+				.thenReturn(List.of(documento(11L, "c0/sha256/c0ffee")));
+
+		// Act
+		migracaoChavesService.migrarLote();
+
+		// Assert
+		verify(tarefaAgendadaRepository).liberar(MigracaoChavesService.TAREFA, 11L);
+	}
+
+	@Test
+	void migrarLote_WhenAnotherNodeHoldsReservation_ShouldSkipBatch() {
+		// Arrange
+		when(tarefaAgendadaRepository.reservar(eq(MigracaoChavesService.TAREFA), any(), any())).thenReturn(0);
+
+		// Act
+		migracaoChavesService.migrarLote();
+
+		// Assert
+		verifyNoInteractions(documentoRepository, objetoDescartadoRepository, storageBackend);
+		verify(tarefaAgendadaRepository, never()).liberar(anyString(), any());
+	}
+}
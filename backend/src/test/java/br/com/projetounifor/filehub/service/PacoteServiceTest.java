@@ -0,0 +1,245 @@
+package br.com.projetounifor.filehub.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import br.com.projetounifor.filehub.domain.model.ConteudoInline;
+import br.com.projetounifor.filehub.domain.model.Pacote;
+import br.com.projetounifor.filehub.domain.model.enums.StatusPacote;
+import br.com.projetounifor.filehub.domain.repository.ConteudoInlineRepository;
+import br.com.projetounifor.filehub.domain.repository.ConteudoInlineRepository.Pendente;
+import br.com.projetounifor.filehub.domain.repository.PacoteRepository;
+import br.com.projetounifor.filehub.domain.repository.PacoteRepository.BytesVivos;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class PacoteServiceTest {
+
+	@Mock
+	private PacoteRepository pacoteRepository;
+
+	@Mock
+	private ConteudoInlineRepository conteudoInlineRepository;
+
+	@Mock
+	private StorageBackend storageBackend;
+
+	private SimpleMeterRegistry meterRegistry;
+	private PacoteService pacoteService;
+	private ByteArrayOutputStream gravado;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		pacoteService = new PacoteService(pacoteRepository, conteudoInlineRepository, storageBackend, meterRegistry);
+		ReflectionTestUtils.setField(pacoteService, "habilitado", true);
+	}
+
+	private static Pendente pendente(String chave, long tamanho, LocalDateTime criadoEm) {
+		return new Pendente() {
+			@Override
+			public String getChave() {
+				return chave;
+			}
+
+			@Override
+			public Long getTamanho() {
+				return tamanho;
+			}
+
+			@Override
+			public LocalDateTime getCriadoEm() {
+				return criadoEm;
+			}
+		};
+	}
+
+	private static ConteudoInline inline(String chave, String conteudo) {
+		byte[] bytes = conteudo.getBytes(StandardCharsets.UTF_8);
+		return new ConteudoInline(chave, bytes, "text/plain", (long) bytes.length, LocalDateTime.now(), true);
+	}
+
+	// Guarda os bytes enviados ao armazenamento, já que o arquivo temporário do pacote é apagado em seguida
+	private void capturarEnvio() throws IOException {
+		gravado = new ByteArrayOutputStream();
+		when(pacoteRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+		doAnswer(invocation -> {
+			invocation.<InputStream>getArgument(2).transferTo(gravado);
+			return null;
+		}).when(storageBackend).put(anyString(), any(), any(InputStream.class), anyLong());
+	}
+
+	@Test
+	void empacotarPendentes_WhenOldestPassesMaxAge_ShouldUploadPackBeforeMovingEntries() throws IOException {
+		// Arrange
+		capturarEnvio();
+		LocalDateTime antigo = LocalDateTime.now().minusHours(1);
+		when(conteudoInlineRepository.findPendentes(any()))
+				.thenReturn(List.of(pendente("inline/a", 3, antigo), pendente("inline/b", 4, antigo)))
+				.thenReturn(List.of());
+		when(conteudoInlineRepository.reservar(List.of("inline/a", "inline/b")))
+				.thenReturn(List.of("inline/a", "inline/b"));
+		when(conteudoInlineRepository.findById("inline/a")).thenReturn(Optional.of(inline("inline/a", "abc")));
+		when(conteudoInlineRepository.findById("inline/b")).thenReturn(Optional.of(inline("inline/b", "defg")));
+
+		// Act
+		pacoteService.empacotarPendentes();
+
+		// Assert
+		assertArrayEquals("abcdefg".getBytes(StandardCharsets.UTF_8), gravado.toByteArray());
+		ArgumentCaptor<Pacote> pacote = ArgumentCaptor.forClass(Pacote.class);
+		InOrder ordem = inOrder(storageBackend, pacoteRepository);
+		ordem.verify(storageBackend).put(anyString(), any(), any(InputStream.class), eq(7L));
+		ordem.verify(pacoteRepository).save(pacote.capture());
+		String id = pacote.getValue().getId();
+		assertEquals(StatusPacote.ATIVO, pacote.getValue().getStatus());
+		ordem.verify(pacoteRepository).moverEntrada("inline/a", "pacote/" + id + "/0/3/a");
+		ordem.verify(pacoteRepository).moverEntrada("inline/b", "pacote/" + id + "/3/4/b");
+		assertEquals(2.0, meterRegistry.counter("filehub.pacotes.entradas").count());
+	}
+
+	@Test
+	void empacotarPendentes_WhenAnotherNodeReservedSome_ShouldPackOnlyReservedEntries() throws IOException {
+		// Arrange
+		capturarEnvio();
+		LocalDateTime antigo = LocalDateTime.now().minusHours(1);
+		when(conteudoInlineRepository.findPendentes(any()))
+				.thenReturn(List.of(pendente("inline/a", 3, antigo), pendente("inline/b", 4, antigo)))
+				.thenReturn(List.of());
+		when(conteudoInlineRepository.reservar(List.of("inline/a", "inline/b"))).thenReturn(List.of("inline/b"));
+		when(conteudoInlineRepository.findById("inline/b")).thenReturn(Optional.of(inline("inline/b", "defg")));
+
+		// Act
+		pacoteService.empacotarPendentes();
+
+		// Assert
+		assertArrayEquals("defg".getBytes(StandardCharsets.UTF_8), gravado.toByteArray());
+		verify(pacoteRepository, never()).moverEntrada(eq("inline/a"), anyString());
+	}
+
+	@Test
+	void empacotarPendentes_WhenAnotherNodeReservedAll_ShouldNotWritePack() {
+		// Arrange
+		LocalDateTime antigo = LocalDateTime.now().minusHours(1);
+		when(conteudoInlineRepository.findPendentes(any()))
+				.thenReturn(List.of(pendente("inline/a", 3, antigo)));
+		when(conteudoInlineRepository.reservar(List.of("inline/a"))).thenReturn(List.of());
+
+		// Act
+		pacoteService.empacotarPendentes();
+
+		// Assert
+		verifyNoInteractions(storageBackend);
+		verify(pacoteRepository, never()).save(any());
+	}
+
+	@Test
+	void empacotarPendentes_WhenUploadFails_ShouldReturnReservedEntriesToQueue() throws IOException {
+		// Arrange
+		LocalDateTime antigo = LocalDateTime.now().minusHours(1);
+		when(pacoteRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+		when(conteudoInlineRepository.findPendentes(any()))
+				.thenReturn(List.of(pendente("inline/a", 3, antigo)));
+		when(conteudoInlineRepository.reservar(List.of("inline/a"))).thenReturn(List.of("inline/a"));
+		when(conteudoInlineRepository.findById("inline/a")).thenReturn(Optional.of(inline("inline/a", "abc")));
+		doThrow(new IOException("S3 indisponível")).when(storageBackend)
+				.put(anyString(), any(), any(InputStream.class), anyLong());
+
+		// Act
+		pacoteService.empacotarPendentes();
+
+		// Assert
+		verify(conteudoInlineRepository).devolver(Set.of("inline/a"));
+		verify(pacoteRepository, never()).moverEntrada(anyString(), anyString());
+	}
+
+	@Test
+	void empacotarPendentes_WhenPendingIsSmallAndRecent_ShouldWaitForMoreContent() {
+		// Arrange
+		when(conteudoInlineRepository.findPendentes(any()))
+				.thenReturn(List.of(pendente("inline/a", 3, LocalDateTime.now())));
+
+		// Act
+		pacoteService.empacotarPendentes();
+
+		// Assert
+		verifyNoInteractions(storageBackend);
+	}
+
+	@Test
+	void compactar_WhenMostOfPackIsUnreferenced_ShouldRewriteOnlyLiveEntries() throws IOException {
+		// Arrange
+		capturarEnvio();
+		byte[] antigo = new byte[100];
+		for (int i = 0; i < antigo.length; i++) {
+			antigo[i] = (byte) i;
+		}
+		Pacote pacote = new Pacote("p1", 100L, StatusPacote.ATIVO, LocalDateTime.now().minusDays(1), null);
+		when(pacoteRepository.bytesVivos()).thenReturn(List.of(vivos("p1", 10)));
+		when(pacoteRepository.findByStatusAndCriadoEmBefore(eq(StatusPacote.ATIVO), any()))
+				.thenReturn(List.of(pacote));
+		when(pacoteRepository.entradasReferenciadas("pacote/p1/%")).thenReturn(List.of("pacote/p1/40/10/x"));
+		when(storageBackend.get("pacotes/p1")).thenReturn(new ByteArrayInputStream(antigo));
+
+		// Act
+		pacoteService.compactar();
+
+		// Assert
+		byte[] esperado = new byte[10];
+		System.arraycopy(antigo, 40, esperado, 0, 10);
+		assertArrayEquals(esperado, gravado.toByteArray());
+
+		ArgumentCaptor<String> novaChave = ArgumentCaptor.forClass(String.class);
+		verify(pacoteRepository).moverEntrada(eq("pacote/p1/40/10/x"), novaChave.capture());
+		assertTrue(novaChave.getValue().endsWith("/0/10/x"), "A entrada viva deve ir para o início do pacote novo");
+		assertNotNull(pacote.getCompactadoEm(), "O pacote antigo só é apagado depois da retenção");
+		assertEquals(90.0, meterRegistry.counter("filehub.pacotes.bytes.reclaimed").count());
+	}
+
+	private static BytesVivos vivos(String pacote, long bytes) {
+		return new BytesVivos() {
+			@Override
+			public String getPacote() {
+				return pacote;
+			}
+
+			@Override
+			public Long getVivos() {
+				return bytes;
+			}
+		};
+	}
+}
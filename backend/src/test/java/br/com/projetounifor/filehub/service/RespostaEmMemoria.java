@@ -0,0 +1,59 @@
+package br.com.projetounifor.filehub.service;
+
+import java.io.ByteArrayOutputStream;
+
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
+/**
+ * Resposta para os testes de carga. A {@link MockHttpServletResponse} grava o
+ * corpo byte a byte, o que limita a vazão medida a poucos MB/s; aqui cada bloco
+ * vai inteiro para um buffer já do tamanho do Content-Length, e a medição
+ * reflete o armazenamento e não as cópias de um buffer crescendo.
+ */
+class RespostaEmMemoria extends MockHttpServletResponse {
+
+	private ByteArrayOutputStream corpo = new ByteArrayOutputStream();
+
+	private final ServletOutputStream outputStream = new ServletOutputStream() {
+		@Override
+		public void write(int b) {
+			corpo.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			corpo.write(b, off, len);
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			throw new UnsupportedOperationException();
+		}
+	};
+
+	@Override
+	public void setContentLengthLong(long contentLength) {
+		super.setContentLengthLong(contentLength);
+		if (corpo.size() == 0 && contentLength < Integer.MAX_VALUE) {
+			corpo = new ByteArrayOutputStream((int) contentLength);
+		}
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() {
+		return outputStream;
+	}
+
+	@Override
+	public byte[] getContentAsByteArray() {
+		return corpo.toByteArray();
+	}
+}
@@ -0,0 +1,224 @@
+package br.com.projetounifor.filehub.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.CopyPartResult;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartCopyRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartCopyResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+@ExtendWith(MockitoExtension.class)
+class S3ServiceTest {
+
+	@Mock
+	private S3Client s3Client;
+
+	@InjectMocks
+	private S3Service s3Service;
+
+	private ExecutorService executor;
+
+	@BeforeEach
+	void setUp() {
+		executor = Executors.newFixedThreadPool(2);
+		ReflectionTestUtils.setField(s3Service, "multipartExecutor", executor);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void uploadFile_ShouldStreamContentWithoutBufferingOnHeap() throws IOException {
+		// Arrange
+		byte[] conteudo = "Test content".getBytes();
+		MockMultipartFile file = spy(new MockMultipartFile("file", "test.pdf", "application/pdf", conteudo));
+		ArgumentCaptor<PutObjectRequest> requestCaptor = ArgumentCaptor.forClass(PutObjectRequest.class);
+		ArgumentCaptor<RequestBody> bodyCaptor = ArgumentCaptor.forClass(RequestBody.class);
+
+		// Act
+		s3Service.uploadFile("bucket", "key", file);
+
+		// Assert
+		verify(s3Client).putObject(requestCaptor.capture(), bodyCaptor.capture());
+		verify(file, never()).getBytes();
+		assertEquals(conteudo.length, requestCaptor.getValue().contentLength(),
+				"O tamanho do objeto deve ser informado na requisição");
+		assertEquals(conteudo.length, bodyCaptor.getValue().optionalContentLength().orElseThrow(),
+				"O corpo deve usar o tamanho conhecido do arquivo");
+		try (InputStream enviado = bodyCaptor.getValue().contentStreamProvider().newStream()) {
+			assertArrayEquals(conteudo, enviado.readAllBytes(), "O conteúdo enviado deve ser o do arquivo");
+		}
+	}
+
+	@Test
+	void uploadFile_WhenCrc32cIsKnown_ShouldSendItForServerSideCheck() throws IOException {
+		// Arrange
+		byte[] conteudo = "abc".getBytes();
+		ArgumentCaptor<PutObjectRequest> requestCaptor = ArgumentCaptor.forClass(PutObjectRequest.class);
+
+		// Act
+		s3Service.uploadFile("bucket", "key", "text/plain", new ByteArrayInputStream(conteudo), conteudo.length,
+				"Nks/tw==");
+
+		// Assert
+		verify(s3Client).putObject(requestCaptor.capture(), any(RequestBody.class));
+		assertEquals("Nks/tw==", requestCaptor.getValue().checksumCRC32C(),
+				"O S3 deve conferir o conteúdo recebido contra o CRC32C calculado no envio");
+	}
+
+	@Test
+	void uploadFile_AboveThreshold_ShouldUploadPartsAndComplete() throws IOException {
+		// Arrange
+		ReflectionTestUtils.setField(s3Service, "multipartThreshold", DataSize.ofBytes(8));
+		ReflectionTestUtils.setField(s3Service, "multipartPartSize", DataSize.ofBytes(4));
+		MockMultipartFile file = new MockMultipartFile("file", "big.pdf", "application/pdf", "0123456789".getBytes());
+		AtomicInteger etags = new AtomicInteger();
+		when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+				.thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+		when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+				.thenAnswer(inv -> UploadPartResponse.builder().eTag("etag-" + etags.incrementAndGet()).build());
+		ArgumentCaptor<CompleteMultipartUploadRequest> completeCaptor = ArgumentCaptor
+				.forClass(CompleteMultipartUploadRequest.class);
+
+		// Act
+		s3Service.uploadFile("bucket", "key", file);
+
+		// Assert
+		verify(s3Client, times(3)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+		verify(s3Client).completeMultipartUpload(completeCaptor.capture());
+		verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+		List<CompletedPart> partes = completeCaptor.getValue().multipartUpload().parts();
+		assertEquals(List.of(1, 2, 3), partes.stream().map(CompletedPart::partNumber).toList(),
+				"As partes devem ser concluídas em ordem");
+		assertEquals("upload-1", completeCaptor.getValue().uploadId(), "O uploadId deve ser o criado");
+		assertEquals(List.of("BjliuQ==", "atUBkw==", "ZGo0lA=="),
+				partes.stream().map(CompletedPart::checksumCRC32C).toList(), "Cada parte deve levar o seu CRC32C");
+	}
+
+	@Test
+	void uploadFileMultipart_WhenAllSlotsAreBusy_ShouldNotReadNextPart() throws IOException {
+		// Arrange
+		ReflectionTestUtils.setField(s3Service, "multipartPartSize", DataSize.ofBytes(4));
+		ReflectionTestUtils.setField(s3Service, "multipartMaxPartsInFlight", 1);
+		AtomicInteger lidos = new AtomicInteger();
+		InputStream conteudo = new ByteArrayInputStream("0123456789".getBytes()) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				int n = super.read(b, off, len);
+				lidos.addAndGet(Math.max(n, 0));
+				return n;
+			}
+		};
+		List<Integer> lidosNoEnvio = new CopyOnWriteArrayList<>();
+		when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+				.thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+		when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class))).thenAnswer(inv -> {
+			// Dá tempo para a thread do upload ler adiante, se não estivesse esperando a vaga
+			Thread.sleep(100);
+			lidosNoEnvio.add(lidos.get());
+			return UploadPartResponse.builder().eTag("etag").build();
+		});
+
+		// Act
+		s3Service.uploadFileMultipart("bucket", "key", "application/pdf", conteudo);
+
+		// Assert
+		assertEquals(List.of(4, 8, 10), lidosNoEnvio,
+				"Com uma vaga, cada parte só deve ser lida depois que a anterior foi enviada");
+	}
+
+	@Test
+	void uploadFile_WhenPartFails_ShouldAbortUpload() {
+		// Arrange
+		ReflectionTestUtils.setField(s3Service, "multipartThreshold", DataSize.ofBytes(8));
+		ReflectionTestUtils.setField(s3Service, "multipartPartSize", DataSize.ofBytes(4));
+		MockMultipartFile file = new MockMultipartFile("file", "big.pdf", "application/pdf", "0123456789".getBytes());
+		when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+				.thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+		when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+				.thenThrow(S3Exception.builder().message("falha").build());
+
+		// Act & Assert
+		assertThrows(IOException.class, () -> s3Service.uploadFile("bucket", "key", file));
+		verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+		verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+	}
+
+	@Test
+	void copyObject_AboveThreshold_ShouldCopyPartsServerSide() throws IOException {
+		// Arrange
+		ReflectionTestUtils.setField(s3Service, "copiaThreshold", DataSize.ofBytes(8));
+		ReflectionTestUtils.setField(s3Service, "copiaPartSize", DataSize.ofBytes(4));
+		when(s3Client.headObject(any(HeadObjectRequest.class)))
+				.thenReturn(HeadObjectResponse.builder().contentLength(10L).contentType("application/pdf").build());
+		when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+				.thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+		when(s3Client.uploadPartCopy(any(UploadPartCopyRequest.class))).thenAnswer(invocation -> UploadPartCopyResponse
+				.builder()
+				.copyPartResult(CopyPartResult.builder()
+						.eTag("etag-" + invocation.<UploadPartCopyRequest>getArgument(0).partNumber()).build())
+				.build());
+
+		// Act
+		s3Service.copyObject("bucket", "origem", "destino");
+
+		// Assert
+		ArgumentCaptor<UploadPartCopyRequest> copiaCaptor = ArgumentCaptor.forClass(UploadPartCopyRequest.class);
+		verify(s3Client, times(3)).uploadPartCopy(copiaCaptor.capture());
+		assertEquals(List.of("bytes=0-3", "bytes=4-7", "bytes=8-9"), copiaCaptor.getAllValues().stream()
+				.sorted(Comparator.comparing(UploadPartCopyRequest::partNumber))
+				.map(UploadPartCopyRequest::copySourceRange).toList());
+		ArgumentCaptor<CompleteMultipartUploadRequest> completeCaptor = ArgumentCaptor
+				.forClass(CompleteMultipartUploadRequest.class);
+		verify(s3Client).completeMultipartUpload(completeCaptor.capture());
+		assertEquals(List.of("etag-1", "etag-2", "etag-3"),
+				completeCaptor.getValue().multipartUpload().parts().stream().map(CompletedPart::eTag).toList());
+		verify(s3Client, never()).copyObject(any(CopyObjectRequest.class));
+	}
+}
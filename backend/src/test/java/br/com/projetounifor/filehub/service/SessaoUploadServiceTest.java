@@ -0,0 +1,257 @@
+package br.com.projetounifor.filehub.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.access.AccessDeniedException;
+
+import br.com.projetounifor.filehub.domain.model.Documento;
+import br.com.projetounifor.filehub.domain.model.ParteUpload;
+import br.com.projetounifor.filehub.domain.model.Projeto;
+import br.com.projetounifor.filehub.domain.model.SessaoUpload;
+import br.com.projetounifor.filehub.domain.model.Usuario;
+import br.com.projetounifor.filehub.domain.model.enums.StatusSessaoUpload;
+import br.com.projetounifor.filehub.domain.repository.DocumentoRepository;
+import br.com.projetounifor.filehub.domain.repository.ParteUploadRepository;
+import br.com.projetounifor.filehub.domain.repository.ProjetoRepository;
+import br.com.projetounifor.filehub.domain.repository.SessaoUploadRepository;
+import br.com.projetounifor.filehub.domain.repository.UsuarioRepository;
+import br.com.projetounifor.filehub.dto.DocumentoDTO;
+import br.com.projetounifor.filehub.dto.SessaoUploadDTO;
+import br.com.projetounifor.filehub.storage.LayoutChaves;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+
+@ExtendWith(MockitoExtension.class)
+class SessaoUploadServiceTest {
+
+	@Mock
+	private SessaoUploadRepository sessaoUploadRepository;
+
+	@Mock
+	private ParteUploadRepository parteUploadRepository;
+
+	@Mock
+	private DocumentoRepository documentoRepository;
+
+	@Mock
+	private ProjetoRepository projetoRepository;
+
+	@Mock
+	private UsuarioRepository usuarioRepository;
+
+	@Mock
+	private DocumentoService documentoService;
+
+	@Mock
+	private StorageBackend storageBackend;
+
+	@Spy
+	private LayoutChaves layoutChaves = new LayoutChaves();
+
+	@InjectMocks
+	private SessaoUploadService sessaoUploadService;
+
+	private SessaoUpload sessao;
+
+	@BeforeEach
+	void setUp() {
+		Usuario usuario = new Usuario();
+		usuario.setId(2L);
+		Projeto projeto = new Projeto();
+		projeto.setId(1L);
+		sessao = new SessaoUpload();
+		sessao.setId(10L);
+		sessao.setNomeArquivo("planta.dwg");
+		sessao.setCaminhoArquivo("uuidplanta.dwg");
+		sessao.setUploadId("upload-1");
+		sessao.setStatus(StatusSessaoUpload.ABERTA);
+		sessao.setProjeto(projeto);
+		sessao.setCriadoPor(usuario);
+	}
+
+	private ParteUpload parte(int numero) {
+		return parte(numero, 5L);
+	}
+
+	private ParteUpload parte(int numero, long tamanho) {
+		ParteUpload parte = new ParteUpload();
+		parte.setSessao(sessao);
+		parte.setNumero(numero);
+		parte.setEtag("etag-" + numero);
+		parte.setTamanho(tamanho);
+		return parte;
+	}
+
+	@Test
+	void enviarParte_ShouldStorePartInStorageAndRegisterIt() throws IOException {
+		// Arrange
+		when(sessaoUploadRepository.findById(10L)).thenReturn(Optional.of(sessao));
+		when(documentoService.usuarioTemAcesso(sessao.getProjeto(), 2L)).thenReturn(true);
+		when(storageBackend.uploadPart(eq("uuidplanta.dwg"), eq("upload-1"), eq(2), any(), eq(5L)))
+				.thenReturn("etag-2");
+		when(parteUploadRepository.findBySessaoIdAndNumero(10L, 2)).thenReturn(Optional.empty());
+		when(parteUploadRepository.findBySessaoIdOrderByNumero(10L)).thenReturn(List.of(parte(2)));
+
+		// Act
+		SessaoUploadDTO result = sessaoUploadService.enviarParte(10L, 2L, 2,
+				new ByteArrayInputStream("12345".getBytes()), 5L);
+
+		// Assert
+		assertEquals(List.of(2), result.getPartesRecebidas(), "A parte enviada deve constar como recebida");
+		assertEquals(5L, result.getBytesRecebidos(), "Os bytes recebidos devem somar o tamanho das partes");
+		verify(parteUploadRepository, times(1)).save(any(ParteUpload.class));
+	}
+
+	@Test
+	void finalizarSessao_WhenPartIsMissing_ShouldThrowException() throws IOException {
+		// Arrange
+		when(sessaoUploadRepository.findById(10L)).thenReturn(Optional.of(sessao));
+		when(documentoService.usuarioTemAcesso(sessao.getProjeto(), 2L)).thenReturn(true);
+		when(parteUploadRepository.findBySessaoIdOrderByNumero(10L)).thenReturn(List.of(parte(1), parte(3)));
+
+		// Act & Assert
+		IllegalStateException exception = assertThrows(IllegalStateException.class,
+				() -> sessaoUploadService.finalizarSessao(10L, 2L));
+		assertEquals("Parte 2 ainda não foi enviada", exception.getMessage());
+		verify(storageBackend, never()).completeMultipartUpload(anyString(), anyString(), anyList());
+	}
+
+	@Test
+	void finalizarSessao_ShouldCompleteUploadAndCreateDocumento() throws IOException {
+		// Arrange
+		Documento documento = new Documento();
+		documento.setId(5L);
+		DocumentoDTO dto = new DocumentoDTO();
+		dto.setId(5L);
+		when(sessaoUploadRepository.findById(10L)).thenReturn(Optional.of(sessao));
+		when(documentoService.usuarioTemAcesso(sessao.getProjeto(), 2L)).thenReturn(true);
+		when(parteUploadRepository.findBySessaoIdOrderByNumero(10L))
+				.thenReturn(List.of(parte(1, 5L * 1024 * 1024), parte(2)));
+		when(documentoRepository.save(any(Documento.class))).thenReturn(documento);
+		when(documentoService.toDTO(documento)).thenReturn(dto);
+
+		// Act
+		DocumentoDTO result = sessaoUploadService.finalizarSessao(10L, 2L);
+
+		// Assert
+		assertEquals(5L, result.getId(), "O documento criado deve ser retornado");
+		assertEquals(StatusSessaoUpload.CONCLUIDA, sessao.getStatus(), "A sessão deve ser concluída");
+		verify(storageBackend, times(1)).completeMultipartUpload(eq("uuidplanta.dwg"), eq("upload-1"), anyList());
+	}
+
+	@Test
+	void consultarSessao_WhenUserIsNotOwner_ShouldThrowException() {
+		// Arrange
+		when(sessaoUploadRepository.findById(10L)).thenReturn(Optional.of(sessao));
+
+		// Act & Assert
+		assertThrows(RuntimeException.class, () -> sessaoUploadService.consultarSessao(10L, 99L));
+	}
+
+	@Test
+	void consultarSessao_WhenOwnerLeftProject_ShouldThrowAccessDenied() {
+		// Arrange
+		when(sessaoUploadRepository.findById(10L)).thenReturn(Optional.of(sessao));
+		when(documentoService.usuarioTemAcesso(sessao.getProjeto(), 2L)).thenReturn(false);
+
+		// Act & Assert
+		assertThrows(AccessDeniedException.class, () -> sessaoUploadService.consultarSessao(10L, 2L));
+	}
+
+	@Test
+	void criarSessao_WhenUserIsNotInProject_ShouldThrowAccessDenied() throws IOException {
+		// Arrange
+		when(projetoRepository.findById(1L)).thenReturn(Optional.of(sessao.getProjeto()));
+		when(documentoService.usuarioTemAcesso(sessao.getProjeto(), 99L)).thenReturn(false);
+
+		// Act & Assert
+		assertThrows(AccessDeniedException.class,
+				() -> sessaoUploadService.criarSessao(1L, 99L, "planta.dwg", "application/acad"));
+		verify(storageBackend, never()).createMultipartUpload(anyString(), anyString());
+		verify(sessaoUploadRepository, never()).save(any(SessaoUpload.class));
+	}
+
+	@Test
+	void finalizarSessao_WhenNonLastPartIsUnderMinimum_ShouldThrowBeforeCompleting() throws IOException {
+		// Arrange
+		when(sessaoUploadRepository.findById(10L)).thenReturn(Optional.of(sessao));
+		when(documentoService.usuarioTemAcesso(sessao.getProjeto(), 2L)).thenReturn(true);
+		when(parteUploadRepository.findBySessaoIdOrderByNumero(10L)).thenReturn(List.of(parte(1), parte(2)));
+
+		// Act & Assert
+		IllegalStateException exception = assertThrows(IllegalStateException.class,
+				() -> sessaoUploadService.finalizarSessao(10L, 2L));
+		assertEquals("Parte 1 tem menos de 5 MB; só a última parte pode ser menor", exception.getMessage());
+		verify(storageBackend, never()).completeMultipartUpload(anyString(), anyString(), anyList());
+	}
+
+	@Test
+	void enviarParte_WhenSamePartIsRegisteredConcurrently_ShouldUpdateExistingRow() throws IOException {
+		// Arrange
+		ParteUpload existente = parte(2);
+		when(sessaoUploadRepository.findById(10L)).thenReturn(Optional.of(sessao));
+		when(documentoService.usuarioTemAcesso(sessao.getProjeto(), 2L)).thenReturn(true);
+		when(storageBackend.uploadPart(eq("uuidplanta.dwg"), eq("upload-1"), eq(2), any(), eq(5L)))
+				.thenReturn("etag-novo");
+		when(parteUploadRepository.findBySessaoIdAndNumero(10L, 2))
+				.thenReturn(Optional.empty())
+				.thenReturn(Optional.of(existente));
+		when(parteUploadRepository.save(any(ParteUpload.class)))
+				.thenThrow(new DataIntegrityViolationException("uk_parte_upload"))
+				.thenReturn(existente);
+		when(parteUploadRepository.findBySessaoIdOrderByNumero(10L)).thenReturn(List.of(existente));
+
+		// Act
+		SessaoUploadDTO result = sessaoUploadService.enviarParte(10L, 2L, 2,
+				new ByteArrayInputStream("12345".getBytes()), 5L);
+
+		// Assert
+		assertEquals(List.of(2), result.getPartesRecebidas(), "A parte deve constar como recebida");
+		assertEquals("etag-novo", existente.getEtag(), "A linha gravada pelo outro envio deve ser atualizada");
+		verify(parteUploadRepository, times(2)).save(any(ParteUpload.class));
+	}
+
+	@Test
+	void expirarSessoes_ShouldAbortOnlySessionsClosedByThisNode() throws IOException {
+		// Arrange
+		SessaoUpload outra = new SessaoUpload();
+		outra.setId(11L);
+		outra.setCaminhoArquivo("uuidoutra.dwg");
+		outra.setUploadId("upload-2");
+		when(sessaoUploadRepository.findByStatusAndCriadoEmBefore(eq(StatusSessaoUpload.ABERTA),
+				any(LocalDateTime.class))).thenReturn(List.of(sessao, outra));
+		when(sessaoUploadRepository.trocarStatus(10L, StatusSessaoUpload.ABERTA, StatusSessaoUpload.CANCELADA))
+				.thenReturn(1);
+		when(sessaoUploadRepository.trocarStatus(11L, StatusSessaoUpload.ABERTA, StatusSessaoUpload.CANCELADA))
+				.thenReturn(0);
+
+		// Act
+		sessaoUploadService.expirarSessoes();
+
+		// Assert
+		verify(storageBackend, times(1)).abortMultipartUpload("uuidplanta.dwg", "upload-1");
+		verify(storageBackend, never()).abortMultipartUpload("uuidoutra.dwg", "upload-2");
+	}
+}
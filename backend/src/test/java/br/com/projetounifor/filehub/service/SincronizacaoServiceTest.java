@@ -0,0 +1,125 @@
+package br.com.projetounifor.filehub.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import br.com.projetounifor.filehub.domain.model.Documento;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class SincronizacaoServiceTest {
+
+	@Mock
+	private StorageBackend storageBackend;
+
+	@Mock
+	private VersaoService versaoService;
+
+	@TempDir
+	Path tempDir;
+
+	private SimpleMeterRegistry meterRegistry;
+	private SincronizacaoService sincronizacaoService;
+	private Documento doc;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		sincronizacaoService = new SincronizacaoService(storageBackend, versaoService, meterRegistry);
+
+		doc = new Documento();
+		doc.setId(1L);
+		doc.setNomeArquivo("planta.dwg");
+		doc.setCaminhoArquivo("sha256/abc");
+		doc.setHashConteudo("abc");
+	}
+
+	private static byte[] assinaturas(byte[] conteudo) throws IOException {
+		ByteArrayOutputStream saida = new ByteArrayOutputStream();
+		DeltaBinario.assinar(new ByteArrayInputStream(conteudo), saida, 1024);
+		return saida.toByteArray();
+	}
+
+	@Test
+	void enviarDelta_WhenClientHasPreviousVersion_ShouldSendOnlyMissingBlocks() throws IOException {
+		// Arrange
+		byte[] local = new byte[256 * 1024];
+		new Random(7).nextBytes(local);
+		byte[] atual = Arrays.copyOf(local, local.length);
+		byte[] alteracao = "trecho revisado em campo".getBytes(StandardCharsets.UTF_8);
+		System.arraycopy(alteracao, 0, atual, 100_000, alteracao.length);
+		when(storageBackend.get("sha256/abc")).thenReturn(new ByteArrayInputStream(atual));
+
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/documentos/1/sincronizar");
+		request.setContent(assinaturas(local));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		// Act
+		sincronizacaoService.enviarDelta(doc, request, response);
+
+		// Assert
+		assertEquals(200, response.getStatus());
+		assertEquals("\"abc\"", response.getHeader("ETag"));
+		assertTrue(response.getContentAsByteArray().length < atual.length / 50,
+				"Só os blocos alterados devem trafegar");
+
+		Path copiaLocal = Files.write(tempDir.resolve("planta.dwg"), local);
+		ByteArrayOutputStream reconstruido = new ByteArrayOutputStream();
+		DeltaBinario.aplicar(copiaLocal, new ByteArrayInputStream(response.getContentAsByteArray()), reconstruido);
+		assertArrayEquals(atual, reconstruido.toByteArray());
+		assertEquals(atual.length - 1024,
+				meterRegistry.counter("filehub.sincronizacao.bytes", "tipo", "copiado").count());
+	}
+
+	@Test
+	void enviarDelta_WhenSignaturesAreInvalid_ShouldReturnBadRequest() throws IOException {
+		// Arrange
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/documentos/1/sincronizar");
+		request.setContent("não são assinaturas".getBytes(StandardCharsets.UTF_8));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		// Act
+		sincronizacaoService.enviarDelta(doc, request, response);
+
+		// Assert
+		assertEquals(400, response.getStatus());
+		verifyNoInteractions(storageBackend, versaoService);
+	}
+
+	@Test
+	void enviarDelta_WhenClientAlreadyHasVersion_ShouldReturnNotModified() throws IOException {
+		// Arrange
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/documentos/1/sincronizar");
+		request.addHeader("If-None-Match", "\"abc\"");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		// Act
+		sincronizacaoService.enviarDelta(doc, request, response);
+
+		// Assert
+		assertEquals(304, response.getStatus());
+		verifyNoInteractions(storageBackend, versaoService);
+	}
+}
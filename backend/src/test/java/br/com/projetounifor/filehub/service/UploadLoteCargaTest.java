@@ -0,0 +1,211 @@
+package br.com.projetounifor.filehub.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMultipartHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.projetounifor.filehub.controller.DocumentoController;
+import br.com.projetounifor.filehub.domain.model.Documento;
+import br.com.projetounifor.filehub.domain.model.Projeto;
+import br.com.projetounifor.filehub.domain.model.Usuario;
+import br.com.projetounifor.filehub.domain.repository.ConteudoArquivoRepository;
+import br.com.projetounifor.filehub.domain.repository.DocumentoRemovidoRepository;
+import br.com.projetounifor.filehub.domain.repository.DocumentoRepository;
+import br.com.projetounifor.filehub.domain.repository.ProjetoRepository;
+import br.com.projetounifor.filehub.domain.repository.UsuarioRepository;
+import br.com.projetounifor.filehub.storage.LayoutChaves;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Teste de carga comparando o envio de vários arquivos por requisições
+ * individuais a {@code /documentos/submeter}, feitas com as conexões
+ * simultâneas de um navegador, com uma única requisição a
+ * {@code /documentos/submeter-lote}, cujo pool tem o mesmo número de threads.
+ * As requisições passam pelo controlador e pelo parse do multipart
+ * (MockMvc). O S3 é simulado com uma latência fixa por requisição e o banco
+ * com uma latência menor por consulta; o {@code saveAll} custa uma ida ao
+ * banco por lote JDBC. Os tempos vão para o log, sem afirmar qual caminho é
+ * mais rápido. Executar com {@code mvn test -Dfilehub.teste-carga=true}.
+ */
+@EnabledIfSystemProperty(named = "filehub.teste-carga", matches = "true")
+class UploadLoteCargaTest {
+
+	private static final Logger log = LoggerFactory.getLogger(UploadLoteCargaTest.class);
+
+	private static final int ARQUIVOS = 200;
+	private static final int TAMANHO_ARQUIVO = 64 * 1024;
+	private static final long LATENCIA_S3_MS = 20;
+	private static final long LATENCIA_BANCO_MS = 2;
+	// hibernate.jdbc.batch_size do application.properties
+	private static final int LOTE_JDBC = 50;
+	// Conexões HTTP/1.1 simultâneas de um navegador, e também as threads do pool do lote
+	private static final int CONCORRENCIA = 6;
+
+	@Test
+	void submeterLote_ShouldReportTimeAgainstIndividualRequestsAtSameConcurrency() throws Exception {
+		// Arrange
+		List<MockMultipartFile> arquivos = arquivos();
+
+		// Act
+		double individualMs = medirIndividual(arquivos);
+		double loteMs = medirLote(arquivos);
+
+		// Assert: cada medição já confere as respostas; os tempos só são relatados
+		log.info("{} arquivos, uma requisição cada, {} conexões: {} ms", ARQUIVOS, CONCORRENCIA,
+				Math.round(individualMs));
+		log.info("{} arquivos em uma requisição, {} threads:     {} ms", ARQUIVOS, CONCORRENCIA, Math.round(loteMs));
+	}
+
+	private double medirIndividual(List<MockMultipartFile> arquivos) throws Exception {
+		DocumentoService documentoService = documentoService();
+		MockMvc mockMvc = mockMvc(documentoService);
+		ExecutorService clientes = Executors.newFixedThreadPool(CONCORRENCIA);
+		try {
+			long inicio = System.nanoTime();
+			List<Future<?>> envios = new ArrayList<>();
+			for (MockMultipartFile arquivo : arquivos) {
+				MockMultipartFile file = new MockMultipartFile("file", arquivo.getOriginalFilename(),
+						arquivo.getContentType(), arquivo.getBytes());
+				envios.add(clientes.submit(() -> mockMvc.perform(multipart("/documentos/submeter").file(file)
+						.param("projetoId", "1").param("usuarioId", "2"))
+						.andExpect(status().isOk())));
+			}
+			for (Future<?> envio : envios) {
+				envio.get();
+			}
+			return (System.nanoTime() - inicio) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+		} finally {
+			clientes.shutdownNow();
+			documentoService.shutdown();
+		}
+	}
+
+	private double medirLote(List<MockMultipartFile> arquivos) throws Exception {
+		DocumentoService documentoService = documentoService();
+		MockMvc mockMvc = mockMvc(documentoService);
+		try {
+			MockMultipartHttpServletRequestBuilder requisicao = multipart("/documentos/submeter-lote");
+			arquivos.forEach(requisicao::file);
+
+			long inicio = System.nanoTime();
+			mockMvc.perform(requisicao.param("projetoId", "1").param("usuarioId", "2"))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.length()").value(ARQUIVOS))
+					.andExpect(jsonPath("$[?(@.erro != null)]").isEmpty());
+			return (System.nanoTime() - inicio) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+		} finally {
+			documentoService.shutdown();
+		}
+	}
+
+	private static MockMvc mockMvc(DocumentoService documentoService) {
+		return MockMvcBuilders.standaloneSetup(new DocumentoController(documentoService, null, null, null, null,
+				new ObjectMapper())).build();
+	}
+
+	private static List<MockMultipartFile> arquivos() {
+		Random random = new Random(3);
+		List<MockMultipartFile> arquivos = new ArrayList<>(ARQUIVOS);
+		for (int i = 0; i < ARQUIVOS; i++) {
+			byte[] conteudo = new byte[TAMANHO_ARQUIVO];
+			random.nextBytes(conteudo);
+			arquivos.add(new MockMultipartFile("files", "arquivo" + i + ".bin", "application/octet-stream",
+					conteudo));
+		}
+		return arquivos;
+	}
+
+	private static DocumentoService documentoService() throws IOException {
+		Projeto projeto = new Projeto();
+		projeto.setId(1L);
+		Usuario usuario = new Usuario();
+		usuario.setId(2L);
+
+		ProjetoRepository projetoRepository = mock(ProjetoRepository.class);
+		when(projetoRepository.findById(1L)).thenAnswer(invocation -> {
+			esperar(LATENCIA_BANCO_MS);
+			return Optional.of(projeto);
+		});
+		UsuarioRepository usuarioRepository = mock(UsuarioRepository.class);
+		when(usuarioRepository.findById(2L)).thenAnswer(invocation -> {
+			esperar(LATENCIA_BANCO_MS);
+			return Optional.of(usuario);
+		});
+		DocumentoRepository documentoRepository = mock(DocumentoRepository.class);
+		when(documentoRepository.save(any(Documento.class))).thenAnswer(invocation -> {
+			esperar(LATENCIA_BANCO_MS);
+			return invocation.getArgument(0);
+		});
+		when(documentoRepository.saveAll(anyList())).thenAnswer(invocation -> {
+			List<Documento> documentos = invocation.getArgument(0);
+			esperar(LATENCIA_BANCO_MS * Math.max(1, (documentos.size() + LOTE_JDBC - 1) / LOTE_JDBC));
+			return documentos;
+		});
+
+		ConteudoArquivoRepository conteudoArquivoRepository = mock(ConteudoArquivoRepository.class);
+		when(conteudoArquivoRepository.findById(anyString())).thenAnswer(invocation -> {
+			esperar(LATENCIA_BANCO_MS);
+			return Optional.empty();
+		});
+		when(conteudoArquivoRepository.registrar(anyString(), anyLong(), anyString(), any())).thenAnswer(invocation -> {
+			esperar(LATENCIA_BANCO_MS);
+			return 1;
+		});
+
+		StorageBackend storageBackend = mock(StorageBackend.class);
+		doAnswer(invocation -> {
+			esperar(LATENCIA_S3_MS);
+			return null;
+		}).when(storageBackend).put(anyString(), anyString(), any(InputStream.class), anyLong(), any());
+
+		ConteudoService conteudoService = new ConteudoService(conteudoArquivoRepository, storageBackend, null,
+				new LayoutChaves(), new SimpleMeterRegistry());
+		DocumentoService documentoService = new DocumentoService(documentoRepository,
+				mock(DocumentoRemovidoRepository.class), projetoRepository, usuarioRepository, storageBackend, null,
+				conteudoService, null, new LayoutChaves());
+		ReflectionTestUtils.setField(documentoService, "threadsLote", CONCORRENCIA);
+		documentoService.init();
+		return documentoService;
+	}
+
+	private static void esperar(long ms) throws InterruptedIOException {
+		try {
+			Thread.sleep(ms);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+	}
+}
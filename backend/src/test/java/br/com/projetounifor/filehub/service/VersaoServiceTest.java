@@ -0,0 +1,217 @@
+package br.com.projetounifor.filehub.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import br.com.projetounifor.filehub.domain.model.Documento;
+import br.com.projetounifor.filehub.domain.model.enums.StatusDocumento;
+import br.com.projetounifor.filehub.domain.repository.DocumentoRepository;
+import br.com.projetounifor.filehub.service.VersaoService.VersaoReconstruida;
+import br.com.projetounifor.filehub.storage.StorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class VersaoServiceTest {
+
+	@Mock
+	private DocumentoRepository documentoRepository;
+
+	@Mock
+	private StorageBackend storageBackend;
+
+	@Mock
+	private CacheArquivoService cacheArquivoService;
+
+	@TempDir
+	Path tempDir;
+
+	private final Map<String, byte[]> objetos = new HashMap<>();
+	private SimpleMeterRegistry meterRegistry;
+	private VersaoService versaoService;
+	private byte[] original;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		meterRegistry = new SimpleMeterRegistry();
+		versaoService = new VersaoService(documentoRepository, storageBackend, cacheArquivoService, meterRegistry);
+		ReflectionTestUtils.setField(versaoService, "habilitado", true);
+		ReflectionTestUtils.setField(versaoService, "diretorio", tempDir.toString());
+		ReflectionTestUtils.setField(versaoService, "tamanhoMinimo", DataSize.ofKilobytes(1));
+		ReflectionTestUtils.setField(versaoService, "tamanhoBloco", DataSize.ofKilobytes(1));
+		ReflectionTestUtils.setField(versaoService, "intervaloSnapshot", 4);
+		versaoService.init();
+
+		// Armazenamento em memória
+		lenient().doAnswer(invocation -> {
+			objetos.put(invocation.getArgument(0), ((InputStream) invocation.getArgument(2)).readAllBytes());
+			return null;
+		}).when(storageBackend).put(anyString(), anyString(), any(InputStream.class), anyLong());
+		lenient().when(storageBackend.get(anyString()))
+				.thenAnswer(invocation -> new ByteArrayInputStream(objetos.get(invocation.getArgument(0))));
+
+		original = new byte[64 * 1024];
+		new Random(42).nextBytes(original);
+	}
+
+	private Documento versao(Long id, String chave, byte[] conteudo) {
+		Documento documento = new Documento();
+		documento.setId(id);
+		documento.setNomeArquivo("relatorio.pdf");
+		documento.setCaminhoArquivo(chave);
+		documento.setHashConteudo(sha256(conteudo));
+		documento.setStatus(StatusDocumento.PENDENTE);
+		documento.setCriadoEm(LocalDateTime.now());
+		return documento;
+	}
+
+	private Documento novaVersao(Documento anterior, Long id, byte[] conteudo) {
+		Documento nova = versao(id, null, conteudo);
+		MockMultipartFile file = new MockMultipartFile("file", "relatorio.pdf", "application/pdf", conteudo);
+		assertTrue(versaoService.armazenarComoDelta(anterior, nova, file), "A versão deve ser gravada como delta");
+		return nova;
+	}
+
+	private static byte[] alterar(byte[] conteudo, int posicao, String texto) {
+		byte[] alterado = Arrays.copyOf(conteudo, conteudo.length);
+		byte[] bytes = texto.getBytes();
+		System.arraycopy(bytes, 0, alterado, posicao, bytes.length);
+		return alterado;
+	}
+
+	private static String sha256(byte[] conteudo) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(conteudo));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Test
+	void armazenarComoDelta_WhenVersionChangesSlightly_ShouldStoreSmallDelta() {
+		// Arrange
+		objetos.put("sha256/v1", original);
+		Documento v1 = versao(1L, "sha256/v1", original);
+		byte[] conteudo = alterar(original, 30_000, "trecho alterado");
+
+		// Act
+		Documento v2 = novaVersao(v1, 2L, conteudo);
+
+		// Assert
+		assertTrue(v2.getCaminhoArquivo().startsWith("delta/"));
+		assertEquals(1L, v2.getVersaoBaseId());
+		assertEquals(1, v2.getProfundidadeDelta());
+		assertTrue(objetos.get(v2.getCaminhoArquivo()).length < conteudo.length / 10,
+				"O delta deve ser muito menor que a versão completa");
+		assertTrue(meterRegistry.counter("filehub.versoes.delta.bytes.saved").count() > conteudo.length * 0.9);
+	}
+
+	@Test
+	void reconstruir_ShouldApplyDeltaChainAndRecordLatencyByChainLength() throws IOException {
+		// Arrange
+		objetos.put("sha256/v1", original);
+		Documento v1 = versao(1L, "sha256/v1", original);
+		when(documentoRepository.findById(1L)).thenReturn(Optional.of(v1));
+		byte[] conteudoV2 = alterar(original, 100, "segunda versão");
+		Documento v2 = novaVersao(v1, 2L, conteudoV2);
+		when(documentoRepository.findById(2L)).thenReturn(Optional.of(v2));
+		byte[] conteudoV3 = alterar(conteudoV2, 50_000, "terceira versão");
+		Documento v3 = novaVersao(v2, 3L, conteudoV3);
+
+		// Act
+		VersaoReconstruida reconstruida = versaoService.reconstruir(v3);
+
+		// Assert
+		assertEquals(2, v3.getProfundidadeDelta());
+		assertArrayEquals(conteudoV3, Files.readAllBytes(reconstruida.arquivo().arquivo()));
+		assertTrue(reconstruida.temporaria(), "Com o cache desabilitado o arquivo fica com quem chamou");
+		assertEquals("\"" + v3.getHashConteudo() + "\"", reconstruida.arquivo().etag());
+		assertEquals(1, meterRegistry.timer("filehub.versoes.reconstrucao", "cadeia", "2").count());
+	}
+
+	@Test
+	void reconstruir_WhenContentDoesNotMatchHash_ShouldFail() {
+		// Arrange
+		objetos.put("sha256/v1", original);
+		Documento v1 = versao(1L, "sha256/v1", original);
+		Documento v2 = novaVersao(v1, 2L, alterar(original, 0, "outra"));
+		v2.setHashConteudo(sha256(original));
+		when(documentoRepository.findById(1L)).thenReturn(Optional.of(v1));
+
+		// Act & Assert
+		assertThrows(IOException.class, () -> versaoService.reconstruir(v2));
+	}
+
+	@Test
+	void armazenarComoDelta_WhenChainReachesSnapshotInterval_ShouldStoreFullCopy() {
+		// Arrange
+		Documento anterior = versao(5L, "delta/5", original);
+		anterior.setVersaoBaseId(4L);
+		anterior.setProfundidadeDelta(3);
+		Documento nova = versao(6L, null, original);
+		MockMultipartFile file = new MockMultipartFile("file", "relatorio.pdf", "application/pdf", original);
+
+		// Act
+		boolean delta = versaoService.armazenarComoDelta(anterior, nova, file);
+
+		// Assert
+		assertFalse(delta, "A cadeia não pode passar do intervalo de snapshot");
+		assertNull(nova.getVersaoBaseId());
+		assertEquals(1.0, meterRegistry.counter("filehub.versoes.armazenadas", "tipo", "snapshot").count());
+		verifyNoInteractions(storageBackend);
+	}
+
+	@Test
+	void armazenarComoDelta_WhenNotEnabled_ShouldStoreFullCopy() {
+		// Arrange
+		VersaoService padrao = new VersaoService(documentoRepository, storageBackend, cacheArquivoService,
+				meterRegistry);
+		Documento anterior = versao(1L, "v1", original);
+		Documento nova = versao(2L, null, alterar(original, 100, "alterado"));
+		MockMultipartFile file = new MockMultipartFile("file", "relatorio.pdf", "application/pdf",
+				alterar(original, 100, "alterado"));
+
+		// Act
+		boolean delta = padrao.armazenarComoDelta(anterior, nova, file);
+
+		// Assert
+		assertFalse(delta, "Deltas ficam desligados por padrão");
+		assertNull(nova.getVersaoBaseId());
+		verifyNoInteractions(storageBackend, cacheArquivoService);
+	}
+}
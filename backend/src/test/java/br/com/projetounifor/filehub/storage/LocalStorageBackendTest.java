@@ -0,0 +1,42 @@
+package br.com.projetounifor.filehub.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class LocalStorageBackendTest extends StorageBackendConformanceTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Override
+	protected StorageBackend criarBackend() throws IOException {
+		LocalStorageBackend local = new LocalStorageBackend();
+		ReflectionTestUtils.setField(local, "diretorio", tempDir.toString());
+		local.init();
+		return local;
+	}
+
+	@Test
+	void localPath_ShouldExposeStoredFileForSendfile() throws IOException {
+		// Arrange
+		backend.put("uuid/relatorio.pdf", "application/pdf", new ByteArrayInputStream(new byte[10]), 10);
+
+		// Act
+		Optional<Path> arquivo = backend.localPath("uuid/relatorio.pdf");
+
+		// Assert
+		assertTrue(arquivo.isPresent(), "O backend local deve expor o arquivo gravado");
+		assertEquals(10L, Files.size(arquivo.get()));
+		assertTrue(arquivo.get().startsWith(tempDir), "A chave não deve escapar do diretório de armazenamento");
+	}
+}
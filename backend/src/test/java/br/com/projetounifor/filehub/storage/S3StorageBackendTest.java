@@ -0,0 +1,63 @@
+package br.com.projetounifor.filehub.storage;
+
+import java.net.URI;
+
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import br.com.projetounifor.filehub.service.S3AsyncService;
+import br.com.projetounifor.filehub.service.S3Service;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Executa o contrato contra um serviço compatível com S3 (ex.: MinIO), apenas
+ * quando {@code FILEHUB_S3_TEST_ENDPOINT} está definido.
+ */
+@EnabledIfEnvironmentVariable(named = "FILEHUB_S3_TEST_ENDPOINT", matches = ".+")
+class S3StorageBackendTest extends StorageBackendConformanceTest {
+
+	private static String env(String nome, String padrao) {
+		String valor = System.getenv(nome);
+		return valor != null && !valor.isBlank() ? valor : padrao;
+	}
+
+	@Override
+	protected StorageBackend criarBackend() {
+		String bucket = env("FILEHUB_S3_TEST_BUCKET", "filehub-conformidade");
+		URI endpoint = URI.create(System.getenv("FILEHUB_S3_TEST_ENDPOINT"));
+		StaticCredentialsProvider credenciais = StaticCredentialsProvider.create(AwsBasicCredentials.create(
+				env("FILEHUB_S3_TEST_ACCESS_KEY", "minioadmin"),
+				env("FILEHUB_S3_TEST_SECRET_KEY", "minioadmin")));
+		S3Client s3Client = S3Client.builder()
+				.region(Region.US_EAST_1)
+				.endpointOverride(endpoint)
+				.forcePathStyle(true)
+				.credentialsProvider(credenciais)
+				.build();
+		S3AsyncClient s3AsyncClient = S3AsyncClient.builder()
+				.region(Region.US_EAST_1)
+				.endpointOverride(endpoint)
+				.forcePathStyle(true)
+				.credentialsProvider(credenciais)
+				.build();
+
+		try {
+			s3Client.headBucket(b -> b.bucket(bucket));
+		} catch (S3Exception e) {
+			if (e.statusCode() != 404) {
+				throw e;
+			}
+			s3Client.createBucket(b -> b.bucket(bucket));
+		}
+
+		S3StorageBackend s3 = new S3StorageBackend(new S3Service(s3Client, null),
+				new S3AsyncService(s3AsyncClient));
+		ReflectionTestUtils.setField(s3, "bucket", bucket);
+		return s3;
+	}
+}
@@ -0,0 +1,294 @@
+package br.com.projetounifor.filehub.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+
+/**
+ * Contrato comum dos backends de armazenamento. Cada implementação estende
+ * esta classe e fornece uma instância pronta para uso em {@link #criarBackend()}.
+ */
+abstract class StorageBackendConformanceTest {
+
+	// O S3 exige pelo menos 5 MB em todas as partes, exceto a última
+	private static final int TAMANHO_PARTE = 5 * 1024 * 1024;
+	private static final int TAMANHO_THROUGHPUT = 32 * 1024 * 1024;
+
+	protected StorageBackend backend;
+
+	protected abstract StorageBackend criarBackend() throws Exception;
+
+	@BeforeEach
+	void setUpBackend() throws Exception {
+		backend = criarBackend();
+	}
+
+	private static String chave() {
+		return UUID.randomUUID() + "conformidade.bin";
+	}
+
+	private static byte[] conteudo(int tamanho) {
+		byte[] bytes = new byte[tamanho];
+		new Random(tamanho).nextBytes(bytes);
+		return bytes;
+	}
+
+	private static byte[] ler(InputStream inputStream) throws IOException {
+		try (inputStream) {
+			return inputStream.readAllBytes();
+		}
+	}
+
+	@Test
+	void put_ShouldStoreContentReadableByGet() throws IOException {
+		// Arrange
+		String chave = chave();
+		byte[] bytes = conteudo(1000);
+
+		// Act
+		backend.put(chave, "application/octet-stream", new ByteArrayInputStream(bytes), bytes.length);
+
+		// Assert
+		assertArrayEquals(bytes, ler(backend.get(chave)));
+	}
+
+	@Test
+	void head_ShouldReturnSizeAndStableEtag() throws IOException {
+		// Arrange
+		String chave = chave();
+		byte[] bytes = conteudo(1000);
+		backend.put(chave, "application/octet-stream", new ByteArrayInputStream(bytes), bytes.length);
+
+		// Act
+		Optional<StoredObject> primeiro = backend.head(chave);
+		Optional<StoredObject> segundo = backend.head(chave);
+
+		// Assert
+		assertTrue(primeiro.isPresent(), "O objeto gravado deve existir");
+		assertEquals(1000L, primeiro.get().size());
+		assertEquals(primeiro.get().etag(), segundo.get().etag(), "O ETag deve ser estável");
+		assertTrue(primeiro.get().lastModified() > 0);
+	}
+
+	@Test
+	void head_WhenObjectIsMissing_ShouldReturnEmpty() throws IOException {
+		assertFalse(backend.head(chave()).isPresent(), "Um objeto inexistente não deve ser encontrado");
+	}
+
+	@Test
+	void getRange_ShouldReturnInclusiveSlice() throws IOException {
+		// Arrange
+		String chave = chave();
+		byte[] bytes = conteudo(1000);
+		backend.put(chave, "application/octet-stream", new ByteArrayInputStream(bytes), bytes.length);
+
+		// Act
+		byte[] faixa = ler(backend.getRange(chave, 100, 199));
+
+		// Assert
+		assertArrayEquals(Arrays.copyOfRange(bytes, 100, 200), faixa);
+	}
+
+	@Test
+	void put_WhenStreamIsShorterThanSize_ShouldFailWithoutCreatingObject() {
+		// Arrange
+		String chave = chave();
+
+		// Act & Assert
+		assertThrows(Exception.class,
+				() -> backend.put(chave, "application/octet-stream", new ByteArrayInputStream(new byte[10]), 20));
+		assertDoesNotExist(chave);
+	}
+
+	@Test
+	void delete_ShouldRemoveObject() throws IOException {
+		// Arrange
+		String chave = chave();
+		backend.put(chave, "application/octet-stream", new ByteArrayInputStream(new byte[10]), 10);
+
+		// Act
+		backend.delete(chave);
+
+		// Assert
+		assertDoesNotExist(chave);
+	}
+
+	@Test
+	void copy_ShouldCreateObjectWithSameContent() throws IOException {
+		// Arrange
+		String origem = chave();
+		String destino = chave();
+		byte[] bytes = conteudo(1000);
+		backend.put(origem, "application/octet-stream", new ByteArrayInputStream(bytes), bytes.length);
+
+		// Act
+		backend.copy(origem, destino);
+		backend.delete(origem);
+
+		// Assert
+		assertArrayEquals(bytes, ler(backend.get(destino)), "A cópia não deve depender do objeto original");
+	}
+
+	@Test
+	void completeMultipartUpload_ShouldConcatenatePartsInOrder() throws IOException {
+		// Arrange
+		String chave = chave();
+		byte[] primeira = conteudo(TAMANHO_PARTE);
+		byte[] segunda = conteudo(100);
+		String uploadId = backend.createMultipartUpload(chave, "application/octet-stream");
+
+		// Partes enviadas fora de ordem, como em um upload retomado
+		String etag2 = backend.uploadPart(chave, uploadId, 2, new ByteArrayInputStream(segunda), segunda.length);
+		String etag1 = backend.uploadPart(chave, uploadId, 1, new ByteArrayInputStream(primeira), primeira.length);
+
+		// Act
+		backend.completeMultipartUpload(chave, uploadId,
+				List.of(new UploadedPart(1, etag1), new UploadedPart(2, etag2)));
+
+		// Assert
+		byte[] esperado = Arrays.copyOf(primeira, primeira.length + segunda.length);
+		System.arraycopy(segunda, 0, esperado, primeira.length, segunda.length);
+		assertArrayEquals(esperado, ler(backend.get(chave)));
+	}
+
+	@Test
+	void abortMultipartUpload_ShouldNotCreateObject() throws IOException {
+		// Arrange
+		String chave = chave();
+		String uploadId = backend.createMultipartUpload(chave, "application/octet-stream");
+		backend.uploadPart(chave, uploadId, 1, new ByteArrayInputStream(new byte[10]), 10);
+
+		// Act
+		backend.abortMultipartUpload(chave, uploadId);
+
+		// Assert
+		assertDoesNotExist(chave);
+	}
+
+	@Test
+	void throughput_ShouldWriteAndReadLargeObject() throws IOException {
+		// Arrange
+		String chave = chave();
+		byte[] bytes = conteudo(TAMANHO_THROUGHPUT);
+
+		// Act
+		long inicio = System.nanoTime();
+		backend.put(chave, "application/octet-stream", new ByteArrayInputStream(bytes), bytes.length);
+		long escrita = System.nanoTime() - inicio;
+
+		inicio = System.nanoTime();
+		long lidos;
+		try (InputStream inputStream = backend.get(chave)) {
+			lidos = inputStream.transferTo(OutputStream.nullOutputStream());
+		}
+		long leitura = System.nanoTime() - inicio;
+
+		// Assert
+		assertEquals(TAMANHO_THROUGHPUT, lidos);
+		System.out.printf("%s: escrita %.1f MB/s, leitura %.1f MB/s%n", backend.getClass().getSimpleName(),
+				mbPorSegundo(escrita), mbPorSegundo(leitura));
+	}
+
+	private static double mbPorSegundo(long nanos) {
+		return (TAMANHO_THROUGHPUT / (1024.0 * 1024.0)) / (nanos / 1_000_000_000.0);
+	}
+
+	@Test
+	void getRangeAsync_ShouldPublishInclusiveSlice() throws Exception {
+		assumeTrue(backend.supportsAsync(), "Backend sem leitura não bloqueante");
+
+		// Arrange
+		String chave = chave();
+		byte[] bytes = conteudo(1000);
+		backend.put(chave, "application/octet-stream", new ByteArrayInputStream(bytes), bytes.length);
+
+		// Act
+		byte[] lidos = coletar(backend.getRangeAsync(chave, 100, 199).get(30, TimeUnit.SECONDS));
+
+		// Assert
+		assertArrayEquals(Arrays.copyOfRange(bytes, 100, 200), lidos);
+	}
+
+	@Test
+	void putAsync_ShouldStoreContentReadableByGet() throws Exception {
+		assumeTrue(backend.supportsAsync(), "Backend sem gravação não bloqueante");
+
+		// Arrange
+		String chave = chave();
+		byte[] bytes = conteudo(1000);
+
+		// Act
+		backend.putAsync(chave, "application/octet-stream", AsyncRequestBody.fromBytes(bytes), bytes.length)
+				.get(30, TimeUnit.SECONDS);
+
+		// Assert
+		assertArrayEquals(bytes, ler(backend.get(chave)));
+	}
+
+	// Pede um bloco por vez, como faz a escrita não bloqueante na resposta
+	private static byte[] coletar(Publisher<ByteBuffer> publisher) throws Exception {
+		ByteArrayOutputStream saida = new ByteArrayOutputStream();
+		CompletableFuture<byte[]> resultado = new CompletableFuture<>();
+		publisher.subscribe(new Subscriber<ByteBuffer>() {
+			private Subscription assinatura;
+
+			@Override
+			public void onSubscribe(Subscription s) {
+				assinatura = s;
+				s.request(1);
+			}
+
+			@Override
+			public void onNext(ByteBuffer buffer) {
+				byte[] bloco = new byte[buffer.remaining()];
+				buffer.get(bloco);
+				saida.writeBytes(bloco);
+				assinatura.request(1);
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				resultado.completeExceptionally(t);
+			}
+
+			@Override
+			public void onComplete() {
+				resultado.complete(saida.toByteArray());
+			}
+		});
+		return resultado.get(30, TimeUnit.SECONDS);
+	}
+
+	private void assertDoesNotExist(String chave) {
+		try {
+			assertFalse(backend.head(chave).isPresent(), "O objeto não deve existir");
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+}
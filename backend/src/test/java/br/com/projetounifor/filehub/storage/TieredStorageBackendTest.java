@@ -0,0 +1,182 @@
+package br.com.projetounifor.filehub.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import br.com.projetounifor.filehub.domain.model.ConteudoInline;
+import br.com.projetounifor.filehub.domain.repository.ConteudoInlineRepository;
+
+@ExtendWith(MockitoExtension.class)
+class TieredStorageBackendTest {
+
+	private static final byte[] CONTEUDO = "nota fiscal 123".getBytes(StandardCharsets.UTF_8);
+
+	@Mock
+	private StorageBackend objetos;
+
+	@Mock
+	private ConteudoInlineRepository conteudoInlineRepository;
+
+	private TieredStorageBackend backend;
+
+	@BeforeEach
+	void setUp() {
+		backend = new TieredStorageBackend(objetos, conteudoInlineRepository);
+	}
+
+	private static ConteudoInline registro() {
+		return new ConteudoInline("inline/abc", CONTEUDO, "text/plain", (long) CONTEUDO.length, LocalDateTime.now(),
+				false);
+	}
+
+	@Test
+	void put_WhenKeyIsInline_ShouldSaveToDatabaseOnly() throws IOException {
+		// Act
+		backend.put("inline/abc", "text/plain", new ByteArrayInputStream(CONTEUDO), CONTEUDO.length);
+
+		// Assert
+		ArgumentCaptor<ConteudoInline> salvo = ArgumentCaptor.forClass(ConteudoInline.class);
+		verify(conteudoInlineRepository).save(salvo.capture());
+		assertEquals("inline/abc", salvo.getValue().getChave());
+		assertArrayEquals(CONTEUDO, salvo.getValue().getConteudo());
+		verifyNoInteractions(objetos);
+	}
+
+	@Test
+	void put_WhenStreamIsShorterThanSize_ShouldFail() {
+		// Act & Assert
+		assertThrows(EOFException.class, () -> backend.put("inline/abc", "text/plain",
+				new ByteArrayInputStream(CONTEUDO), CONTEUDO.length + 1));
+		verifyNoInteractions(conteudoInlineRepository);
+	}
+
+	@Test
+	void getRangeAndHead_WhenKeyIsInline_ShouldServeFromDatabase() throws IOException {
+		// Arrange
+		when(conteudoInlineRepository.findById("inline/abc")).thenReturn(Optional.of(registro()));
+
+		// Act
+		byte[] faixa;
+		try (InputStream inputStream = backend.getRange("inline/abc", 5, 9)) {
+			faixa = inputStream.readAllBytes();
+		}
+		StoredObject metadata = backend.head("inline/abc").orElseThrow();
+
+		// Assert
+		assertEquals("fisca", new String(faixa, StandardCharsets.UTF_8));
+		assertEquals(CONTEUDO.length, metadata.size());
+		assertEquals("\"abc\"", metadata.etag());
+		assertEquals("text/plain", metadata.contentType());
+		verifyNoInteractions(objetos);
+	}
+
+	@Test
+	void getRangeAsync_WhenKeyIsInline_ShouldPublishRangeFromDatabase() throws Exception {
+		// Arrange
+		when(conteudoInlineRepository.findById("inline/abc")).thenReturn(Optional.of(registro()));
+		ByteArrayOutputStream recebido = new ByteArrayOutputStream();
+		CompletableFuture<Void> fim = new CompletableFuture<>();
+
+		// Act
+		backend.getRangeAsync("inline/abc", 5, 9).get().subscribe(new Subscriber<ByteBuffer>() {
+			@Override
+			public void onSubscribe(Subscription subscription) {
+				subscription.request(Long.MAX_VALUE);
+			}
+
+			@Override
+			public void onNext(ByteBuffer buffer) {
+				byte[] bytes = new byte[buffer.remaining()];
+				buffer.get(bytes);
+				recebido.writeBytes(bytes);
+			}
+
+			@Override
+			public void onError(Throwable erro) {
+				fim.completeExceptionally(erro);
+			}
+
+			@Override
+			public void onComplete() {
+				fim.complete(null);
+			}
+		});
+		fim.get(5, TimeUnit.SECONDS);
+
+		// Assert
+		assertEquals("fisca", recebido.toString(StandardCharsets.UTF_8));
+		verifyNoInteractions(objetos);
+	}
+
+	@Test
+	void get_WhenKeyIsNotInline_ShouldDelegateToObjectStorage() throws IOException {
+		// Arrange
+		when(objetos.get("sha256/abc")).thenReturn(new ByteArrayInputStream(CONTEUDO));
+
+		// Act
+		byte[] lido;
+		try (InputStream inputStream = backend.get("sha256/abc")) {
+			lido = inputStream.readAllBytes();
+		}
+
+		// Assert
+		assertArrayEquals(CONTEUDO, lido);
+		verifyNoInteractions(conteudoInlineRepository);
+	}
+
+	@Test
+	void getRange_WhenKeyIsPackEntry_ShouldReadRangeInsidePack() throws IOException {
+		// Arrange
+		when(objetos.getRange("pacotes/p1", 105, 114)).thenReturn(new ByteArrayInputStream(CONTEUDO, 5, 10));
+
+		// Act
+		byte[] faixa;
+		try (InputStream inputStream = backend.getRange("pacote/p1/100/15/abc", 5, 1000)) {
+			faixa = inputStream.readAllBytes();
+		}
+
+		// Assert
+		assertEquals("fiscal 123", new String(faixa, StandardCharsets.UTF_8));
+		verifyNoInteractions(conteudoInlineRepository);
+	}
+
+	@Test
+	void copy_WhenSourceIsInlineAndTargetIsNot_ShouldUploadToObjectStorage() throws IOException {
+		// Arrange
+		when(conteudoInlineRepository.findById("inline/abc")).thenReturn(Optional.of(registro()));
+
+		// Act
+		backend.copy("inline/abc", "uuid-nota.txt");
+
+		// Assert
+		verify(objetos).put(eq("uuid-nota.txt"), eq("text/plain"), any(InputStream.class),
+				eq((long) CONTEUDO.length));
+	}
+}